@@ -0,0 +1,93 @@
+# -*- coding: utf-8 -*-
+"""
+Export model.pkl (CalibratedClassifierCV bọc LightGBM) sang JSON để Spring chấm điểm in-JVM
+(LocalModelClient, model.engine=local).
+
+Input:
+- models/model.pkl            (calibrated model, isotonic)
+- models/feature_schema.json  (thứ tự features)
+- models/demo_scores_head.csv (tuỳ chọn, để xuất fixture parity)
+- data/processed/features.parquet
+
+Output:
+- models/model_dump.json          { feature_names, objective, trees, calibration, ... }
+- models/demo_features_head.csv   (features của các id trong demo_scores_head.csv, cho test parity Java)
+
+Chạy từ thư mục ai/:
+    python .\\scripts\\export_model_dump.py
+"""
+
+import argparse
+import json
+from datetime import datetime
+from pathlib import Path
+
+import joblib
+import pandas as pd
+
+MODELS_DIR_DEFAULT = "./models"
+FEATURES_DEFAULT = "./data/processed/features.parquet"
+
+
+def parse_args():
+    ap = argparse.ArgumentParser(description="Export LightGBM + isotonic calibration to JSON")
+    ap.add_argument("--models", default=MODELS_DIR_DEFAULT, help="Thư mục artifacts (model.pkl, feature_schema.json)")
+    ap.add_argument("--features", default=FEATURES_DEFAULT, help="features.parquet để xuất fixture parity")
+    ap.add_argument("--id", dest="id_col", default="user_id")
+    return ap.parse_args()
+
+
+def unwrap(cal):
+    """Lấy (LGBMClassifier, IsotonicRegression) từ CalibratedClassifierCV(cv='prefit')."""
+    cc = cal.calibrated_classifiers_[0]
+    base = getattr(cc, "estimator", None) or getattr(cc, "base_estimator", None)
+    calibrators = getattr(cc, "calibrators", None) or getattr(cc, "calibrators_", None)
+    if base is None or not calibrators:
+        raise ValueError("model.pkl không phải CalibratedClassifierCV như train_lgbm.py tạo ra")
+    return base, calibrators[0]
+
+
+def main():
+    args = parse_args()
+    models = Path(args.models)
+    cal = joblib.load(models / "model.pkl")
+    base, iso = unwrap(cal)
+
+    booster = base.booster_
+    best_it = int(getattr(base, "best_iteration_", 0) or 0)
+    # predict_proba của LGBMClassifier dùng best_iteration_ khi có early stopping
+    dump = booster.dump_model(num_iteration=best_it if best_it > 0 else None)
+
+    schema = json.loads((models / "feature_schema.json").read_text(encoding="utf-8"))
+    out = {
+        "format": "lightgbm-dump+isotonic/v1",
+        "exported_at": datetime.utcnow().isoformat() + "Z",
+        "model_version": str(int((models / "model.pkl").stat().st_mtime)),
+        "feature_schema_version": schema.get("created_at"),
+        "feature_names": dump["feature_names"],
+        "objective": dump.get("objective", "binary sigmoid:1"),
+        "trees": [t["tree_structure"] for t in dump["tree_info"]],
+        "calibration": {
+            "type": "isotonic",
+            "x": [float(v) for v in iso.X_thresholds_],
+            "y": [float(v) for v in iso.y_thresholds_],
+        },
+    }
+    (models / "model_dump.json").write_text(json.dumps(out), encoding="utf-8")
+    print(f"✅ model_dump.json: {len(out['trees'])} trees, {len(out['feature_names'])} features")
+
+    # Fixture parity: features của các id trong demo_scores_head.csv
+    demo_path = models / "demo_scores_head.csv"
+    feat_path = Path(args.features)
+    if demo_path.exists() and feat_path.exists():
+        demo = pd.read_csv(demo_path)
+        df = pd.read_parquet(feat_path)
+        rows = df[df[args.id_col].isin(demo["id"])].set_index(args.id_col)
+        rows = rows.loc[[i for i in demo["id"] if i in rows.index], dump["feature_names"]]
+        rows.index.name = "id"
+        rows.to_csv(models / "demo_features_head.csv")
+        print(f"✅ demo_features_head.csv: {len(rows)} rows")
+
+
+if __name__ == "__main__":
+    main()
@@ -103,10 +103,13 @@ app.get("/consents/:id/proof", async (req, res) => {
     res.json(ledger.getProof(req.params.id));
 });
 
-// Xem chain & kiểm tra
-app.get("/chain", async (_req, res) => {
+// Xem chain & kiểm tra. ?from=N&limit=M → chỉ trả blocks[N, N+M) (mirror phía Java tail theo trang)
+app.get("/chain", async (req, res) => {
     const ledger = await Ledger.load();
-    res.json({ length: ledger.blocks.length, tip: ledger.tip(), blocks: ledger.blocks });
+    const from = Math.max(0, parseInt(req.query.from, 10) || 0);
+    const limit = Math.max(0, parseInt(req.query.limit, 10) || 0);
+    const blocks = limit ? ledger.blocks.slice(from, from + limit) : ledger.blocks.slice(from);
+    res.json({ length: ledger.blocks.length, tip: ledger.tip(), from, blocks });
 });
 app.get("/chain/verify", async (_req, res) => {
     const ledger = await Ledger.load();
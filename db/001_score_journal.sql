@@ -0,0 +1,39 @@
+-- Write-behind score journal (score.journal.enabled=true, ScoreJournal / RescoreJob).
+-- Chạy cùng đợt triển khai các procedure core.sp_*; ứng dụng không tự tạo bảng.
+
+IF OBJECT_ID(N'core.ScoreJournalApplied', N'U') IS NULL
+    CREATE TABLE core.ScoreJournalApplied (
+        journal_id UNIQUEIDENTIFIER NOT NULL PRIMARY KEY,
+        applied_at DATETIME2 NOT NULL
+    );
+GO
+
+-- Áp một score từ journal đúng một lần: journal_id đã có (replay sau crash) thì bỏ qua.
+-- Tham số giống core.sp_SaveScore, thêm @journal_id.
+CREATE OR ALTER PROCEDURE core.sp_SaveScoreJournaled
+    @journal_id UNIQUEIDENTIFIER,
+    @application_id VARCHAR(36),
+    @consent_id CHAR(64),
+    @tx_hash CHAR(64),
+    @model_version VARCHAR(64),
+    @feature_schema_version VARCHAR(64),
+    @score INT,
+    @pd DECIMAL(9, 6),
+    @decision VARCHAR(16),
+    @top_reasons NVARCHAR(MAX)
+AS
+BEGIN
+    SET NOCOUNT ON;
+    SET XACT_ABORT ON;
+
+    BEGIN TRAN;
+    IF NOT EXISTS (SELECT 1 FROM core.ScoreJournalApplied WITH (UPDLOCK, HOLDLOCK) WHERE journal_id = @journal_id)
+    BEGIN
+        INSERT INTO core.ScoreJournalApplied (journal_id, applied_at) VALUES (@journal_id, SYSUTCDATETIME());
+        EXEC core.sp_SaveScore @application_id = @application_id, @consent_id = @consent_id, @tx_hash = @tx_hash,
+             @model_version = @model_version, @feature_schema_version = @feature_schema_version,
+             @score = @score, @pd = @pd, @decision = @decision, @top_reasons = @top_reasons;
+    END
+    COMMIT;
+END
+GO
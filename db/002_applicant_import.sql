@@ -0,0 +1,70 @@
+-- Import người vay hàng loạt (ApplicantImportService / JdbcApplicantRepository.createApplicants).
+-- Chạy cùng đợt triển khai các procedure core.sp_*; ứng dụng không tự tạo bảng/procedure.
+
+-- Tra natural key khi import: national_id, hoặc email với dòng không có national_id
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = N'IX_Applicants_NationalId'
+                                           AND object_id = OBJECT_ID(N'core.Applicants'))
+    CREATE INDEX IX_Applicants_NationalId ON core.Applicants (national_id) WHERE national_id IS NOT NULL;
+GO
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = N'IX_Applicants_Email'
+                                           AND object_id = OBJECT_ID(N'core.Applicants'))
+    CREATE INDEX IX_Applicants_Email ON core.Applicants (email) WHERE email IS NOT NULL;
+GO
+
+-- Bản set-based của core.sp_CreateApplicant cho các dòng trong #ApplicantStage (bảng tạm của session gọi,
+-- row_no duy nhất, không có hai dòng trùng natural key). Cột ghi và quy tắc trùng phải giữ giống
+-- core.sp_CreateApplicant: dòng có national_id trùng người vay cùng national_id, dòng không có national_id
+-- trùng người vay cùng email; dòng trùng trả về applicant_id sẵn có với existing = 1, không chèn.
+-- Kết quả: một dòng (row_no, applicant_id, existing) cho mỗi dòng của #ApplicantStage.
+CREATE OR ALTER PROCEDURE core.sp_CreateApplicantsBulk
+AS
+BEGIN
+    SET NOCOUNT ON;
+    SET XACT_ABORT ON;
+
+    DECLARE @result TABLE (
+        row_no       INT              NOT NULL PRIMARY KEY,
+        applicant_id UNIQUEIDENTIFIER NOT NULL,
+        existing     BIT              NOT NULL
+    );
+
+    BEGIN TRAN;
+
+    -- UPDLOCK, HOLDLOCK: giữ khoảng key đã tra tới cuối transaction → hai import song song không cùng chèn một người
+    INSERT INTO @result (row_no, applicant_id, existing)
+    SELECT s.row_no, a.applicant_id, 1
+    FROM #ApplicantStage s
+    CROSS APPLY (SELECT TOP (1) x.applicant_id
+                 FROM core.Applicants x WITH (UPDLOCK, HOLDLOCK)
+                 WHERE x.national_id = s.national_id
+                 ORDER BY x.applicant_id) a
+    WHERE s.national_id IS NOT NULL;
+
+    INSERT INTO @result (row_no, applicant_id, existing)
+    SELECT s.row_no, a.applicant_id, 1
+    FROM #ApplicantStage s
+    CROSS APPLY (SELECT TOP (1) x.applicant_id
+                 FROM core.Applicants x WITH (UPDLOCK, HOLDLOCK)
+                 WHERE x.email = s.email
+                 ORDER BY x.applicant_id) a
+    WHERE s.national_id IS NULL AND s.email IS NOT NULL;
+
+    -- MERGE ... ON 1 = 0 chỉ để OUTPUT được tham chiếu cột nguồn (row_no); các dòng trùng đã bị loại ở USING
+    MERGE core.Applicants AS t
+    USING (SELECT s.row_no, s.full_name, s.email, s.phone, s.national_id, s.address
+           FROM #ApplicantStage s
+           WHERE NOT EXISTS (SELECT 1 FROM @result r WHERE r.row_no = s.row_no)) AS s
+    ON 1 = 0
+    WHEN NOT MATCHED THEN
+        INSERT (full_name, email, phone, national_id, address)
+        VALUES (s.full_name, s.email, s.phone, s.national_id, s.address)
+    OUTPUT s.row_no, inserted.applicant_id, 0 INTO @result (row_no, applicant_id, existing);
+
+    COMMIT;
+
+    SELECT row_no, CONVERT(VARCHAR(36), applicant_id) AS applicant_id, existing
+    FROM @result
+    ORDER BY row_no;
+END
+GO
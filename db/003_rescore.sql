@@ -0,0 +1,55 @@
+-- Chấm lại khi đổi model (FeatureCapture / RescoreJob).
+-- Chạy cùng đợt triển khai các procedure core.sp_*; ứng dụng không tự tạo bảng.
+
+IF OBJECT_ID(N'core.ApplicationFeatures', N'U') IS NULL
+    CREATE TABLE core.ApplicationFeatures (
+        application_id         UNIQUEIDENTIFIER NOT NULL PRIMARY KEY,
+        consent_id             NVARCHAR(128)    NOT NULL,
+        tx_hash                NVARCHAR(128)    NULL,
+        feature_schema_version NVARCHAR(64)     NULL,
+        features               NVARCHAR(MAX)    NOT NULL,
+        decision               NVARCHAR(16)     NULL,
+        captured_at            DATETIME2        NOT NULL
+    );
+GO
+
+-- owner/heartbeat_at: lease của instance đang chạy lượt này (RUNNING). Chỉ owner ghi checkpoint/trạng thái;
+-- instance khác chỉ nhận lại lượt chạy khi owner trống hoặc heartbeat đã quá rescore.lease-timeout
+IF OBJECT_ID(N'core.RescoreRuns', N'U') IS NULL
+    CREATE TABLE core.RescoreRuns (
+        run_id       UNIQUEIDENTIFIER NOT NULL PRIMARY KEY,
+        status       VARCHAR(16)      NOT NULL,
+        partitions   INT              NOT NULL,
+        total        BIGINT           NOT NULL,
+        rate         FLOAT            NOT NULL,
+        owner        NVARCHAR(128)    NULL,
+        heartbeat_at DATETIME2        NULL,
+        created_at   DATETIME2        NOT NULL,
+        updated_at   DATETIME2        NOT NULL
+    );
+GO
+
+-- Bảng tạo bởi bản trước (ứng dụng tự tạo, chưa có lease)
+IF COL_LENGTH(N'core.RescoreRuns', N'owner') IS NULL
+    ALTER TABLE core.RescoreRuns ADD owner NVARCHAR(128) NULL, heartbeat_at DATETIME2 NULL;
+GO
+
+-- upper_bound NULL = đoạn cuối, không giới hạn trên (gồm cả hồ sơ có feature sau khi lượt chạy bắt đầu)
+IF OBJECT_ID(N'core.RescoreCheckpoints', N'U') IS NULL
+    CREATE TABLE core.RescoreCheckpoints (
+        run_id       UNIQUEIDENTIFIER NOT NULL,
+        partition_no INT              NOT NULL,
+        lower_bound  UNIQUEIDENTIFIER NULL,
+        upper_bound  UNIQUEIDENTIFIER NULL,
+        last_key     UNIQUEIDENTIFIER NULL,
+        done         BIT              NOT NULL,
+        rows_done    BIGINT           NOT NULL,
+        rows_failed  BIGINT           NOT NULL,
+        rows_skipped BIGINT           NOT NULL,
+        rows_changed BIGINT           NOT NULL,
+        updated_at   DATETIME2        NOT NULL,
+        CONSTRAINT PK_RescoreCheckpoints PRIMARY KEY (run_id, partition_no)
+    );
+ELSE
+    ALTER TABLE core.RescoreCheckpoints ALTER COLUMN upper_bound UNIQUEIDENTIFIER NULL;
+GO
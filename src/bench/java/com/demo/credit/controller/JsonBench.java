@@ -0,0 +1,122 @@
+package com.demo.credit.controller;
+
+import com.demo.credit.config.JacksonConfig;
+import com.demo.credit.repository.ApplicationRepository;
+import com.demo.credit.service.ApplicationListWriter;
+import com.demo.credit.service.FeatureSchema;
+import com.demo.credit.service.FeatureVector;
+import com.demo.credit.service.ScoringService;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON trên các endpoint nóng: serialize {@code SavedScore}, {@code ApplicationDetail},
+ * một dòng {@code GET /applications} (streaming qua {@link ApplicationListWriter.RowWriter})
+ * và parse body {@code features} (mặc định 69 feature) thành {@link FeatureVector}.
+ * Mapper dựng bằng {@link JacksonConfig} như ứng dụng thật.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBench {
+
+    @Param("69")
+    public int featureCount;
+
+    private ObjectWriter writer;
+    private ObjectReader featuresReader;
+    private ScoringService.SavedScore savedScore;
+    private ApplicationRepository.ApplicationDetail detail;
+    private ApplicationRepository.ListRow listRow;
+    private JsonFactory jsonFactory;
+    private final ByteArrayOutputStream listOut = new ByteArrayOutputStream(512);
+    private byte[] featuresBody;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < featureCount; i++) names.add("feature_" + i);
+        // Schema ghi ra file tạm: benchmark không phụ thuộc thư mục chạy
+        Path schemaFile = Files.createTempFile("feature_schema", ".json");
+        new ObjectMapper().writeValue(schemaFile.toFile(), Map.of("features", names));
+        FeatureSchema schema = new FeatureSchema(schemaFile.toString(), "", 0);
+        Files.deleteIfExists(schemaFile);
+        ObjectMapper mapper = new JacksonConfig().objectMapper(schema);
+        writer = mapper.writer();
+        jsonFactory = mapper.getFactory();
+        featuresReader = mapper.readerFor(FeatureVector.class);
+
+        StringBuilder body = new StringBuilder("{");
+        for (int i = 0; i < featureCount; i++) {
+            if (i > 0) body.append(',');
+            body.append('"').append(names.get(i)).append("\":").append(i % 7 == 0 ? "0" : String.valueOf(i * 1234.5));
+        }
+        featuresBody = body.append('}').toString().getBytes();
+
+        LocalDateTime now = LocalDateTime.of(2025, 9, 1, 10, 30, 15);
+        UUID app = UUID.randomUUID();
+        UUID applicant = UUID.randomUUID();
+        String consent = "a3f1c2d4e5b6a7980011223344556677";
+        String tx = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+        savedScore = new ScoringService.SavedScore(712, 0.0123, "APPROVE", "1735689600", "2025-01-01T00:00:00",
+                new String[]{"monthly_income_vnd", "sms_loan_ratio", "age"});
+        detail = new ApplicationRepository.ApplicationDetail(app, "APP-20250901-000123", "SCORED", now, applicant,
+                consent, UUID.randomUUID(), 712, 0.0123, "APPROVE", "[\"monthly_income_vnd\"]", "1735689600",
+                "2025-01-01T00:00:00", tx, now, "ACTIVE", now.plusYears(1), tx);
+        listRow = ApplicationRepository.ListRow.of(new ApplicationRepository.ApplicationListItem(app,
+                "APP-20250901-000123", "SCORED", now, applicant, consent, 712, 0.0123, "APPROVE", now));
+    }
+
+    @Benchmark
+    public byte[] savedScore() throws IOException {
+        return writer.writeValueAsBytes(savedScore);
+    }
+
+    @Benchmark
+    public byte[] applicationDetail() throws IOException {
+        return writer.writeValueAsBytes(detail);
+    }
+
+    // Một generator cho mỗi lần gọi như một response; buffer đích dùng lại
+    @Benchmark
+    public int listRow() throws IOException {
+        listOut.reset();
+        try (JsonGenerator gen = jsonFactory.createGenerator(listOut)) {
+            new ApplicationListWriter.RowWriter(gen).accept(listRow);
+        }
+        return listOut.size();
+    }
+
+    @Benchmark
+    public FeatureVector featuresBody() throws IOException {
+        return featuresReader.readValue(featuresBody);
+    }
+}
@@ -0,0 +1,368 @@
+package com.demo.credit.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load driver cho luồng người vay → consent → hồ sơ → chấm điểm, chạy vào ứng dụng thật
+ * (thường là profile loadtest: repository in-memory + stub model/ledger).
+ * <p>
+ * Open-loop: mỗi luồng được lên lịch theo {@code --rate} cố định, không chờ luồng trước xong;
+ * latency "flow" tính từ thời điểm lẽ ra phải bắt đầu, nên server chậm làm tăng latency chứ không
+ * làm giảm tải (không bị coordinated omission). Nhiều giá trị {@code --rate} = quét tăng dần để
+ * tìm điểm bão hoà.
+ *
+ * <pre>
+ *   java -cp target/benchmarks.jar com.demo.credit.load.LoadDriver \
+ *        --base-url http://127.0.0.1:8080 --ledger-url http://127.0.0.1:13030 \
+ *        --rate 50,100,200,400 --duration 30s --warmup 10s --json target/load.json
+ * </pre>
+ */
+public final class LoadDriver {
+
+    private static final Set<String> IGNORED_FEATURES = Set.of("user_id", "default_90d", "pd_true");
+    private static final List<String> STEPS = List.of("applicant", "ledger-give", "consent", "application", "score", "flow");
+
+    private final Options opt;
+    private final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final HttpClient http;
+    private final ExecutorService httpExecutor;
+    private final List<String> featureNames;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong seq = new AtomicLong();
+
+    private LoadDriver(Options opt) throws IOException {
+        this.opt = opt;
+        this.httpExecutor = Executors.newFixedThreadPool(opt.threads);
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(httpExecutor)
+                .build();
+        this.featureNames = new ArrayList<>();
+        for (JsonNode n : mapper.readTree(opt.schema.toFile()).path("features")) {
+            if (!IGNORED_FEATURES.contains(n.asText())) featureNames.add(n.asText());
+        }
+        if (featureNames.isEmpty()) {
+            throw new IllegalArgumentException("No features in " + opt.schema);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opt = Options.parse(args);
+        LoadDriver driver = new LoadDriver(opt);
+        try {
+            driver.run();
+        } finally {
+            driver.httpExecutor.shutdownNow();
+        }
+    }
+
+    private void run() throws IOException {
+        System.out.printf(Locale.ROOT, "Target %s, features=%d, ledger=%s%n", opt.baseUrl, featureNames.size(),
+                opt.ledgerUrl == null ? "(local ids)" : opt.ledgerUrl);
+        if (!opt.warmup.isZero()) {
+            System.out.printf(Locale.ROOT, "Warmup %s at %d flows/s...%n", opt.warmup, opt.rates.get(0));
+            runStage(opt.rates.get(0), opt.warmup);
+        }
+        List<Map<String, Object>> reports = new ArrayList<>();
+        for (int rate : opt.rates) {
+            Stats stats = runStage(rate, opt.duration);
+            reports.add(stats.report(rate, opt.duration));
+            stats.print(rate, opt.duration);
+        }
+        if (opt.json != null) {
+            mapper.writeValue(opt.json.toFile(), Map.of("baseUrl", opt.baseUrl, "stages", reports));
+            System.out.println("Report written to " + opt.json);
+        }
+    }
+
+    private Stats runStage(int rate, Duration duration) {
+        Stats stats = new Stats();
+        long period = 1_000_000_000L / rate;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        for (long i = 0; ; i++) {
+            long intended = start + i * period;
+            if (intended >= end) break;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+            if (inFlight.get() >= opt.maxInFlight) {
+                // Client không theo kịp → ghi nhận là lỗi, không lùi lịch
+                stats.error("flow", "client max-in-flight");
+                continue;
+            }
+            inFlight.incrementAndGet();
+            flow(stats, intended).whenComplete((r, ex) -> inFlight.decrementAndGet());
+        }
+        long drainDeadline = System.nanoTime() + opt.timeout.toNanos() * 2;
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(10_000_000L);
+        }
+        return stats;
+    }
+
+    private CompletableFuture<Void> flow(Stats stats, long intendedStart) {
+        long n = seq.incrementAndGet();
+        String expiry = LocalDateTime.now(ZoneOffset.UTC).plusYears(1).withNano(0).toString();
+        Map<String, Object> applicant = Map.of(
+                "fullName", "Load Test " + n,
+                "email", "load" + n + "@example.test",
+                "phone", String.format(Locale.ROOT, "09%08d", n % 100_000_000),
+                "nationalId", String.format(Locale.ROOT, "%012d", n),
+                "address", "N/A");
+
+        return post(stats, "applicant", opt.baseUrl + "/applicants", applicant, Map.of())
+                .thenCompose(a -> {
+                    String applicantId = a.path("id").asText();
+                    CompletableFuture<String[]> consent = opt.ledgerUrl == null
+                            ? CompletableFuture.completedFuture(new String[]{hex(64), hex(64)})
+                            : post(stats, "ledger-give", opt.ledgerUrl + "/consents/give", Map.of(
+                                    "scopes", List.of("score"), "expiry", expiry, "dataHash", hex(64)), Map.of())
+                            .thenApply(g -> new String[]{g.path("consentId").asText(), g.path("block").path("hash").asText()});
+                    return consent.thenCompose(c -> post(stats, "consent", opt.baseUrl + "/consents", Map.of(
+                                    "consentId", c[0], "applicantId", applicantId, "expiry", expiry,
+                                    "lastTxHash", c[1], "scopesJson", "[\"score\"]", "status", "ACTIVE"), Map.of())
+                            .thenCompose(x -> post(stats, "application", opt.baseUrl + "/applications", Map.of(
+                                    "applicantId", applicantId, "consentId", c[0]), Map.of()))
+                            .thenCompose(app -> post(stats, "score",
+                                    opt.baseUrl + "/score/" + app.path("id").asText(), Map.of(
+                                            "consentId", c[0], "txHash", c[1], "features", features()),
+                                    Map.of("Idempotency-Key", UUID.randomUUID().toString()))));
+                })
+                .handle((r, ex) -> {
+                    if (ex == null) stats.ok("flow", System.nanoTime() - intendedStart);
+                    else stats.error("flow", "failed at " + failedStep(ex));
+                    return null;
+                });
+    }
+
+    private CompletableFuture<JsonNode> post(Stats stats, String step, String url, Object body,
+                                             Map<String, String> headers) {
+        HttpRequest.Builder req = HttpRequest.newBuilder(URI.create(url))
+                .timeout(opt.timeout)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json");
+        headers.forEach(req::header);
+        try {
+            req.POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body)));
+        } catch (IOException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+        long started = System.nanoTime();
+        return http.sendAsync(req.build(), HttpResponse.BodyHandlers.ofByteArray())
+                .handle((resp, ex) -> {
+                    long took = System.nanoTime() - started;
+                    if (ex != null) {
+                        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                        stats.error(step, cause.getClass().getSimpleName());
+                        throw new StepFailed(step);
+                    }
+                    if (resp.statusCode() / 100 != 2) {
+                        stats.error(step, "HTTP " + resp.statusCode());
+                        throw new StepFailed(step);
+                    }
+                    stats.ok(step, took);
+                    try {
+                        return mapper.readTree(resp.body());
+                    } catch (IOException e) {
+                        stats.error(step, "bad JSON");
+                        throw new StepFailed(step);
+                    }
+                });
+    }
+
+    private Map<String, Double> features() {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        Map<String, Double> f = new HashMap<>(featureNames.size() * 2);
+        for (String name : featureNames) f.put(name, (double) Math.round(rnd.nextDouble(1, 1000) * 100) / 100);
+        return f;
+    }
+
+    private static String hex(int len) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        StringBuilder sb = new StringBuilder(len);
+        for (int i = 0; i < len; i++) sb.append(Character.forDigit(rnd.nextInt(16), 16));
+        return sb.toString();
+    }
+
+    private static String failedStep(Throwable ex) {
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (t instanceof StepFailed f) return f.step;
+        }
+        return ex.getClass().getSimpleName();
+    }
+
+    private static final class StepFailed extends RuntimeException {
+        final String step;
+
+        StepFailed(String step) {
+            super(step, null, false, false);
+            this.step = step;
+        }
+    }
+
+    /** Latency (nano giây) của các lần thành công + đếm lỗi theo nguyên nhân, cho từng bước. */
+    private static final class Stats {
+
+        private final Map<String, long[]> latencies = new HashMap<>();
+        private final Map<String, Integer> counts = new HashMap<>();
+        private final Map<String, Map<String, Long>> errors = new HashMap<>();
+
+        synchronized void ok(String step, long nanos) {
+            int n = counts.getOrDefault(step, 0);
+            long[] arr = latencies.computeIfAbsent(step, k -> new long[1024]);
+            if (n == arr.length) {
+                arr = Arrays.copyOf(arr, n * 2);
+                latencies.put(step, arr);
+            }
+            arr[n] = nanos;
+            counts.put(step, n + 1);
+        }
+
+        synchronized void error(String step, String cause) {
+            errors.computeIfAbsent(step, k -> new TreeMap<>()).merge(cause, 1L, Long::sum);
+        }
+
+        synchronized Map<String, Object> report(int rate, Duration duration) {
+            Map<String, Object> steps = new LinkedHashMap<>();
+            for (String step : STEPS) {
+                int n = counts.getOrDefault(step, 0);
+                Map<String, Long> errs = errors.getOrDefault(step, Map.of());
+                if (n == 0 && errs.isEmpty()) continue;
+                long[] sorted = Arrays.copyOf(latencies.getOrDefault(step, new long[0]), n);
+                Arrays.sort(sorted);
+                Map<String, Object> s = new LinkedHashMap<>();
+                s.put("ok", n);
+                s.put("errors", errs.values().stream().mapToLong(Long::longValue).sum());
+                s.put("throughput", n / (duration.toMillis() / 1000.0));
+                s.put("p50Ms", percentileMs(sorted, 0.50));
+                s.put("p90Ms", percentileMs(sorted, 0.90));
+                s.put("p99Ms", percentileMs(sorted, 0.99));
+                s.put("p999Ms", percentileMs(sorted, 0.999));
+                s.put("maxMs", n == 0 ? 0.0 : sorted[n - 1] / 1e6);
+                s.put("errorBreakdown", errs);
+                steps.put(step, s);
+            }
+            Map<String, Object> out = new LinkedHashMap<>();
+            out.put("targetRate", rate);
+            out.put("durationSeconds", duration.toMillis() / 1000.0);
+            out.put("steps", steps);
+            return out;
+        }
+
+        @SuppressWarnings("unchecked")
+        void print(int rate, Duration duration) {
+            Map<String, Object> r = report(rate, duration);
+            System.out.printf(Locale.ROOT, "%n=== %d flows/s for %s ===%n", rate, duration);
+            System.out.printf(Locale.ROOT, "%-12s %9s %8s %10s %9s %9s %9s %9s %9s%n",
+                    "step", "ok", "errors", "ok/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+            Map<String, Map<String, Object>> steps = (Map<String, Map<String, Object>>) r.get("steps");
+            steps.forEach((step, s) -> System.out.printf(Locale.ROOT,
+                    "%-12s %9d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", step,
+                    s.get("ok"), s.get("errors"), s.get("throughput"), s.get("p50Ms"), s.get("p90Ms"),
+                    s.get("p99Ms"), s.get("p999Ms"), s.get("maxMs")));
+            steps.forEach((step, s) -> ((Map<String, Long>) s.get("errorBreakdown"))
+                    .forEach((cause, n) -> System.out.printf(Locale.ROOT, "  %s: %s x %d%n", step, cause, n)));
+            Map<String, Object> flow = steps.get("flow");
+            double achieved = flow == null ? 0 : (double) flow.get("throughput");
+            long failed = flow == null ? 0 : (long) flow.get("errors");
+            int ok = flow == null ? 0 : (int) flow.get("ok");
+            if (achieved < rate * 0.95 || failed > (ok + failed) * 0.01) {
+                System.out.printf(Locale.ROOT, "  SATURATED: %.1f of %d flows/s completed, %d failed%n",
+                        achieved, rate, failed);
+            }
+        }
+
+        private static double percentileMs(long[] sorted, double p) {
+            if (sorted.length == 0) return 0.0;
+            int idx = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+            return sorted[Math.max(idx, 0)] / 1e6;
+        }
+    }
+
+    private static final class Options {
+        String baseUrl = "http://127.0.0.1:8080";
+        String ledgerUrl;
+        List<Integer> rates = List.of(50);
+        Duration duration = Duration.ofSeconds(30);
+        Duration warmup = Duration.ofSeconds(10);
+        Duration timeout = Duration.ofSeconds(10);
+        int maxInFlight = 2000;
+        int threads = 8;
+        Path schema = Path.of("ai", "models", "feature_schema.json");
+        Path json;
+
+        static Options parse(String[] args) {
+            Options o = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String key = args[i];
+                if (i + 1 >= args.length) throw new IllegalArgumentException("Missing value for " + key);
+                String v = args[++i];
+                switch (key) {
+                    case "--base-url" -> o.baseUrl = stripSlash(v);
+                    case "--ledger-url" -> o.ledgerUrl = stripSlash(v);
+                    case "--rate" -> o.rates = Arrays.stream(v.split(",")).map(String::strip).map(Integer::parseInt).toList();
+                    case "--duration" -> o.duration = duration(v);
+                    case "--warmup" -> o.warmup = duration(v);
+                    case "--timeout" -> o.timeout = duration(v);
+                    case "--max-in-flight" -> o.maxInFlight = Integer.parseInt(v);
+                    case "--threads" -> o.threads = Integer.parseInt(v);
+                    case "--schema" -> o.schema = Path.of(v);
+                    case "--json" -> o.json = Path.of(v);
+                    default -> throw new IllegalArgumentException("Unknown option " + key);
+                }
+            }
+            if (o.rates.isEmpty() || o.rates.stream().anyMatch(r -> r < 1)) {
+                throw new IllegalArgumentException("--rate must be positive");
+            }
+            if (!Files.exists(o.schema)) {
+                throw new IllegalArgumentException("Feature schema not found: " + o.schema.toAbsolutePath());
+            }
+            return o;
+        }
+
+        private static String stripSlash(String url) {
+            return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+        }
+
+        // 500ms | 30s | 2m
+        private static Duration duration(String v) {
+            String s = v.strip().toLowerCase(Locale.ROOT);
+            if (s.endsWith("ms")) return Duration.ofMillis(Long.parseLong(s.substring(0, s.length() - 2)));
+            if (s.endsWith("s")) return Duration.ofSeconds(Long.parseLong(s.substring(0, s.length() - 1)));
+            if (s.endsWith("m")) return Duration.ofMinutes(Long.parseLong(s.substring(0, s.length() - 1)));
+            return Duration.ofSeconds(Long.parseLong(s));
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.demo.credit.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo thời gian khởi động tới lần {@code POST /score} thành công đầu tiên: mỗi lượt chạy ứng dụng trong một
+ * tiến trình mới, gửi luồng người vay → consent → hồ sơ → chấm điểm ngay khi port trả lời, rồi tắt.
+ * Báo cáo theo lượt: {@code upMs} (request đầu tiên thành công), {@code scoreMs} (tới /score thành công,
+ * tính từ lúc tạo tiến trình) và {@code firstScoreMs} (riêng request /score đầu tiên).
+ * <p>
+ * Mặc định chạy profile loadtest (không cần DB / model / ledger). {@code --max-ms}: median {@code scoreMs}
+ * vượt ngưỡng → exit code 1, để bắt regression khởi động trong CI.
+ *
+ * <pre>
+ *   mvn -Pbench -DskipTests package && mvn -Pfaststart -DskipTests package
+ *   # trước: jar Spring Boot thường
+ *   java -cp target/benchmarks.jar com.demo.credit.load.StartupBench \
+ *        --jar target/credit-0.0.1-SNAPSHOT.jar --profiles loadtest --runs 5
+ *   # sau: jar đã tách + AppCDS + profile faststart
+ *   java -cp target/benchmarks.jar com.demo.credit.load.StartupBench \
+ *        --jar target/faststart/credit-0.0.1-SNAPSHOT.jar --profiles loadtest,faststart \
+ *        --jvm-args "-XX:SharedArchiveFile=target/faststart/application.jsa" --runs 5 --max-ms 8000
+ * </pre>
+ */
+public final class StartupBench {
+
+    private static final Set<String> IGNORED_FEATURES = Set.of("user_id", "default_90d", "pd_true");
+
+    private final Options opt;
+    private final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+    private final List<String> featureNames = new ArrayList<>();
+
+    private StartupBench(Options opt) throws IOException {
+        this.opt = opt;
+        for (JsonNode n : mapper.readTree(opt.schema.toFile()).path("features")) {
+            if (!IGNORED_FEATURES.contains(n.asText())) featureNames.add(n.asText());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opt = Options.parse(args);
+        System.exit(new StartupBench(opt).run());
+    }
+
+    private int run() throws Exception {
+        System.out.printf(Locale.ROOT, "%s, profiles=%s, jvm-args=%s, %d run(s)%n", opt.jar, opt.profiles,
+                opt.jvmArgs, opt.runs);
+        List<Map<String, Object>> runs = new ArrayList<>();
+        long[] scoreMs = new long[opt.runs];
+        for (int i = 0; i < opt.runs; i++) {
+            Map<String, Object> r = runOnce(i + 1);
+            runs.add(r);
+            scoreMs[i] = (long) r.get("scoreMs");
+            System.out.printf(Locale.ROOT, "run %d: up %d ms, first /score ok at %d ms (request %d ms)%n",
+                    i + 1, r.get("upMs"), r.get("scoreMs"), r.get("firstScoreMs"));
+        }
+        Arrays.sort(scoreMs);
+        long median = scoreMs[scoreMs.length / 2];
+        System.out.printf(Locale.ROOT, "time-to-first-/score: median %d ms, min %d ms, max %d ms%n",
+                median, scoreMs[0], scoreMs[scoreMs.length - 1]);
+        if (opt.json != null) {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("jar", opt.jar.toString());
+            report.put("profiles", opt.profiles);
+            report.put("jvmArgs", opt.jvmArgs);
+            report.put("medianScoreMs", median);
+            report.put("runs", runs);
+            mapper.writeValue(opt.json.toFile(), report);
+            System.out.println("Report written to " + opt.json);
+        }
+        if (opt.maxMs > 0 && median > opt.maxMs) {
+            System.out.printf(Locale.ROOT, "REGRESSION: median %d ms > --max-ms %d%n", median, opt.maxMs);
+            return 1;
+        }
+        return 0;
+    }
+
+    private Map<String, Object> runOnce(int n) throws Exception {
+        List<String> cmd = new ArrayList<>();
+        cmd.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        cmd.addAll(opt.jvmArgs);
+        cmd.addAll(List.of("-jar", opt.jar.toString(),
+                "--server.port=" + opt.port, "--spring.profiles.active=" + opt.profiles));
+        Path log = Path.of("target", "startup-bench-" + n + ".log");
+        Files.createDirectories(log.getParent());
+
+        long t0 = System.nanoTime();
+        Process app = new ProcessBuilder(cmd).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        try {
+            long deadline = t0 + opt.timeout.toNanos();
+            String base = "http://127.0.0.1:" + opt.port;
+            String expiry = LocalDateTime.now(ZoneOffset.UTC).plusYears(1).withNano(0).toString();
+
+            JsonNode applicant = null;
+            while (applicant == null) {
+                if (!app.isAlive()) throw new IllegalStateException("Application exited, see " + log);
+                if (System.nanoTime() > deadline) throw new IllegalStateException("Not up after " + opt.timeout);
+                applicant = tryPost(base + "/applicants", Map.of(
+                        "fullName", "Startup Bench " + n, "email", "startup" + n + "@example.test",
+                        "phone", "0900000000", "nationalId", "000000000000", "address", "N/A"));
+                if (applicant == null) TimeUnit.MILLISECONDS.sleep(10);
+            }
+            long up = System.nanoTime();
+
+            String consentId = hex(64);
+            String txHash = hex(64);
+            String applicantId = applicant.path("id").asText();
+            post(base + "/consents", Map.of("consentId", consentId, "applicantId", applicantId, "expiry", expiry,
+                    "lastTxHash", txHash, "scopesJson", "[\"score\"]", "status", "ACTIVE"));
+            JsonNode application = post(base + "/applications",
+                    Map.of("applicantId", applicantId, "consentId", consentId));
+
+            long scoreStart = System.nanoTime();
+            post(base + "/score/" + application.path("id").asText(),
+                    Map.of("consentId", consentId, "txHash", txHash, "features", features()));
+            long scored = System.nanoTime();
+
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("upMs", TimeUnit.NANOSECONDS.toMillis(up - t0));
+            r.put("scoreMs", TimeUnit.NANOSECONDS.toMillis(scored - t0));
+            r.put("firstScoreMs", TimeUnit.NANOSECONDS.toMillis(scored - scoreStart));
+            return r;
+        } finally {
+            app.destroy();
+            if (!app.waitFor(20, TimeUnit.SECONDS)) {
+                app.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    // null khi ứng dụng chưa nhận kết nối / chưa sẵn sàng
+    private JsonNode tryPost(String url, Object body) throws IOException, InterruptedException {
+        try {
+            HttpResponse<byte[]> resp = http.send(request(url, body), HttpResponse.BodyHandlers.ofByteArray());
+            return resp.statusCode() / 100 == 2 ? mapper.readTree(resp.body()) : null;
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    private JsonNode post(String url, Object body) throws IOException, InterruptedException {
+        HttpResponse<byte[]> resp = http.send(request(url, body), HttpResponse.BodyHandlers.ofByteArray());
+        if (resp.statusCode() / 100 != 2) {
+            throw new IllegalStateException("POST " + url + " -> HTTP " + resp.statusCode() + ": "
+                    + new String(resp.body()));
+        }
+        return mapper.readTree(resp.body());
+    }
+
+    private HttpRequest request(String url, Object body) throws IOException {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(opt.timeout)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body)))
+                .build();
+    }
+
+    private Map<String, Double> features() {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        Map<String, Double> f = new LinkedHashMap<>();
+        for (String name : featureNames) f.put(name, (double) Math.round(rnd.nextDouble(1, 1000) * 100) / 100);
+        return f;
+    }
+
+    private static String hex(int len) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        StringBuilder sb = new StringBuilder(len);
+        for (int i = 0; i < len; i++) sb.append(Character.forDigit(rnd.nextInt(16), 16));
+        return sb.toString();
+    }
+
+    private static final class Options {
+        Path jar = Path.of("target", "credit-0.0.1-SNAPSHOT.jar");
+        String profiles = "loadtest";
+        List<String> jvmArgs = List.of();
+        int port = 18080;
+        int runs = 5;
+        long maxMs;
+        Duration timeout = Duration.ofSeconds(60);
+        Path schema = Path.of("ai", "models", "feature_schema.json");
+        Path json;
+
+        static Options parse(String[] args) {
+            Options o = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String key = args[i];
+                if (i + 1 >= args.length) throw new IllegalArgumentException("Missing value for " + key);
+                String v = args[++i];
+                switch (key) {
+                    case "--jar" -> o.jar = Path.of(v);
+                    case "--profiles" -> o.profiles = v;
+                    case "--jvm-args" -> o.jvmArgs = Arrays.stream(v.strip().split("\\s+"))
+                            .filter(s -> !s.isEmpty()).toList();
+                    case "--port" -> o.port = Integer.parseInt(v);
+                    case "--runs" -> o.runs = Integer.parseInt(v);
+                    case "--max-ms" -> o.maxMs = Long.parseLong(v);
+                    case "--timeout" -> o.timeout = Duration.ofSeconds(Long.parseLong(v.replace("s", "")));
+                    case "--schema" -> o.schema = Path.of(v);
+                    case "--json" -> o.json = Path.of(v);
+                    default -> throw new IllegalArgumentException("Unknown option " + key);
+                }
+            }
+            if (o.runs < 1) throw new IllegalArgumentException("--runs must be positive");
+            if (!Files.exists(o.jar)) {
+                throw new IllegalArgumentException("Jar not found: " + o.jar.toAbsolutePath());
+            }
+            if (!Files.exists(o.schema)) {
+                throw new IllegalArgumentException("Feature schema not found: " + o.schema.toAbsolutePath());
+            }
+            return o;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.demo.credit.repository;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chi phí map một dòng của danh sách hồ sơ (LIST_SELECT) / {@code sp_GetApplicationDetail}
+ * (parse UUID, Timestamp → LocalDateTime, BigDecimal → double, dựng record).
+ * ResultSet là proxy đọc từ Map — {@link #readColumnsOnly} đo riêng phần đó để trừ ra.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowMapperBench {
+
+    private static final String[] LIST_COLUMNS = {
+            "application_id", "reference_no", "status", "created_at", "applicant_id",
+            "consent_id", "score", "pd", "decision", "scored_at"
+    };
+
+    private final RowMapper<ApplicationRepository.ApplicationListItem> listMapper = JdbcApplicationRepository.listMapper();
+    private final RowMapper<ApplicationRepository.ApplicationDetail> detailMapper = JdbcApplicationRepository.detailMapper();
+    private ResultSet listRow;
+    private ResultSet detailRow;
+
+    @Setup
+    public void setUp() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.of(2025, 9, 1, 10, 30, 15, 123_000_000));
+        Map<String, Object> list = new HashMap<>();
+        list.put("application_id", UUID.randomUUID().toString().toUpperCase());
+        list.put("reference_no", "APP-20250901-000123");
+        list.put("status", "SCORED");
+        list.put("created_at", now);
+        list.put("applicant_id", UUID.randomUUID().toString().toUpperCase());
+        list.put("consent_id", "a3f1c2d4e5b6a7980011223344556677");
+        list.put("score", 712);
+        list.put("pd", new BigDecimal("0.0123456789"));
+        list.put("decision", "APPROVE");
+        list.put("scored_at", now);
+        listRow = resultSet(list);
+
+        Map<String, Object> detail = new HashMap<>(list);
+        detail.put("id", list.get("application_id"));
+        detail.put("score_id", UUID.randomUUID().toString().toUpperCase());
+        detail.put("top_reasons", "[\"monthly_income_vnd\",\"sms_loan_ratio\",\"age\"]");
+        detail.put("model_version", "1735689600");
+        detail.put("feature_schema_version", "2025-01-01T00:00:00");
+        detail.put("tx_hash", "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08");
+        detail.put("consent_status", "ACTIVE");
+        detail.put("consent_expiry", now);
+        detail.put("last_tx_hash", detail.get("tx_hash"));
+        detailRow = resultSet(detail);
+    }
+
+    @Benchmark
+    public ApplicationRepository.ApplicationListItem listMapper() throws SQLException {
+        return listMapper.mapRow(listRow, 0);
+    }
+
+    @Benchmark
+    public ApplicationRepository.ApplicationDetail detailMapper() throws SQLException {
+        return detailMapper.mapRow(detailRow, 0);
+    }
+
+    // Baseline: chỉ đọc cột qua proxy, không map
+    @Benchmark
+    public void readColumnsOnly(Blackhole bh) throws SQLException {
+        for (String c : LIST_COLUMNS) {
+            bh.consume(listRow.getObject(c));
+        }
+    }
+
+    private static ResultSet resultSet(Map<String, Object> row) {
+        return (ResultSet) Proxy.newProxyInstance(RowMapperBench.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                    Object v = args != null && args.length == 1 && args[0] instanceof String c ? row.get(c) : null;
+                    return switch (method.getName()) {
+                        case "getString" -> v == null ? null : v.toString();
+                        case "getTimestamp" -> (Timestamp) v;
+                        case "getBigDecimal" -> (BigDecimal) v;
+                        case "getObject" -> v;
+                        case "getInt" -> v == null ? 0 : ((Number) v).intValue();
+                        case "wasNull" -> false;
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    };
+                });
+    }
+}
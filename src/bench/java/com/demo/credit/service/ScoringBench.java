@@ -0,0 +1,143 @@
+package com.demo.credit.service;
+
+import com.demo.credit.config.JacksonConfig;
+import com.demo.credit.repository.InMemoryApplicantRepository;
+import com.demo.credit.repository.InMemoryApplicationRepository;
+import com.demo.credit.repository.InMemoryConsentRepository;
+import com.demo.credit.repository.InMemoryRescoreRepository;
+import com.demo.credit.repository.InMemoryScoreRepository;
+import com.demo.credit.repository.InMemoryStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ScoringService#score} với repository in-memory, ledger/model giả (không I/O): đo phần việc của chính
+ * service — kiểm tra consent, hash memo, metrics, chuẩn hoá decision, JSON reasons, event.
+ * {@code computed}: memo tắt, mỗi lần chạy đủ luồng; {@code memoHit}: request gửi lại.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScoringBench {
+
+    private static final String CONSENT_ID = "a3f1c2d4e5b6a7980011223344556677";
+    private static final String TX_HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+    private UUID applicationId;
+    private ScoringService computed;
+    private ScoringService memoized;
+    private FeatureVector features;
+    private ExecutorService stageExecutor;
+    private ScheduledExecutorService sseExecutor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 69; i++) names.add("f" + i);
+        FeatureSchema schema = new FeatureSchema(names, 10);
+        double[] x = new double[names.size()];
+        for (int i = 0; i < x.length; i++) x[i] = i * 1.5 + 1;
+        features = FeatureVector.of(schema, x);
+
+        stageExecutor = Executors.newSingleThreadExecutor();
+        sseExecutor = Executors.newSingleThreadScheduledExecutor();
+        InMemoryStore store = new InMemoryStore();
+        UUID applicantId = new InMemoryApplicantRepository(store).createApplicant("Bench", null, null, null, null);
+        new InMemoryConsentRepository(store).upsert(CONSENT_ID, applicantId, "[\"score\"]",
+                LocalDateTime.now().plusYears(1), "ACTIVE", TX_HASH, "pk");
+        applicationId = new InMemoryApplicationRepository(store).create(applicantId, CONSENT_ID);
+
+        computed = service(store, schema, false);
+        memoized = service(store, schema, true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        stageExecutor.shutdownNow();
+        sseExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public ScoringService.SavedScore computed() {
+        return computed.score(applicationId, CONSENT_ID, TX_HASH, features);
+    }
+
+    @Benchmark
+    public ScoringService.SavedScore memoHit() {
+        return memoized.score(applicationId, CONSENT_ID, TX_HASH, features);
+    }
+
+    private ScoringService service(InMemoryStore store, FeatureSchema schema, boolean memo) throws Exception {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        var applications = new InMemoryApplicationRepository(store);
+        var consents = new InMemoryConsentRepository(store);
+        // Không giữ score lại: benchmark chạy hàng triệu lần
+        var scores = new InMemoryScoreRepository(store) {
+            @Override
+            public void saveScore(UUID applicationId, String consentId, String txHash, String modelVersion,
+                                  String featureSchemaVersion, int score, double pd, String decision,
+                                  String topReasonsJson) {
+                // không I/O
+            }
+        };
+        var ledger = new LedgerClient(null, null, null) {
+            @Override
+            public boolean verifyConsentTx(String consentId, String txHash) {
+                return true;
+            }
+        };
+        ModelClient model = v -> {
+            var r = new ModelApiClient.ScoreResult();
+            r.setPd(0.0123);
+            r.setScore(712);
+            r.setDecision("approve");
+            r.setShapTopK(new String[]{"monthly_income_vnd", "sms_loan_ratio", "age"});
+            r.setModelVersion("1735689600");
+            r.setFeatureSchemaVersion("2025-01-01T00:00:00");
+            return r;
+        };
+
+        ScoreMemo scoreMemo = new ScoreMemo(registry);
+        set(scoreMemo, "enabled", memo);
+        ObjectMapper mapper = new JacksonConfig().objectMapper(schema);
+
+        return new ScoringService(new ApplicationDetailCache(applications, stageExecutor, registry),
+                new ConsentCache(consents, registry), scores, scoreMemo,
+                new ScoreJournal(scores, sseExecutor, registry), new ScoringMetrics(registry),
+                new ApplicationEventBus(sseExecutor, registry),
+                new FeatureCapture(new InMemoryRescoreRepository(store), mapper, sseExecutor, registry),
+                model, ledger, mapper, schema, stageExecutor);
+    }
+
+    private static void set(Object target, String field, Object value) throws Exception {
+        Field f = target.getClass().getDeclaredField(field);
+        f.setAccessible(true);
+        f.set(target, value);
+    }
+}
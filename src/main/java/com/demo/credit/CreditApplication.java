@@ -1,11 +1,20 @@
 package com.demo.credit;
 
+import com.demo.credit.service.ApplicantImportCommand;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import java.util.Arrays;
+
 @SpringBootApplication
 public class CreditApplication {
     public static void main(String[] args) {
-        SpringApplication.run(CreditApplication.class, args);
+        SpringApplication app = new SpringApplication(CreditApplication.class);
+        // CLI import người vay (ApplicantImportCommand): chạy xong thì thoát, không cần Tomcat
+        if (Arrays.stream(args).anyMatch(a -> a.startsWith("--" + ApplicantImportCommand.OPTION + "="))) {
+            app.setWebApplicationType(WebApplicationType.NONE);
+        }
+        app.run(args);
     }
 }
@@ -0,0 +1,89 @@
+package com.demo.credit.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Giới hạn đồng thời thích ứng cho {@code /score/{id}} ({@code admission.score.*}), {@code /score/batch}
+ * ({@code admission.score-batch.*}), đọc {@code /applications} ({@code admission.applications.*}) và
+ * {@code POST /applications} ({@code admission.applications-write.*}); tắt bằng {@code admission.enabled=false}.
+ * <p>
+ * Khởi động thất bại nếu tổng {@code max-limit + queue-size} của các lớp không thấp hơn
+ * {@code server.tomcat.threads.max}: khi mọi lớp đầy, {@code /consents}, UI và actuator phải vẫn còn thread.
+ */
+@Configuration
+@ConditionalOnProperty(name = "admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionConfig {
+
+    @Bean
+    @ConfigurationProperties(prefix = "admission.score")
+    public AdmissionProperties scoreAdmissionProperties() {
+        return new AdmissionProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "admission.score-batch")
+    public AdmissionProperties scoreBatchAdmissionProperties() {
+        return new AdmissionProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "admission.applications")
+    public AdmissionProperties applicationsAdmissionProperties() {
+        return new AdmissionProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "admission.applications-write")
+    public AdmissionProperties applicationWritesAdmissionProperties() {
+        return new AdmissionProperties();
+    }
+
+    @Bean
+    public AdmissionFilter admissionFilter(@Qualifier("scoreAdmissionProperties") AdmissionProperties score,
+                                           @Qualifier("scoreBatchAdmissionProperties") AdmissionProperties scoreBatch,
+                                           @Qualifier("applicationsAdmissionProperties") AdmissionProperties applications,
+                                           @Qualifier("applicationWritesAdmissionProperties")
+                                           AdmissionProperties applicationWrites,
+                                           @Value("${server.tomcat.threads.max:200}") int tomcatThreads,
+                                           ObjectMapper objectMapper,
+                                           MeterRegistry meterRegistry) {
+        Map<String, AdmissionProperties> classes = new LinkedHashMap<>();
+        classes.put("score", score);
+        classes.put("score-batch", scoreBatch);
+        classes.put("applications", applications);
+        classes.put("applications-write", applicationWrites);
+        checkThreadBudget(classes, tomcatThreads);
+        return new AdmissionFilter(
+                new AdmissionLimiter("score", score, meterRegistry),
+                new AdmissionLimiter("score-batch", scoreBatch, meterRegistry),
+                new AdmissionLimiter("applications", applications, meterRegistry),
+                new AdmissionLimiter("applications-write", applicationWrites, meterRegistry),
+                objectMapper);
+    }
+
+    // Mỗi request được nhận hoặc đang chờ trong hàng đợi giữ một thread Tomcat
+    static void checkThreadBudget(Map<String, AdmissionProperties> classes, int tomcatThreads) {
+        int total = 0;
+        StringBuilder detail = new StringBuilder();
+        for (Map.Entry<String, AdmissionProperties> e : classes.entrySet()) {
+            int n = e.getValue().getMaxLimit() + e.getValue().getQueueSize();
+            total += n;
+            if (!detail.isEmpty()) detail.append(", ");
+            detail.append(e.getKey()).append('=').append(n);
+        }
+        if (total >= tomcatThreads) {
+            throw new IllegalStateException("admission max-limit + queue-size across classes (" + total + ": "
+                    + detail + ") must stay below server.tomcat.threads.max (" + tomcatThreads + ")");
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.demo.credit.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Admission control trước {@code /score/**} và {@code /applications[/{id}]}: mỗi lớp request có
+ * {@link AdmissionLimiter} riêng nên khi model chậm, chấm điểm bị giới hạn (và từ chối nhanh 429 +
+ * {@code Retry-After}) mà không chiếm hết thread Tomcat của danh sách/chi tiết hồ sơ, màn hình Thymeleaf
+ * hay {@code /consents} (không qua filter).
+ * <ul>
+ *   <li>{@code score}: {@code POST /score/{id}}, hàng đợi ngắn.</li>
+ *   <li>{@code score-batch}: {@code POST /score/batch} — một request giữ thread tới khi cả lô xong, nên có
+ *       giới hạn nhỏ riêng thay vì ăn vào slot của chấm điểm đơn lẻ.</li>
+ *   <li>{@code applications}: đọc rẻ ({@code GET /applications[/{id}]}), được ưu tiên qua cấu hình: hàng đợi
+ *       rộng hơn, chờ lâu hơn.</li>
+ *   <li>{@code applications-write}: {@code POST /applications} (ghi primary qua {@code sp_CreateApplication}).</li>
+ * </ul>
+ * Tổng {@code max-limit + queue-size} của các lớp phải thấp hơn {@code server.tomcat.threads.max}
+ * (kiểm tra lúc khởi động ở {@link AdmissionConfig}). {@code /applications/events} (SSE, kết nối dài) không bị
+ * giới hạn. Response streaming (async) trả slot khi stream kết thúc.
+ */
+public class AdmissionFilter extends OncePerRequestFilter implements Ordered {
+
+    private final AdmissionLimiter score;
+    private final AdmissionLimiter scoreBatch;
+    private final AdmissionLimiter applications;
+    private final AdmissionLimiter applicationWrites;
+    private final ObjectMapper objectMapper;
+
+    public AdmissionFilter(AdmissionLimiter score, AdmissionLimiter scoreBatch, AdmissionLimiter applications,
+                           AdmissionLimiter applicationWrites, ObjectMapper objectMapper) {
+        this.score = score;
+        this.scoreBatch = scoreBatch;
+        this.applications = applications;
+        this.applicationWrites = applicationWrites;
+        this.objectMapper = objectMapper;
+    }
+
+    // Sau các filter của Spring Boot (encoding, observation) để request bị từ chối vẫn được đo
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 20;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return limiterFor(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        AdmissionLimiter limiter = limiterFor(request);
+        if (!limiter.tryAcquire()) {
+            reject(request, response, limiter);
+            return;
+        }
+        long start = System.nanoTime();
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                async = true;
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        limiter.release(System.nanoTime() - start, outcome(response.getStatus()));
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            }
+        } finally {
+            if (!async) limiter.release(System.nanoTime() - start, outcome(response.getStatus()));
+        }
+    }
+
+    private AdmissionLimiter limiterFor(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.equals("/score/batch")) {
+            return scoreBatch;
+        }
+        if (path.equals("/score") || path.startsWith("/score/")) {
+            return score;
+        }
+        if (path.equals("/applications") && "POST".equals(request.getMethod())) {
+            return applicationWrites;
+        }
+        if (path.equals("/applications")
+                || (path.startsWith("/applications/") && path.indexOf('/', "/applications/".length()) < 0
+                && !path.equals("/applications/events"))) {
+            return applications;
+        }
+        return null;
+    }
+
+    static AdmissionLimiter.Outcome outcome(int status) {
+        if (status == 503 || status == 504) return AdmissionLimiter.Outcome.OVERLOAD;
+        if (status >= 400 && status < 500) return AdmissionLimiter.Outcome.IGNORE;
+        return AdmissionLimiter.Outcome.COMPLETED;
+    }
+
+    // Cùng dạng body với GlobalExceptionHandler
+    private void reject(HttpServletRequest request, HttpServletResponse response, AdmissionLimiter limiter)
+            throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(limiter.retryAfterSeconds()));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), Map.of(
+                "timestamp", Instant.now(),
+                "status", 429,
+                "error", "Too Many Requests",
+                "message", "Server busy (" + limiter.name() + "), retry later",
+                "path", request.getRequestURI()
+        ));
+    }
+}
@@ -0,0 +1,197 @@
+package com.demo.credit.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Giới hạn đồng thời thích ứng cho một lớp request (xem {@link AdmissionFilter}).
+ * <ul>
+ *   <li>Giới hạn theo latency gradient: so latency ngắn hạn (EWMA ~10 mẫu) với latency dài hạn (EWMA ~600
+ *       mẫu); gradient = clamp(tolerance × dài / ngắn, 0.5, 1), giới hạn mới = giới hạn × gradient + √giới hạn.
+ *       Latency tăng → giới hạn co lại trước khi thread dồn đống; chỉ tăng khi đang dùng quá nửa giới hạn.</li>
+ *   <li>503/504 (breaker mở, bulkhead đầy) là tín hiệu quá tải: giảm nhân {@code backoffRatio}. Lỗi 4xx không
+ *       được tính; 500 (vd. quá deadline chấm điểm) vẫn được lấy mẫu latency.</li>
+ *   <li>Hết chỗ: chờ trong hàng đợi nhỏ (tối đa {@code queueSize}, {@code maxWait}); đầy hoặc quá hạn → từ chối.</li>
+ * </ul>
+ * Metrics (tag {@code class}): {@code credit.admission.limit}, {@code .inflight}, {@code .queued},
+ * {@code .wait} và {@code credit.admission.rejected} (tag {@code reason}: queue_full | timeout).
+ */
+public class AdmissionLimiter {
+
+    // COMPLETED = lấy mẫu latency; OVERLOAD = 503/504; IGNORE = lỗi của request (4xx), không nói gì về tải
+    public enum Outcome { COMPLETED, OVERLOAD, IGNORE }
+
+    private static final int SHORT_WINDOW = 10;
+    private static final int LONG_WINDOW = 600;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int queueSize;
+    private final long maxWaitNanos;
+    private final double tolerance;
+    private final double smoothing;
+    private final double backoffRatio;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    // Truy cập dưới lock
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private double shortRtt;
+    private double longRtt;
+
+    private final Counter rejectedFull;
+    private final Counter rejectedTimeout;
+    private final Timer waitTimer;
+
+    public AdmissionLimiter(String name, AdmissionProperties props, MeterRegistry registry) {
+        this.name = name;
+        this.minLimit = Math.max(1, props.getMinLimit());
+        this.maxLimit = Math.max(minLimit, props.getMaxLimit());
+        this.queueSize = Math.max(0, props.getQueueSize());
+        this.maxWaitNanos = props.getMaxWait().toNanos();
+        this.tolerance = Math.max(1.0, props.getTolerance());
+        this.smoothing = Math.min(1.0, Math.max(0.01, props.getSmoothing()));
+        this.backoffRatio = Math.min(1.0, Math.max(0.5, props.getBackoffRatio()));
+        this.limit = Math.min(maxLimit, Math.max(minLimit, props.getInitialLimit()));
+
+        Gauge.builder("credit.admission.limit", this, AdmissionLimiter::limit)
+                .description("Current adaptive concurrency limit").tag("class", name).register(registry);
+        Gauge.builder("credit.admission.inflight", this, AdmissionLimiter::inFlight)
+                .tag("class", name).register(registry);
+        Gauge.builder("credit.admission.queued", this, AdmissionLimiter::queued)
+                .description("Requests waiting for a slot").tag("class", name).register(registry);
+        this.rejectedFull = Counter.builder("credit.admission.rejected")
+                .tag("class", name).tag("reason", "queue_full").register(registry);
+        this.rejectedTimeout = Counter.builder("credit.admission.rejected")
+                .tag("class", name).tag("reason", "timeout").register(registry);
+        this.waitTimer = Timer.builder("credit.admission.wait")
+                .description("Time spent queued before admission").tag("class", name).register(registry);
+    }
+
+    /** Lấy một slot, chờ tối đa {@code maxWait} nếu hàng đợi còn chỗ; false = từ chối. */
+    public boolean tryAcquire() {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return true;
+            }
+            if (queued >= queueSize || maxWaitNanos <= 0) {
+                rejectedFull.increment();
+                return false;
+            }
+            queued++;
+            long start = System.nanoTime();
+            long remaining = maxWaitNanos;
+            try {
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        rejectedTimeout.increment();
+                        return false;
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+                inFlight++;
+                return true;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                rejectedTimeout.increment();
+                return false;
+            } finally {
+                queued--;
+                waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Trả slot và cập nhật giới hạn theo kết quả; {@code rttNanos} tính từ lúc được nhận. */
+    public void release(long rttNanos, Outcome outcome) {
+        lock.lock();
+        try {
+            int used = inFlight;
+            inFlight--;
+            if (outcome == Outcome.OVERLOAD) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (outcome == Outcome.COMPLETED && rttNanos > 0) {
+                sample(rttNanos, used);
+            }
+            // Giới hạn có thể vừa tăng thêm nhiều slot
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void sample(long rttNanos, int used) {
+        double rtt = rttNanos;
+        if (longRtt == 0) {
+            shortRtt = rtt;
+            longRtt = rtt;
+        } else {
+            shortRtt += (rtt - shortRtt) / SHORT_WINDOW;
+            longRtt += (rtt - longRtt) / LONG_WINDOW;
+        }
+        // Latency đã giảm hẳn (downstream hồi phục): kéo mốc dài hạn xuống nhanh hơn
+        if (longRtt > 2 * shortRtt) longRtt *= 0.95;
+        // Ít tải: latency không nói gì về giới hạn, không nới thêm
+        if (used < limit / 2) return;
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+        double next = limit * gradient + Math.sqrt(limit);
+        limit = Math.min(maxLimit, Math.max(minLimit, limit * (1 - smoothing) + next * smoothing));
+    }
+
+    /** Ước lượng số giây tới khi có chỗ, cho header {@code Retry-After} (tối thiểu 1). */
+    public long retryAfterSeconds() {
+        lock.lock();
+        try {
+            double perSlot = shortRtt / Math.max(1.0, limit);
+            double drain = perSlot * (queued + 1);
+            return Math.max(1, (long) Math.ceil(drain / 1e9));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int limit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int queued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.demo.credit.config;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Cấu hình giới hạn đồng thời thích ứng cho một lớp request (admission.score.*, admission.score-batch.*,
+ * admission.applications.*, admission.applications-write.*).
+ */
+@Data
+public class AdmissionProperties {
+
+    // Giới hạn số request đồng thời: bắt đầu ở initialLimit, tự điều chỉnh trong [minLimit, maxLimit]
+    private int initialLimit = 20;
+    private int minLimit = 4;
+    private int maxLimit = 100;
+
+    // Hàng đợi ngắn: tối đa queueSize request chờ, mỗi request chờ tối đa maxWait rồi bị từ chối (429)
+    private int queueSize = 10;
+    private Duration maxWait = Duration.ofMillis(50);
+
+    // Latency gradient: giảm giới hạn khi latency ngắn hạn vượt tolerance × latency dài hạn
+    private double tolerance = 1.5;
+    private double smoothing = 0.2;
+    // Lỗi 5xx (downstream quá tải / timeout): giới hạn × backoffRatio
+    private double backoffRatio = 0.9;
+}
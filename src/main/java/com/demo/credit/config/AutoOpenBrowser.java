@@ -1,6 +1,7 @@
 package com.demo.credit.config;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.event.EventListener;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
@@ -9,14 +10,17 @@ import java.awt.Desktop;
 import java.net.URI;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Mở trình duyệt khi chạy local. {@code app.auto-open-browser=false} (profile faststart, loadtest) → bean không
+ * được tạo. Spring Boot mặc định chạy headless ({@code java.awt.headless=true}), khi đó
+ * {@code Desktop.isDesktopSupported()} luôn false → bỏ qua hẳn AWT, đi thẳng lệnh của HĐH.
+ */
 @Configuration
+@ConditionalOnProperty(name = "app.auto-open-browser", havingValue = "true", matchIfMissing = true)
 public class AutoOpenBrowser {
 
     private static final AtomicBoolean OPENED = new AtomicBoolean(false);
 
-    @Value("${app.auto-open-browser:true}")
-    private boolean autoOpen;
-
     @Value("${server.port:8080}")
     private int serverPort;
 
@@ -25,17 +29,14 @@ public class AutoOpenBrowser {
 
     @EventListener(ApplicationReadyEvent.class)
     public void onReady() {
-        if (!autoOpen)
-            return;
         // Chỉ mở 1 lần cho mỗi process (DevTools restart sẽ không mở lại)
         if (!OPENED.compareAndSet(false, true))
             return;
 
         String url = "http://localhost:" + serverPort + (path.startsWith("/") ? path : "/" + path);
         try {
-            // Ưu tiên Desktop API
-            if (Desktop.isDesktopSupported()) {
-                Desktop.getDesktop().browse(URI.create(url));
+            // Ưu tiên Desktop API khi có GUI; headless thì không nạp AWT
+            if (!Boolean.getBoolean("java.awt.headless") && DesktopBrowser.open(url)) {
                 return;
             }
             // Fallback theo HĐH
@@ -52,4 +53,13 @@ public class AutoOpenBrowser {
             System.err.println("Auto-open browser failed: " + e);
         }
     }
+
+    // Lớp riêng để java.awt.Desktop chỉ được nạp khi thực sự dùng tới
+    private static final class DesktopBrowser {
+        static boolean open(String url) throws Exception {
+            if (!Desktop.isDesktopSupported()) return false;
+            Desktop.getDesktop().browse(URI.create(url));
+            return true;
+        }
+    }
 }
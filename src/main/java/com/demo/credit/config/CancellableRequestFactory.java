@@ -0,0 +1,46 @@
+package com.demo.credit.config;
+
+import org.apache.hc.client5.http.classic.HttpClient;
+import org.apache.hc.core5.concurrent.Cancellable;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Request factory HttpClient5 cho phép huỷ lời gọi RestTemplate đang chạy.
+ * <p>
+ * {@code Future.cancel(true)} không cắt được lần đọc socket đang chặn của HttpClient classic: thread và
+ * connection bị giữ tới read timeout. Trong {@link #capturing} request HttpClient của lời gọi (chạy đồng bộ trên
+ * thread hiện tại) được trao cho {@code onRequest}; {@link Cancellable#cancel()} trên nó đóng connection ngay,
+ * trả slot về pool và làm lời gọi kết thúc bằng lỗi I/O.
+ */
+public class CancellableRequestFactory extends HttpComponentsClientHttpRequestFactory {
+
+    private static final ThreadLocal<Consumer<Cancellable>> CAPTURE = new ThreadLocal<>();
+
+    public CancellableRequestFactory(HttpClient httpClient) {
+        super(httpClient);
+    }
+
+    /** Chạy {@code call}; mỗi request HttpClient nó tạo trên thread này được báo cho {@code onRequest}. */
+    public static <T> T capturing(Consumer<Cancellable> onRequest, Supplier<T> call) {
+        Consumer<Cancellable> previous = CAPTURE.get();
+        CAPTURE.set(onRequest);
+        try {
+            return call.get();
+        } finally {
+            if (previous == null) CAPTURE.remove();
+            else CAPTURE.set(previous);
+        }
+    }
+
+    @Override
+    protected void postProcessHttpRequest(ClassicHttpRequest request) {
+        Consumer<Cancellable> onRequest = CAPTURE.get();
+        if (onRequest != null && request instanceof Cancellable cancellable) {
+            onRequest.accept(cancellable);
+        }
+    }
+}
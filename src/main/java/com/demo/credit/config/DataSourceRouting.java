@@ -0,0 +1,158 @@
+package com.demo.credit.config;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Chọn pool cho kết nối sắp lấy ({@link RoutingDataSource}): mặc định là primary; truy vấn được bọc
+ * trong {@link #readOnly} đi pool replica, trừ khi request/phiên hiện tại vừa ghi (read-your-writes).
+ * <pre>{@code
+ * return DataSourceRouting.readOnly(() -> jdbc.query(...));
+ * }</pre>
+ * Không có transaction nên pool được chọn ở mỗi lần {@code JdbcTemplate} lấy kết nối; trạng thái
+ * là thread-local, body streaming mang theo {@link Context} qua {@link #propagate}.
+ */
+public final class DataSourceRouting {
+
+    public enum Route { PRIMARY, REPLICA }
+
+    static final String PIN_COOKIE = "db-primary-until";
+
+    private static final ThreadLocal<Route> REQUESTED = new ThreadLocal<>();
+    private static final ThreadLocal<Context> CONTEXT = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> REPLICA_USED = new ThreadLocal<>();
+
+    private DataSourceRouting() {
+    }
+
+    /** Truy vấn chỉ đọc, chấp nhận độ trễ của replica. */
+    public static <T> T readOnly(Supplier<T> query) {
+        return with(Route.REPLICA, query);
+    }
+
+    /**
+     * Như {@link #readOnly(Supplier)}, nhưng nếu kết quả đọc từ replica thoả {@code retryOnPrimary}
+     * (thường là "không thấy") thì đọc lại ở primary: replica có thể chưa nhận dòng vừa ghi.
+     */
+    public static <T> T readOnly(Supplier<T> query, Predicate<T> retryOnPrimary) {
+        Boolean outer = REPLICA_USED.get();
+        REPLICA_USED.set(Boolean.FALSE);
+        try {
+            T result = readOnly(query);
+            return REPLICA_USED.get() && retryOnPrimary.test(result) ? primary(query) : result;
+        } finally {
+            if (outer == null) REPLICA_USED.remove();
+            else REPLICA_USED.set(outer || REPLICA_USED.get());
+        }
+    }
+
+    /** Bắt buộc đọc primary (vd. thử lại khi replica chưa có dòng vừa ghi). */
+    public static <T> T primary(Supplier<T> query) {
+        return with(Route.PRIMARY, query);
+    }
+
+    private static <T> T with(Route route, Supplier<T> query) {
+        Route previous = REQUESTED.get();
+        REQUESTED.set(route);
+        try {
+            return query.get();
+        } finally {
+            if (previous == null) REQUESTED.remove();
+            else REQUESTED.set(previous);
+        }
+    }
+
+    /** Context của request đang chạy trên thread này, null ngoài request HTTP. */
+    public static Context current() {
+        return CONTEXT.get();
+    }
+
+    /** Body streaming chạy ở thread async của MVC: mang theo context của request gốc. */
+    public static StreamingResponseBody propagate(StreamingResponseBody body) {
+        Context context = CONTEXT.get();
+        if (context == null) return body;
+        return out -> {
+            Context previous = CONTEXT.get();
+            CONTEXT.set(context);
+            try {
+                body.writeTo(out);
+            } finally {
+                if (previous == null) CONTEXT.remove();
+                else CONTEXT.set(previous);
+            }
+        };
+    }
+
+    static boolean isReadOnly() {
+        return REQUESTED.get() == Route.REPLICA;
+    }
+
+    static void open(Context context) {
+        CONTEXT.set(context);
+    }
+
+    static void close() {
+        CONTEXT.remove();
+    }
+
+    /**
+     * Pool cho kết nối kế tiếp. Lấy kết nối primary ngoài {@link #readOnly} trong request có ghi
+     * (POST/PUT/...) được coi là một lần ghi → ghim primary cho phần còn lại của request và cho phiên.
+     */
+    static Route resolve(long nowMillis) {
+        Context ctx = CONTEXT.get();
+        if (REQUESTED.get() == Route.REPLICA) {
+            if (ctx != null && ctx.pinned(nowMillis)) return Route.PRIMARY;
+            if (REPLICA_USED.get() != null) REPLICA_USED.set(Boolean.TRUE);
+            return Route.REPLICA;
+        }
+        if (REQUESTED.get() == null && ctx != null && ctx.mutating) {
+            ctx.wrote(nowMillis);
+        }
+        return Route.PRIMARY;
+    }
+
+    /**
+     * Trạng thái read-your-writes của một request. Phiên = cookie {@value #PIN_COOKIE} (epoch millis):
+     * đặt khi request ghi, request sau của cùng client còn trong cửa sổ thì đọc primary.
+     */
+    public static final class Context {
+
+        private final boolean mutating;
+        private final long windowMillis;
+        private final HttpServletResponse response;
+        private volatile long pinnedUntil;
+        private volatile boolean wroteInRequest;
+        private volatile boolean cookieSent;
+
+        Context(boolean mutating, long pinnedUntil, long windowMillis, HttpServletResponse response) {
+            this.mutating = mutating;
+            this.pinnedUntil = pinnedUntil;
+            this.windowMillis = windowMillis;
+            this.response = response;
+        }
+
+        boolean pinned(long nowMillis) {
+            return wroteInRequest || pinnedUntil > nowMillis;
+        }
+
+        private void wrote(long nowMillis) {
+            wroteInRequest = true;
+            if (windowMillis <= 0) return;
+            pinnedUntil = Math.max(pinnedUntil, nowMillis + windowMillis);
+            // Chỉ gắn được khi header chưa gửi; controller ghi trước khi trả body nên thường kịp
+            if (!cookieSent && response != null && !response.isCommitted()) {
+                Cookie cookie = new Cookie(PIN_COOKIE, Long.toString(pinnedUntil));
+                cookie.setPath("/");
+                cookie.setHttpOnly(true);
+                cookie.setMaxAge((int) ((windowMillis + 999) / 1000));
+                response.addCookie(cookie);
+                cookieSent = true;
+            }
+        }
+    }
+}
@@ -1,7 +1,14 @@
 package com.demo.credit.config;
 
 import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
 import javax.sql.DataSource;
+import java.time.Duration;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.context.annotation.Bean;
@@ -9,17 +16,62 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.util.StringUtils;
 
+/**
+ * Pool primary ({@code spring.datasource.*}, Hikari {@code spring.datasource.hikari.*}) cho mọi lệnh ghi;
+ * khi có {@code spring.datasource.replica.url} (Always On readable secondary, nên kèm
+ * {@code applicationIntent=ReadOnly}) thêm pool đọc riêng ({@code spring.datasource.replica.hikari.*})
+ * cho các truy vấn {@link DataSourceRouting#readOnly}. Ứng dụng chỉ thấy {@link RoutingDataSource}.
+ */
 @Configuration
 public class DatabaseConfig {
 
     @Bean
-    @Primary
-    @ConfigurationProperties(prefix = "spring.datasource")
-    public DataSource dataSource() {
-        return DataSourceBuilder.create()
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource ds = properties.initializeDataSourceBuilder()
                 .type(HikariDataSource.class) // dùng HikariCP
                 .build();
+        ds.setPoolName("primary");
+        return ds;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "spring.datasource.replica.url")
+    @ConfigurationProperties(prefix = "spring.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            DataSourceProperties primary,
+            @Value("${spring.datasource.replica.url}") String url,
+            @Value("${spring.datasource.replica.username:}") String username,
+            @Value("${spring.datasource.replica.password:}") String password) {
+        // Không khai báo tài khoản riêng → dùng tài khoản của primary
+        HikariDataSource ds = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(primary.determineDriverClassName())
+                .url(url)
+                .username(StringUtils.hasText(username) ? username : primary.determineUsername())
+                .password(StringUtils.hasText(username) ? password : primary.determinePassword())
+                .build();
+        ds.setPoolName("replica");
+        ds.setReadOnly(true);
+        return ds;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primary,
+                                 @Qualifier("replicaDataSource") ObjectProvider<HikariDataSource> replica,
+                                 MeterRegistry meterRegistry) {
+        return new RoutingDataSource(primary, replica.getIfAvailable(), meterRegistry);
+    }
+
+    // Cửa sổ read-your-writes: sau khi ghi, request đó và các request cùng phiên trong cửa sổ đọc primary
+    @Bean
+    @ConditionalOnProperty(name = "spring.datasource.replica.url")
+    public ReadYourWritesFilter readYourWritesFilter(
+            @Value("${spring.datasource.replica.read-your-writes-window:5s}") Duration window) {
+        return new ReadYourWritesFilter(window);
     }
 
     @Bean
@@ -0,0 +1,31 @@
+package com.demo.credit.config;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Cấu hình transport + bảo vệ cho một downstream HTTP (model.http.*, ledger.http.*).
+ */
+@Data
+public class DownstreamProperties {
+
+    // Connection pool riêng cho downstream
+    private int maxTotal = 50;
+    private int maxPerRoute = 20;
+    private Duration connectTimeout = Duration.ofSeconds(5);
+    private Duration readTimeout = Duration.ofSeconds(15);
+    // Thời gian chờ lấy connection từ pool
+    private Duration poolTimeout = Duration.ofSeconds(1);
+    private Duration keepAlive = Duration.ofSeconds(30);
+
+    // Bulkhead: số lời gọi đồng thời tối đa, chờ tối đa bulkheadWait để có slot
+    private int bulkhead = 32;
+    private Duration bulkheadWait = Duration.ZERO;
+
+    // Circuit breaker: mở khi tỉ lệ lỗi trong breakerWindow lời gọi gần nhất >= breakerFailureRate
+    private int breakerWindow = 20;
+    private int breakerMinCalls = 10;
+    private double breakerFailureRate = 0.5;
+    private Duration breakerOpen = Duration.ofSeconds(10);
+}
@@ -0,0 +1,101 @@
+package com.demo.credit.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Profile loadtest ({@code stubs.enabled=true}): model FastAPI và consent ledger được thay bằng
+ * {@link StubServer} trong cùng tiến trình; {@code model.baseUrl}/{@code ledger.baseUrl} trỏ vào
+ * các cổng này nên ModelApiClient/LedgerClient vẫn đi qua pool HTTP, bulkhead và breaker thật.
+ * <ul>
+ *   <li>model: {@code POST /score} — pd tất định theo nội dung features (cùng body → cùng điểm).</li>
+ *   <li>ledger: {@code GET /verify} luôn hợp lệ, {@code POST /consents/give} cấp consentId + txHash.</li>
+ * </ul>
+ */
+@Configuration
+@ConditionalOnProperty(name = "stubs.enabled", havingValue = "true")
+public class DownstreamStubsConfig {
+
+    @Bean
+    @ConfigurationProperties(prefix = "stubs.model")
+    public StubProperties modelStubProperties() {
+        return new StubProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "stubs.ledger")
+    public StubProperties ledgerStubProperties() {
+        return new StubProperties();
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public StubServer modelStub(@Qualifier("modelStubProperties") StubProperties props,
+                                ObjectMapper objectMapper) throws IOException {
+        return new StubServer("model", props, objectMapper, Map.of(
+                "/score", req -> score(req.body().path("features")),
+                "/health", req -> Map.of("status", "ok", "model_version", "stub")));
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public StubServer ledgerStub(@Qualifier("ledgerStubProperties") StubProperties props,
+                                 ObjectMapper objectMapper) throws IOException {
+        return new StubServer("ledger", props, objectMapper, Map.of(
+                // GET /consents/{id}/status như consent-ledger/src/server.js; tx cuối = hash của block GIVE bên dưới
+                "/consents/", req -> {
+                    String consentId = req.path().substring("/consents/".length()).replaceFirst("/status$", "");
+                    Map<String, Object> status = new HashMap<>();
+                    status.put("found", true);
+                    status.put("active", true);
+                    status.put("expiry", null);
+                    status.put("txHash", sha256(consentId));
+                    return status;
+                },
+                "/consents/give", req -> {
+                    String consentId = sha256(UUID.randomUUID().toString());
+                    return Map.of("ok", true, "consentId", consentId,
+                            "block", Map.of("type", "GIVE", "hash", sha256(consentId)));
+                },
+                "/health", req -> Map.of("status", "ok")));
+    }
+
+    // Cùng dạng response với ai/service/app.py
+    static Map<String, Object> score(JsonNode features) {
+        double pd = 0.01 + (sha256(features.toString()).hashCode() & 0xffff) / 65535.0 * 0.59;
+        int score = (int) Math.round(300 + 600 * (1 - pd));
+        String decision = score >= 700 ? "APPROVE" : score >= 650 ? "REVIEW" : "DECLINE";
+        List<String> top = new ArrayList<>(3);
+        for (Iterator<String> it = features.fieldNames(); it.hasNext() && top.size() < 3; ) top.add(it.next());
+        return Map.of(
+                "pd", pd,
+                "score", score,
+                "decision", decision,
+                "shapTopK", top,
+                "model_version", "stub",
+                "feature_schema_version", "stub");
+    }
+
+    private static String sha256(String s) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.demo.credit.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class ExecutorConfig {
+
+    // Số lời gọi Model API đồng thời tối đa cho chấm điểm theo lô (dùng chung cho mọi batch)
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService batchScoringExecutor(@Value("${score.batch.max-in-flight:8}") int maxInFlight) {
+        return Executors.newFixedThreadPool(Math.max(1, maxInFlight), named("score-batch-"));
+    }
+
+    // Response async của Spring MVC (StreamingResponseBody: GET /applications, /exports/scores), gắn ở WebConfig.
+    // App có Executor bean riêng nên Boot không tạo applicationTaskExecutor; không đặt thì MVC dùng
+    // SimpleAsyncTaskExecutor (mỗi request một thread mới, không giới hạn). Stream danh sách giữ slot admission
+    // tới khi xong nên admission.applications.max-limit thread là đủ cho /applications, cộng thêm cho export.
+    // Không có hàng đợi: đầy → RejectedExecutionException (503)
+    @Bean
+    public ThreadPoolTaskExecutor mvcAsyncExecutor(
+            @Value("${admission.applications.max-limit:60}") int applicationsLimit,
+            @Value("${web.async.export-threads:8}") int exportThreads) {
+        int n = Math.max(2, applicationsLimit + exportThreads);
+        ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+        pool.setCorePoolSize(n);
+        pool.setMaxPoolSize(n);
+        pool.setQueueCapacity(0);
+        pool.setAllowCoreThreadTimeOut(true);
+        pool.setThreadNamePrefix("mvc-async-");
+        return pool;
+    }
+
+    // Chạy song song các stage trong ScoringService (scoring.pipeline.enabled=true).
+    // Pool + hàng đợi đầy → RejectedExecutionException (503): chạy stage trên thread của request sẽ
+    // vượt qua deadline đúng lúc quá tải.
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService scoringStageExecutor(@Value("${scoring.pipeline.threads:32}") int threads) {
+        int n = Math.max(2, threads);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(n, n, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(n * 4), named("score-stage-"), new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    // Ghi sự kiện SSE ra socket + heartbeat (ApplicationEventBus); client chậm chỉ chiếm thread này
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService sseExecutor(@Value("${events.sse.threads:4}") int threads) {
+        return Executors.newScheduledThreadPool(Math.max(1, threads), named("sse-"));
+    }
+
+    // Lời gọi /score khi bật hedging (ModelApiClient): bản chính + bản hedge chạy song song.
+    // Pool đầy → từ chối: ModelApiClient bỏ lượt hedge (CallerRunsPolicy sẽ chạy luôn bản hedge trên
+    // thread gọi, chặn request tới khi bản hedge xong)
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService modelHedgeExecutor(@Value("${model.hedge.threads:32}") int threads) {
+        int n = Math.max(2, threads);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(n, n, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(n), named("model-hedge-"), new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    // Health check /health của các replica model (ModelReplicaPool)
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService modelHealthExecutor() {
+        return Executors.newScheduledThreadPool(2, named("model-health-"));
+    }
+
+    // Nạp lại entry của ApplicationDetailCache ở background (refresh-ahead); đầy thì bỏ lượt refresh
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService detailCacheExecutor(@Value("${app.detail-cache.refresh-threads:2}") int threads) {
+        int n = Math.max(1, threads);
+        return new ThreadPoolExecutor(n, n, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(256), named("detail-refresh-"), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Thread duy nhất drain ScoreJournal xuống DB (thứ tự ghi = thứ tự journal)
+    @Bean(destroyMethod = "shutdown")
+    public ScheduledExecutorService scoreJournalExecutor() {
+        return Executors.newSingleThreadScheduledExecutor(named("score-journal-"));
+    }
+
+    // Thread duy nhất tail /chain của consent-ledger vào LedgerMirror (áp block theo đúng thứ tự)
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService ledgerMirrorExecutor() {
+        return Executors.newSingleThreadScheduledExecutor(named("ledger-mirror-"));
+    }
+
+    // Kiểm tra song song các lô dòng CSV khi import người vay (ApplicantImportService)
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService applicantImportExecutor(@Value("${applicants.import.threads:4}") int threads) {
+        return Executors.newFixedThreadPool(Math.max(1, threads), named("applicant-import-"));
+    }
+
+    // Thread duy nhất ghi feature snapshot xuống DB theo lô (FeatureCapture, write-behind)
+    @Bean(destroyMethod = "shutdown")
+    public ScheduledExecutorService featureCaptureExecutor() {
+        return Executors.newSingleThreadScheduledExecutor(named("feature-capture-"));
+    }
+
+    // Worker chấm điểm lại (RescoreJob): mỗi thread lấy lần lượt các đoạn chưa xong
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService rescoreExecutor(@Value("${rescore.workers:4}") int workers) {
+        return Executors.newFixedThreadPool(Math.max(1, workers), named("rescore-"));
+    }
+
+    // Thread duy nhất dựng và cập nhật chỉ mục tìm kiếm hồ sơ (ApplicationSearchIndex): mọi thay đổi tuần tự
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService searchIndexExecutor() {
+        return Executors.newSingleThreadScheduledExecutor(named("search-index-"));
+    }
+
+    static ThreadFactory named(String prefix) {
+        AtomicInteger seq = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -0,0 +1,62 @@
+package com.demo.credit.config;
+
+import com.demo.credit.controller.ViewController;
+import com.demo.credit.repository.ProcedureRegistry;
+import com.demo.credit.service.ModelClient;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Khởi động nhanh (profile {@code faststart}, xem application-faststart.properties):
+ * <ul>
+ *   <li>Với {@code spring.main.lazy-initialization=true}: bean của ứng dụng vẫn được tạo ngay (lỗi cấu hình
+ *       lộ ra lúc khởi động, request đầu không phải dựng service); chỉ hạ tầng không thiết yếu (springdoc,
+ *       Thymeleaf, actuator endpoint, ...) và {@link ViewController}/{@link OpenApiConfig} được tạo lười.</li>
+ *   <li>{@code app.warmup.enabled=true}: {@link StartupWarmup} làm nóng pool DB, procedure và model client.</li>
+ * </ul>
+ */
+@Configuration
+public class FastStartConfig {
+
+    private static final String APP_PACKAGE = "com.demo.credit.";
+
+    // static: filter phải có trước khi BeanFactoryPostProcessor của lazy-init chạy
+    @Bean
+    static LazyInitializationExcludeFilter applicationBeansEager() {
+        return (beanName, definition, beanType) -> beanType != null
+                && beanType.getName().startsWith(APP_PACKAGE)
+                && beanType != ViewController.class
+                && beanType != OpenApiConfig.class;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.warmup.enabled", havingValue = "true")
+    public StartupWarmup startupWarmup(@Value("${storage.engine:jdbc}") String storageEngine,
+                                       @Value("${app.warmup.timeout:10s}") Duration timeout,
+                                       @Qualifier("primaryDataSource") HikariDataSource primary,
+                                       @Qualifier("replicaDataSource") ObjectProvider<HikariDataSource> replica,
+                                       ObjectProvider<ProcedureRegistry> procedures,
+                                       ModelClient modelClient,
+                                       MeterRegistry meterRegistry) {
+        // storage.engine=memory: không có SQL Server để làm nóng
+        boolean jdbc = "jdbc".equals(storageEngine);
+        List<HikariDataSource> pools = new ArrayList<>();
+        if (jdbc) {
+            pools.add(primary);
+            replica.ifAvailable(pools::add);
+        }
+        return new StartupWarmup(pools, jdbc ? procedures.getIfAvailable() : null, modelClient,
+                meterRegistry, timeout);
+    }
+}
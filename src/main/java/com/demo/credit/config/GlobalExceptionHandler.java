@@ -1,7 +1,10 @@
 package com.demo.credit.config;
 
+import com.demo.credit.service.DownstreamUnavailableException;
+import com.demo.credit.service.StreamAbortedException;
 import org.springframework.dao.DataAccessException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.jdbc.BadSqlGrammarException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
@@ -9,6 +12,7 @@ import jakarta.servlet.http.HttpServletRequest;
 
 import java.time.Instant;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
@@ -25,6 +29,53 @@ public class GlobalExceptionHandler {
         );
     }
 
+    // Body sai định dạng (vd. feature lạ / không hữu hạn) hoặc tham số không hợp lệ
+    @ExceptionHandler({HttpMessageNotReadableException.class, IllegalArgumentException.class})
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, Object> handleBadInput(Exception ex, HttpServletRequest req) {
+        Throwable cause = ex instanceof HttpMessageNotReadableException h && h.getMostSpecificCause() != null
+                ? h.getMostSpecificCause() : ex;
+        return Map.of(
+                "timestamp", Instant.now(),
+                "status", 400,
+                "error", "Bad Request",
+                "message", String.valueOf(cause.getMessage()),
+                "path", req.getRequestURI()
+        );
+    }
+
+    // Downstream đang bị chặn (breaker mở / bulkhead đầy) → fail fast
+    @ExceptionHandler(DownstreamUnavailableException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public Map<String, Object> handleUnavailable(DownstreamUnavailableException ex, HttpServletRequest req) {
+        return Map.of(
+                "timestamp", Instant.now(),
+                "status", 503,
+                "error", "Service Unavailable",
+                "message", ex.getMessage(),
+                "path", req.getRequestURI()
+        );
+    }
+
+    // Pool xử lý nội bộ đã đầy (vd. scoringStageExecutor) → từ chối thay vì chạy quá deadline
+    @ExceptionHandler(RejectedExecutionException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public Map<String, Object> handleRejected(RejectedExecutionException ex, HttpServletRequest req) {
+        return Map.of(
+                "timestamp", Instant.now(),
+                "status", 503,
+                "error", "Service Unavailable",
+                "message", "Server busy, retry later",
+                "path", req.getRequestURI()
+        );
+    }
+
+    // Response đã commit (stream giữa chừng): không ghi body lỗi vào stream, ném lại để container cắt kết nối
+    @ExceptionHandler(StreamAbortedException.class)
+    public void handleAborted(StreamAbortedException ex) {
+        throw ex;
+    }
+
     @ExceptionHandler({BadSqlGrammarException.class, DataAccessException.class})
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public Map<String, Object> handleSql(DataAccessException ex, HttpServletRequest req) {
@@ -0,0 +1,88 @@
+package com.demo.credit.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Đo một thao tác: timer có histogram ({@code <name>}, tag {@code outcome} = ok | error — lời gọi lỗi thường
+ * nhanh (timeout ngắn, từ chối ngay) hoặc rất chậm nên không trộn vào percentile của lời gọi thành công),
+ * số lời gọi đang chạy ({@code <name>.inflight}) và số lỗi theo loại exception ({@code <name>.errors}, tag {@code cause}).
+ * <p>
+ * Meter được tạo sẵn khi khởi tạo; đường nóng chỉ là {@code nanoTime} + cộng nguyên tử,
+ * không tra registry, không tạo {@code Timer.Sample}. Dùng:
+ * <pre>{@code
+ * long t = meter.start();
+ * try { ...; meter.success(t); } catch (RuntimeException ex) { meter.failure(t, ex); throw ex; }
+ * }</pre>
+ */
+public final class LatencyMeter {
+
+    private final MeterRegistry registry;
+    private final String name;
+    private final Tags tags;
+    private final Timer timer;
+    private final Timer errorTimer;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ConcurrentHashMap<Class<?>, Counter> errors = new ConcurrentHashMap<>();
+
+    public LatencyMeter(MeterRegistry registry, String name, String description, Tags tags) {
+        this.registry = registry;
+        this.name = name;
+        this.tags = tags;
+        this.timer = histogram(Timer.builder(name).description(description).tags(tags).tag("outcome", "ok"))
+                .register(registry);
+        this.errorTimer = histogram(Timer.builder(name).description(description).tags(tags).tag("outcome", "error"))
+                .register(registry);
+        Gauge.builder(name + ".inflight", inFlight, AtomicInteger::get).tags(tags).register(registry);
+    }
+
+    /**
+     * Histogram cho Prometheus (histogram_quantile), giới hạn 1ms–30s để số bucket vừa phải.
+     */
+    public static Timer.Builder histogram(Timer.Builder builder) {
+        return builder.publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30));
+    }
+
+    public long start() {
+        inFlight.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    public void success(long startNanos) {
+        inFlight.decrementAndGet();
+        timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void failure(long startNanos, Throwable cause) {
+        inFlight.decrementAndGet();
+        errorTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        errors.computeIfAbsent(cause.getClass(), c -> Counter.builder(name + ".errors")
+                .tags(tags)
+                .tag("cause", c.getSimpleName())
+                .register(registry)).increment();
+    }
+
+    /** Timer của các lời gọi thành công ({@code outcome=ok}). */
+    public Timer timer() {
+        return timer;
+    }
+
+    /** Timer của các lời gọi lỗi ({@code outcome=error}). */
+    public Timer errorTimer() {
+        return errorTimer;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+}
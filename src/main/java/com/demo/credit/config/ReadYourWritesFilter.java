@@ -0,0 +1,53 @@
+package com.demo.credit.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Mở {@link DataSourceRouting.Context} cho mỗi request: đọc cookie ghim primary của phiên và đánh dấu
+ * request có ghi (method khác GET/HEAD/OPTIONS). Chỉ đăng ký khi có replica ({@link DatabaseConfig}).
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final long windowMillis;
+
+    public ReadYourWritesFilter(Duration window) {
+        this.windowMillis = window.toMillis();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String method = request.getMethod();
+        boolean mutating = !("GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method));
+        DataSourceRouting.open(new DataSourceRouting.Context(mutating, pinnedUntil(request), windowMillis, response));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            DataSourceRouting.close();
+        }
+    }
+
+    private long pinnedUntil(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null || windowMillis <= 0) return 0;
+        for (Cookie c : cookies) {
+            if (DataSourceRouting.PIN_COOKIE.equals(c.getName())) {
+                try {
+                    // Không tin giá trị client gửi quá cửa sổ cấu hình
+                    return Math.min(Long.parseLong(c.getValue()), System.currentTimeMillis() + windowMillis);
+                } catch (NumberFormatException ex) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+}
@@ -1,20 +1,120 @@
 package com.demo.credit.config;
 
+import com.demo.credit.service.DownstreamGuard;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
 
-import java.time.Duration;
+import java.util.function.ToDoubleFunction;
 
+/**
+ * Mỗi downstream (model, ledger) có connection pool, timeout, bulkhead và circuit breaker riêng,
+ * để ledger chậm không chiếm hết connection/thread mà lời gọi model cần.
+ */
 @Configuration
 public class RestClientConfig {
 
     @Bean
-    public RestTemplate restTemplate(RestTemplateBuilder builder) {
+    @ConfigurationProperties(prefix = "model.http")
+    public DownstreamProperties modelHttpProperties() {
+        return new DownstreamProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "ledger.http")
+    public DownstreamProperties ledgerHttpProperties() {
+        return new DownstreamProperties();
+    }
+
+    // close() của client đóng luôn connection pool nó sở hữu và thread evict connection idle
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient modelHttpClient(@Qualifier("modelHttpProperties") DownstreamProperties props,
+                                               MeterRegistry meterRegistry) {
+        return pooledClient("model", props, meterRegistry);
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient ledgerHttpClient(@Qualifier("ledgerHttpProperties") DownstreamProperties props,
+                                                MeterRegistry meterRegistry) {
+        return pooledClient("ledger", props, meterRegistry);
+    }
+
+    @Bean
+    public RestTemplate modelRestTemplate(RestTemplateBuilder builder,
+                                          @Qualifier("modelHttpClient") CloseableHttpClient client) {
+        return restTemplate(builder, client);
+    }
+
+    @Bean
+    public RestTemplate ledgerRestTemplate(RestTemplateBuilder builder,
+                                           @Qualifier("ledgerHttpClient") CloseableHttpClient client) {
+        return restTemplate(builder, client);
+    }
+
+    // Guard của model: một cái mỗi replica, tạo trong ModelReplicaPool
+
+    @Bean
+    public DownstreamGuard ledgerGuard(@Qualifier("ledgerHttpProperties") DownstreamProperties props,
+                                       MeterRegistry meterRegistry) {
+        return new DownstreamGuard("ledger", props, meterRegistry);
+    }
+
+    private static CloseableHttpClient pooledClient(String name, DownstreamProperties props,
+                                                    MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager pool = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(props.getMaxTotal())
+                .setMaxConnPerRoute(props.getMaxPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(props.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(props.getReadTimeout()))
+                        .setTimeToLive(TimeValue.of(props.getKeepAlive().multipliedBy(10)))
+                        .build())
+                .build();
+
+        CloseableHttpClient client = HttpClients.custom()
+                .setConnectionManager(pool)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(props.getPoolTimeout()))
+                        .setResponseTimeout(Timeout.of(props.getReadTimeout()))
+                        .build())
+                // Giữ connection sống tối đa keepAlive nếu server không gửi Keep-Alive header
+                .setKeepAliveStrategy((response, context) -> TimeValue.of(props.getKeepAlive()))
+                .evictIdleConnections(TimeValue.of(props.getKeepAlive()))
+                .evictExpiredConnections()
+                .build();
+
+        poolGauge(meterRegistry, name, "leased", pool, PoolStats::getLeased);
+        poolGauge(meterRegistry, name, "available", pool, PoolStats::getAvailable);
+        poolGauge(meterRegistry, name, "pending", pool, PoolStats::getPending);
+        poolGauge(meterRegistry, name, "max", pool, PoolStats::getMax);
+        return client;
+    }
+
+    private static RestTemplate restTemplate(RestTemplateBuilder builder, CloseableHttpClient client) {
         return builder
-                .setConnectTimeout(Duration.ofSeconds(5))
-                .setReadTimeout(Duration.ofSeconds(15))
+                // Huỷ được lời gọi đang chờ socket (bản hedge thua của ModelApiClient)
+                .requestFactory(() -> new CancellableRequestFactory(client))
                 .build();
     }
+
+    private static void poolGauge(MeterRegistry meterRegistry, String name, String kind,
+                                  PoolingHttpClientConnectionManager pool, ToDoubleFunction<PoolStats> stat) {
+        Gauge.builder("credit.http.pool." + kind, pool, p -> stat.applyAsDouble(p.getTotalStats()))
+                .tag("downstream", name)
+                .register(meterRegistry);
+    }
 }
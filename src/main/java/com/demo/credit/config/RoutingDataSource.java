@@ -0,0 +1,97 @@
+package com.demo.credit.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.time.Clock;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * DataSource ứng dụng dùng: chuyển mỗi lần lấy kết nối sang pool primary hoặc replica theo
+ * {@link DataSourceRouting}. Không cấu hình replica → mọi kết nối đi primary.
+ * <p>
+ * Metrics theo pool (tag {@code pool}): {@code credit.db.pool.utilization} (active / max),
+ * {@code credit.db.pool.active}, {@code credit.db.pool.pending} (thread đang chờ kết nối) và
+ * {@code credit.db.route} (số kết nối đã cấp, tag thêm {@code reason}: write | read | read-your-writes).
+ */
+public class RoutingDataSource extends AbstractRoutingDataSource {
+
+    private final boolean hasReplica;
+    private final Clock clock;
+    private final Counter writes;
+    private final Counter reads;
+    private final Counter pinnedReads;
+
+    public RoutingDataSource(HikariDataSource primary, HikariDataSource replica, MeterRegistry registry) {
+        this(primary, replica, registry, Clock.systemUTC());
+    }
+
+    RoutingDataSource(HikariDataSource primary, HikariDataSource replica, MeterRegistry registry, Clock clock) {
+        this.hasReplica = replica != null;
+        this.clock = clock;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(DataSourceRouting.Route.PRIMARY, primary);
+        if (replica != null) targets.put(DataSourceRouting.Route.REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+
+        Map<DataSourceRouting.Route, HikariDataSource> pools = new EnumMap<>(DataSourceRouting.Route.class);
+        pools.put(DataSourceRouting.Route.PRIMARY, primary);
+        if (replica != null) pools.put(DataSourceRouting.Route.REPLICA, replica);
+        pools.forEach((route, pool) -> registerPoolGauges(registry, tag(route), pool));
+        this.writes = route(registry, DataSourceRouting.Route.PRIMARY, "write");
+        this.pinnedReads = route(registry, DataSourceRouting.Route.PRIMARY, "read-your-writes");
+        this.reads = route(registry, hasReplica ? DataSourceRouting.Route.REPLICA : DataSourceRouting.Route.PRIMARY,
+                "read");
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!hasReplica) {
+            return DataSourceRouting.Route.PRIMARY;
+        }
+        boolean readOnly = DataSourceRouting.isReadOnly();
+        DataSourceRouting.Route route = DataSourceRouting.resolve(clock.millis());
+        if (route == DataSourceRouting.Route.REPLICA) reads.increment();
+        else if (readOnly) pinnedReads.increment();
+        else writes.increment();
+        return route;
+    }
+
+    private static String tag(DataSourceRouting.Route route) {
+        return route.name().toLowerCase();
+    }
+
+    private static Counter route(MeterRegistry registry, DataSourceRouting.Route route, String reason) {
+        return Counter.builder("credit.db.route").tag("pool", tag(route)).tag("reason", reason)
+                .description("Connections handed out per pool").register(registry);
+    }
+
+    private static void registerPoolGauges(MeterRegistry registry, String pool, HikariDataSource ds) {
+        gauge(registry, "credit.db.pool.active", pool, ds, HikariPoolMXBean::getActiveConnections);
+        gauge(registry, "credit.db.pool.pending", pool, ds, HikariPoolMXBean::getThreadsAwaitingConnection);
+        Gauge.builder("credit.db.pool.utilization", ds, d -> {
+                    HikariPoolMXBean mx = d.getHikariPoolMXBean();
+                    return mx == null ? 0.0 : (double) mx.getActiveConnections() / Math.max(1, d.getMaximumPoolSize());
+                })
+                .tag("pool", pool).description("Active connections / maximum pool size").register(registry);
+    }
+
+    private static void gauge(MeterRegistry registry, String name, String pool, HikariDataSource ds,
+                              ToDoubleFunction<HikariPoolMXBean> value) {
+        // Pool khởi tạo lười ở kết nối đầu tiên; trước đó MXBean là null
+        Gauge.builder(name, ds, d -> {
+            HikariPoolMXBean mx = d.getHikariPoolMXBean();
+            return mx == null ? 0.0 : value.applyAsDouble(mx);
+        }).tag("pool", pool).register(registry);
+    }
+}
@@ -0,0 +1,110 @@
+package com.demo.credit.config;
+
+import com.demo.credit.repository.ProcedureRegistry;
+import com.demo.credit.service.ModelClient;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Làm nóng các đường cần cho request {@code /score} đầu tiên, chạy như {@link ApplicationRunner} nên xong
+ * trước khi ứng dụng báo readiness (ApplicationReadyEvent):
+ * <ul>
+ *   <li>{@code datasource}: mở kết nối đầu tiên của từng pool Hikari (pool khởi tạo lười), Hikari tự lấp
+ *       {@code minimum-idle} ở nền;</li>
+ *   <li>{@code procedures}: nạp sẵn đường gọi procedure của driver và kiểm tra mọi {@code core.sp_*} đã đăng ký
+ *       có trên server ({@link ProcedureRegistry#warmUp});</li>
+ *   <li>{@code model}: {@link ModelClient#checkHealth} ({@code GET /health} từng replica: mở kết nối HTTP, Jackson).
+ *       Không chấm vector giả: lời gọi đó sẽ đi qua breaker, bulkhead, hedging và metrics của lưu lượng thật.</li>
+ * </ul>
+ * Các bước chạy song song, lỗi chỉ được ghi log; quá {@code app.warmup.timeout} thì để phần còn lại chạy
+ * tiếp ở nền. Thời gian từng bước: {@code credit.startup.warmup} (tag {@code step}, {@code outcome}).
+ */
+@Slf4j
+public class StartupWarmup implements ApplicationRunner {
+
+    private final List<HikariDataSource> pools;
+    private final ProcedureRegistry procedures;
+    private final ModelClient modelClient;
+    private final MeterRegistry meterRegistry;
+    private final Duration timeout;
+
+    /** {@code pools} / {@code procedures} rỗng/null khi không dùng SQL Server (storage.engine=memory). */
+    public StartupWarmup(List<HikariDataSource> pools, ProcedureRegistry procedures, ModelClient modelClient,
+                         MeterRegistry meterRegistry, Duration timeout) {
+        this.pools = pools;
+        this.procedures = procedures;
+        this.modelClient = modelClient;
+        this.meterRegistry = meterRegistry;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Map<String, Callable<String>> steps = new LinkedHashMap<>();
+        if (!pools.isEmpty()) {
+            steps.put("datasource", () -> {
+                for (HikariDataSource pool : pools) {
+                    try (Connection ignored = pool.getConnection()) {
+                        // pool đã khởi tạo
+                    }
+                }
+                return pools.size() + " pool(s)";
+            });
+        }
+        if (procedures != null) {
+            steps.put("procedures", () -> procedures.warmUp() + " procedure(s)");
+        }
+        steps.put("model", () -> "model_version " + modelClient.checkHealth());
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(steps.size(), ExecutorConfig.named("warmup-"));
+        try {
+            CompletableFuture<?>[] running = steps.entrySet().stream()
+                    .map(e -> CompletableFuture.runAsync(() -> step(e.getKey(), e.getValue()), executor))
+                    .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(running).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            log.info("Warm-up done in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (TimeoutException ex) {
+            log.warn("Warm-up not finished after {}, continuing in background", timeout);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            log.warn("Warm-up failed: {}", ex.toString());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void step(String name, Callable<String> action) {
+        long start = System.nanoTime();
+        String outcome = "ok";
+        try {
+            String detail = action.call();
+            log.info("Warm-up {}: {} in {} ms", name, detail,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (Exception ex) {
+            outcome = "error";
+            log.warn("Warm-up {} failed: {}", name, ex.toString());
+        } finally {
+            Timer.builder("credit.startup.warmup").tag("step", name).tag("outcome", outcome)
+                    .description("Startup warm-up step duration").register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.demo.credit.config;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Cấu hình một HTTP stub của profile loadtest (stubs.model.*, stubs.ledger.*).
+ */
+@Data
+public class StubProperties {
+
+    private int port;
+    // Latency phân phối log-normal theo median/p99; p99 <= median → latency cố định = median
+    private Duration latencyMedian = Duration.ofMillis(20);
+    private Duration latencyP99 = Duration.ofMillis(100);
+    // Tỉ lệ response lỗi (0..1), trả về errorStatus
+    private double errorRate = 0.0;
+    private int errorStatus = 503;
+    // Thread đọc request; response được trả từ scheduler nên latency không giữ thread
+    private int threads = 4;
+}
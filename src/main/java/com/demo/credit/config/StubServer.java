@@ -0,0 +1,144 @@
+package com.demo.credit.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * HTTP stub nhúng (JDK HttpServer) đứng thay model/ledger khi đo tải: mỗi route là một hàm
+ * request JSON → response JSON; latency lấy mẫu theo {@link StubProperties} và được "chờ" bằng
+ * scheduler (không sleep trên thread xử lý), nên stub không tự trở thành nút cổ chai.
+ */
+@Slf4j
+public class StubServer {
+
+    // z của phân vị 99 của phân phối chuẩn
+    private static final double Z_99 = 2.3263478740408408;
+
+    private final String name;
+    private final StubProperties props;
+    private final ObjectMapper mapper;
+    private final HttpServer server;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService responders;
+    private final double mu;
+    private final double sigma;
+
+    public StubServer(String name, StubProperties props, ObjectMapper mapper,
+                      Map<String, Function<Request, Object>> routes) throws IOException {
+        this.name = name;
+        this.props = props;
+        this.mapper = mapper;
+        long medianNanos = Math.max(props.getLatencyMedian().toNanos(), 1);
+        this.mu = Math.log(medianNanos);
+        this.sigma = props.getLatencyP99().compareTo(props.getLatencyMedian()) > 0
+                ? Math.log((double) props.getLatencyP99().toNanos() / medianNanos) / Z_99
+                : 0.0;
+
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", props.getPort()), 1024);
+        this.workers = Executors.newFixedThreadPool(props.getThreads(), daemon(name + "-stub"));
+        this.responders = Executors.newScheduledThreadPool(2, daemon(name + "-stub-respond"));
+        server.setExecutor(workers);
+        routes.forEach((path, handler) -> server.createContext(path, ex -> handle(ex, handler)));
+    }
+
+    public void start() {
+        server.start();
+        log.info("{} stub listening on http://127.0.0.1:{} (median={}, p99={}, errorRate={})", name,
+                port(), props.getLatencyMedian(), props.getLatencyP99(), props.getErrorRate());
+    }
+
+    public void stop() {
+        server.stop(0);
+        responders.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /** Mẫu latency (nano giây): median·e^(σZ). */
+    long sampleLatencyNanos() {
+        double z = sigma == 0.0 ? 0.0 : ThreadLocalRandom.current().nextGaussian();
+        return (long) Math.exp(mu + sigma * z);
+    }
+
+    private void handle(HttpExchange ex, Function<Request, Object> handler) {
+        int status;
+        byte[] body;
+        try (InputStream in = ex.getRequestBody()) {
+            byte[] raw = in.readAllBytes();
+            if (ThreadLocalRandom.current().nextDouble() < props.getErrorRate()) {
+                status = props.getErrorStatus();
+                body = mapper.writeValueAsBytes(Map.of("error", "injected by " + name + " stub"));
+            } else {
+                JsonNode json = raw.length == 0 ? mapper.nullNode() : mapper.readTree(raw);
+                Request req = new Request(ex.getRequestMethod(), ex.getRequestURI().getPath(),
+                        ex.getRequestURI().getRawQuery(), json);
+                status = 200;
+                body = mapper.writeValueAsBytes(handler.apply(req));
+            }
+        } catch (Exception e) {
+            status = 500;
+            body = ("{\"error\":\"" + e.getClass().getSimpleName() + "\"}").getBytes(StandardCharsets.UTF_8);
+        }
+        int s = status;
+        byte[] b = body;
+        responders.schedule(() -> respond(ex, s, b), sampleLatencyNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private static void respond(HttpExchange ex, int status, byte[] body) {
+        try (OutputStream out = ex.getResponseBody()) {
+            ex.getResponseHeaders().set("Content-Type", "application/json");
+            ex.sendResponseHeaders(status, body.length);
+            out.write(body);
+        } catch (IOException ignore) {
+            // client đã bỏ kết nối (timeout)
+        } finally {
+            ex.close();
+        }
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        var seq = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /** {@code query} là raw query string (có thể null). */
+    public record Request(String method, String path, String query, JsonNode body) {
+
+        public String param(String key) {
+            if (query == null) return null;
+            for (String kv : query.split("&")) {
+                int eq = kv.indexOf('=');
+                if (eq > 0 && kv.substring(0, eq).equals(key)) {
+                    return URLDecoder.decode(kv.substring(eq + 1), StandardCharsets.UTF_8);
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.demo.credit.controller;
+
+import com.demo.credit.service.ApplicantImportService;
+import com.demo.credit.service.ApplicantService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/applicants")
+@RequiredArgsConstructor
+public class ApplicantsController {
+
+    private final ApplicantService applicantService;
+    private final ApplicantImportService applicantImportService;
+
+    // Tạo người vay — body: { fullName, email, phone, nationalId, address }
+    @PostMapping
+    public Map<String, Object> create(@RequestBody Map<String, String> body) {
+        UUID id = applicantService.create(
+                body.get("fullName"),
+                body.get("email"),
+                body.get("phone"),
+                body.get("nationalId"),
+                body.get("address"));
+        return Map.of("id", id);
+    }
+
+    // Import hàng loạt — body là chính file CSV (text/csv), đọc dạng stream, không qua multipart.
+    // Trả tổng kết + đường dẫn tải report từng dòng (applicant_id mới/đã có hoặc lý do từ chối)
+    @PostMapping(path = "/import", consumes = {"text/csv", MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public Map<String, Object> importCsv(HttpServletRequest request) throws IOException {
+        var summary = applicantImportService.importCsv(request.getInputStream());
+        return Map.of(
+                "importId", summary.importId(),
+                "rows", summary.rows(),
+                "imported", summary.imported(),
+                "duplicate", summary.duplicate(),
+                "rejected", summary.rejected(),
+                "elapsedMs", summary.elapsedMs(),
+                "report", "/applicants/import/" + summary.importId() + "/report");
+    }
+
+    @GetMapping("/import/{importId}/report")
+    public ResponseEntity<Resource> importReport(@PathVariable("importId") String importId) {
+        Path report = applicantImportService.reportPath(importId);
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"applicant-import-" + importId + ".csv\"")
+                .body(new FileSystemResource(report));
+    }
+}
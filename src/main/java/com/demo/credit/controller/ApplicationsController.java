@@ -1,11 +1,17 @@
 package com.demo.credit.controller;
 
+import com.demo.credit.config.DataSourceRouting;
 import com.demo.credit.repository.ApplicationRepository;
+import com.demo.credit.service.ApplicationEventBus;
+import com.demo.credit.service.ApplicationListWriter;
 import com.demo.credit.service.ApplicationService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -15,6 +21,8 @@ import java.util.UUID;
 public class ApplicationsController {
 
     private final ApplicationService applicationService;
+    private final ApplicationEventBus eventBus;
+    private final ApplicationListWriter listWriter;
 
     // Tạo hồ sơ — body rất gọn, không DTO
     @PostMapping
@@ -29,28 +37,31 @@ public class ApplicationsController {
                 "consentId", consentId);
     }
 
-    // Danh sách hồ sơ (paging/filter) — trả về mảng Map có khóa 'id' nhất quán
+    // Danh sách hồ sơ (paging/filter) — mảng object có khóa 'id' nhất quán.
+    // Có tham số cursor (kể cả rỗng = trang đầu) → chế độ keyset: { items, nextCursor }.
+    // Ghi thẳng từ ResultSet ra response (ApplicationListWriter), không dựng List/Map trung gian.
     @GetMapping
-    public List<Map<String, Object>> list(
+    public ResponseEntity<StreamingResponseBody> list(
             @RequestParam(required = false) String status,
             @RequestParam(required = false) String q,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "20") int size) {
-        var items = applicationService.list(status, q, page, size);
-        return items.stream()
-                .map(x -> Map.<String, Object>ofEntries(
-                        Map.entry("id", x.applicationId()), // luôn có 'id'
-                        Map.entry("applicationId", x.applicationId()), // giữ thêm khóa cũ cho FE
-                        Map.entry("referenceNo", x.referenceNo()),
-                        Map.entry("status", x.status()),
-                        Map.entry("createdAt", x.createdAt()),
-                        Map.entry("applicantId", x.applicantId()),
-                        Map.entry("consentId", x.consentId()),
-                        Map.entry("score", x.score()),
-                        Map.entry("pd", x.pd()),
-                        Map.entry("decision", x.decision()),
-                        Map.entry("scoredAt", x.scoredAt())))
-                .toList();
+        StreamingResponseBody body;
+        if (cursor != null) {
+            var after = applicationService.keysetStart(cursor, size);
+            body = out -> listWriter.writePage(status, q, after, size, out);
+        } else {
+            body = out -> listWriter.writeList(status, q, page, size, out);
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(DataSourceRouting.propagate(body));
+    }
+
+    // Luồng SSE: application-created / score-saved / consent-changed (reset = tải lại danh sách).
+    // EventSource tự gửi Last-Event-ID khi kết nối lại để nhận tiếp sự kiện bị lỡ.
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return eventBus.subscribe(lastEventId);
     }
 
     // Chi tiết hồ sơ
@@ -0,0 +1,56 @@
+package com.demo.credit.controller;
+
+import com.demo.credit.repository.ScoreRepository;
+import com.demo.credit.service.ScoreExportService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/exports")
+@RequiredArgsConstructor
+public class ExportController {
+
+    private final ScoreExportService scoreExportService;
+
+    @Value("${export.timeout:0}")
+    private Duration exportTimeout;
+
+    // Export score cho retrain — stream từng dòng (NDJSON hoặc CSV).
+    // from/to (UTC, from tính cả), modelVersion, cursor = cursor của dòng cuối đã nhận để export tiếp.
+    @GetMapping("/scores")
+    public ResponseEntity<StreamingResponseBody> scores(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String modelVersion,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "0") int limit,
+            HttpServletRequest request) {
+        // Kiểm tra tham số trước khi bắt đầu stream (sau đó không đổi được status code nữa)
+        var fmt = ScoreExportService.Format.parse(format);
+        var after = (cursor == null || cursor.isBlank()) ? null : ScoreRepository.ExportCursor.decode(cursor);
+        var filter = new ScoreRepository.ExportFilter(from, to,
+                (modelVersion == null || modelVersion.isBlank()) ? null : modelVersion, after, limit);
+
+        // Timeout async chỉ cho request này (0 = không giới hạn), đặt trước khi MVC bắt đầu xử lý async
+        WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest().setTimeout(exportTimeout.toMillis());
+        StreamingResponseBody body = out -> scoreExportService.export(filter, fmt, out);
+        boolean csv = fmt == ScoreExportService.Format.CSV;
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv") : new MediaType("application", "x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"scores." + (csv ? "csv" : "ndjson") + "\"")
+                .body(body);
+    }
+}
@@ -0,0 +1,40 @@
+package com.demo.credit.controller;
+
+import com.demo.credit.service.RescoreJob;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/rescore/runs")
+@RequiredArgsConstructor
+public class RescoreController {
+
+    private final RescoreJob rescoreJob;
+
+    // Bắt đầu chấm lại toàn bộ hồ sơ bằng model hiện tại — tham số bỏ trống = cấu hình rescore.*
+    @PostMapping
+    public RescoreJob.Progress start(@RequestParam(required = false) Integer partitions,
+                                     @RequestParam(required = false) Double rate) {
+        return rescoreJob.start(partitions, rate);
+    }
+
+    // Tiến độ: processed/failed/skipped, số quyết định thay đổi, rows/s và ETA
+    @GetMapping("/{runId}")
+    public RescoreJob.Progress progress(@PathVariable("runId") UUID runId) {
+        return rescoreJob.progress(runId);
+    }
+
+    @PostMapping("/{runId}/pause")
+    public RescoreJob.Progress pause(@PathVariable("runId") UUID runId) {
+        return rescoreJob.pause(runId);
+    }
+
+    // Chạy tiếp từ checkpoint (sau pause, lỗi model hoặc restart); rate bỏ trống = rate của lượt chạy
+    @PostMapping("/{runId}/resume")
+    public RescoreJob.Progress resume(@PathVariable("runId") UUID runId,
+                                      @RequestParam(required = false) Double rate) {
+        return rescoreJob.resume(runId, rate);
+    }
+}
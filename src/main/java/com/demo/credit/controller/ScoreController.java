@@ -1,10 +1,13 @@
 package com.demo.credit.controller;
 
+import com.demo.credit.service.BatchScoringService;
+import com.demo.credit.service.FeatureVector;
 import com.demo.credit.service.ScoringService;
+import com.fasterxml.jackson.annotation.JsonAlias;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.Map;
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -13,17 +16,33 @@ import java.util.UUID;
 public class ScoreController {
 
     private final ScoringService scoringService;
+    private final BatchScoringService batchScoringService;
 
-    // Body không dùng DTO — nhận map với keys: consentId, txHash, features
+    // Body: { consentId, txHash, features } — features parse thẳng vào FeatureVector theo schema.
+    // Gửi lại cùng Idempotency-Key (hoặc cùng nội dung) → nhận lại kết quả đã lưu, không chấm lại.
     @PostMapping("/{appId}")
     public ScoringService.SavedScore score(
             @PathVariable("appId") UUID appId,
-            @RequestBody Map<String, Object> body
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestBody ScoreRequest body
     ) {
-        String consentId = (String) body.get("consentId");
-        String txHash    = (String) body.get("txHash");
-        @SuppressWarnings("unchecked")
-        Map<String, Double> features = (Map<String, Double>) body.get("features");
-        return scoringService.score(appId, consentId, txHash, features);
+        return scoringService.score(appId, body.consentId(), body.txHash(), body.features(), idempotencyKey);
     }
+
+    // Chấm điểm theo lô — body: { "items": [ { appId, consentId, txHash, features }, ... ] }
+    @PostMapping("/batch")
+    public List<BatchScoringService.BatchResult> scoreBatch(@RequestBody BatchRequest body) {
+        List<BatchScoringService.BatchItem> items = body.items() == null ? List.of() : body.items().stream()
+                .map(x -> new BatchScoringService.BatchItem(x.appId(), x.consentId(), x.txHash(), x.features()))
+                .toList();
+        return batchScoringService.scoreBatch(items);
+    }
+
+    public record ScoreRequest(String consentId, String txHash, FeatureVector features) {}
+
+    public record BatchRequest(List<BatchItemRequest> items) {}
+
+    public record BatchItemRequest(
+            @JsonAlias("applicationId") UUID appId,
+            String consentId, String txHash, FeatureVector features) {}
 }
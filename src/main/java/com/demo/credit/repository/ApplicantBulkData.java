@@ -0,0 +1,67 @@
+package com.demo.credit.repository;
+
+import com.microsoft.sqlserver.jdbc.ISQLServerBulkData;
+
+import java.sql.Types;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Nguồn dữ liệu cho {@code SQLServerBulkCopy} vào bảng staging {@code #ApplicantStage}: đọc thẳng từ List
+ * các {@link ApplicantRepository.NewApplicant}, không dựng DataTable/ResultSet trung gian.
+ * Thứ tự cột và độ dài trùng {@link JdbcApplicantRepository#CREATE_STAGE_SQL}.
+ */
+final class ApplicantBulkData implements ISQLServerBulkData {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String[] NAMES = {"row_no", "full_name", "email", "phone", "national_id", "address"};
+    private static final int[] TYPES = {Types.INTEGER, Types.NVARCHAR, Types.NVARCHAR, Types.NVARCHAR,
+            Types.NVARCHAR, Types.NVARCHAR};
+    // Độ dài tối đa (ký tự), khớp giới hạn kiểm tra của ApplicantImportService
+    private static final int[] PRECISION = {10, 200, 254, 20, 20, 500};
+
+    private final transient List<ApplicantRepository.NewApplicant> rows;
+    private int index = -1;
+
+    ApplicantBulkData(List<ApplicantRepository.NewApplicant> rows) {
+        this.rows = rows;
+    }
+
+    @Override
+    public Set<Integer> getColumnOrdinals() {
+        return Set.of(1, 2, 3, 4, 5, 6);
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return NAMES[column - 1];
+    }
+
+    @Override
+    public int getColumnType(int column) {
+        return TYPES[column - 1];
+    }
+
+    @Override
+    public int getPrecision(int column) {
+        return PRECISION[column - 1];
+    }
+
+    @Override
+    public int getScale(int column) {
+        return 0;
+    }
+
+    @Override
+    public Object[] getRowData() {
+        ApplicantRepository.NewApplicant r = rows.get(index);
+        // row_no = vị trí trong lô, để khớp id sinh ra (OUTPUT của MERGE) về đúng dòng
+        return new Object[]{index, r.fullName(), r.email(), r.phone(), r.nationalId(), r.address()};
+    }
+
+    @Override
+    public boolean next() {
+        return ++index < rows.size();
+    }
+}
@@ -1,45 +1,41 @@
 package com.demo.credit.repository;
 
-import lombok.RequiredArgsConstructor;
-import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.SqlOutParameter;
-import org.springframework.jdbc.core.SqlParameter;
-import org.springframework.jdbc.core.simple.SimpleJdbcCall;
-import org.springframework.stereotype.Repository;
-
-import javax.sql.DataSource;
-import java.sql.Types;
-import java.util.Map;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
-@Repository
-@RequiredArgsConstructor
-public class ApplicantRepository {
-
-    private final DataSource dataSource;
-
-    public UUID createApplicant(String fullName, String email, String phone, String nationalId, String address) {
-        SimpleJdbcCall call = new SimpleJdbcCall(dataSource)
-                .withSchemaName("core")
-                .withProcedureName("sp_CreateApplicant")
-                .declareParameters(
-                        new SqlParameter("full_name", Types.NVARCHAR),
-                        new SqlParameter("email", Types.NVARCHAR),
-                        new SqlParameter("phone", Types.NVARCHAR),
-                        new SqlParameter("national_id", Types.NVARCHAR),
-                        new SqlParameter("address", Types.NVARCHAR),
-                        // uniqueidentifier → lấy dạng String rồi UUID.fromString
-                        new SqlOutParameter("applicant_id", Types.VARCHAR)
-                );
-
-        Map<String, Object> out = call.execute(Map.of(
-                "full_name", fullName,
-                "email", email,
-                "phone", phone,
-                "national_id", nationalId,
-                "address", address
-        ));
-        String id = String.valueOf(out.get("applicant_id"));
-        return UUID.fromString(id);
-    }
+/**
+ * Người vay ({@code core.Applicants}). Bản chạy thật: {@link JdbcApplicantRepository};
+ * {@code storage.engine=memory}: {@link InMemoryApplicantRepository}.
+ */
+public interface ApplicantRepository {
+
+    UUID createApplicant(String fullName, String email, String phone, String nationalId, String address);
+
+    /**
+     * Tạo nhiều người vay trong một lần (import hàng loạt): một lần nạp + một procedure set-based
+     * ({@code core.sp_CreateApplicantsBulk}) thay vì một round trip {@code sp_CreateApplicant} mỗi người.
+     * <p>
+     * Trùng theo natural key như {@code sp_CreateApplicant}: dòng có {@code nationalId} trùng người vay đã có
+     * cùng {@code national_id}; dòng không có {@code nationalId} trùng người vay đã có cùng {@code email}.
+     * Dòng trùng (với DB hoặc với một dòng trước trong cùng lô) không được tạo mới, kết quả là id sẵn có với
+     * {@code existing = true} → import lại cùng file không nhân đôi người vay.
+     * <p>
+     * Kết quả theo đúng thứ tự {@code rows}; lỗi thì cả lô không được ghi.
+     */
+    List<Created> createApplicants(List<NewApplicant> rows);
+
+    /** Quét các trường tìm kiếm được của mọi người vay (dựng chỉ mục tìm kiếm lúc khởi động). */
+    void forEachApplicant(Consumer<ApplicantText> handler);
+
+    /** Các trường tìm kiếm được của những người vay trong {@code ids} (đọc bù cho chỉ mục tìm kiếm). */
+    List<ApplicantText> applicantTexts(Collection<UUID> ids);
+
+    record NewApplicant(String fullName, String email, String phone, String nationalId, String address) {}
+
+    /** {@code existing}: dòng trùng natural key, {@code applicantId} là người vay đã có. */
+    record Created(UUID applicantId, boolean existing) {}
+
+    record ApplicantText(UUID applicantId, String fullName, String email, String phone) {}
 }
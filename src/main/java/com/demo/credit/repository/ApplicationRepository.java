@@ -1,117 +1,70 @@
 package com.demo.credit.repository;
 
-import lombok.RequiredArgsConstructor;
-import org.springframework.jdbc.core.RowMapper;
-import org.springframework.jdbc.core.SqlOutParameter;
-import org.springframework.jdbc.core.SqlParameter;
-import org.springframework.jdbc.core.simple.SimpleJdbcCall;
-import org.springframework.stereotype.Repository;
-
-import javax.sql.DataSource;
-import java.math.BigDecimal;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.sql.Types;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.util.*;
-
-@Repository
-@RequiredArgsConstructor
-public class ApplicationRepository {
-
-    private final DataSource dataSource;
-
-    public UUID create(UUID applicantId, String consentId) {
-        SimpleJdbcCall call = new SimpleJdbcCall(dataSource)
-                .withSchemaName("core")
-                .withProcedureName("sp_CreateApplication")
-                .declareParameters(
-                        new SqlParameter("applicant_id", Types.VARCHAR),
-                        new SqlParameter("consent_id", Types.CHAR),
-                        new SqlOutParameter("application_id", Types.VARCHAR)
-                );
-
-        Map<String, Object> out = call.execute(Map.of(
-                "applicant_id", applicantId.toString(),
-                "consent_id", consentId
-        ));
-        return UUID.fromString(String.valueOf(out.get("application_id")));
-    }
-
-    public List<ApplicationListItem> list(String status, String q, int page, int size) {
-        SimpleJdbcCall call = new SimpleJdbcCall(dataSource)
-                .withSchemaName("core")
-                .withProcedureName("sp_ListApplications")
-                .returningResultSet("items", listMapper());
-
-        Map<String, Object> out = call.execute(Map.of(
-                "status", status,
-                "q", q,
-                "page", page,
-                "size", size
-        ));
-        @SuppressWarnings("unchecked")
-        List<ApplicationListItem> items = (List<ApplicationListItem>) out.get("items"); // key=alias from returningResultSet
-        if (items == null) {
-            items = (List<ApplicationListItem>) out.getOrDefault("#result-set-1", List.of());
-        }
-        return items;
-    }
-
-    public Optional<ApplicationDetail> detail(UUID applicationId) {
-        SimpleJdbcCall call = new SimpleJdbcCall(dataSource)
-                .withSchemaName("core")
-                .withProcedureName("sp_GetApplicationDetail")
-                .returningResultSet("row", detailMapper());
-
-        Map<String, Object> out = call.execute(Map.of("application_id", applicationId.toString()));
-        @SuppressWarnings("unchecked")
-        List<ApplicationDetail> rows = (List<ApplicationDetail>) out.getOrDefault("row",
-                (List<?>) out.getOrDefault("#result-set-1", List.of()));
-        return rows.stream().findFirst();
-    }
-
-    private RowMapper<ApplicationListItem> listMapper() {
-        return (rs, i) -> new ApplicationListItem(
-                UUID.fromString(rs.getString("application_id")),
-                rs.getString("reference_no"),
-                rs.getString("status"),
-                rs.getTimestamp("created_at").toLocalDateTime(),
-                UUID.fromString(rs.getString("applicant_id")),
-                rs.getString("consent_id"),
-                (Integer) rs.getObject("score"),
-                (rs.getBigDecimal("pd") == null ? null : rs.getBigDecimal("pd").doubleValue()),
-                rs.getString("decision"),
-                rs.getTimestamp("scored_at") == null ? null : rs.getTimestamp("scored_at").toLocalDateTime()
-        );
-    }
-
-    private RowMapper<ApplicationDetail> detailMapper() {
-        return (rs, i) -> new ApplicationDetail(
-                UUID.fromString(rs.getString("id")),
-                rs.getString("reference_no"),
-                rs.getString("status"),
-                rs.getTimestamp("created_at").toLocalDateTime(),
-                UUID.fromString(rs.getString("applicant_id")),
-                rs.getString("consent_id"),
-
-                // latest score (join TOP 1 DESC)
-                (UUID) Optional.ofNullable(rs.getString("score_id")).map(UUID::fromString).orElse(null),
-                (Integer) rs.getObject("score"),
-                rs.getBigDecimal("pd") == null ? null : rs.getBigDecimal("pd").doubleValue(),
-                rs.getString("decision"),
-                rs.getString("top_reasons"),
-                rs.getString("model_version"),
-                rs.getString("feature_schema_version"),
-                rs.getString("tx_hash"),
-                rs.getTimestamp("scored_at") == null ? null : rs.getTimestamp("scored_at").toLocalDateTime(),
-
-                // consent snapshot
-                rs.getString("consent_status"),
-                rs.getTimestamp("consent_expiry") == null ? null : rs.getTimestamp("consent_expiry").toLocalDateTime(),
-                rs.getString("last_tx_hash")
-        );
-    }
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Hồ sơ vay ({@code core.Applications}). Bản chạy thật: {@link JdbcApplicationRepository};
+ * {@code storage.engine=memory} (profile loadtest): {@link InMemoryApplicationRepository}.
+ */
+public interface ApplicationRepository {
+
+    UUID create(UUID applicantId, String consentId);
+
+    List<ApplicationListItem> list(String status, String q, int page, int size);
+
+    /**
+     * Phân trang keyset: trả tối đa {@code size} dòng sau {@code after} (null = trang đầu).
+     * Chi phí O(size) ở mọi độ sâu và không lệch trang khi có hồ sơ mới chèn vào giữa chừng.
+     * {@link CursorPage#nextCursor()} = null khi đã hết dữ liệu.
+     */
+    CursorPage listAfter(String status, String q, ListCursor after, int size);
+
+    /**
+     * Như {@link #list}, nhưng đẩy từng dòng cho {@code handler} ngay khi đọc được từ nguồn —
+     * không dựng {@link ApplicationListItem}, không gom List.
+     */
+    void streamList(String status, String q, int page, int size, ListRowHandler handler);
+
+    /**
+     * Như {@link #listAfter}, theo kiểu {@link #streamList}.
+     *
+     * @return cursor của trang sau, null khi đã hết dữ liệu
+     */
+    ListCursor streamListAfter(String status, String q, ListCursor after, int size, ListRowHandler handler);
+
+    /**
+     * Như {@link #streamListAfter}, nhưng chỉ xét các hồ sơ trong {@code ids} (ứng viên của chỉ mục tìm kiếm,
+     * đã xếp theo thứ tự danh sách) và bỏ qua {@code skip} dòng khớp đầu tiên ({@code after} null = chế độ
+     * page/size). {@code q} vẫn được kiểm tra trên từng dòng vì tập ứng viên có thể dư.
+     *
+     * @return cursor của trang sau, null khi đã hết ứng viên khớp
+     */
+    ListCursor streamListByIds(String status, String q, List<UUID> ids, ListCursor after, int skip, int size,
+                                ListRowHandler handler);
+
+    /**
+     * Quét hồ sơ có created_at ≥ {@code since} ({@code null} = mọi hồ sơ) theo thứ tự tạo tăng dần: dựng chỉ mục
+     * tìm kiếm, rồi đọc bù hồ sơ mới (kể cả của instance khác) sau mốc created_at lớn nhất đã thấy.
+     */
+    void forEachSearchDoc(LocalDateTime since, Consumer<SearchDoc> handler);
+
+    Optional<ApplicationDetail> detail(UUID applicationId);
+
+    /**
+     * Tra consent_id của nhiều hồ sơ trong một truy vấn set-based (dùng cho chấm điểm theo lô).
+     * Hồ sơ không tồn tại sẽ không có mặt trong map kết quả.
+     */
+    Map<UUID, String> findConsentIds(Collection<UUID> applicationIds);
 
     public record ApplicationListItem(
             UUID applicationId,
@@ -126,6 +79,80 @@ public class ApplicationRepository {
             LocalDateTime scoredAt
     ) {}
 
+    /**
+     * Một dòng danh sách đọc thẳng từ nguồn. Bản JDBC là một đối tượng dùng lại cho mọi dòng của
+     * ResultSet: chỉ đọc trong lúc {@link ListRowHandler#accept} chạy, không giữ lại tham chiếu.
+     * Id là chuỗi như DB trả về (SQL Server: chữ hoa).
+     */
+    public interface ListRow {
+        String applicationId();
+        String referenceNo();
+        String status();
+        LocalDateTime createdAt();
+        String applicantId();
+        String consentId();
+        boolean hasScore();
+        int score();
+        boolean hasPd();
+        double pd();
+        String decision();
+        LocalDateTime scoredAt();
+
+        static ListRow of(ApplicationListItem x) {
+            return new ListRow() {
+                public String applicationId() { return x.applicationId() == null ? null : x.applicationId().toString(); }
+                public String referenceNo() { return x.referenceNo(); }
+                public String status() { return x.status(); }
+                public LocalDateTime createdAt() { return x.createdAt(); }
+                public String applicantId() { return x.applicantId() == null ? null : x.applicantId().toString(); }
+                public String consentId() { return x.consentId(); }
+                public boolean hasScore() { return x.score() != null; }
+                public int score() { return x.score(); }
+                public boolean hasPd() { return x.pd() != null; }
+                public double pd() { return x.pd(); }
+                public String decision() { return x.decision(); }
+                public LocalDateTime scoredAt() { return x.scoredAt(); }
+            };
+        }
+    }
+
+    @FunctionalInterface
+    public interface ListRowHandler {
+        void accept(ListRow row) throws IOException;
+    }
+
+    /** Phần được đánh chỉ mục của một hồ sơ; tên/email/điện thoại nằm ở {@link ApplicantRepository.ApplicantText}. */
+    public record SearchDoc(UUID applicationId, String referenceNo, LocalDateTime createdAt, UUID applicantId) {}
+
+    public record CursorPage(List<ApplicationListItem> items, String nextCursor) {}
+
+    /**
+     * Vị trí trong danh sách (created_at, application_id) — gửi cho client dưới dạng token base64url
+     * không cần hiểu nội dung. Token hỏng → {@link IllegalArgumentException} (400).
+     */
+    public record ListCursor(LocalDateTime createdAt, UUID applicationId) {
+
+        private static final String VERSION = "v1";
+
+        public String encode() {
+            String raw = VERSION + "|" + createdAt + "|" + applicationId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public static ListCursor decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                String[] parts = raw.split("\\|");
+                if (parts.length != 3 || !VERSION.equals(parts[0])) {
+                    throw new IllegalArgumentException("Unsupported cursor");
+                }
+                return new ListCursor(LocalDateTime.parse(parts[1]), UUID.fromString(parts[2]));
+            } catch (IllegalArgumentException | DateTimeParseException ex) {
+                throw new IllegalArgumentException("Invalid cursor", ex);
+            }
+        }
+    }
+
     public record ApplicationDetail(
             UUID id, String referenceNo, String status, LocalDateTime createdAt,
             UUID applicantId, String consentId,
@@ -0,0 +1,69 @@
+package com.demo.credit.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+@Repository
+@ConditionalOnProperty(name = "storage.engine", havingValue = "memory")
+@RequiredArgsConstructor
+public class InMemoryApplicantRepository implements ApplicantRepository {
+
+    private final InMemoryStore store;
+
+    @Override
+    public UUID createApplicant(String fullName, String email, String phone, String nationalId, String address) {
+        UUID id = UUID.randomUUID();
+        store.applicants.put(id, new InMemoryStore.Applicant(id, fullName, email, phone, nationalId, address));
+        return id;
+    }
+
+    @Override
+    public List<Created> createApplicants(List<NewApplicant> rows) {
+        // Natural key như sp_CreateApplicantsBulk: national_id, hoặc email khi dòng không có national_id
+        Map<String, UUID> byNationalId = new HashMap<>();
+        Map<String, UUID> byEmail = new HashMap<>();
+        for (InMemoryStore.Applicant a : store.applicants.values()) {
+            if (a.nationalId() != null) byNationalId.putIfAbsent(a.nationalId(), a.id());
+            if (a.email() != null) byEmail.putIfAbsent(a.email(), a.id());
+        }
+        List<Created> results = new ArrayList<>(rows.size());
+        for (NewApplicant r : rows) {
+            UUID existing = r.nationalId() != null ? byNationalId.get(r.nationalId())
+                    : r.email() != null ? byEmail.get(r.email()) : null;
+            if (existing != null) {
+                results.add(new Created(existing, true));
+                continue;
+            }
+            UUID id = createApplicant(r.fullName(), r.email(), r.phone(), r.nationalId(), r.address());
+            if (r.nationalId() != null) byNationalId.put(r.nationalId(), id);
+            if (r.email() != null) byEmail.putIfAbsent(r.email(), id);
+            results.add(new Created(id, false));
+        }
+        return results;
+    }
+
+    @Override
+    public List<ApplicantText> applicantTexts(Collection<UUID> ids) {
+        List<ApplicantText> texts = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
+            InMemoryStore.Applicant p = store.applicants.get(id);
+            if (p != null) texts.add(new ApplicantText(p.id(), p.fullName(), p.email(), p.phone()));
+        }
+        return texts;
+    }
+
+    @Override
+    public void forEachApplicant(Consumer<ApplicantText> handler) {
+        store.applicants.values().forEach(p ->
+                handler.accept(new ApplicantText(p.id(), p.fullName(), p.email(), p.phone())));
+    }
+}
@@ -0,0 +1,182 @@
+package com.demo.credit.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+@Repository
+@ConditionalOnProperty(name = "storage.engine", havingValue = "memory")
+@RequiredArgsConstructor
+public class InMemoryApplicationRepository implements ApplicationRepository {
+
+    private final InMemoryStore store;
+
+    @Override
+    public UUID create(UUID applicantId, String consentId) {
+        LocalDateTime now = InMemoryStore.nowUtc();
+        UUID id = UUID.randomUUID();
+        store.putApplication(new InMemoryStore.Application(id, store.nextReferenceNo(now), "CREATED", now,
+                applicantId, consentId));
+        return id;
+    }
+
+    @Override
+    public List<ApplicationListItem> list(String status, String q, int page, int size) {
+        return store.applicationsByList.values().stream()
+                .filter(matches(status, q))
+                .skip((long) Math.max(page - 1, 0) * size)
+                .limit(size)
+                .map(this::toListItem)
+                .toList();
+    }
+
+    @Override
+    public CursorPage listAfter(String status, String q, ListCursor after, int size) {
+        var tail = after == null ? store.applicationsByList : store.applicationsByList.tailMap(after, false);
+        Predicate<InMemoryStore.Application> filter = matches(status, q);
+        List<ApplicationListItem> page = new ArrayList<>(size);
+        for (InMemoryStore.Application a : tail.values()) {
+            if (!filter.test(a)) continue;
+            if (page.size() == size) {
+                ApplicationListItem last = page.get(size - 1);
+                return new CursorPage(page, new ListCursor(last.createdAt(), last.applicationId()).encode());
+            }
+            page.add(toListItem(a));
+        }
+        return new CursorPage(page, null);
+    }
+
+    @Override
+    public void streamList(String status, String q, int page, int size, ListRowHandler handler) {
+        for (ApplicationListItem item : list(status, q, page, size)) {
+            emit(handler, item);
+        }
+    }
+
+    @Override
+    public ListCursor streamListAfter(String status, String q, ListCursor after, int size, ListRowHandler handler) {
+        CursorPage page = listAfter(status, q, after, size);
+        for (ApplicationListItem item : page.items()) {
+            emit(handler, item);
+        }
+        return page.nextCursor() == null ? null : ListCursor.decode(page.nextCursor());
+    }
+
+    @Override
+    public ListCursor streamListByIds(String status, String q, List<UUID> ids, ListCursor after, int skip, int size,
+                                      ListRowHandler handler) {
+        Predicate<InMemoryStore.Application> filter = matches(status, q);
+        if (after != null) {
+            filter = filter.and(a -> InMemoryStore.LIST_ORDER.compare(a.cursor(), after) > 0);
+        }
+        int skipped = 0;
+        ApplicationListItem last = null;
+        int emitted = 0;
+        for (UUID id : ids) {
+            InMemoryStore.Application a = store.applications.get(id);
+            if (a == null || !filter.test(a)) continue;
+            if (skipped < skip) {
+                skipped++;
+                continue;
+            }
+            if (emitted == size) {
+                return new ListCursor(last.createdAt(), last.applicationId());
+            }
+            last = toListItem(a);
+            emit(handler, last);
+            emitted++;
+        }
+        return null;
+    }
+
+    @Override
+    public void forEachSearchDoc(LocalDateTime since, Consumer<SearchDoc> handler) {
+        // applicationsByList xếp mới → cũ; chỉ mục cần cũ → mới
+        store.applicationsByList.descendingMap().values().forEach(a -> {
+            if (since == null || !a.createdAt().isBefore(since)) {
+                handler.accept(new SearchDoc(a.id(), a.referenceNo(), a.createdAt(), a.applicantId()));
+            }
+        });
+    }
+
+    private static void emit(ListRowHandler handler, ApplicationListItem item) {
+        try {
+            handler.accept(ListRow.of(item));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public Optional<ApplicationDetail> detail(UUID applicationId) {
+        InMemoryStore.Application a = store.applications.get(applicationId);
+        if (a == null) return Optional.empty();
+        ScoreRepository.ExportRow s = store.latestScores.get(applicationId);
+        ConsentRepository.ConsentRow c = store.consents.get(a.consentId());
+        return Optional.of(new ApplicationDetail(
+                a.id(), a.referenceNo(), a.status(), a.createdAt(), a.applicantId(), a.consentId(),
+                s == null ? null : s.scoreId(),
+                s == null ? null : s.score(),
+                s == null ? null : s.pd(),
+                s == null ? null : s.decision(),
+                s == null ? null : s.topReasonsJson(),
+                s == null ? null : s.modelVersion(),
+                s == null ? null : s.featureSchemaVersion(),
+                s == null ? null : s.txHash(),
+                s == null ? null : s.scoredAt(),
+                c == null ? null : c.status(),
+                c == null ? null : c.expiry(),
+                c == null ? null : c.lastTxHash()));
+    }
+
+    @Override
+    public Map<UUID, String> findConsentIds(Collection<UUID> applicationIds) {
+        Map<UUID, String> out = new HashMap<>(applicationIds.size() * 2);
+        for (UUID id : applicationIds) {
+            InMemoryStore.Application a = store.applications.get(id);
+            if (a != null) out.put(id, a.consentId());
+        }
+        return out;
+    }
+
+    // Tương đương WHERE của LIST_KEYSET_SQL: status khớp tuyệt đối, q = LIKE %q% (không phân biệt hoa thường)
+    private Predicate<InMemoryStore.Application> matches(String status, String q) {
+        String needle = (q == null || q.isBlank()) ? null : q.strip().toLowerCase(Locale.ROOT);
+        return a -> {
+            if (status != null && !status.equals(a.status())) return false;
+            if (needle == null) return true;
+            if (contains(a.referenceNo(), needle)) return true;
+            InMemoryStore.Applicant p = store.applicants.get(a.applicantId());
+            return p != null && (contains(p.fullName(), needle) || contains(p.email(), needle)
+                    || contains(p.phone(), needle));
+        };
+    }
+
+    private static boolean contains(String value, String needle) {
+        return value != null && value.toLowerCase(Locale.ROOT).contains(needle);
+    }
+
+    private ApplicationListItem toListItem(InMemoryStore.Application a) {
+        ScoreRepository.ExportRow s = store.latestScores.get(a.id());
+        return new ApplicationListItem(a.id(), a.referenceNo(), a.status(), a.createdAt(), a.applicantId(),
+                a.consentId(),
+                s == null ? null : s.score(),
+                s == null ? null : s.pd(),
+                s == null ? null : s.decision(),
+                s == null ? null : s.scoredAt());
+    }
+}
@@ -0,0 +1,45 @@
+package com.demo.credit.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+@ConditionalOnProperty(name = "storage.engine", havingValue = "memory")
+@RequiredArgsConstructor
+public class InMemoryConsentRepository implements ConsentRepository {
+
+    private final InMemoryStore store;
+
+    @Override
+    public void upsert(String consentId, UUID applicantId, String scopesJson,
+                       LocalDateTime expiry, String status, String lastTxHash, String subjectPubKey) {
+        store.consents.put(consentId,
+                new ConsentRow(consentId, applicantId, scopesJson, expiry, status, lastTxHash, subjectPubKey));
+    }
+
+    @Override
+    public Optional<ConsentRow> findActive(String consentId) {
+        if (consentId == null) return Optional.empty();
+        LocalDateTime now = InMemoryStore.nowUtc();
+        return Optional.ofNullable(store.consents.get(consentId))
+                // expiry null = không active, như điều kiện expiry > SYSUTCDATETIME() của JdbcConsentRepository
+                .filter(c -> "ACTIVE".equals(c.status()) && c.expiry() != null && c.expiry().isAfter(now));
+    }
+
+    @Override
+    public Map<String, ConsentRow> findActiveByIds(Collection<String> consentIds) {
+        Map<String, ConsentRow> out = new HashMap<>(consentIds.size() * 2);
+        for (String id : consentIds) {
+            findActive(id).ifPresent(c -> out.put(id, c));
+        }
+        return out;
+    }
+}
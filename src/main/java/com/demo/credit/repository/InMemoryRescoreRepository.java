@@ -0,0 +1,128 @@
+package com.demo.credit.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+@Repository
+@ConditionalOnProperty(name = "storage.engine", havingValue = "memory")
+@RequiredArgsConstructor
+public class InMemoryRescoreRepository implements RescoreRepository {
+
+    private final InMemoryStore store;
+
+    @Override
+    public boolean featuresTableReady() {
+        return true;
+    }
+
+    @Override
+    public void saveFeatures(List<FeatureRow> rows) {
+        rows.forEach(r -> store.features.put(r.applicationId(), r));
+    }
+
+    @Override
+    public long countFeatures() {
+        return store.features.size();
+    }
+
+    @Override
+    public List<UUID> partitionBounds(int partitions) {
+        List<UUID> keys = new ArrayList<>(store.features.keySet());
+        List<UUID> bounds = new ArrayList<>();
+        if (keys.isEmpty()) return bounds;
+        int step = (keys.size() + partitions - 1) / Math.max(1, partitions);
+        for (int i = step; i < keys.size(); i += step) bounds.add(keys.get(i - 1));
+        bounds.add(keys.get(keys.size() - 1));
+        return bounds;
+    }
+
+    @Override
+    public List<FeatureRow> featuresAfter(UUID after, UUID upTo, int limit) {
+        var range = after == null ? store.features : store.features.tailMap(after, false);
+        if (upTo != null) range = range.headMap(upTo, true);
+        return range.values().stream().limit(limit).toList();
+    }
+
+    // Các thao tác lease khoá cả tập lượt chạy như UPDLOCK/HOLDLOCK của bản SQL
+    @Override
+    public synchronized boolean createRun(Run run, List<Checkpoint> checkpoints, Duration leaseTimeout) {
+        LocalDateTime cutoff = InMemoryStore.nowUtc().minus(leaseTimeout);
+        boolean live = store.rescoreRuns.values().stream().anyMatch(r -> "RUNNING".equals(r.status())
+                && r.heartbeatAt() != null && r.heartbeatAt().isAfter(cutoff));
+        if (live) return false;
+        var byPartition = new ConcurrentSkipListMap<Integer, Checkpoint>();
+        checkpoints.forEach(c -> byPartition.put(c.partition(), c));
+        store.rescoreCheckpoints.put(run.runId(), byPartition);
+        store.rescoreRuns.put(run.runId(), new Run(run.runId(), run.status(), run.partitions(), run.total(),
+                run.rate(), run.owner(), InMemoryStore.nowUtc(), run.createdAt(), run.updatedAt()));
+        return true;
+    }
+
+    @Override
+    public Optional<Run> findRun(UUID runId) {
+        return Optional.ofNullable(store.rescoreRuns.get(runId));
+    }
+
+    @Override
+    public synchronized boolean claimRun(UUID runId, String owner, Duration leaseTimeout) {
+        Run r = store.rescoreRuns.get(runId);
+        if (r == null || "COMPLETED".equals(r.status())) return false;
+        LocalDateTime now = InMemoryStore.nowUtc();
+        if (r.owner() != null && r.heartbeatAt() != null && r.heartbeatAt().isAfter(now.minus(leaseTimeout))) {
+            return false;
+        }
+        store.rescoreRuns.put(runId, new Run(runId, "RUNNING", r.partitions(), r.total(), r.rate(), owner, now,
+                r.createdAt(), now));
+        return true;
+    }
+
+    @Override
+    public synchronized boolean renewLease(UUID runId, String owner) {
+        Run r = store.rescoreRuns.get(runId);
+        if (r == null || !owner.equals(r.owner()) || !"RUNNING".equals(r.status())) return false;
+        store.rescoreRuns.put(runId, new Run(runId, r.status(), r.partitions(), r.total(), r.rate(), owner,
+                InMemoryStore.nowUtc(), r.createdAt(), r.updatedAt()));
+        return true;
+    }
+
+    @Override
+    public synchronized void releaseRun(UUID runId, String owner, String status) {
+        Run r = store.rescoreRuns.get(runId);
+        if (r == null || !owner.equals(r.owner())) return;
+        store.rescoreRuns.put(runId, new Run(runId, status, r.partitions(), r.total(), r.rate(), null, null,
+                r.createdAt(), InMemoryStore.nowUtc()));
+    }
+
+    @Override
+    public synchronized boolean updateRunStatus(UUID runId, String from, String to) {
+        Run r = store.rescoreRuns.get(runId);
+        if (r == null || !from.equals(r.status())) return false;
+        store.rescoreRuns.put(runId, new Run(runId, to, r.partitions(), r.total(), r.rate(), r.owner(),
+                r.heartbeatAt(), r.createdAt(), InMemoryStore.nowUtc()));
+        return true;
+    }
+
+    @Override
+    public List<Checkpoint> checkpoints(UUID runId) {
+        var byPartition = store.rescoreCheckpoints.get(runId);
+        return byPartition == null ? List.of() : List.copyOf(byPartition.values());
+    }
+
+    @Override
+    public synchronized boolean saveCheckpoint(Checkpoint checkpoint, String owner) {
+        Run r = store.rescoreRuns.get(checkpoint.runId());
+        var byPartition = store.rescoreCheckpoints.get(checkpoint.runId());
+        if (r == null || byPartition == null || !owner.equals(r.owner())) return false;
+        byPartition.put(checkpoint.partition(), checkpoint);
+        return true;
+    }
+}
@@ -0,0 +1,81 @@
+package com.demo.credit.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+@Repository
+@ConditionalOnProperty(name = "storage.engine", havingValue = "memory")
+@RequiredArgsConstructor
+public class InMemoryScoreRepository implements ScoreRepository {
+
+    private final InMemoryStore store;
+
+    @Override
+    public void saveScore(UUID applicationId, String consentId, String txHash,
+                          String modelVersion, String featureSchemaVersion,
+                          int score, double pd, String decisionUpper, String topReasonsJson) {
+        save(new ScoreWrite(applicationId, consentId, txHash, modelVersion, featureSchemaVersion,
+                score, pd, decisionUpper, topReasonsJson));
+    }
+
+    @Override
+    public Map<Integer, String> saveScores(List<ScoreWrite> rows, int batchSize) {
+        // Không có transaction: lỗi được báo theo từng dòng
+        Map<Integer, String> failed = new LinkedHashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            try {
+                save(rows.get(i));
+            } catch (DataIntegrityViolationException ex) {
+                failed.put(i, ex.getMessage());
+            }
+        }
+        return failed;
+    }
+
+    @Override
+    public void saveJournaled(List<JournaledWrite> rows, int batchSize) {
+        for (JournaledWrite j : rows) {
+            if (store.appliedJournalIds.add(j.journalId())) save(j.write());
+        }
+    }
+
+    @Override
+    public void forEachScore(ExportFilter filter, int fetchSize, Consumer<ExportRow> handler) {
+        var rows = filter.after() == null ? store.scores : store.scores.tailMap(filter.after(), false);
+        int emitted = 0;
+        for (ExportRow r : rows.values()) {
+            if (filter.to() != null && !r.scoredAt().isBefore(filter.to())) break;
+            if (filter.from() != null && r.scoredAt().isBefore(filter.from())) continue;
+            if (filter.modelVersion() != null && !filter.modelVersion().equals(r.modelVersion())) continue;
+            handler.accept(r);
+            if (filter.limit() > 0 && ++emitted >= filter.limit()) break;
+        }
+    }
+
+    // Như sp_SaveScore: thêm dòng score, hồ sơ chuyển SCORED
+    private void save(ScoreWrite w) {
+        InMemoryStore.Application app = store.applications.get(w.applicationId());
+        if (app == null) {
+            // Như vi phạm FK của core.Scores: lỗi vĩnh viễn của dòng này, thử lại không giúp gì
+            throw new DataIntegrityViolationException("Application not found");
+        }
+        LocalDateTime now = InMemoryStore.nowUtc();
+        ExportRow row = new ExportRow(UUID.randomUUID(), app.id(), app.referenceNo(), app.applicantId(),
+                w.consentId(), w.txHash(), w.score(), w.pd(),
+                w.decision() == null ? null : w.decision().toUpperCase(Locale.ROOT),
+                w.topReasonsJson(), w.modelVersion(), w.featureSchemaVersion(), now);
+        store.scores.put(row.cursor(), row);
+        store.latestScores.merge(app.id(), row, (old, neu) -> neu.scoredAt().isBefore(old.scoredAt()) ? old : neu);
+        store.putApplication(app.withStatus("SCORED"));
+    }
+}
@@ -0,0 +1,82 @@
+package com.demo.credit.repository;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dữ liệu dùng chung của các repository in-memory ({@code storage.engine=memory}, profile loadtest):
+ * thay SQL Server khi đo tải, để con số phản ánh phần việc của ứng dụng chứ không phải của DB.
+ * <p>
+ * Giữ đúng các ngữ nghĩa mà service/UI dựa vào: thứ tự keyset của danh sách (created_at DESC, id DESC),
+ * thứ tự export (scored_at, score_id), consent ACTIVE còn hạn, score mới nhất của hồ sơ,
+ * status SCORED sau khi lưu score và dedupe journal_id. Không có ràng buộc FK / unique nào khác.
+ * Dữ liệu chỉ tăng trong suốt tiến trình — đủ cho một lượt đo tải, không dùng lâu dài.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.engine", havingValue = "memory")
+public class InMemoryStore {
+
+    static final Comparator<ApplicationRepository.ListCursor> LIST_ORDER = Comparator
+            .comparing(ApplicationRepository.ListCursor::createdAt)
+            .thenComparing(ApplicationRepository.ListCursor::applicationId)
+            .reversed();
+
+    static final Comparator<ScoreRepository.ExportCursor> EXPORT_ORDER = Comparator
+            .comparing(ScoreRepository.ExportCursor::scoredAt)
+            .thenComparing(ScoreRepository.ExportCursor::scoreId);
+
+    final Map<UUID, Applicant> applicants = new ConcurrentHashMap<>();
+    final Map<String, ConsentRepository.ConsentRow> consents = new ConcurrentHashMap<>();
+    final Map<UUID, Application> applications = new ConcurrentHashMap<>();
+    final ConcurrentNavigableMap<ApplicationRepository.ListCursor, Application> applicationsByList =
+            new ConcurrentSkipListMap<>(LIST_ORDER);
+    final ConcurrentNavigableMap<ScoreRepository.ExportCursor, ScoreRepository.ExportRow> scores =
+            new ConcurrentSkipListMap<>(EXPORT_ORDER);
+    final Map<UUID, ScoreRepository.ExportRow> latestScores = new ConcurrentHashMap<>();
+    final Set<UUID> appliedJournalIds = ConcurrentHashMap.newKeySet();
+    final ConcurrentNavigableMap<UUID, RescoreRepository.FeatureRow> features = new ConcurrentSkipListMap<>();
+    final Map<UUID, RescoreRepository.Run> rescoreRuns = new ConcurrentHashMap<>();
+    final Map<UUID, ConcurrentNavigableMap<Integer, RescoreRepository.Checkpoint>> rescoreCheckpoints =
+            new ConcurrentHashMap<>();
+
+    private final AtomicLong referenceSeq = new AtomicLong();
+
+    static LocalDateTime nowUtc() {
+        return LocalDateTime.now(ZoneOffset.UTC);
+    }
+
+    String nextReferenceNo(LocalDateTime at) {
+        return String.format(Locale.ROOT, "APP-%1$tY%1$tm%1$td-%2$06d", at, referenceSeq.incrementAndGet());
+    }
+
+    void putApplication(Application a) {
+        applications.put(a.id(), a);
+        applicationsByList.put(a.cursor(), a);
+    }
+
+    record Applicant(UUID id, String fullName, String email, String phone, String nationalId, String address) {}
+
+    record Application(UUID id, String referenceNo, String status, LocalDateTime createdAt,
+                       UUID applicantId, String consentId) {
+
+        ApplicationRepository.ListCursor cursor() {
+            return new ApplicationRepository.ListCursor(createdAt, id);
+        }
+
+        Application withStatus(String newStatus) {
+            return new Application(id, referenceNo, newStatus, createdAt, applicantId, consentId);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.demo.credit.repository;
+
+import com.demo.credit.config.DataSourceRouting;
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopy;
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopyOptions;
+import com.microsoft.sqlserver.jdbc.SQLServerConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.SqlOutParameter;
+import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+@Repository
+@ConditionalOnProperty(name = "storage.engine", havingValue = "jdbc", matchIfMissing = true)
+public class JdbcApplicantRepository implements ApplicantRepository {
+
+    /*
+     * Import hàng loạt: bulk copy vào bảng tạm (chỉ thấy trên connection này), rồi core.sp_CreateApplicantsBulk
+     * (db/002_applicant_import.sql) đối chiếu natural key và chèn các dòng mới trong một transaction, trả về
+     * (row_no, applicant_id, existing) cho từng dòng của bảng tạm.
+     */
+    static final String CREATE_STAGE_SQL = """
+            IF OBJECT_ID('tempdb..#ApplicantStage') IS NOT NULL DROP TABLE #ApplicantStage;
+            CREATE TABLE #ApplicantStage (
+                row_no      INT           NOT NULL PRIMARY KEY,
+                full_name   NVARCHAR(200) NOT NULL,
+                email       NVARCHAR(254) NULL,
+                phone       NVARCHAR(20)  NULL,
+                national_id NVARCHAR(20)  NULL,
+                address     NVARCHAR(500) NULL
+            );
+            """;
+
+    private static final String CREATE_BULK_SQL = "EXEC core.sp_CreateApplicantsBulk";
+
+    private static final String DROP_STAGE_SQL = "DROP TABLE #ApplicantStage";
+
+    private static final String SCAN_SQL = """
+            SELECT CONVERT(VARCHAR(36), applicant_id) AS applicant_id, full_name, email, phone
+            FROM core.Applicants
+            """;
+
+    // Số id mỗi câu IN (...) của applicantTexts, dưới giới hạn 2100 tham số của SQL Server
+    private static final int TEXTS_BATCH = 500;
+
+    private final ProcedureRegistry.ProcedureCall createApplicant;
+    private final JdbcTemplate jdbc;
+
+    @Value("${applicants.import.bulk-timeout:300s}")
+    private Duration bulkTimeout;
+
+    public JdbcApplicantRepository(ProcedureRegistry procedures, JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+        this.createApplicant = procedures.register("sp_CreateApplicant",
+                new SqlParameter("full_name", Types.NVARCHAR),
+                new SqlParameter("email", Types.NVARCHAR),
+                new SqlParameter("phone", Types.NVARCHAR),
+                new SqlParameter("national_id", Types.NVARCHAR),
+                new SqlParameter("address", Types.NVARCHAR),
+                // uniqueidentifier → lấy dạng String rồi UUID.fromString
+                new SqlOutParameter("applicant_id", Types.VARCHAR)
+        );
+    }
+
+    @Override
+    public UUID createApplicant(String fullName, String email, String phone, String nationalId, String address) {
+        Map<String, Object> in = new HashMap<>();
+        in.put("full_name", fullName);
+        in.put("email", email);
+        in.put("phone", phone);
+        in.put("national_id", nationalId);
+        in.put("address", address);
+
+        Map<String, Object> out = createApplicant.execute(in);
+        String id = String.valueOf(out.get("applicant_id"));
+        return UUID.fromString(id);
+    }
+
+    @Override
+    public List<Created> createApplicants(List<NewApplicant> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        // Dòng trùng một dòng trước trong cùng lô không được gửi xuống, nhận id của dòng đó
+        int[] earlier = earlierDuplicates(rows);
+        List<NewApplicant> staged = new ArrayList<>(rows.size());
+        int[] stageRow = new int[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            if (earlier[i] < 0) {
+                stageRow[i] = staged.size();
+                staged.add(rows.get(i));
+            }
+        }
+        Created[] stagedResults = jdbc.execute((ConnectionCallback<Created[]>) con -> {
+            try (Statement st = con.createStatement()) {
+                st.execute(CREATE_STAGE_SQL);
+            }
+            try {
+                SQLServerBulkCopyOptions options = new SQLServerBulkCopyOptions();
+                // Khoá bảng tạm của chính session này, không đụng tới core.Applicants
+                options.setTableLock(true);
+                options.setBulkCopyTimeout((int) bulkTimeout.toSeconds());
+                try (SQLServerBulkCopy copy = new SQLServerBulkCopy(con.unwrap(SQLServerConnection.class))) {
+                    copy.setBulkCopyOptions(options);
+                    copy.setDestinationTableName("#ApplicantStage");
+                    copy.writeToServer(new ApplicantBulkData(staged));
+                }
+                Created[] created = new Created[staged.size()];
+                try (Statement st = con.createStatement()) {
+                    boolean isResultSet = st.execute(CREATE_BULK_SQL);
+                    while (!isResultSet && st.getUpdateCount() != -1) {
+                        isResultSet = st.getMoreResults();
+                    }
+                    if (isResultSet) {
+                        try (ResultSet rs = st.getResultSet()) {
+                            while (rs.next()) {
+                                created[rs.getInt(1)] = new Created(UUID.fromString(rs.getString(2)), rs.getBoolean(3));
+                            }
+                        }
+                    }
+                }
+                return created;
+            } finally {
+                // Connection quay về pool → không để bảng tạm sống tiếp trên session
+                try (Statement st = con.createStatement()) {
+                    st.execute(DROP_STAGE_SQL);
+                }
+            }
+        });
+        List<Created> results = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Created c = earlier[i] < 0 ? stagedResults[stageRow[i]]
+                    : new Created(stagedResults[stageRow[earlier[i]]].applicantId(), true);
+            if (c == null) throw new IllegalStateException("Bulk applicant insert returned fewer ids than rows");
+            results.add(c);
+        }
+        return results;
+    }
+
+    // Cùng quy tắc natural key với sp_CreateApplicantsBulk: chỉ số dòng đầu tiên trùng trong lô, -1 nếu không trùng
+    static int[] earlierDuplicates(List<NewApplicant> rows) {
+        int[] earlier = new int[rows.size()];
+        Map<String, Integer> byNationalId = new HashMap<>();
+        Map<String, Integer> byEmail = new HashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            NewApplicant r = rows.get(i);
+            Integer first = r.nationalId() != null ? byNationalId.get(r.nationalId())
+                    : r.email() != null ? byEmail.get(r.email()) : null;
+            earlier[i] = first == null ? -1 : first;
+            if (first == null) {
+                if (r.nationalId() != null) byNationalId.put(r.nationalId(), i);
+                if (r.email() != null) byEmail.putIfAbsent(r.email(), i);
+            }
+        }
+        return earlier;
+    }
+
+    @Override
+    public List<ApplicantText> applicantTexts(Collection<UUID> ids) {
+        List<String> all = ids.stream().map(UUID::toString).toList();
+        List<ApplicantText> texts = new ArrayList<>(all.size());
+        for (int from = 0; from < all.size(); from += TEXTS_BATCH) {
+            List<String> batch = all.subList(from, Math.min(all.size(), from + TEXTS_BATCH));
+            String sql = SCAN_SQL + "WHERE applicant_id IN (" + String.join(",", Collections.nCopies(batch.size(), "?"))
+                    + ")";
+            texts.addAll(DataSourceRouting.readOnly(() -> jdbc.query(sql, (rs, i) -> new ApplicantText(
+                    UUID.fromString(rs.getString("applicant_id")),
+                    rs.getString("full_name"),
+                    rs.getString("email"),
+                    rs.getString("phone")), batch.toArray())));
+        }
+        return texts;
+    }
+
+    @Override
+    public void forEachApplicant(Consumer<ApplicantText> handler) {
+        DataSourceRouting.readOnly(() -> {
+            jdbc.query(con -> {
+                PreparedStatement ps = con.prepareStatement(SCAN_SQL,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(5000);
+                return ps;
+            }, (RowCallbackHandler) rs -> handler.accept(new ApplicantText(
+                    UUID.fromString(rs.getString("applicant_id")),
+                    rs.getString("full_name"),
+                    rs.getString("email"),
+                    rs.getString("phone"))));
+            return null;
+        });
+    }
+}
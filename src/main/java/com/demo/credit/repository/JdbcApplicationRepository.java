@@ -0,0 +1,328 @@
+package com.demo.credit.repository;
+
+import com.demo.credit.config.DataSourceRouting;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlOutParameter;
+import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.core.SqlReturnResultSet;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Consumer;
+
+@Repository
+@ConditionalOnProperty(name = "storage.engine", havingValue = "jdbc", matchIfMissing = true)
+public class JdbcApplicationRepository implements ApplicationRepository {
+
+    // SQL Server giới hạn 2100 tham số / câu lệnh → chia IN (...) theo lô
+    static final int IN_CHUNK = 1000;
+
+    /*
+     * Mọi chế độ danh sách (page/size, keyset, trang tìm kiếm theo id) dùng chung LIST_SELECT + listWhere nên
+     * cùng bộ lọc status/q luôn cho cùng tập dòng; page/size là OFFSET/FETCH trên cùng thứ tự.
+     * Keyset: thứ tự (created_at DESC, application_id DESC), trang sau = seek "nhỏ hơn" dòng cuối.
+     * Cần index tương ứng để seek không phải quét:
+     *   CREATE INDEX IX_Applications_created_at_id ON core.Applications (created_at DESC, application_id DESC)
+     * WHERE chỉ gồm các bộ lọc có mặt (listWhere): mỗi tổ hợp là một câu lệnh với plan riêng. Dạng catch-all
+     * "(? IS NULL OR ...)" dùng chung một plan cho mọi tổ hợp nên không seek được theo con trỏ.
+     */
+    private static final String LIST_SELECT = """
+            SELECT %s a.application_id, a.reference_no, a.status, a.created_at, a.applicant_id, a.consent_id,
+                   s.score, s.pd, s.decision, s.created_at AS scored_at
+            FROM core.Applications a
+            JOIN core.Applicants p ON p.applicant_id = a.applicant_id
+            OUTER APPLY (
+                SELECT TOP 1 sc.score, sc.pd, sc.decision, sc.created_at
+                FROM core.Scores sc
+                WHERE sc.application_id = a.application_id
+                ORDER BY sc.created_at DESC
+            ) s
+            """;
+
+    private static final String LIST_ORDER = "ORDER BY a.created_at DESC, a.application_id DESC";
+
+    private static final String SEARCH_SCAN_SQL = """
+            SELECT CONVERT(VARCHAR(36), application_id) AS application_id, reference_no, created_at,
+                   CONVERT(VARCHAR(36), applicant_id) AS applicant_id
+            FROM core.Applications
+            """;
+
+    private static final String SEARCH_SCAN_ORDER = "ORDER BY created_at, application_id";
+
+    private final JdbcTemplate jdbc;
+    private final ProcedureRegistry.ProcedureCall createApplication;
+    private final ProcedureRegistry.ProcedureCall getApplicationDetail;
+
+    public JdbcApplicationRepository(JdbcTemplate jdbc, ProcedureRegistry procedures) {
+        this.jdbc = jdbc;
+        this.createApplication = procedures.register("sp_CreateApplication",
+                new SqlParameter("applicant_id", Types.VARCHAR),
+                new SqlParameter("consent_id", Types.CHAR),
+                new SqlOutParameter("application_id", Types.VARCHAR)
+        );
+        this.getApplicationDetail = procedures.register("sp_GetApplicationDetail",
+                new SqlReturnResultSet("row", detailMapper()),
+                new SqlParameter("application_id", Types.VARCHAR)
+        );
+    }
+
+    @Override
+    public UUID create(UUID applicantId, String consentId) {
+        Map<String, Object> in = new HashMap<>();
+        in.put("applicant_id", applicantId.toString());
+        in.put("consent_id", consentId);
+
+        Map<String, Object> out = createApplication.execute(in);
+        return UUID.fromString(String.valueOf(out.get("application_id")));
+    }
+
+    @Override
+    public List<ApplicationListItem> list(String status, String q, int page, int size) {
+        List<Object> args = new ArrayList<>(8);
+        String sql = pageSql(status, like(q), page, size, args);
+        return DataSourceRouting.readOnly(() -> jdbc.query(sql, listMapper(), args.toArray()));
+    }
+
+    @Override
+    public CursorPage listAfter(String status, String q, ListCursor after, int size) {
+        String like = like(q);
+        Timestamp afterTs = after == null ? null : Timestamp.valueOf(after.createdAt());
+        String afterId = after == null ? null : after.applicationId().toString();
+
+        // Lấy dư 1 dòng để biết còn trang sau hay không
+        List<Object> args = new ArrayList<>(8);
+        args.add(size + 1);
+        String sql = keysetSql(status, like, afterTs, afterId, args);
+        List<ApplicationListItem> rows = DataSourceRouting.readOnly(() -> jdbc.query(sql, listMapper(),
+                args.toArray()));
+
+        if (rows.size() <= size) {
+            return new CursorPage(rows, null);
+        }
+        List<ApplicationListItem> page = rows.subList(0, size);
+        ApplicationListItem last = page.get(size - 1);
+        return new CursorPage(List.copyOf(page), new ListCursor(last.createdAt(), last.applicationId()).encode());
+    }
+
+    @Override
+    public void streamList(String status, String q, int page, int size, ListRowHandler handler) {
+        List<Object> args = new ArrayList<>(8);
+        String sql = pageSql(status, like(q), page, size, args);
+        ResultSetListRow row = new ResultSetListRow();
+        DataSourceRouting.readOnly(() -> {
+            jdbc.query(sql, (RowCallbackHandler) rs -> row.emit(rs, handler), args.toArray());
+            return null;
+        });
+    }
+
+    @Override
+    public ListCursor streamListAfter(String status, String q, ListCursor after, int size, ListRowHandler handler) {
+        String like = like(q);
+        Timestamp afterTs = after == null ? null : Timestamp.valueOf(after.createdAt());
+        String afterId = after == null ? null : after.applicationId().toString();
+
+        ResultSetListRow row = new ResultSetListRow();
+        int[] emitted = {0};
+        boolean[] more = {false};
+        List<Object> args = new ArrayList<>(8);
+        args.add(size + 1);
+        String sql = keysetSql(status, like, afterTs, afterId, args);
+        // Dòng thứ size+1 chỉ để biết còn trang sau, không ghi ra
+        DataSourceRouting.readOnly(() -> {
+            jdbc.query(sql, (RowCallbackHandler) rs -> {
+                if (emitted[0] == size) {
+                    more[0] = true;
+                    return;
+                }
+                row.emit(rs, handler);
+                emitted[0]++;
+            }, args.toArray());
+            return null;
+        });
+
+        return more[0] ? new ListCursor(row.createdAt(), UUID.fromString(row.applicationId())) : null;
+    }
+
+    @Override
+    public ListCursor streamListByIds(String status, String q, List<UUID> ids, ListCursor after, int skip, int size,
+                                      ListRowHandler handler) {
+        String like = like(q);
+        Timestamp afterTs = after == null ? null : Timestamp.valueOf(after.createdAt());
+        String afterId = after == null ? null : after.applicationId().toString();
+        ResultSetListRow row = new ResultSetListRow();
+        int[] skipped = {0};
+        int[] emitted = {0};
+        boolean[] more = {false};
+        RowCallbackHandler page = rs -> {
+            if (more[0]) return;
+            if (skipped[0] < skip) {
+                skipped[0]++;
+                return;
+            }
+            // Dòng thứ size+1 chỉ để biết còn trang sau, không ghi ra
+            if (emitted[0] == size) {
+                more[0] = true;
+                return;
+            }
+            row.emit(rs, handler);
+            emitted[0]++;
+        };
+        // Lô đầu vừa đủ cho trang đang xem, các lô sau lớn hơn
+        int chunk = Math.min(IN_CHUNK, Math.max(100, 2 * (skip + size + 1)));
+        for (int from = 0; from < ids.size() && !more[0]; from += chunk, chunk = IN_CHUNK) {
+            List<UUID> part = ids.subList(from, Math.min(ids.size(), from + chunk));
+            List<Object> args = new ArrayList<>(part.size() + 8);
+            part.forEach(id -> args.add(id.toString()));
+            String in = "a.application_id IN (" + String.join(",", Collections.nCopies(part.size(), "?")) + ")";
+            String where = listWhere(in, status, like, afterTs, afterId, args);
+            // Trang tìm kiếm: chỉ đọc các ứng viên của chỉ mục (PK lookup), LIKE giữ để loại ứng viên dư
+            String sql = LIST_SELECT.formatted("") + "WHERE " + where + "\n" + LIST_ORDER;
+            DataSourceRouting.readOnly(() -> {
+                jdbc.query(sql, page, args.toArray());
+                return null;
+            });
+        }
+        return more[0] ? new ListCursor(row.createdAt(), UUID.fromString(row.applicationId())) : null;
+    }
+
+    // page đánh số từ 1 như ApplicationListWriter/InMemoryApplicationRepository
+    private static String pageSql(String status, String like, int page, int size, List<Object> args) {
+        String where = listWhere(null, status, like, null, null, args);
+        Collections.addAll(args, (long) Math.max(page - 1, 0) * size, size);
+        return LIST_SELECT.formatted("") + (where.isEmpty() ? "" : "WHERE " + where + "\n") + LIST_ORDER
+                + "\nOFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
+    }
+
+    private static String like(String q) {
+        return (q == null || q.isBlank()) ? null : "%" + q.strip() + "%";
+    }
+
+    private static String keysetSql(String status, String like, Timestamp afterTs, String afterId, List<Object> args) {
+        String where = listWhere(null, status, like, afterTs, afterId, args);
+        return LIST_SELECT.formatted("TOP (?)") + (where.isEmpty() ? "" : "WHERE " + where + "\n") + LIST_ORDER;
+    }
+
+    /**
+     * Điều kiện WHERE chỉ gồm các bộ lọc có mặt ({@code head} nếu có, status, q, con trỏ), nối bằng AND;
+     * tham số tương ứng được thêm vào {@code args} theo đúng thứ tự placeholder.
+     */
+    private static String listWhere(String head, String status, String like, Timestamp afterTs, String afterId,
+                                    List<Object> args) {
+        List<String> conditions = new ArrayList<>(4);
+        if (head != null) conditions.add(head);
+        if (status != null) {
+            conditions.add("a.status = ?");
+            args.add(status);
+        }
+        if (like != null) {
+            conditions.add("(a.reference_no LIKE ? OR p.full_name LIKE ? OR p.email LIKE ? OR p.phone LIKE ?)");
+            Collections.addAll(args, like, like, like, like);
+        }
+        if (afterTs != null) {
+            // created_at <= ? là khoảng seek trên index; phần OR chỉ loại các dòng cùng created_at đã trả
+            conditions.add("a.created_at <= ? AND (a.created_at < ? OR a.application_id < ?)");
+            Collections.addAll(args, afterTs, afterTs, afterId);
+        }
+        return String.join("\n  AND ", conditions);
+    }
+
+    @Override
+    public void forEachSearchDoc(LocalDateTime since, Consumer<SearchDoc> handler) {
+        String sql = SEARCH_SCAN_SQL + (since == null ? "" : "WHERE created_at >= ?\n") + SEARCH_SCAN_ORDER;
+        DataSourceRouting.readOnly(() -> {
+            jdbc.query(con -> {
+                PreparedStatement ps = con.prepareStatement(sql,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(5000);
+                if (since != null) ps.setTimestamp(1, Timestamp.valueOf(since));
+                return ps;
+            }, (RowCallbackHandler) rs -> handler.accept(new SearchDoc(
+                    UUID.fromString(rs.getString("application_id")),
+                    rs.getString("reference_no"),
+                    rs.getTimestamp("created_at").toLocalDateTime(),
+                    UUID.fromString(rs.getString("applicant_id")))));
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<ApplicationDetail> detail(UUID applicationId) {
+        Map<String, Object> in = new HashMap<>();
+        in.put("application_id", applicationId.toString());
+
+        // Hồ sơ vừa tạo có thể chưa tới replica → không thấy thì hỏi lại primary
+        return DataSourceRouting.readOnly(() -> {
+            Map<String, Object> out = getApplicationDetail.execute(in);
+            @SuppressWarnings("unchecked")
+            List<ApplicationDetail> rows = (List<ApplicationDetail>) out.getOrDefault("row", List.of());
+            return rows.stream().findFirst();
+        }, Optional::isEmpty);
+    }
+
+    @Override
+    public Map<UUID, String> findConsentIds(Collection<UUID> applicationIds) {
+        Map<UUID, String> out = new HashMap<>(applicationIds.size() * 2);
+        List<String> ids = applicationIds.stream().distinct().map(UUID::toString).toList();
+        for (int from = 0; from < ids.size(); from += IN_CHUNK) {
+            List<String> chunk = ids.subList(from, Math.min(ids.size(), from + IN_CHUNK));
+            String sql = "SELECT application_id, consent_id FROM core.Applications WHERE application_id IN ("
+                    + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")";
+            jdbc.query(sql, rs -> {
+                out.put(UUID.fromString(rs.getString("application_id")), rs.getString("consent_id"));
+            }, chunk.toArray());
+        }
+        return out;
+    }
+
+    static RowMapper<ApplicationListItem> listMapper() {
+        return (rs, i) -> new ApplicationListItem(
+                UUID.fromString(rs.getString("application_id")),
+                rs.getString("reference_no"),
+                rs.getString("status"),
+                rs.getTimestamp("created_at").toLocalDateTime(),
+                UUID.fromString(rs.getString("applicant_id")),
+                rs.getString("consent_id"),
+                (Integer) rs.getObject("score"),
+                (rs.getBigDecimal("pd") == null ? null : rs.getBigDecimal("pd").doubleValue()),
+                rs.getString("decision"),
+                rs.getTimestamp("scored_at") == null ? null : rs.getTimestamp("scored_at").toLocalDateTime()
+        );
+    }
+
+    static RowMapper<ApplicationDetail> detailMapper() {
+        return (rs, i) -> new ApplicationDetail(
+                UUID.fromString(rs.getString("id")),
+                rs.getString("reference_no"),
+                rs.getString("status"),
+                rs.getTimestamp("created_at").toLocalDateTime(),
+                UUID.fromString(rs.getString("applicant_id")),
+                rs.getString("consent_id"),
+
+                // latest score (join TOP 1 DESC)
+                (UUID) Optional.ofNullable(rs.getString("score_id")).map(UUID::fromString).orElse(null),
+                (Integer) rs.getObject("score"),
+                rs.getBigDecimal("pd") == null ? null : rs.getBigDecimal("pd").doubleValue(),
+                rs.getString("decision"),
+                rs.getString("top_reasons"),
+                rs.getString("model_version"),
+                rs.getString("feature_schema_version"),
+                rs.getString("tx_hash"),
+                rs.getTimestamp("scored_at") == null ? null : rs.getTimestamp("scored_at").toLocalDateTime(),
+
+                // consent snapshot
+                rs.getString("consent_status"),
+                rs.getTimestamp("consent_expiry") == null ? null : rs.getTimestamp("consent_expiry").toLocalDateTime(),
+                rs.getString("last_tx_hash")
+        );
+    }
+}
@@ -0,0 +1,103 @@
+package com.demo.credit.repository;
+
+import com.demo.credit.config.DataSourceRouting;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.stereotype.Repository;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+@ConditionalOnProperty(name = "storage.engine", havingValue = "jdbc", matchIfMissing = true)
+public class JdbcConsentRepository implements ConsentRepository {
+
+    private final JdbcTemplate jdbc;
+    private final ProcedureRegistry.ProcedureCall upsertConsent;
+
+    public JdbcConsentRepository(JdbcTemplate jdbc, ProcedureRegistry procedures) {
+        this.jdbc = jdbc;
+        this.upsertConsent = procedures.register("sp_UpsertConsent",
+                new SqlParameter("consent_id", Types.CHAR),
+                new SqlParameter("applicant_id", Types.VARCHAR), // uniqueidentifier as string
+                new SqlParameter("scopes", Types.NVARCHAR),
+                new SqlParameter("expiry", Types.TIMESTAMP),
+                new SqlParameter("status", Types.VARCHAR),
+                new SqlParameter("last_tx_hash", Types.CHAR),
+                new SqlParameter("subject_pubkey", Types.NVARCHAR)
+        );
+    }
+
+    @Override
+    public void upsert(String consentId, UUID applicantId, String scopesJson,
+                       LocalDateTime expiry, String status, String lastTxHash, String subjectPubKey) {
+        Map<String, Object> in = new HashMap<>();
+        in.put("consent_id", consentId);
+        in.put("applicant_id", applicantId.toString());
+        in.put("scopes", scopesJson);
+        in.put("expiry", java.sql.Timestamp.valueOf(expiry));
+        in.put("status", status);
+        in.put("last_tx_hash", lastTxHash);
+        in.put("subject_pubkey", subjectPubKey);
+        upsertConsent.execute(in);
+    }
+
+    @Override
+    public Optional<ConsentRow> findActive(String consentId) {
+        String sql = """
+            SELECT consent_id, applicant_id, scopes, expiry, status, last_tx_hash, subject_pubkey, created_at, updated_at
+            FROM core.Consents
+            WHERE consent_id = ? AND status = 'ACTIVE' AND expiry > SYSUTCDATETIME()
+        """;
+        // Replica chưa kịp nhận consent vừa cấp → hỏi lại primary trước khi coi là không có
+        return DataSourceRouting.readOnly(() -> jdbc.query(sql, rm(), consentId).stream().findFirst(),
+                Optional::isEmpty);
+    }
+
+    @Override
+    public Map<String, ConsentRow> findActiveByIds(Collection<String> consentIds) {
+        List<String> ids = consentIds.stream().filter(Objects::nonNull).distinct().toList();
+        // Giống findActive: thiếu id nào trên replica thì đọc lại cả lô ở primary
+        return DataSourceRouting.readOnly(() -> queryActive(ids), found -> found.size() < ids.size());
+    }
+
+    private Map<String, ConsentRow> queryActive(List<String> ids) {
+        Map<String, ConsentRow> out = new HashMap<>(ids.size() * 2);
+        for (int from = 0; from < ids.size(); from += JdbcApplicationRepository.IN_CHUNK) {
+            List<String> chunk = ids.subList(from, Math.min(ids.size(), from + JdbcApplicationRepository.IN_CHUNK));
+            String sql = """
+                SELECT consent_id, applicant_id, scopes, expiry, status, last_tx_hash, subject_pubkey, created_at, updated_at
+                FROM core.Consents
+                WHERE status = 'ACTIVE' AND expiry > SYSUTCDATETIME() AND consent_id IN (%s)
+            """.formatted(String.join(",", Collections.nCopies(chunk.size(), "?")));
+            for (ConsentRow row : jdbc.query(sql, rm(), chunk.toArray())) {
+                out.put(row.consentId(), row);
+            }
+        }
+        return out;
+    }
+
+    private RowMapper<ConsentRow> rm() {
+        return (rs, i) -> new ConsentRow(
+                rs.getString("consent_id"),
+                UUID.fromString(rs.getString("applicant_id")),
+                rs.getString("scopes"),
+                rs.getTimestamp("expiry").toLocalDateTime(),
+                rs.getString("status"),
+                rs.getString("last_tx_hash"),
+                rs.getString("subject_pubkey")
+        );
+    }
+}
@@ -0,0 +1,296 @@
+package com.demo.credit.repository;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+@ConditionalOnProperty(name = "storage.engine", havingValue = "jdbc", matchIfMissing = true)
+public class JdbcRescoreRepository implements RescoreRepository {
+
+    private static final String SAVE_FEATURES_SQL = """
+            MERGE core.ApplicationFeatures WITH (HOLDLOCK) AS t
+            USING (SELECT CAST(? AS UNIQUEIDENTIFIER) AS application_id) AS s
+               ON t.application_id = s.application_id
+            WHEN MATCHED THEN
+                UPDATE SET consent_id = ?, tx_hash = ?, feature_schema_version = ?, features = ?,
+                           decision = ?, captured_at = SYSUTCDATETIME()
+            WHEN NOT MATCHED THEN
+                INSERT (application_id, consent_id, tx_hash, feature_schema_version, features, decision, captured_at)
+                VALUES (s.application_id, ?, ?, ?, ?, ?, SYSUTCDATETIME());
+            """;
+
+    // Bound = key ở vị trí step, 2*step, ... và key cuối cùng (không dùng MAX: uniqueidentifier)
+    private static final String PARTITION_BOUNDS_SQL = """
+            SELECT CONVERT(VARCHAR(36), application_id)
+            FROM (
+                SELECT application_id, ROW_NUMBER() OVER (ORDER BY application_id) AS rn
+                FROM core.ApplicationFeatures
+            ) t
+            WHERE rn % ? = 0 OR rn = ?
+            ORDER BY rn
+            """;
+
+    // WHERE chỉ gồm các bound có mặt (featuresAfterSql) để luôn seek trên khoá chính
+    private static final String FEATURES_SELECT = """
+            SELECT TOP (?) CONVERT(VARCHAR(36), application_id) AS application_id, consent_id, tx_hash,
+                   feature_schema_version, features, decision
+            FROM core.ApplicationFeatures
+            """;
+
+    // Lượt mới chỉ được tạo khi không còn lượt RUNNING nào có heartbeat trong lease-timeout
+    private static final String INSERT_RUN_SQL = """
+            INSERT INTO core.RescoreRuns (run_id, status, partitions, total, rate, owner, heartbeat_at,
+                                          created_at, updated_at)
+            SELECT ?, ?, ?, ?, ?, ?, SYSUTCDATETIME(), ?, ?
+            WHERE NOT EXISTS (SELECT 1 FROM core.RescoreRuns WITH (UPDLOCK, HOLDLOCK)
+                              WHERE status = 'RUNNING'
+                                AND heartbeat_at > DATEADD(MILLISECOND, -?, SYSUTCDATETIME()))
+            """;
+
+    private static final String CLAIM_RUN_SQL = """
+            UPDATE core.RescoreRuns
+            SET status = 'RUNNING', owner = ?, heartbeat_at = SYSUTCDATETIME(), updated_at = SYSUTCDATETIME()
+            WHERE run_id = ? AND status <> 'COMPLETED'
+              AND (owner IS NULL OR heartbeat_at IS NULL
+                   OR heartbeat_at <= DATEADD(MILLISECOND, -?, SYSUTCDATETIME()))
+            """;
+
+    private static final String RENEW_LEASE_SQL = """
+            UPDATE core.RescoreRuns SET heartbeat_at = SYSUTCDATETIME()
+            WHERE run_id = ? AND owner = ? AND status = 'RUNNING'
+            """;
+
+    private static final String RELEASE_RUN_SQL = """
+            UPDATE core.RescoreRuns
+            SET status = ?, owner = NULL, heartbeat_at = NULL, updated_at = SYSUTCDATETIME()
+            WHERE run_id = ? AND owner = ?
+            """;
+
+    private static final String INSERT_CHECKPOINT_SQL = """
+            INSERT INTO core.RescoreCheckpoints (run_id, partition_no, lower_bound, upper_bound, last_key, done,
+                   rows_done, rows_failed, rows_skipped, rows_changed, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, SYSUTCDATETIME())
+            """;
+
+    // Chỉ owner hiện tại của lượt chạy: instance đã mất lease không ghi đè tiến độ của owner mới
+    private static final String UPDATE_CHECKPOINT_SQL = """
+            UPDATE c
+            SET last_key = ?, done = ?, rows_done = ?, rows_failed = ?, rows_skipped = ?, rows_changed = ?,
+                updated_at = SYSUTCDATETIME()
+            FROM core.RescoreCheckpoints c
+            JOIN core.RescoreRuns r ON r.run_id = c.run_id
+            WHERE c.run_id = ? AND c.partition_no = ? AND r.owner = ?
+            """;
+
+    private static final String CHECKPOINTS_SQL = """
+            SELECT CONVERT(VARCHAR(36), run_id) AS run_id, partition_no,
+                   CONVERT(VARCHAR(36), lower_bound) AS lower_bound, CONVERT(VARCHAR(36), upper_bound) AS upper_bound,
+                   CONVERT(VARCHAR(36), last_key) AS last_key, done,
+                   rows_done, rows_failed, rows_skipped, rows_changed
+            FROM core.RescoreCheckpoints
+            WHERE run_id = ?
+            ORDER BY partition_no
+            """;
+
+    private static final String FIND_RUN_SQL = """
+            SELECT CONVERT(VARCHAR(36), run_id) AS run_id, status, partitions, total, rate, owner, heartbeat_at,
+                   created_at, updated_at
+            FROM core.RescoreRuns
+            WHERE run_id = ?
+            """;
+
+    private static final RowMapper<FeatureRow> FEATURE_MAPPER = (rs, i) -> new FeatureRow(
+            UUID.fromString(rs.getString("application_id")),
+            rs.getString("consent_id"),
+            rs.getString("tx_hash"),
+            rs.getString("feature_schema_version"),
+            rs.getString("features"),
+            rs.getString("decision"));
+
+    private static final RowMapper<Checkpoint> CHECKPOINT_MAPPER = (rs, i) -> new Checkpoint(
+            UUID.fromString(rs.getString("run_id")),
+            rs.getInt("partition_no"),
+            uuid(rs.getString("lower_bound")),
+            uuid(rs.getString("upper_bound")),
+            uuid(rs.getString("last_key")),
+            rs.getBoolean("done"),
+            rs.getLong("rows_done"),
+            rs.getLong("rows_failed"),
+            rs.getLong("rows_skipped"),
+            rs.getLong("rows_changed"));
+
+    private static final RowMapper<Run> RUN_MAPPER = (rs, i) -> new Run(
+            UUID.fromString(rs.getString("run_id")),
+            rs.getString("status"),
+            rs.getInt("partitions"),
+            rs.getLong("total"),
+            rs.getDouble("rate"),
+            rs.getString("owner"),
+            rs.getTimestamp("heartbeat_at") == null ? null : rs.getTimestamp("heartbeat_at").toLocalDateTime(),
+            rs.getTimestamp("created_at").toLocalDateTime(),
+            rs.getTimestamp("updated_at").toLocalDateTime());
+
+    private final JdbcTemplate jdbc;
+
+    public JdbcRescoreRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public boolean featuresTableReady() {
+        return Boolean.TRUE.equals(jdbc.queryForObject(
+                "SELECT CAST(CASE WHEN OBJECT_ID(N'core.ApplicationFeatures', N'U') IS NULL THEN 0 ELSE 1 END AS BIT)",
+                Boolean.class));
+    }
+
+    @Override
+    public void saveFeatures(List<FeatureRow> rows) {
+        if (rows.isEmpty()) return;
+        jdbc.batchUpdate(SAVE_FEATURES_SQL, rows, rows.size(), (ps, r) -> {
+            ps.setString(1, r.applicationId().toString());
+            for (int base : new int[]{2, 7}) {
+                ps.setString(base, r.consentId());
+                ps.setString(base + 1, r.txHash());
+                ps.setString(base + 2, r.featureSchemaVersion());
+                ps.setNString(base + 3, r.featuresJson());
+                ps.setString(base + 4, r.decision());
+            }
+        });
+    }
+
+    @Override
+    public long countFeatures() {
+        Long n = jdbc.queryForObject("SELECT COUNT_BIG(*) FROM core.ApplicationFeatures", Long.class);
+        return n == null ? 0 : n;
+    }
+
+    @Override
+    public List<UUID> partitionBounds(int partitions) {
+        long total = countFeatures();
+        if (total == 0) return List.of();
+        long step = (total + partitions - 1) / Math.max(1, partitions);
+        return jdbc.query(PARTITION_BOUNDS_SQL, (rs, i) -> UUID.fromString(rs.getString(1)), step, total);
+    }
+
+    @Override
+    public List<FeatureRow> featuresAfter(UUID after, UUID upTo, int limit) {
+        List<Object> args = new ArrayList<>(3);
+        args.add(limit);
+        List<String> conditions = new ArrayList<>(2);
+        if (after != null) {
+            conditions.add("application_id > ?");
+            args.add(after.toString());
+        }
+        if (upTo != null) {
+            conditions.add("application_id <= ?");
+            args.add(upTo.toString());
+        }
+        String sql = FEATURES_SELECT + (conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions) + "\n")
+                + "ORDER BY application_id";
+        return jdbc.query(sql, FEATURE_MAPPER, args.toArray());
+    }
+
+    @Override
+    public boolean createRun(Run run, List<Checkpoint> checkpoints, Duration leaseTimeout) {
+        // Lượt chạy và checkpoint trong một transaction: không để lại lượt RUNNING thiếu đoạn
+        return Boolean.TRUE.equals(jdbc.execute((ConnectionCallback<Boolean>) con -> {
+            boolean autoCommit = con.getAutoCommit();
+            con.setAutoCommit(false);
+            try {
+                try (PreparedStatement ps = con.prepareStatement(INSERT_RUN_SQL)) {
+                    ps.setString(1, run.runId().toString());
+                    ps.setString(2, run.status());
+                    ps.setInt(3, run.partitions());
+                    ps.setLong(4, run.total());
+                    ps.setDouble(5, run.rate());
+                    ps.setString(6, run.owner());
+                    ps.setTimestamp(7, Timestamp.valueOf(run.createdAt()));
+                    ps.setTimestamp(8, Timestamp.valueOf(run.updatedAt()));
+                    ps.setLong(9, leaseTimeout.toMillis());
+                    if (ps.executeUpdate() == 0) {
+                        con.rollback();
+                        return false;
+                    }
+                }
+                try (PreparedStatement ps = con.prepareStatement(INSERT_CHECKPOINT_SQL)) {
+                    for (Checkpoint c : checkpoints) {
+                        ps.setString(1, c.runId().toString());
+                        ps.setInt(2, c.partition());
+                        ps.setString(3, c.lowerBound() == null ? null : c.lowerBound().toString());
+                        ps.setString(4, c.upperBound() == null ? null : c.upperBound().toString());
+                        ps.setString(5, c.lastKey() == null ? null : c.lastKey().toString());
+                        ps.setBoolean(6, c.done());
+                        ps.setLong(7, c.rows());
+                        ps.setLong(8, c.failed());
+                        ps.setLong(9, c.skipped());
+                        ps.setLong(10, c.changed());
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+                con.commit();
+                return true;
+            } catch (SQLException | RuntimeException ex) {
+                con.rollback();
+                throw ex;
+            } finally {
+                con.setAutoCommit(autoCommit);
+            }
+        }));
+    }
+
+    @Override
+    public Optional<Run> findRun(UUID runId) {
+        return jdbc.query(FIND_RUN_SQL, RUN_MAPPER, runId.toString()).stream().findFirst();
+    }
+
+    @Override
+    public boolean claimRun(UUID runId, String owner, Duration leaseTimeout) {
+        return jdbc.update(CLAIM_RUN_SQL, owner, runId.toString(), leaseTimeout.toMillis()) == 1;
+    }
+
+    @Override
+    public boolean renewLease(UUID runId, String owner) {
+        return jdbc.update(RENEW_LEASE_SQL, runId.toString(), owner) == 1;
+    }
+
+    @Override
+    public void releaseRun(UUID runId, String owner, String status) {
+        jdbc.update(RELEASE_RUN_SQL, status, runId.toString(), owner);
+    }
+
+    @Override
+    public boolean updateRunStatus(UUID runId, String from, String to) {
+        return jdbc.update("UPDATE core.RescoreRuns SET status = ?, updated_at = SYSUTCDATETIME() "
+                + "WHERE run_id = ? AND status = ?", to, runId.toString(), from) == 1;
+    }
+
+    @Override
+    public List<Checkpoint> checkpoints(UUID runId) {
+        return jdbc.query(CHECKPOINTS_SQL, CHECKPOINT_MAPPER, runId.toString());
+    }
+
+    @Override
+    public boolean saveCheckpoint(Checkpoint c, String owner) {
+        return jdbc.update(UPDATE_CHECKPOINT_SQL,
+                c.lastKey() == null ? null : c.lastKey().toString(), c.done(),
+                c.rows(), c.failed(), c.skipped(), c.changed(),
+                c.runId().toString(), c.partition(), owner) == 1;
+    }
+
+    private static UUID uuid(String s) {
+        return s == null ? null : UUID.fromString(s);
+    }
+}
@@ -0,0 +1,213 @@
+package com.demo.credit.repository;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+@Repository
+@ConditionalOnProperty(name = "storage.engine", havingValue = "jdbc", matchIfMissing = true)
+public class JdbcScoreRepository implements ScoreRepository {
+
+    // Cùng thứ tự tham số với sp_SaveScore; đặt tên tường minh để batch không phụ thuộc vị trí
+    private static final String SAVE_SCORE_BATCH_SQL = """
+            EXEC core.sp_SaveScore @application_id = ?, @consent_id = ?, @tx_hash = ?,
+                 @model_version = ?, @feature_schema_version = ?, @score = ?, @pd = ?,
+                 @decision = ?, @top_reasons = ?
+            """;
+
+    /*
+     * Export: thứ tự tăng dần (created_at, score_id) để resume bằng seek, không OFFSET. WHERE chỉ gồm các bộ lọc
+     * có mặt (exportSql) — dạng catch-all "(? IS NULL OR ...)" dùng chung một plan nên không seek được.
+     */
+    private static final String EXPORT_SELECT = """
+            SELECT s.score_id, s.application_id, a.reference_no, a.applicant_id, s.consent_id, s.tx_hash,
+                   s.score, s.pd, s.decision, s.top_reasons, s.model_version, s.feature_schema_version,
+                   s.created_at AS scored_at
+            FROM core.Scores s
+            JOIN core.Applications a ON a.application_id = s.application_id
+            """;
+
+    private static final String EXPORT_ORDER = "ORDER BY s.created_at, s.score_id";
+
+    /*
+     * Ghi từ journal (write-behind): core.sp_SaveScoreJournaled (db/001_score_journal.sql) đánh dấu journal_id
+     * đã áp dụng cùng transaction với sp_SaveScore → replay sau crash không tạo score trùng.
+     */
+    private static final String SAVE_JOURNALED_SQL = """
+            EXEC core.sp_SaveScoreJournaled @journal_id = ?, @application_id = ?, @consent_id = ?, @tx_hash = ?,
+                 @model_version = ?, @feature_schema_version = ?, @score = ?, @pd = ?,
+                 @decision = ?, @top_reasons = ?
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final ProcedureRegistry.ProcedureCall saveScore;
+
+    public JdbcScoreRepository(JdbcTemplate jdbc, ProcedureRegistry procedures) {
+        this.jdbc = jdbc;
+        this.saveScore = procedures.register("sp_SaveScore",
+                new SqlParameter("application_id", Types.VARCHAR),
+                new SqlParameter("consent_id", Types.CHAR),
+                new SqlParameter("tx_hash", Types.CHAR),
+                new SqlParameter("model_version", Types.VARCHAR),
+                new SqlParameter("feature_schema_version", Types.VARCHAR),
+                new SqlParameter("score", Types.INTEGER),
+                new SqlParameter("pd", Types.DECIMAL),
+                new SqlParameter("decision", Types.VARCHAR),
+                new SqlParameter("top_reasons", Types.NVARCHAR)
+        );
+    }
+
+    @Override
+    public void saveScore(UUID applicationId, String consentId, String txHash,
+                          String modelVersion, String featureSchemaVersion,
+                          int score, double pd, String decisionUpper, String topReasonsJson) {
+
+        String dec = decisionUpper == null ? null : decisionUpper.toUpperCase(Locale.ROOT);
+
+        Map<String, Object> in = new HashMap<>();
+        in.put("application_id", applicationId.toString());
+        in.put("consent_id", consentId);
+        in.put("tx_hash", txHash);
+        in.put("model_version", modelVersion);
+        in.put("feature_schema_version", featureSchemaVersion);
+        in.put("score", score);
+        in.put("pd", BigDecimal.valueOf(pd));
+        in.put("decision", dec);
+        in.put("top_reasons", topReasonsJson);
+        saveScore.execute(in);
+    }
+
+    @Override
+    public Map<Integer, String> saveScores(List<ScoreWrite> rows, int batchSize) {
+        Map<Integer, String> failed = new LinkedHashMap<>();
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            List<ScoreWrite> chunk = rows.subList(from, Math.min(rows.size(), from + batchSize));
+            try {
+                jdbc.execute((ConnectionCallback<Void>) con -> saveChunk(con, chunk));
+            } catch (DataAccessException ex) {
+                for (int i = from; i < from + chunk.size(); i++) failed.put(i, ex.getMessage());
+            }
+        }
+        return failed;
+    }
+
+    // Một chunk = một JDBC batch trong một transaction: autocommit sẽ để lại các dòng trước dòng lỗi
+    private static Void saveChunk(Connection con, List<ScoreWrite> chunk) throws SQLException {
+        boolean autoCommit = con.getAutoCommit();
+        con.setAutoCommit(false);
+        try (PreparedStatement ps = con.prepareStatement(SAVE_SCORE_BATCH_SQL)) {
+            for (ScoreWrite r : chunk) {
+                ps.setString(1, r.applicationId().toString());
+                ps.setString(2, r.consentId());
+                ps.setString(3, r.txHash());
+                ps.setString(4, r.modelVersion());
+                ps.setString(5, r.featureSchemaVersion());
+                ps.setInt(6, r.score());
+                ps.setBigDecimal(7, BigDecimal.valueOf(r.pd()));
+                ps.setString(8, r.decision() == null ? null : r.decision().toUpperCase(Locale.ROOT));
+                ps.setNString(9, r.topReasonsJson());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            con.commit();
+        } catch (SQLException | RuntimeException ex) {
+            con.rollback();
+            throw ex;
+        } finally {
+            con.setAutoCommit(autoCommit);
+        }
+        return null;
+    }
+
+    @Override
+    public void saveJournaled(List<JournaledWrite> rows, int batchSize) {
+        if (rows.isEmpty()) return;
+        jdbc.batchUpdate(SAVE_JOURNALED_SQL, rows, batchSize, (ps, j) -> {
+            ScoreWrite r = j.write();
+            ps.setString(1, j.journalId().toString());
+            ps.setString(2, r.applicationId().toString());
+            ps.setString(3, r.consentId());
+            ps.setString(4, r.txHash());
+            ps.setString(5, r.modelVersion());
+            ps.setString(6, r.featureSchemaVersion());
+            ps.setInt(7, r.score());
+            ps.setBigDecimal(8, BigDecimal.valueOf(r.pd()));
+            ps.setString(9, r.decision() == null ? null : r.decision().toUpperCase(Locale.ROOT));
+            ps.setNString(10, r.topReasonsJson());
+        });
+    }
+
+    @Override
+    public void forEachScore(ExportFilter filter, int fetchSize, Consumer<ExportRow> handler) {
+        List<Object> args = new ArrayList<>(6);
+        String sql = exportSql(filter, args);
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            if (filter.limit() > 0) ps.setMaxRows(filter.limit());
+            for (int i = 0; i < args.size(); i++) ps.setObject(i + 1, args.get(i));
+            return ps;
+        }, (RowCallbackHandler) rs -> handler.accept(new ExportRow(
+                UUID.fromString(rs.getString("score_id")),
+                UUID.fromString(rs.getString("application_id")),
+                rs.getString("reference_no"),
+                UUID.fromString(rs.getString("applicant_id")),
+                rs.getString("consent_id"),
+                rs.getString("tx_hash"),
+                rs.getInt("score"),
+                rs.getBigDecimal("pd") == null ? null : rs.getBigDecimal("pd").doubleValue(),
+                rs.getString("decision"),
+                rs.getString("top_reasons"),
+                rs.getString("model_version"),
+                rs.getString("feature_schema_version"),
+                rs.getTimestamp("scored_at").toLocalDateTime()
+        )));
+    }
+
+    private static String exportSql(ExportFilter filter, List<Object> args) {
+        List<String> conditions = new ArrayList<>(4);
+        if (filter.from() != null) {
+            conditions.add("s.created_at >= ?");
+            args.add(Timestamp.valueOf(filter.from()));
+        }
+        if (filter.to() != null) {
+            conditions.add("s.created_at < ?");
+            args.add(Timestamp.valueOf(filter.to()));
+        }
+        if (filter.modelVersion() != null) {
+            conditions.add("s.model_version = ?");
+            args.add(filter.modelVersion());
+        }
+        ExportCursor after = filter.after();
+        if (after != null) {
+            // created_at >= ? là khoảng seek; phần OR chỉ loại các dòng cùng created_at đã export
+            Timestamp afterTs = Timestamp.valueOf(after.scoredAt());
+            conditions.add("s.created_at >= ? AND (s.created_at > ? OR s.score_id > ?)");
+            Collections.addAll(args, afterTs, afterTs, after.scoreId().toString());
+        }
+        return EXPORT_SELECT + (conditions.isEmpty() ? "" : "WHERE " + String.join("\n  AND ", conditions) + "\n")
+                + EXPORT_ORDER;
+    }
+}
@@ -0,0 +1,171 @@
+package com.demo.credit.repository;
+
+import com.demo.credit.config.LatencyMeter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.CallableStatementCallback;
+import org.springframework.jdbc.core.CallableStatementCreatorFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.SqlOutParameter;
+import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.stereotype.Component;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Registry các stored procedure {@code core.sp_*}, mỗi procedure được biên dịch một lần khi khởi động.
+ * <p>
+ * Khác với {@code new SimpleJdbcCall(...)} mỗi lần gọi, ở đây chuỗi call và danh sách tham số
+ * được khai báo tường minh nên không có lookup metadata procedure nào trên đường nóng.
+ * Tham số được truyền theo tên ({@code EXEC core.sp_X @a = ?, ...}) như khi SimpleJdbcCall đọc metadata:
+ * tên khai báo phải trùng tên tham số của procedure (không kèm {@code @}), thứ tự thì tuỳ ý.
+ * {@link ProcedureCall} bất biến sau khi tạo nên dùng chung an toàn giữa các worker của Tomcat;
+ * việc tái sử dụng {@code CallableStatement} do statement pool của driver đảm nhận
+ * (xem {@code statementPoolingCacheSize} trong JDBC URL).
+ */
+@Component
+@RequiredArgsConstructor
+public class ProcedureRegistry {
+
+    static final String SCHEMA = "core";
+
+    private final JdbcTemplate jdbc;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ProcedureCall> calls = new ConcurrentHashMap<>();
+
+    /**
+     * Biên dịch và đăng ký procedure. Gọi lại với cùng tên trả về bản đã biên dịch.
+     */
+    public ProcedureCall register(String procedureName, SqlParameter... parameters) {
+        return calls.computeIfAbsent(procedureName, name -> new ProcedureCall(name, List.of(parameters)));
+    }
+
+    public Collection<ProcedureCall> all() {
+        return Collections.unmodifiableCollection(calls.values());
+    }
+
+    /**
+     * Làm nóng trước request đầu tiên mà không thực thi procedure nào. {@code prepareCall} của mssql-jdbc không
+     * liên lạc server (chỉ phân tích chuỗi SQL và nạp các lớp của đường gọi), nên sau đó chạy thêm một truy vấn
+     * metadata {@code sys.procedures}: một round trip thật trên kết nối, đồng thời kiểm tra mọi procedure đã đăng
+     * ký tồn tại. Thiếu procedure → {@link IllegalStateException}. Trả về số procedure.
+     */
+    public int warmUp() {
+        return jdbc.execute((ConnectionCallback<Integer>) con -> {
+            for (ProcedureCall call : calls.values()) {
+                try (CallableStatement ignored = con.prepareCall(call.sql)) {
+                    // chỉ nạp đường gọi phía driver
+                }
+            }
+            Set<String> missing = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+            missing.addAll(calls.keySet());
+            try (PreparedStatement ps = con.prepareStatement(
+                    "SELECT name FROM sys.procedures WHERE schema_id = SCHEMA_ID(?)")) {
+                ps.setString(1, SCHEMA);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) missing.remove(rs.getString(1));
+                }
+            }
+            if (!missing.isEmpty()) {
+                throw new IllegalStateException("missing procedures in schema " + SCHEMA + ": " + missing);
+            }
+            return calls.size();
+        });
+    }
+
+    public final class ProcedureCall {
+
+        private final String name;
+        private final String sql;
+        private final List<SqlParameter> parameters;
+        private final CallableStatementCreatorFactory factory;
+        private final LatencyMeter meter;
+
+        private ProcedureCall(String name, List<SqlParameter> parameters) {
+            this.name = name;
+            this.sql = callString(name, parameters);
+            this.parameters = parameters;
+            this.factory = new CallableStatementCreatorFactory(sql, parameters);
+            this.meter = new LatencyMeter(meterRegistry, "credit.db.procedure",
+                    "Stored procedure call latency", Tags.of("procedure", name));
+        }
+
+        /**
+         * Thực thi procedure. {@code in} phải chứa mọi tham số IN đã khai báo (giá trị có thể null).
+         * Kết quả gồm OUT params theo tên và result set theo tên của {@code SqlReturnResultSet}.
+         */
+        public Map<String, Object> execute(Map<String, ?> in) {
+            long start = meter.start();
+            try {
+                Map<String, Object> out = jdbc.call(factory.newCallableStatementCreator(in), parameters);
+                meter.success(start);
+                return out;
+            } catch (RuntimeException ex) {
+                meter.failure(start, ex);
+                throw ex;
+            }
+        }
+
+        /**
+         * Thực thi procedure và đọc result set đầu tiên từng dòng qua {@code rows}, không gom thành List
+         * như {@link #execute}. OUT params bị bỏ qua.
+         */
+        public void stream(Map<String, ?> in, RowCallbackHandler rows) {
+            long start = meter.start();
+            try {
+                jdbc.execute(factory.newCallableStatementCreator(in), (CallableStatementCallback<Void>) cs -> {
+                    boolean isResultSet = cs.execute();
+                    // Bỏ qua update count (procedure không SET NOCOUNT ON) tới result set đầu tiên
+                    while (!isResultSet && cs.getUpdateCount() != -1) {
+                        isResultSet = cs.getMoreResults();
+                    }
+                    if (isResultSet) {
+                        try (ResultSet rs = cs.getResultSet()) {
+                            while (rs.next()) rows.processRow(rs);
+                        }
+                    }
+                    return null;
+                });
+                meter.success(start);
+            } catch (RuntimeException ex) {
+                meter.failure(start, ex);
+                throw ex;
+            }
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public long count() {
+            return meter.timer().count() + meter.errorTimer().count();
+        }
+
+        public double meanMillis() {
+            return meter.timer().mean(TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // EXEC core.sp_X @a = ?, @b = ? OUTPUT — bỏ qua SqlReturnResultSet vì không chiếm placeholder
+    private static String callString(String name, List<SqlParameter> parameters) {
+        String args = parameters.stream()
+                .filter(p -> !p.isResultsParameter())
+                .map(p -> "@" + p.getName() + " = ?" + (p instanceof SqlOutParameter ? " OUTPUT" : ""))
+                .collect(Collectors.joining(", "));
+        return "EXEC " + SCHEMA + "." + name + (args.isEmpty() ? "" : " " + args);
+    }
+}
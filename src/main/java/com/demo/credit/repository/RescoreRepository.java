@@ -0,0 +1,97 @@
+package com.demo.credit.repository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Dữ liệu cho chấm điểm lại khi đổi model: feature lần chấm gần nhất của từng hồ sơ
+ * ({@code core.ApplicationFeatures}) và checkpoint của các lượt chạy ({@code core.RescoreRuns},
+ * {@code core.RescoreCheckpoints}). Bản chạy thật: {@link JdbcRescoreRepository};
+ * {@code storage.engine=memory}: {@link InMemoryRescoreRepository}.
+ * <p>
+ * Khoá duyệt là {@code application_id} theo thứ tự của chính storage (SQL Server sắp uniqueidentifier khác
+ * {@link UUID#compareTo}); mọi bound/cursor chỉ lấy từ repository nên luôn nhất quán.
+ * <p>
+ * Lượt chạy RUNNING thuộc về một instance ({@code owner}) giữ lease bằng {@code heartbeat_at}; các thao tác
+ * nhận/gia hạn/trả lease và ghi checkpoint đều là UPDATE có điều kiện theo owner, nên hai instance không cùng
+ * chạy một lượt. Bảng: {@code db/003_rescore.sql}.
+ */
+public interface RescoreRepository {
+
+    /** Bảng feature ({@code core.ApplicationFeatures}) đã có, kiểm tra khi bật ghi feature. */
+    boolean featuresTableReady();
+
+    /** Ghi đè feature gần nhất của từng hồ sơ (một JDBC batch). */
+    void saveFeatures(List<FeatureRow> rows);
+
+    long countFeatures();
+
+    /**
+     * Chia toàn bộ hồ sơ có feature thành tối đa {@code partitions} đoạn liên tiếp gần bằng nhau;
+     * trả về bound trên (tính cả) của từng đoạn theo thứ tự tăng dần. Rỗng khi chưa có feature nào.
+     * Đoạn cuối nên được chạy không giới hạn trên ({@code upTo} null) để gồm cả feature ghi sau lúc chia.
+     */
+    List<UUID> partitionBounds(int partitions);
+
+    /**
+     * Keyset: tối đa {@code limit} dòng có key trong ({@code after}, {@code upTo}]; {@code after} null = từ đầu,
+     * {@code upTo} null = tới hết.
+     */
+    List<FeatureRow> featuresAfter(UUID after, UUID upTo, int limit);
+
+    /**
+     * Tạo lượt chạy RUNNING do {@code run.owner()} giữ lease. false (không tạo gì) nếu đang có lượt RUNNING khác
+     * với heartbeat chưa quá {@code leaseTimeout}.
+     */
+    boolean createRun(Run run, List<Checkpoint> checkpoints, Duration leaseTimeout);
+
+    Optional<Run> findRun(UUID runId);
+
+    /**
+     * Nhận lease để chạy tiếp: chuyển sang RUNNING với {@code owner} nếu lượt chưa COMPLETED và không có owner
+     * hoặc heartbeat của owner cũ đã quá {@code leaseTimeout}.
+     */
+    boolean claimRun(UUID runId, String owner, Duration leaseTimeout);
+
+    /** Gia hạn lease; false nếu không còn là owner hoặc lượt chạy không còn RUNNING (bị pause từ nơi khác). */
+    boolean renewLease(UUID runId, String owner);
+
+    /** Ghi trạng thái cuối và trả lease; không làm gì nếu {@code owner} đã mất lease. */
+    void releaseRun(UUID runId, String owner, String status);
+
+    /** Đổi trạng thái {@code from} → {@code to} (không đụng lease); false nếu trạng thái hiện tại khác {@code from}. */
+    boolean updateRunStatus(UUID runId, String from, String to);
+
+    List<Checkpoint> checkpoints(UUID runId);
+
+    /** Ghi checkpoint nếu {@code owner} còn giữ lease của lượt chạy; false nếu đã mất. */
+    boolean saveCheckpoint(Checkpoint checkpoint, String owner);
+
+    /** {@code featuresJson} = object tên → giá trị; {@code decision} = quyết định của lần chấm đã ghi nhận. */
+    record FeatureRow(UUID applicationId, String consentId, String txHash, String featureSchemaVersion,
+                      String featuresJson, String decision) {}
+
+    /** {@code owner}/{@code heartbeatAt} null khi không instance nào giữ lease. */
+    record Run(UUID runId, String status, int partitions, long total, double rate, String owner,
+               LocalDateTime heartbeatAt, LocalDateTime createdAt, LocalDateTime updatedAt) {}
+
+    /**
+     * Tiến độ một đoạn: đã xử lý xong mọi key trong ({@code lowerBound}, {@code lastKey}].
+     * {@code lastKey} null = chưa bắt đầu; {@code upperBound} null = đoạn cuối, không giới hạn trên.
+     */
+    record Checkpoint(UUID runId, int partition, UUID lowerBound, UUID upperBound, UUID lastKey, boolean done,
+                      long rows, long failed, long skipped, long changed) {
+
+        public UUID resumeAfter() {
+            return lastKey != null ? lastKey : lowerBound;
+        }
+
+        public Checkpoint advance(UUID key, boolean finished, long rows, long failed, long skipped, long changed) {
+            return new Checkpoint(runId, partition, lowerBound, upperBound, key != null ? key : lastKey, finished,
+                    this.rows + rows, this.failed + failed, this.skipped + skipped, this.changed + changed);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.demo.credit.repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * {@link ApplicationRepository.ListRow} đọc trực tiếp từ dòng hiện tại của ResultSet danh sách
+ * (cùng cột với {@link JdbcApplicationRepository#listMapper()}). Chỉ số cột tra một lần cho mỗi ResultSet;
+ * một instance dùng lại cho mọi dòng.
+ */
+final class ResultSetListRow implements ApplicationRepository.ListRow {
+
+    private ResultSet bound;
+    private int cId, cRef, cStatus, cCreated, cApplicant, cConsent, cScore, cPd, cDecision, cScored;
+
+    private String applicationId;
+    private String referenceNo;
+    private String status;
+    private LocalDateTime createdAt;
+    private String applicantId;
+    private String consentId;
+    private boolean hasScore;
+    private int score;
+    private boolean hasPd;
+    private double pd;
+    private String decision;
+    private LocalDateTime scoredAt;
+
+    /** Đọc dòng hiện tại của {@code rs} rồi giao cho {@code handler}. */
+    void emit(ResultSet rs, ApplicationRepository.ListRowHandler handler) throws SQLException {
+        load(rs);
+        try {
+            handler.accept(this);
+        } catch (IOException ex) {
+            // RowCallbackHandler chỉ cho phép SQLException; người gọi mở lại IOException
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    void load(ResultSet rs) throws SQLException {
+        if (rs != bound) {
+            bound = rs;
+            cId = rs.findColumn("application_id");
+            cRef = rs.findColumn("reference_no");
+            cStatus = rs.findColumn("status");
+            cCreated = rs.findColumn("created_at");
+            cApplicant = rs.findColumn("applicant_id");
+            cConsent = rs.findColumn("consent_id");
+            cScore = rs.findColumn("score");
+            cPd = rs.findColumn("pd");
+            cDecision = rs.findColumn("decision");
+            cScored = rs.findColumn("scored_at");
+        }
+        applicationId = rs.getString(cId);
+        referenceNo = rs.getString(cRef);
+        status = rs.getString(cStatus);
+        createdAt = toLocal(rs.getTimestamp(cCreated));
+        applicantId = rs.getString(cApplicant);
+        consentId = rs.getString(cConsent);
+        score = rs.getInt(cScore);
+        hasScore = !rs.wasNull();
+        pd = rs.getDouble(cPd);
+        hasPd = !rs.wasNull();
+        decision = rs.getString(cDecision);
+        scoredAt = toLocal(rs.getTimestamp(cScored));
+    }
+
+    private static LocalDateTime toLocal(Timestamp ts) {
+        return ts == null ? null : ts.toLocalDateTime();
+    }
+
+    @Override
+    public String applicationId() {
+        return applicationId;
+    }
+
+    @Override
+    public String referenceNo() {
+        return referenceNo;
+    }
+
+    @Override
+    public String status() {
+        return status;
+    }
+
+    @Override
+    public LocalDateTime createdAt() {
+        return createdAt;
+    }
+
+    @Override
+    public String applicantId() {
+        return applicantId;
+    }
+
+    @Override
+    public String consentId() {
+        return consentId;
+    }
+
+    @Override
+    public boolean hasScore() {
+        return hasScore;
+    }
+
+    @Override
+    public int score() {
+        return score;
+    }
+
+    @Override
+    public boolean hasPd() {
+        return hasPd;
+    }
+
+    @Override
+    public double pd() {
+        return pd;
+    }
+
+    @Override
+    public String decision() {
+        return decision;
+    }
+
+    @Override
+    public LocalDateTime scoredAt() {
+        return scoredAt;
+    }
+}
@@ -1,54 +1,91 @@
 package com.demo.credit.repository;
 
-import lombok.RequiredArgsConstructor;
-import org.springframework.jdbc.core.SqlParameter;
-import org.springframework.jdbc.core.simple.SimpleJdbcCall;
-import org.springframework.stereotype.Repository;
-
-import javax.sql.DataSource;
-import java.math.BigDecimal;
-import java.sql.Types;
-import java.util.Locale;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Consumer;
 
-@Repository
-@RequiredArgsConstructor
-public class ScoreRepository {
-
-    private final DataSource dataSource;
-
-    public void saveScore(UUID applicationId, String consentId, String txHash,
-                          String modelVersion, String featureSchemaVersion,
-                          int score, double pd, String decisionUpper, String topReasonsJson) {
-
-        String dec = decisionUpper == null ? null : decisionUpper.toUpperCase(Locale.ROOT);
-
-        SimpleJdbcCall call = new SimpleJdbcCall(dataSource)
-                .withSchemaName("core")
-                .withProcedureName("sp_SaveScore")
-                .declareParameters(
-                        new SqlParameter("application_id", Types.VARCHAR),
-                        new SqlParameter("consent_id", Types.CHAR),
-                        new SqlParameter("tx_hash", Types.CHAR),
-                        new SqlParameter("model_version", Types.VARCHAR),
-                        new SqlParameter("feature_schema_version", Types.VARCHAR),
-                        new SqlParameter("score", Types.INTEGER),
-                        new SqlParameter("pd", Types.DECIMAL),
-                        new SqlParameter("decision", Types.VARCHAR),
-                        new SqlParameter("top_reasons", Types.NVARCHAR)
-                );
-
-        call.execute(Map.of(
-                "application_id", applicationId.toString(),
-                "consent_id", consentId,
-                "tx_hash",      txHash,
-                "model_version", modelVersion,
-                "feature_schema_version", featureSchemaVersion,
-                "score", score,
-                "pd", BigDecimal.valueOf(pd),
-                "decision", dec,
-                "top_reasons", topReasonsJson
-        ));
+/**
+ * Kết quả chấm điểm ({@code core.Scores}). Bản chạy thật: {@link JdbcScoreRepository};
+ * {@code storage.engine=memory}: {@link InMemoryScoreRepository}.
+ */
+public interface ScoreRepository {
+
+    void saveScore(UUID applicationId, String consentId, String txHash,
+                   String modelVersion, String featureSchemaVersion,
+                   int score, double pd, String decisionUpper, String topReasonsJson);
+
+    /**
+     * Lưu nhiều score theo từng chunk {@code batchSize} dòng; mỗi chunk là một JDBC batch (một round trip)
+     * trong một transaction riêng: chunk lỗi được rollback toàn bộ, các chunk khác vẫn được ghi.
+     *
+     * @return lỗi theo chỉ số dòng trong {@code rows} của các dòng không được lưu (rỗng = đã lưu hết)
+     */
+    Map<Integer, String> saveScores(List<ScoreWrite> rows, int batchSize);
+
+    /**
+     * Lưu các score từ journal trong một JDBC batch; mỗi dòng là một transaction riêng và
+     * bị bỏ qua nếu {@code journalId} đã được áp dụng (exactly-once khi replay).
+     */
+    void saveJournaled(List<JournaledWrite> rows, int batchSize);
+
+    /**
+     * Duyệt mọi score khớp bộ lọc theo thứ tự (scored_at, score_id), đọc forward-only với
+     * {@code fetchSize} dòng mỗi round trip — bộ nhớ không phụ thuộc số dòng.
+     * {@code handler} được gọi trên thread hiện tại, trong khi ResultSet còn mở.
+     */
+    void forEachScore(ExportFilter filter, int fetchSize, Consumer<ExportRow> handler);
+
+    public record JournaledWrite(UUID journalId, ScoreWrite write) {}
+
+    /** {@code from} tính cả, {@code to} không tính; {@code limit} <= 0 = không giới hạn. */
+    public record ExportFilter(LocalDateTime from, LocalDateTime to, String modelVersion,
+                               ExportCursor after, int limit) {}
+
+    public record ExportRow(
+            UUID scoreId, UUID applicationId, String referenceNo, UUID applicantId,
+            String consentId, String txHash, int score, Double pd, String decision,
+            String topReasonsJson, String modelVersion, String featureSchemaVersion, LocalDateTime scoredAt
+    ) {
+        public ExportCursor cursor() {
+            return new ExportCursor(scoredAt, scoreId);
+        }
     }
+
+    /**
+     * Vị trí resume của export (scored_at, score_id), dạng token base64url như
+     * {@link ApplicationRepository.ListCursor}. Token hỏng → {@link IllegalArgumentException}.
+     */
+    public record ExportCursor(LocalDateTime scoredAt, UUID scoreId) {
+
+        private static final String VERSION = "s1";
+
+        public String encode() {
+            String raw = VERSION + "|" + scoredAt + "|" + scoreId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public static ExportCursor decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                String[] parts = raw.split("\\|");
+                if (parts.length != 3 || !VERSION.equals(parts[0])) {
+                    throw new IllegalArgumentException("Unsupported cursor");
+                }
+                return new ExportCursor(LocalDateTime.parse(parts[1]), UUID.fromString(parts[2]));
+            } catch (IllegalArgumentException | DateTimeParseException ex) {
+                throw new IllegalArgumentException("Invalid cursor", ex);
+            }
+        }
+    }
+
+    public record ScoreWrite(
+            UUID applicationId, String consentId, String txHash,
+            String modelVersion, String featureSchemaVersion,
+            int score, double pd, String decision, String topReasonsJson
+    ) {}
 }
@@ -0,0 +1,58 @@
+package com.demo.credit.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Chế độ CLI của import người vay:
+ * {@code java -jar credit.jar --import-applicants=users.csv [--import-report=report.csv]}.
+ * Chạy import rồi thoát (exit code 0 = xong, kể cả khi có dòng bị từ chối; 1 = lỗi). Khi có tham số này,
+ * {@link com.demo.credit.CreditApplication} khởi động không kèm web server.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ApplicantImportCommand implements ApplicationRunner {
+
+    public static final String OPTION = "import-applicants";
+    static final String REPORT_OPTION = "import-report";
+
+    private final ApplicantImportService importService;
+    private final ConfigurableApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<String> files = args.getOptionValues(OPTION);
+        if (files == null || files.isEmpty()) {
+            return;
+        }
+        Path csv = Paths.get(files.get(0));
+        List<String> reports = args.getOptionValues(REPORT_OPTION);
+        Path report = (reports == null || reports.isEmpty())
+                ? Paths.get(csv.getFileName() + ".report.csv") : Paths.get(reports.get(0));
+        int exit;
+        try (InputStream in = Files.newInputStream(csv)) {
+            var s = importService.importCsv(UUID.randomUUID().toString(), in, report);
+            System.out.printf("rows=%d imported=%d duplicate=%d rejected=%d elapsedMs=%d report=%s%n",
+                    s.rows(), s.imported(), s.duplicate(), s.rejected(), s.elapsedMs(), s.report());
+            exit = 0;
+        } catch (Exception ex) {
+            log.error("Applicant import from {} failed", csv, ex);
+            exit = 1;
+        }
+        int code = exit;
+        System.exit(SpringApplication.exit(context, () -> code));
+    }
+}
@@ -0,0 +1,474 @@
+package com.demo.credit.service;
+
+import com.demo.credit.repository.ApplicantRepository;
+import com.demo.credit.repository.ApplicantRepository.Created;
+import com.demo.credit.repository.ApplicantRepository.NewApplicant;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Import người vay hàng loạt từ CSV (file onboarding của đối tác, dạng {@code ai/data/raw/users/users_master.csv}).
+ * <p>
+ * CSV được đọc tuần tự từng bản ghi (bộ nhớ không phụ thuộc kích thước file), kiểm tra song song theo từng
+ * lô {@code validate-batch} dòng trên {@code applicantImportExecutor}, rồi các dòng hợp lệ được nạp theo
+ * chunk {@code chunk-size} qua {@link ApplicantRepository#createApplicants} (SQL Server: bulk copy vào staging
+ * + {@code core.sp_CreateApplicantsBulk}). Mỗi dòng dữ liệu có một dòng trong file report: {@code IMPORTED} kèm
+ * applicant_id, {@code DUPLICATE} kèm applicant_id của người vay đã có cùng national_id/email (import lại cùng
+ * file không tạo trùng), hoặc {@code REJECTED} kèm lý do — một dòng lỗi không làm hỏng cả file.
+ * <p>
+ * Chunk bị DB từ chối vì dữ liệu ({@link DbErrors#isRejected}) được chia đôi và nạp lại tới khi cô lập được
+ * các dòng lỗi; lỗi tạm thời (mất kết nối, deadlock...) đánh dấu cả phần đang nạp là REJECTED.
+ * <p>
+ * Cột nhận theo header (không phân biệt hoa thường, bỏ {@code _}): {@code full_name} (bắt buộc), {@code email},
+ * {@code phone}, {@code national_id}, {@code address}; {@code user_id}/{@code external_id}/{@code ref} được
+ * chép sang report để đối chiếu. Các cột khác bị bỏ qua.
+ */
+@Slf4j
+@Service
+public class ApplicantImportService {
+
+    static final String REPORT_HEADER = "line,ref,status,applicant_id,error";
+
+    private static final int MAX_NAME = 200;
+    private static final int MAX_EMAIL = 254;
+    private static final int MAX_ADDRESS = 500;
+    private static final Pattern EMAIL = Pattern.compile("[^@\\s]+@[^@\\s]+\\.[^@\\s]+");
+    private static final Pattern PHONE = Pattern.compile("\\+?[0-9]{9,15}");
+    private static final Pattern PHONE_SEPARATORS = Pattern.compile("[\\s.()-]");
+    // CMND 9 số / CCCD 12 số
+    private static final Pattern NATIONAL_ID = Pattern.compile("[0-9]{9}|[0-9]{12}");
+
+    private final ApplicantRepository applicantRepository;
+    private final ApplicationSearchIndex searchIndex;
+    private final ExecutorService executor;
+    private final Counter importedRows;
+    private final Counter duplicateRows;
+    private final Counter rejectedRows;
+    private final Timer loadTimer;
+
+    @Value("${applicants.import.chunk-size:20000}")
+    private int chunkSize;
+
+    @Value("${applicants.import.validate-batch:1000}")
+    private int validateBatch;
+
+    @Value("${applicants.import.threads:4}")
+    private int threads;
+
+    @Value("${applicants.import.report-dir:data/applicant-imports}")
+    private String reportDir;
+
+    public ApplicantImportService(ApplicantRepository applicantRepository,
+                                  ApplicationSearchIndex searchIndex,
+                                  @Qualifier("applicantImportExecutor") ExecutorService executor,
+                                  MeterRegistry meterRegistry) {
+        this.applicantRepository = applicantRepository;
+        this.searchIndex = searchIndex;
+        this.executor = executor;
+        this.importedRows = Counter.builder("credit.applicants.import.rows").tag("outcome", "imported")
+                .description("Applicant rows imported from CSV").register(meterRegistry);
+        this.duplicateRows = Counter.builder("credit.applicants.import.rows").tag("outcome", "duplicate")
+                .description("Applicant rows imported from CSV").register(meterRegistry);
+        this.rejectedRows = Counter.builder("credit.applicants.import.rows").tag("outcome", "rejected")
+                .description("Applicant rows imported from CSV").register(meterRegistry);
+        this.loadTimer = Timer.builder("credit.applicants.import.load")
+                .description("Bulk load of one applicant chunk (or part of a split chunk)").register(meterRegistry);
+    }
+
+    public record ImportSummary(String importId, long rows, long imported, long duplicate, long rejected,
+                                long elapsedMs, String report) {}
+
+    /** Import qua API: report ghi vào {@code report-dir/<importId>.csv}. */
+    public ImportSummary importCsv(InputStream csv) throws IOException {
+        String importId = UUID.randomUUID().toString();
+        return importCsv(importId, csv, Paths.get(reportDir, importId + ".csv"));
+    }
+
+    public ImportSummary importCsv(String importId, InputStream csv, Path report) throws IOException {
+        long started = System.nanoTime();
+        Path parent = report.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+
+        Deque<Future<List<Checked>>> inFlight = new ArrayDeque<>();
+        try (CsvReader reader = new CsvReader(new InputStreamReader(csv, StandardCharsets.UTF_8));
+             Writer out = Files.newBufferedWriter(report, StandardCharsets.UTF_8)) {
+            String[] header = reader.next();
+            if (header == null) {
+                throw new IllegalArgumentException("CSV is empty");
+            }
+            Columns columns = Columns.of(header);
+            out.write(REPORT_HEADER);
+            out.write('\n');
+
+            Chunk chunk = new Chunk(out);
+            int window = Math.max(2, threads * 2);
+            List<Raw> batch = new ArrayList<>(validateBatch);
+            String[] fields;
+            while ((fields = reader.next()) != null) {
+                if (fields.length == 1 && fields[0].isBlank()) continue;
+                batch.add(new Raw(reader.recordLine(), fields));
+                if (batch.size() >= validateBatch) {
+                    inFlight.add(submit(columns, batch));
+                    batch = new ArrayList<>(validateBatch);
+                    // Giữ thứ tự file: chỉ lấy kết quả lô cũ nhất, giới hạn số lô đang kiểm tra
+                    if (inFlight.size() >= window) chunk.accept(await(inFlight.poll()));
+                }
+            }
+            if (!batch.isEmpty()) inFlight.add(submit(columns, batch));
+            while (!inFlight.isEmpty()) chunk.accept(await(inFlight.poll()));
+            chunk.flush();
+
+            long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+            log.info("Applicant import {}: {} rows, {} imported, {} duplicate, {} rejected in {} ms",
+                    importId, chunk.rows, chunk.imported, chunk.duplicate, chunk.rejected, elapsedMs);
+            return new ImportSummary(importId, chunk.rows, chunk.imported, chunk.duplicate, chunk.rejected,
+                    elapsedMs, report.toString());
+        } finally {
+            inFlight.forEach(f -> f.cancel(true));
+        }
+    }
+
+    /** File report của một lần import qua API. */
+    public Path reportPath(String importId) {
+        try {
+            UUID.fromString(importId);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid import id: " + importId);
+        }
+        Path report = Paths.get(reportDir, importId + ".csv");
+        if (!Files.isRegularFile(report)) {
+            throw new IllegalStateException("Import report not found");
+        }
+        return report;
+    }
+
+    private Future<List<Checked>> submit(Columns columns, List<Raw> batch) {
+        return executor.submit(() -> {
+            List<Checked> checked = new ArrayList<>(batch.size());
+            for (Raw raw : batch) checked.add(check(columns, raw));
+            return checked;
+        });
+    }
+
+    private static List<Checked> await(Future<List<Checked>> f) {
+        try {
+            return f.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Applicant import interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw ex.getCause() instanceof RuntimeException r ? r : new IllegalStateException(ex.getCause());
+        }
+    }
+
+    static Checked check(Columns c, Raw raw) {
+        String[] f = raw.fields();
+        String ref = c.field(f, c.ref);
+        if (f.length != c.width) {
+            return Checked.rejected(raw.line(), ref, "expected " + c.width + " columns, got " + f.length);
+        }
+        String name = c.field(f, c.fullName);
+        if (name == null) return Checked.rejected(raw.line(), ref, "full_name is required");
+        if (name.length() > MAX_NAME) return Checked.rejected(raw.line(), ref, "full_name longer than " + MAX_NAME);
+
+        String email = c.field(f, c.email);
+        if (email != null) {
+            email = email.toLowerCase(Locale.ROOT);
+            if (email.length() > MAX_EMAIL || !EMAIL.matcher(email).matches()) {
+                return Checked.rejected(raw.line(), ref, "invalid email");
+            }
+        }
+        String phone = c.field(f, c.phone);
+        if (phone != null) {
+            phone = PHONE_SEPARATORS.matcher(phone).replaceAll("");
+            if (!PHONE.matcher(phone).matches()) return Checked.rejected(raw.line(), ref, "invalid phone");
+        }
+        String nationalId = c.field(f, c.nationalId);
+        if (nationalId != null && !NATIONAL_ID.matcher(nationalId).matches()) {
+            return Checked.rejected(raw.line(), ref, "national_id must have 9 or 12 digits");
+        }
+        String address = c.field(f, c.address);
+        if (address != null && address.length() > MAX_ADDRESS) {
+            return Checked.rejected(raw.line(), ref, "address longer than " + MAX_ADDRESS);
+        }
+        return new Checked(raw.line(), ref, new NewApplicant(name, email, phone, nationalId, address), null);
+    }
+
+    record Raw(long line, String[] fields) {}
+
+    record Checked(long line, String ref, NewApplicant applicant, String error) {
+
+        static Checked rejected(long line, String ref, String error) {
+            return new Checked(line, ref, null, error);
+        }
+    }
+
+    /** Vị trí các cột nhận biết trong header; -1 = không có. */
+    static final class Columns {
+
+        private static final Map<String, String> ALIASES = Map.of(
+                "fullname", "fullName", "name", "fullName",
+                "email", "email",
+                "phone", "phone", "phonenumber", "phone",
+                "nationalid", "nationalId",
+                "address", "address",
+                "userid", "ref", "externalid", "ref", "ref", "ref");
+
+        final int width;
+        int fullName = -1, email = -1, phone = -1, nationalId = -1, address = -1, ref = -1;
+
+        private Columns(int width) {
+            this.width = width;
+        }
+
+        static Columns of(String[] header) {
+            Columns c = new Columns(header.length);
+            for (int i = 0; i < header.length; i++) {
+                String key = header[i].strip().replace("_", "").toLowerCase(Locale.ROOT);
+                String target = ALIASES.get(key);
+                if (target == null) continue;
+                switch (target) {
+                    case "fullName" -> c.fullName = c.fullName < 0 ? i : c.fullName;
+                    case "email" -> c.email = c.email < 0 ? i : c.email;
+                    case "phone" -> c.phone = c.phone < 0 ? i : c.phone;
+                    case "nationalId" -> c.nationalId = c.nationalId < 0 ? i : c.nationalId;
+                    case "address" -> c.address = c.address < 0 ? i : c.address;
+                    default -> c.ref = c.ref < 0 ? i : c.ref;
+                }
+            }
+            if (c.fullName < 0) {
+                throw new IllegalArgumentException("CSV header must contain full_name, got: " + String.join(",", header));
+            }
+            return c;
+        }
+
+        // Giá trị đã strip; rỗng = null
+        String field(String[] f, int index) {
+            if (index < 0 || index >= f.length) return null;
+            String v = f[index].strip();
+            return v.isEmpty() ? null : v;
+        }
+    }
+
+    /**
+     * Các dòng đã kiểm tra, chờ nạp. Report ghi theo đúng thứ tự file sau khi chunk được nạp
+     * (dòng IMPORTED/DUPLICATE cần applicant_id từ DB).
+     */
+    private final class Chunk {
+
+        private final Writer out;
+        private final List<Checked> pending = new ArrayList<>();
+        private final List<NewApplicant> valid = new ArrayList<>();
+        long rows;
+        long imported;
+        long duplicate;
+        long rejected;
+
+        Chunk(Writer out) {
+            this.out = out;
+        }
+
+        void accept(List<Checked> checked) throws IOException {
+            for (Checked c : checked) {
+                pending.add(c);
+                if (c.applicant() != null) valid.add(c.applicant());
+                // Đủ chunk dòng hợp lệ, hoặc quá nhiều dòng lỗi dồn lại → nạp/ghi ngay để bộ nhớ không tăng
+                if (valid.size() >= chunkSize || pending.size() >= 2 * chunkSize) flush();
+            }
+        }
+
+        void flush() throws IOException {
+            Created[] created = new Created[valid.size()];
+            String[] errors = new String[valid.size()];
+            if (!valid.isEmpty()) load(valid, 0, created, errors);
+
+            List<UUID> newIds = new ArrayList<>();
+            List<NewApplicant> newRows = new ArrayList<>();
+            long importedBefore = imported, duplicateBefore = duplicate, rejectedBefore = rejected;
+            int next = 0;
+            for (Checked c : pending) {
+                rows++;
+                if (c.applicant() == null) {
+                    rejected++;
+                    row(c.line(), c.ref(), "REJECTED", null, c.error());
+                    continue;
+                }
+                int k = next++;
+                if (errors[k] != null) {
+                    rejected++;
+                    row(c.line(), c.ref(), "REJECTED", null, errors[k]);
+                } else if (created[k].existing()) {
+                    duplicate++;
+                    row(c.line(), c.ref(), "DUPLICATE", created[k].applicantId(), null);
+                } else {
+                    imported++;
+                    row(c.line(), c.ref(), "IMPORTED", created[k].applicantId(), null);
+                    newIds.add(created[k].applicantId());
+                    newRows.add(c.applicant());
+                }
+            }
+            if (!newIds.isEmpty()) searchIndex.applicantsCreated(newIds, newRows);
+            importedRows.increment(imported - importedBefore);
+            duplicateRows.increment(duplicate - duplicateBefore);
+            rejectedRows.increment(rejected - rejectedBefore);
+            pending.clear();
+            valid.clear();
+        }
+
+        /*
+         * Nạp rows (vị trí offset trong chunk). DB từ chối dữ liệu → chia đôi, nạp từng nửa: một dòng xấu chỉ làm
+         * lỗi chính nó, các nửa không chứa nó vẫn vào. Lỗi tạm thời thì không chia (mỗi lần thử cũng sẽ lỗi),
+         * cả phần này bị đánh dấu lỗi và import tiếp các chunk sau.
+         */
+        private void load(List<NewApplicant> part, int offset, Created[] created, String[] errors) {
+            long start = System.nanoTime();
+            try {
+                List<Created> result = applicantRepository.createApplicants(part);
+                loadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                for (int i = 0; i < result.size(); i++) created[offset + i] = result.get(i);
+            } catch (RuntimeException ex) {
+                if (part.size() > 1 && DbErrors.isRejected(ex)) {
+                    int mid = part.size() / 2;
+                    load(part.subList(0, mid), offset, created, errors);
+                    load(part.subList(mid, part.size()), offset + mid, created, errors);
+                    return;
+                }
+                log.warn("Applicant import load of {} rows failed: {}", part.size(), ex.toString());
+                Arrays.fill(errors, offset, offset + part.size(), "load failed: " + ex.getMessage());
+            }
+        }
+
+        private void row(long line, String ref, String status, UUID id, String error) throws IOException {
+            out.write(Long.toString(line));
+            out.write(',');
+            if (ref != null) out.write(ScoreExportService.csvEscape(ref));
+            out.write(',');
+            out.write(status);
+            out.write(',');
+            if (id != null) out.write(id.toString());
+            out.write(',');
+            if (error != null) out.write(ScoreExportService.csvEscape(error));
+            out.write('\n');
+        }
+    }
+
+    /**
+     * Đọc CSV theo RFC 4180 từng bản ghi: ngoặc kép, {@code ""} trong ngoặc, xuống dòng trong ngoặc,
+     * CRLF/LF, BOM UTF-8 ở đầu file. Chỉ giữ một bản ghi trong bộ nhớ.
+     */
+    static final class CsvReader implements AutoCloseable {
+
+        private final Reader in;
+        private final StringBuilder field = new StringBuilder();
+        private long line = 1;
+        private long recordLine;
+        private int peeked = -2;
+        private boolean first = true;
+
+        CsvReader(Reader in) {
+            this.in = new BufferedReader(in, 64 * 1024);
+        }
+
+        /** Số dòng (tính từ 1) nơi bản ghi vừa đọc bắt đầu. */
+        long recordLine() {
+            return recordLine;
+        }
+
+        /** Bản ghi kế tiếp, hoặc null khi hết file. */
+        String[] next() throws IOException {
+            int ch = read();
+            if (first) {
+                first = false;
+                if (ch == '\uFEFF') ch = read();
+            }
+            if (ch == -1) return null;
+            recordLine = line;
+            List<String> fields = new ArrayList<>();
+            field.setLength(0);
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (ch == -1) {
+                        throw new IllegalArgumentException("Unterminated quoted field starting at line " + recordLine);
+                    }
+                    if (ch == '"') {
+                        int n = read();
+                        if (n == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            ch = n;
+                            continue;
+                        }
+                    } else {
+                        if (ch == '\n') line++;
+                        field.append((char) ch);
+                    }
+                } else if (ch == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (ch == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else if (ch == '\r' || ch == '\n' || ch == -1) {
+                    if (ch == '\r') {
+                        int n = read();
+                        if (n != '\n') unread(n);
+                    }
+                    if (ch != -1) line++;
+                    fields.add(field.toString());
+                    return fields.toArray(String[]::new);
+                } else {
+                    field.append((char) ch);
+                }
+                ch = read();
+            }
+        }
+
+        private int read() throws IOException {
+            if (peeked != -2) {
+                int c = peeked;
+                peeked = -2;
+                return c;
+            }
+            return in.read();
+        }
+
+        private void unread(int c) {
+            peeked = c;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
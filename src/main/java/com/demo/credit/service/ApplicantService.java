@@ -0,0 +1,24 @@
+package com.demo.credit.service;
+
+import com.demo.credit.repository.ApplicantRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+public class ApplicantService {
+
+    private final ApplicantRepository applicantRepository;
+    private final ApplicationSearchIndex searchIndex;
+
+    public UUID create(String fullName, String email, String phone, String nationalId, String address) {
+        if (fullName == null || fullName.isBlank()) {
+            throw new IllegalArgumentException("fullName is required");
+        }
+        UUID applicantId = applicantRepository.createApplicant(fullName.strip(), email, phone, nationalId, address);
+        searchIndex.applicantCreated(applicantId, fullName.strip(), email, phone);
+        return applicantId;
+    }
+}
@@ -0,0 +1,369 @@
+package com.demo.credit.service;
+
+import com.demo.credit.config.DataSourceRouting;
+import com.demo.credit.repository.ApplicationRepository;
+import com.demo.credit.repository.ApplicationRepository.ApplicationDetail;
+import com.demo.credit.repository.ScoreRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * Read model in-process của {@link ApplicationRepository#detail(UUID)} ({@code sp_GetApplicationDetail}):
+ * màn hình risk detail và bước tra hồ sơ đầu {@link ScoringService#score} đọc từ bộ nhớ.
+ * <ul>
+ *   <li>Write-through: {@link #scoreWritten} (sau saveScore / ghi journal) và {@link #consentChanged}
+ *       (sau upsert consent) sửa trực tiếp entry đang có — không xoá, không query lại.</li>
+ *   <li>Score patch chưa có {@code scoreId} (SP tự sinh): khi đã ghi vào DB, entry được đánh dấu cần
+ *       refresh và lần đọc kế tiếp nạp lại ở background; ghi qua journal thì để tới khi hết {@code ttl}.</li>
+ *   <li>Giới hạn {@code max-size} entry và {@code max-memory} (ước lượng theo độ dài chuỗi); vượt thì
+ *       loại theo CLOCK: entry không được đọc từ lượt quét trước bị bỏ trước. Kim quét giữ vị trí giữa các lần
+ *       loại và chỉ một thread quét tại một thời điểm; thread khác gặp lúc đang quét thì bỏ qua.</li>
+ *   <li>Refresh-ahead: entry nóng (≥ {@code refresh-ahead-min-hits} lần đọc) quá {@code refresh-ahead}·ttl
+ *       được nạp lại ở background, request vẫn nhận bản hiện có.</li>
+ *   <li>Miss cùng hồ sơ chỉ tạo một truy vấn; hồ sơ không tồn tại không được cache.</li>
+ * </ul>
+ * Một lần nạp chạy song song với write-through không được ghi đè bản đã sửa (xem {@link #publish}).
+ */
+@Slf4j
+@Component
+public class ApplicationDetailCache {
+
+    // Ước lượng bộ nhớ: header record + 18 field + 4 UUID + 3 LocalDateTime + Entry, cộng 2 byte/ký tự chuỗi
+    private static final int FIXED_WEIGHT = 480;
+
+    private final ApplicationRepository applicationRepository;
+    private final ExecutorService refreshExecutor;
+    private final Clock clock;
+
+    private final ConcurrentHashMap<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<UUID, CompletableFuture<Optional<ApplicationDetail>>> loading =
+            new ConcurrentHashMap<>();
+    // consentId → hồ sơ đang cache, để consentChanged không phải quét cả cache
+    private final ConcurrentHashMap<String, Set<UUID>> byConsent = new ConcurrentHashMap<>();
+    // Tăng ở mỗi consentChanged: lần nạp bắt đầu trước đó có thể mang snapshot consent cũ
+    private final AtomicLong consentEpoch = new AtomicLong();
+    private final AtomicLong weight = new AtomicLong();
+    // Kim CLOCK: iterator (weakly consistent) trên key, đi tiếp từ chỗ lần loại trước dừng; giữ evictLock
+    private final ReentrantLock evictLock = new ReentrantLock();
+    private Iterator<UUID> hand;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder patches = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+
+    @Value("${app.detail-cache.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${app.detail-cache.ttl:10m}")
+    private Duration ttl = Duration.ofMinutes(10);
+
+    @Value("${app.detail-cache.max-size:50000}")
+    private int maxSize = 50_000;
+
+    @Value("${app.detail-cache.max-memory:64MB}")
+    private DataSize maxMemory = DataSize.ofMegabytes(64);
+
+    // Tỉ lệ ttl sau đó entry nóng được nạp lại trước hạn (0 = tắt refresh-ahead)
+    @Value("${app.detail-cache.refresh-ahead:0.8}")
+    private double refreshAhead = 0.8;
+
+    @Value("${app.detail-cache.refresh-ahead-min-hits:3}")
+    private int refreshAheadMinHits = 3;
+
+    @Autowired
+    public ApplicationDetailCache(ApplicationRepository applicationRepository,
+                                  @Qualifier("detailCacheExecutor") ExecutorService refreshExecutor,
+                                  MeterRegistry meterRegistry) {
+        this(applicationRepository, refreshExecutor, meterRegistry, Clock.systemUTC());
+    }
+
+    ApplicationDetailCache(ApplicationRepository applicationRepository, ExecutorService refreshExecutor,
+                           MeterRegistry meterRegistry, Clock clock) {
+        this.applicationRepository = applicationRepository;
+        this.refreshExecutor = refreshExecutor;
+        this.clock = clock;
+        FunctionCounter.builder("credit.detail.cache.hits", hits, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("credit.detail.cache.misses", misses, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("credit.detail.cache.evictions", evictions, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("credit.detail.cache.patches", patches, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("credit.detail.cache.refreshes", refreshes, LongAdder::sum).register(meterRegistry);
+        Gauge.builder("credit.detail.cache.size", entries, Map::size).register(meterRegistry);
+        Gauge.builder("credit.detail.cache.bytes", weight, AtomicLong::get)
+                .description("Ước lượng bộ nhớ của các entry").register(meterRegistry);
+    }
+
+    public Optional<ApplicationDetail> get(UUID applicationId) {
+        if (!enabled || applicationId == null) {
+            return applicationRepository.detail(applicationId);
+        }
+        long now = clock.millis();
+        Entry e = entries.get(applicationId);
+        if (e != null && now - e.loadedAt < ttl.toMillis()) {
+            hits.increment();
+            e.referenced = true;
+            int h = e.hits.incrementAndGet();
+            if (e.refreshDue || (refreshAhead > 0 && h >= refreshAheadMinHits
+                    && now - e.loadedAt >= (long) (ttl.toMillis() * refreshAhead))) {
+                refreshAsync(applicationId, e);
+            }
+            return Optional.of(e.value);
+        }
+        misses.increment();
+        return load(applicationId);
+    }
+
+    /**
+     * Score mới của hồ sơ: sửa entry theo đúng những gì {@code sp_SaveScore} làm (status SCORED, score mới nhất).
+     *
+     * @param stored true nếu score đã nằm trong DB (saveScore/saveScores), false nếu mới vào journal
+     */
+    public void scoreWritten(ScoreRepository.ScoreWrite w, boolean stored) {
+        if (!enabled) return;
+        LocalDateTime scoredAt = LocalDateTime.now(clock.withZone(ZoneOffset.UTC));
+        String decision = w.decision() == null ? null : w.decision().toUpperCase(Locale.ROOT);
+        patch(w.applicationId(), d -> new ApplicationDetail(
+                d.id(), d.referenceNo(), "SCORED", d.createdAt(), d.applicantId(), d.consentId(),
+                null, w.score(), w.pd(), decision, w.topReasonsJson(),
+                w.modelVersion(), w.featureSchemaVersion(), w.txHash(), scoredAt,
+                d.consentStatus(), d.consentExpiry(), d.consentLastTxHash()), stored);
+    }
+
+    /** Consent vừa upsert: sửa snapshot consent của mọi hồ sơ đang cache dùng consent này. */
+    public void consentChanged(String consentId, String status, LocalDateTime expiry, String lastTxHash) {
+        if (!enabled || consentId == null) return;
+        consentEpoch.incrementAndGet();
+        Set<UUID> ids = byConsent.get(consentId);
+        if (ids == null) return;
+        for (UUID id : ids) {
+            patch(id, d -> new ApplicationDetail(
+                    d.id(), d.referenceNo(), d.status(), d.createdAt(), d.applicantId(), d.consentId(),
+                    d.scoreId(), d.score(), d.pd(), d.decision(), d.topReasons(),
+                    d.modelVersion(), d.featureSchemaVersion(), d.txHash(), d.scoredAt(),
+                    status, expiry, lastTxHash), false);
+        }
+    }
+
+    public void invalidate(UUID applicationId) {
+        if (applicationId == null) return;
+        loading.compute(applicationId, (k, f) -> {
+            remove(k);
+            return null;
+        });
+    }
+
+    public void clear() {
+        entries.keySet().forEach(this::invalidate);
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    public long weightBytes() {
+        return weight.get();
+    }
+
+    private Optional<ApplicationDetail> load(UUID applicationId) {
+        CompletableFuture<Optional<ApplicationDetail>> mine = new CompletableFuture<>();
+        CompletableFuture<Optional<ApplicationDetail>> current = loading.putIfAbsent(applicationId, mine);
+        if (current != null) {
+            try {
+                return current.join();
+            } catch (CompletionException ex) {
+                throw ex.getCause() instanceof RuntimeException re ? re : ex;
+            }
+        }
+        long epoch = consentEpoch.get();
+        try {
+            Optional<ApplicationDetail> row = applicationRepository.detail(applicationId);
+            publish(applicationId, mine, null, epoch, row.orElse(null));
+            mine.complete(row);
+            return row;
+        } catch (RuntimeException ex) {
+            loading.remove(applicationId, mine);
+            mine.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    private void refreshAsync(UUID applicationId, Entry seen) {
+        if (!seen.refreshing.compareAndSet(false, true)) return;
+        try {
+            refreshExecutor.execute(() -> {
+                long epoch = consentEpoch.get();
+                try {
+                    // Nạp lại sau khi ghi score: replica có thể chưa có dòng mới → đọc primary
+                    Optional<ApplicationDetail> row = seen.refreshDue
+                            ? DataSourceRouting.primary(() -> applicationRepository.detail(applicationId))
+                            : applicationRepository.detail(applicationId);
+                    refreshes.increment();
+                    publish(applicationId, null, seen, epoch, row.orElse(null));
+                } catch (RuntimeException ex) {
+                    log.debug("Detail refresh failed for {}: {}", applicationId, ex.toString());
+                } finally {
+                    seen.refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            seen.refreshing.set(false);
+        }
+    }
+
+    /**
+     * Ghi kết quả nạp vào cache, tuần tự với {@link #patch} cùng key (cùng bin của {@code loading}):
+     * bỏ qua nếu trong lúc query đã có write-through (miss: future không còn trong {@code loading};
+     * refresh: entry đã bị thay bởi patch khác) hoặc consent nào đó đã đổi.
+     */
+    private void publish(UUID id, CompletableFuture<Optional<ApplicationDetail>> mine, Entry seen,
+                         long epoch, ApplicationDetail row) {
+        loading.compute(id, (k, f) -> {
+            if (mine != null && f != mine) return f;
+            Entry cur = entries.get(k);
+            boolean stillSeen = seen == null || cur == seen;
+            if (row == null) {
+                if (seen != null && stillSeen) remove(k);
+            } else if (stillSeen && consentEpoch.get() == epoch) {
+                put(k, new Entry(row, clock.millis()));
+            }
+            return mine != null ? null : f;
+        });
+        evictIfNeeded();
+    }
+
+    private void patch(UUID id, UnaryOperator<ApplicationDetail> change, boolean refreshDue) {
+        loading.compute(id, (k, f) -> {
+            Entry cur = entries.get(k);
+            if (cur != null) {
+                Entry next = new Entry(change.apply(cur.value), cur.loadedAt);
+                next.refreshDue = refreshDue;
+                next.referenced = true;
+                put(k, next);
+                patches.increment();
+            }
+            // Lần nạp đang chạy đọc trạng thái trước khi ghi → không được cache kết quả đó
+            return null;
+        });
+    }
+
+    private void put(UUID id, Entry e) {
+        Entry old = entries.put(id, e);
+        if (old != null) {
+            weight.addAndGet(-old.weight);
+            unindex(id, old.value.consentId());
+        }
+        weight.addAndGet(e.weight);
+        if (e.value.consentId() != null) {
+            byConsent.computeIfAbsent(e.value.consentId(), c -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    private void remove(UUID id) {
+        Entry old = entries.remove(id);
+        if (old != null) {
+            weight.addAndGet(-old.weight);
+            unindex(id, old.value.consentId());
+        }
+    }
+
+    private void unindex(UUID id, String consentId) {
+        if (consentId == null) return;
+        byConsent.computeIfPresent(consentId, (c, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private boolean overBudget() {
+        return entries.size() > maxSize || weight.get() > maxMemory.toBytes();
+    }
+
+    // CLOCK: kim đi qua entry có cờ referenced thì xoá cờ, gặp entry chưa được đọc lại từ lượt trước thì loại
+    private void evictIfNeeded() {
+        if (!overBudget() || !evictLock.tryLock()) return;
+        try {
+            // Hai vòng đủ để mọi cờ bị xoá rồi loại; giới hạn để không quay mãi khi các thread khác liên tục đọc
+            for (long steps = 2L * entries.size() + 1; steps > 0 && overBudget(); steps--) {
+                if (hand == null || !hand.hasNext()) {
+                    hand = entries.keySet().iterator();
+                    if (!hand.hasNext()) return;
+                }
+                UUID id = hand.next();
+                Entry e = entries.get(id);
+                if (e == null) continue;
+                if (e.referenced) {
+                    e.referenced = false;
+                    continue;
+                }
+                invalidate(id);
+                evictions.increment();
+            }
+        } finally {
+            evictLock.unlock();
+        }
+    }
+
+    private static int weigh(ApplicationDetail d) {
+        return FIXED_WEIGHT + 2 * (len(d.referenceNo()) + len(d.status()) + len(d.consentId())
+                + len(d.decision()) + len(d.topReasons()) + len(d.modelVersion()) + len(d.featureSchemaVersion())
+                + len(d.txHash()) + len(d.consentStatus()) + len(d.consentLastTxHash()));
+    }
+
+    private static int len(String s) {
+        return s == null ? 0 : s.length();
+    }
+
+    private static final class Entry {
+        final ApplicationDetail value;
+        final long loadedAt;
+        final int weight;
+        final AtomicInteger hits = new AtomicInteger();
+        final AtomicBoolean refreshing = new AtomicBoolean();
+        volatile boolean referenced = true;
+        volatile boolean refreshDue;
+
+        Entry(ApplicationDetail value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+            this.weight = weigh(value);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.demo.credit.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Phát sự kiện thay đổi hồ sơ cho màn hình risk qua SSE ({@code GET /applications/events}),
+ * thay cho việc poll danh sách/chi tiết.
+ * <ul>
+ *   <li>{@link #publish} không bao giờ chặn: sự kiện được đưa vào hàng đợi có giới hạn của từng subscriber.
+ *       Subscriber chậm làm đầy hàng đợi sẽ bị ngắt — EventSource tự kết nối lại với {@code Last-Event-ID}.</li>
+ *   <li>Giữ {@code replay-size} sự kiện gần nhất để phát lại khi kết nối lại. Id cũ hơn cửa sổ này
+ *       (hoặc từ lần chạy trước) → gửi {@code reset}: client tải lại trang đầu.</li>
+ *   <li>Việc ghi ra socket chạy trên {@code sseExecutor}, không trên thread của request nghiệp vụ.</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class ApplicationEventBus {
+
+    public static final String APPLICATION_CREATED = "application-created";
+    public static final String SCORE_SAVED = "score-saved";
+    public static final String CONSENT_CHANGED = "consent-changed";
+    public static final String RESET = "reset";
+
+    // Id sự kiện = "<boot>-<seq>": Last-Event-ID từ tiến trình trước không bị hiểu nhầm
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+    private final ScheduledExecutorService executor;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final ArrayDeque<Event> recent = new ArrayDeque<>();
+    private final Counter dropped;
+    private long seq;
+    private ScheduledFuture<?> heartbeat;
+
+    @Value("${events.replay-size:1000}")
+    private int replaySize = 1000;
+
+    @Value("${events.sse.buffer:256}")
+    private int bufferSize = 256;
+
+    @Value("${events.sse.timeout:30m}")
+    private Duration timeout = Duration.ofMinutes(30);
+
+    @Value("${events.sse.heartbeat:15s}")
+    private Duration heartbeatEvery = Duration.ofSeconds(15);
+
+    public ApplicationEventBus(@Qualifier("sseExecutor") ScheduledExecutorService executor,
+                               MeterRegistry meterRegistry) {
+        this.executor = executor;
+        this.dropped = Counter.builder("credit.events.subscribers.dropped")
+                .description("Subscriber bị ngắt vì hàng đợi đầy")
+                .register(meterRegistry);
+        Gauge.builder("credit.events.subscribers", subscribers, List::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    void startHeartbeat() {
+        long ms = heartbeatEvery.toMillis();
+        heartbeat = executor.scheduleAtFixedRate(this::heartbeat, ms, ms, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (heartbeat != null) heartbeat.cancel(false);
+        subscribers.forEach(s -> s.emitter.complete());
+        subscribers.clear();
+    }
+
+    public void publish(String type, Map<String, Object> data) {
+        List<Subscriber> overflowed = new ArrayList<>(0);
+        synchronized (this) {
+            Event e = new Event(bootId + "-" + (++seq), type, data, Instant.now());
+            recent.addLast(e);
+            if (recent.size() > replaySize) recent.removeFirst();
+            for (Subscriber s : subscribers) {
+                if (!s.queue.offer(e)) overflowed.add(s);
+            }
+        }
+        subscribers.forEach(this::scheduleDrain);
+        for (Subscriber s : overflowed) {
+            dropped.increment();
+            log.debug("SSE subscriber too slow, disconnecting");
+            drop(s);
+        }
+    }
+
+    /**
+     * @param lastEventId header {@code Last-Event-ID} (null = chỉ nhận sự kiện mới)
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        SseEmitter emitter = newEmitter();
+        Subscriber sub = new Subscriber(emitter, new ArrayBlockingQueue<>(bufferSize));
+        emitter.onCompletion(() -> subscribers.remove(sub));
+        emitter.onTimeout(() -> subscribers.remove(sub));
+        emitter.onError(ex -> subscribers.remove(sub));
+
+        synchronized (this) {
+            List<Event> replay = replayAfter(lastEventId);
+            if (replay == null || replay.size() > bufferSize) {
+                sub.queue.offer(new Event(bootId + "-" + seq, RESET, Map.of(), Instant.now()));
+            } else {
+                sub.queue.addAll(replay);
+            }
+            subscribers.add(sub);
+        }
+        scheduleDrain(sub);
+        return emitter;
+    }
+
+    SseEmitter newEmitter() {
+        return new SseEmitter(timeout.toMillis());
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    // null = không phát lại được (id lạ, tiến trình khác, hoặc đã trôi khỏi cửa sổ)
+    private List<Event> replayAfter(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) return List.of();
+        int dash = lastEventId.lastIndexOf('-');
+        if (dash < 0 || !bootId.equals(lastEventId.substring(0, dash))) return null;
+        long last;
+        try {
+            last = Long.parseLong(lastEventId.substring(dash + 1));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+        long oldest = seq - recent.size() + 1;
+        if (last < oldest - 1 || last > seq) return null;
+        List<Event> out = new ArrayList<>((int) (seq - last));
+        for (Event e : recent) {
+            if (e.seq() > last) out.add(e);
+        }
+        return out;
+    }
+
+    private void scheduleDrain(Subscriber s) {
+        if (!s.queue.isEmpty() && s.draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> drain(s));
+            } catch (RuntimeException ex) {
+                s.draining.set(false);
+            }
+        }
+    }
+
+    // Mỗi subscriber chỉ có tối đa một drain đang chạy → thứ tự sự kiện được giữ
+    private void drain(Subscriber s) {
+        try {
+            Event e;
+            while ((e = s.queue.poll()) != null) {
+                s.emitter.send(SseEmitter.event()
+                        .id(e.id())
+                        .name(e.type())
+                        .data(e.payload(), MediaType.APPLICATION_JSON));
+            }
+        } catch (IOException | IllegalStateException ex) {
+            drop(s);
+            return;
+        } finally {
+            s.draining.set(false);
+        }
+        // Sự kiện đến trong lúc đang kết thúc drain
+        scheduleDrain(s);
+    }
+
+    private void heartbeat() {
+        for (Subscriber s : subscribers) {
+            if (s.draining.get()) continue;
+            try {
+                s.emitter.send(SseEmitter.event().comment("hb"));
+            } catch (IOException | IllegalStateException ex) {
+                drop(s);
+            }
+        }
+    }
+
+    private void drop(Subscriber s) {
+        subscribers.remove(s);
+        try {
+            s.emitter.complete();
+        } catch (RuntimeException ignore) {
+            // emitter đã đóng
+        }
+    }
+
+    private record Subscriber(SseEmitter emitter, ArrayBlockingQueue<Event> queue, AtomicBoolean draining) {
+        Subscriber(SseEmitter emitter, ArrayBlockingQueue<Event> queue) {
+            this(emitter, queue, new AtomicBoolean());
+        }
+    }
+
+    public record Event(String id, String type, Map<String, Object> data, Instant at) {
+
+        long seq() {
+            return Long.parseLong(id.substring(id.lastIndexOf('-') + 1));
+        }
+
+        Map<String, Object> payload() {
+            return Map.of("type", type, "at", at, "data", data);
+        }
+    }
+
+    /** Payload gọn cho {@link #SCORE_SAVED}. */
+    public static Map<String, Object> scoreSaved(UUID applicationId, ScoringService.SavedScore s) {
+        return Map.of(
+                "applicationId", applicationId,
+                "score", s.score(),
+                "pd", s.pd(),
+                "decision", s.decision(),
+                "modelVersion", s.modelVersion() == null ? "" : s.modelVersion());
+    }
+}
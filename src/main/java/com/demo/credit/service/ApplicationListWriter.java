@@ -0,0 +1,230 @@
+package com.demo.credit.service;
+
+import com.demo.credit.repository.ApplicationRepository;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Ghi {@code GET /applications} thẳng từ ResultSet ra response: mỗi dòng đi qua
+ * {@link ApplicationRepository.ListRow} tới {@link JsonGenerator} — không ApplicationListItem, không Map,
+ * không List. Tên field được serialize sẵn; UUID/thời gian ghi từ một buffer char dùng lại.
+ * <p>
+ * Wire format giữ nguyên như khi Jackson serialize Map của từng dòng: {@code id} và {@code applicationId}
+ * (trùng giá trị), UUID chữ thường, thời gian ISO-8601 không múi giờ, giá trị null ghi {@code null}.
+ * Dòng đầu được flush ngay; phần còn lại đi theo buffer của servlet (chunked, không Content-Length).
+ * Lỗi đọc DB sau khi đã flush → {@link StreamAbortedException} (cắt kết nối), generator không tự đóng
+ * mảng/object còn dở để phần đã gửi không thành JSON hợp lệ.
+ * <p>
+ * Có {@code q}: nếu {@link ApplicationSearchIndex} trả được danh sách ứng viên thì chỉ đọc các hồ sơ đó
+ * ({@link ApplicationRepository#streamListByIds}), ngược lại đi đường LIKE như cũ.
+ */
+@Component
+public class ApplicationListWriter {
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString APPLICATION_ID = new SerializedString("applicationId");
+    private static final SerializedString REFERENCE_NO = new SerializedString("referenceNo");
+    private static final SerializedString STATUS = new SerializedString("status");
+    private static final SerializedString CREATED_AT = new SerializedString("createdAt");
+    private static final SerializedString APPLICANT_ID = new SerializedString("applicantId");
+    private static final SerializedString CONSENT_ID = new SerializedString("consentId");
+    private static final SerializedString SCORE = new SerializedString("score");
+    private static final SerializedString PD = new SerializedString("pd");
+    private static final SerializedString DECISION = new SerializedString("decision");
+    private static final SerializedString SCORED_AT = new SerializedString("scoredAt");
+    private static final SerializedString ITEMS = new SerializedString("items");
+    private static final SerializedString NEXT_CURSOR = new SerializedString("nextCursor");
+
+    private final ApplicationRepository applicationRepository;
+    private final ApplicationSearchIndex searchIndex;
+    // Factory thread-safe; buffer của generator được tái chế qua BufferRecycler của Jackson
+    private final JsonFactory jsonFactory;
+
+    public ApplicationListWriter(ApplicationRepository applicationRepository, ApplicationSearchIndex searchIndex,
+                                 ObjectMapper objectMapper) {
+        this.applicationRepository = applicationRepository;
+        this.searchIndex = searchIndex;
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /** Chế độ page/size: mảng JSON các dòng. */
+    public void writeList(String status, String q, int page, int size, OutputStream out) throws IOException {
+        try (JsonGenerator gen = open(out)) {
+            gen.writeStartArray();
+            RowWriter rows = new RowWriter(gen);
+            List<UUID> hits = search(q, null);
+            if (hits != null) {
+                int skip = Math.max(page - 1, 0) * size;
+                unwrap(rows, () -> applicationRepository.streamListByIds(status, q, hits, null, skip, size, rows));
+            } else {
+                unwrap(rows, () -> applicationRepository.streamList(status, q, page, size, rows));
+            }
+            gen.writeEndArray();
+        }
+    }
+
+    /** Chế độ keyset: {@code { items, nextCursor }}, nextCursor = null khi hết dữ liệu. */
+    public void writePage(String status, String q, ApplicationRepository.ListCursor after, int size,
+                          OutputStream out) throws IOException {
+        try (JsonGenerator gen = open(out)) {
+            gen.writeStartObject();
+            gen.writeFieldName(ITEMS);
+            gen.writeStartArray();
+            RowWriter rows = new RowWriter(gen);
+            ApplicationRepository.ListCursor[] next = new ApplicationRepository.ListCursor[1];
+            List<UUID> hits = search(q, after);
+            if (hits != null) {
+                unwrap(rows, () -> next[0] = applicationRepository.streamListByIds(status, q, hits, after, 0, size,
+                        rows));
+            } else {
+                unwrap(rows, () -> next[0] = applicationRepository.streamListAfter(status, q, after, size, rows));
+            }
+            gen.writeEndArray();
+            gen.writeFieldName(NEXT_CURSOR);
+            gen.writeString(next[0] == null ? null : next[0].encode());
+            gen.writeEndObject();
+        }
+    }
+
+    private List<UUID> search(String q, ApplicationRepository.ListCursor after) {
+        return q == null || q.isBlank() ? null : searchIndex.search(q, after);
+    }
+
+    private JsonGenerator open(OutputStream out) throws IOException {
+        JsonGenerator gen = jsonFactory.createGenerator(out);
+        // Servlet container tự đóng response stream
+        gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // Thoát giữa chừng (lỗi) thì không ghi nốt dấu đóng ] / }
+        gen.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        return gen;
+    }
+
+    private static void unwrap(RowWriter rows, Runnable streaming) throws IOException {
+        try {
+            streaming.run();
+        } catch (UncheckedIOException ex) {
+            // Client đã ngắt / socket lỗi
+            throw ex.getCause();
+        } catch (RuntimeException ex) {
+            if (rows.flushed) throw new StreamAbortedException("GET /applications", ex);
+            // Chưa gửi gì: để GlobalExceptionHandler trả lỗi như bình thường
+            throw ex;
+        }
+    }
+
+    /**
+     * Ghi từng {@link ApplicationRepository.ListRow} thành một object JSON trên {@code gen}.
+     * Public để benchmark đo riêng phần serialize.
+     */
+    public static final class RowWriter implements ApplicationRepository.ListRowHandler {
+
+        private final JsonGenerator gen;
+        private final char[] buf = new char[40];
+        private boolean flushed;
+
+        public RowWriter(JsonGenerator gen) {
+            this.gen = gen;
+        }
+
+        @Override
+        public void accept(ApplicationRepository.ListRow row) throws IOException {
+            gen.writeStartObject();
+            gen.writeFieldName(ID);
+            writeUuid(row.applicationId());
+            gen.writeFieldName(APPLICATION_ID);
+            writeUuid(row.applicationId());
+            gen.writeFieldName(REFERENCE_NO);
+            gen.writeString(row.referenceNo());
+            gen.writeFieldName(STATUS);
+            gen.writeString(row.status());
+            gen.writeFieldName(CREATED_AT);
+            writeDateTime(row.createdAt());
+            gen.writeFieldName(APPLICANT_ID);
+            writeUuid(row.applicantId());
+            gen.writeFieldName(CONSENT_ID);
+            gen.writeString(row.consentId());
+            gen.writeFieldName(SCORE);
+            if (row.hasScore()) gen.writeNumber(row.score());
+            else gen.writeNull();
+            gen.writeFieldName(PD);
+            if (row.hasPd()) gen.writeNumber(row.pd());
+            else gen.writeNull();
+            gen.writeFieldName(DECISION);
+            gen.writeString(row.decision());
+            gen.writeFieldName(SCORED_AT);
+            writeDateTime(row.scoredAt());
+            gen.writeEndObject();
+            if (!flushed) {
+                // Byte đầu tiên tới client ngay khi có dòng đầu, không đợi đầy buffer
+                gen.flush();
+                flushed = true;
+            }
+        }
+
+        // UUID.toString() là chữ thường; SQL Server trả uniqueidentifier chữ hoa
+        private void writeUuid(String id) throws IOException {
+            if (id == null) {
+                gen.writeNull();
+                return;
+            }
+            int n = Math.min(id.length(), buf.length);
+            for (int i = 0; i < n; i++) {
+                char c = id.charAt(i);
+                buf[i] = (c >= 'A' && c <= 'Z') ? (char) (c + 32) : c;
+            }
+            gen.writeString(buf, 0, n);
+        }
+
+        // Như LocalDateTimeSerializer (DateTimeFormatter.ISO_LOCAL_DATE_TIME): luôn có giây,
+        // phần lẻ giây bỏ số 0 ở cuối
+        private void writeDateTime(LocalDateTime t) throws IOException {
+            if (t == null) {
+                gen.writeNull();
+                return;
+            }
+            int year = t.getYear();
+            if (year < 0 || year > 9999) {
+                gen.writeString(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(t));
+                return;
+            }
+            int p = digits(year, 4, 0);
+            buf[p++] = '-';
+            p = digits(t.getMonthValue(), 2, p);
+            buf[p++] = '-';
+            p = digits(t.getDayOfMonth(), 2, p);
+            buf[p++] = 'T';
+            p = digits(t.getHour(), 2, p);
+            buf[p++] = ':';
+            p = digits(t.getMinute(), 2, p);
+            buf[p++] = ':';
+            p = digits(t.getSecond(), 2, p);
+            int nano = t.getNano();
+            if (nano > 0) {
+                buf[p++] = '.';
+                int end = digits(nano, 9, p);
+                while (buf[end - 1] == '0') end--;
+                p = end;
+            }
+            gen.writeString(buf, 0, p);
+        }
+
+        private int digits(int value, int width, int pos) {
+            for (int i = width - 1; i >= 0; i--) {
+                buf[pos + i] = (char) ('0' + value % 10);
+                value /= 10;
+            }
+            return pos + width;
+        }
+    }
+}
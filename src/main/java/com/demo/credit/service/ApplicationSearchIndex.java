@@ -0,0 +1,543 @@
+package com.demo.credit.service;
+
+import com.demo.credit.repository.ApplicantRepository;
+import com.demo.credit.repository.ApplicationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Chỉ mục trigram in-process cho tham số {@code q} của {@code GET /applications}: reference_no của hồ sơ và
+ * họ tên / email / điện thoại của người vay. {@code q} được tra ra danh sách hồ sơ ứng viên (đã xếp theo thứ
+ * tự danh sách) rồi chỉ trang cần xem được đọc từ DB bằng {@link ApplicationRepository#streamListByIds} —
+ * không còn LIKE quét bảng.
+ * <ul>
+ *   <li>Tập ứng viên là tập cha của kết quả LIKE (mọi trigram của {@code q} có mặt trong cùng một trường);
+ *       DB vẫn kiểm tra LIKE trên các dòng được đọc nên kết quả giữ nguyên ngữ nghĩa. Cả văn bản được chỉ mục
+ *       lẫn {@code q} đi qua {@link #fold} (thường hoá, bỏ dấu, đ → d) nên tập cha vẫn đúng với collation không
+ *       phân biệt hoa thường / dấu của DB: "nguyen" tìm ra "Nguyễn" như LIKE.</li>
+ *   <li>Posting list là mảng {@code int} tăng dần; hồ sơ lưu thành các mảng song song (UUID hai {@code long},
+ *       created_at micro giây), người vay trỏ tới hồ sơ của mình qua danh sách liên kết {@code int}.</li>
+ *   <li>Dựng lúc khởi động bằng hai lượt quét streaming, dựng lại định kỳ ({@code rebuild-interval}); ở giữa
+ *       được cập nhật bởi {@link #applicantCreated} / {@link #applicationCreated} và mỗi {@code catch-up-interval}
+ *       đọc bù từ DB các hồ sơ có created_at từ mốc lớn nhất đã thấy (trừ {@link #CATCH_UP_OVERLAP}) — gồm cả hồ
+ *       sơ tạo ở instance khác. Mọi thay đổi chạy tuần tự trên {@code searchIndexExecutor}.</li>
+ *   <li>Không dùng chỉ mục ({@link #search} trả null → đi đường LIKE cũ) khi chưa dựng xong, lần đọc bù thành
+ *       công gần nhất đã quá 3 chu kỳ, {@code q} ngắn hơn 3 ký tự hoặc có ký tự đại diện của LIKE, hay khi số
+ *       ứng viên vượt {@code max-candidates}.</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class ApplicationSearchIndex {
+
+    static final int GRAM = 3;
+    // Đọc bù lùi lại sau mốc: hồ sơ commit muộn hơn hồ sơ có created_at lớn hơn, hoặc replica trễ
+    static final Duration CATCH_UP_OVERLAP = Duration.ofMinutes(1);
+
+    private final ApplicationRepository applicationRepository;
+    private final ApplicantRepository applicantRepository;
+    private final ApplicationDetailCache detailCache;
+    private final ScheduledExecutorService executor;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Timer resolveTimer;
+    private final Counter indexed;
+    private final Counter fallback;
+
+    @Value("${app.search-index.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${app.search-index.max-candidates:20000}")
+    private int maxCandidates = 20_000;
+
+    @Value("${app.search-index.rebuild-interval:30m}")
+    private Duration rebuildInterval = Duration.ZERO;
+
+    @Value("${app.search-index.catch-up-interval:5s}")
+    private Duration catchUpInterval = Duration.ZERO;
+
+    private volatile Index index;
+    // System.nanoTime() của lần dựng / đọc bù thành công gần nhất
+    private volatile long freshAt;
+
+    public ApplicationSearchIndex(ApplicationRepository applicationRepository,
+                                  ApplicantRepository applicantRepository,
+                                  ApplicationDetailCache detailCache,
+                                  @Qualifier("searchIndexExecutor") ScheduledExecutorService executor,
+                                  MeterRegistry meterRegistry) {
+        this.applicationRepository = applicationRepository;
+        this.applicantRepository = applicantRepository;
+        this.detailCache = detailCache;
+        this.executor = executor;
+        this.resolveTimer = Timer.builder("credit.search.resolve")
+                .description("Time to resolve q to candidate applications").register(meterRegistry);
+        this.indexed = Counter.builder("credit.search.queries").tag("path", "index")
+                .description("Application list searches by resolution path").register(meterRegistry);
+        this.fallback = Counter.builder("credit.search.queries").tag("path", "like")
+                .description("Application list searches by resolution path").register(meterRegistry);
+        Gauge.builder("credit.search.index.applications", this, s -> s.index == null ? 0 : s.index.apps)
+                .register(meterRegistry);
+        Gauge.builder("credit.search.index.bytes", this, s -> s.index == null ? 0 : s.index.estimatedBytes())
+                .description("Estimated heap used by the search index").baseUnit("bytes").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        if (!enabled) return;
+        long every = rebuildInterval.toMillis();
+        if (every > 0) {
+            executor.scheduleWithFixedDelay(this::rebuildSafely, 0, every, TimeUnit.MILLISECONDS);
+        } else {
+            executor.execute(this::rebuildSafely);
+        }
+        long catchUp = catchUpInterval.toMillis();
+        if (catchUp > 0) {
+            executor.scheduleWithFixedDelay(this::catchUpSafely, catchUp, catchUp, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public boolean isReady() {
+        return index != null;
+    }
+
+    /**
+     * Hồ sơ ứng viên cho {@code q}, theo thứ tự danh sách (mới → cũ), chỉ gồm hồ sơ sau {@code after}
+     * (null = từ đầu). Null = không dùng được chỉ mục cho truy vấn này.
+     */
+    public List<UUID> search(String q, ApplicationRepository.ListCursor after) {
+        Index idx = index;
+        String needle = q == null ? "" : fold(q.strip());
+        if (idx == null || stale() || needle.length() < GRAM || hasLikeWildcard(needle)) {
+            fallback.increment();
+            return null;
+        }
+        long start = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            int[] docs = idx.candidates(needle, maxCandidates);
+            if (docs == null) {
+                fallback.increment();
+                return null;
+            }
+            int from = after == null ? 0 : idx.firstAfter(docs, micros(after.createdAt()));
+            indexed.increment();
+            return idx.ids(docs, from);
+        } finally {
+            lock.readLock().unlock();
+            resolveTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** Gọi sau khi người vay đã được ghi. */
+    public void applicantCreated(UUID applicantId, String fullName, String email, String phone) {
+        if (!enabled) return;
+        submit(() -> update(idx -> idx.addApplicant(applicantId, fullName, email, phone)));
+    }
+
+    /** Gọi sau mỗi chunk import CSV đã được ghi; {@code ids} theo thứ tự của {@code rows}. */
+    public void applicantsCreated(List<UUID> ids, List<ApplicantRepository.NewApplicant> rows) {
+        if (!enabled || ids.isEmpty()) return;
+        // Chunk của import được dùng lại sau khi flush → giữ bản sao cho lần cập nhật chạy sau
+        List<UUID> idsCopy = List.copyOf(ids);
+        List<ApplicantRepository.NewApplicant> rowsCopy = List.copyOf(rows);
+        submit(() -> update(idx -> {
+            for (int i = 0; i < idsCopy.size(); i++) {
+                ApplicantRepository.NewApplicant a = rowsCopy.get(i);
+                idx.addApplicant(idsCopy.get(i), a.fullName(), a.email(), a.phone());
+            }
+        }));
+    }
+
+    /**
+     * Gọi sau khi hồ sơ đã được ghi. reference_no và created_at do DB sinh nên được đọc lại (qua
+     * {@link ApplicationDetailCache}, cũng làm nóng cache cho lần xem chi tiết kế tiếp) ở thread của chỉ mục.
+     */
+    public void applicationCreated(UUID applicationId) {
+        if (!enabled) return;
+        submit(() -> detailCache.get(applicationId).ifPresent(d ->
+                update(idx -> idx.addApplication(d.id(), d.referenceNo(), d.createdAt(), d.applicantId()))));
+    }
+
+    private void submit(Runnable task) {
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException ex) {
+                    // Lần dựng lại kế tiếp sẽ bù
+                    log.debug("Search index update failed: {}", ex.toString());
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // đang tắt
+        }
+    }
+
+    private void update(Consumer<Index> change) {
+        Index idx = index;
+        if (idx == null) return;
+        lock.writeLock().lock();
+        try {
+            change.accept(idx);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void rebuildSafely() {
+        try {
+            rebuild();
+        } catch (RuntimeException ex) {
+            log.warn("Search index build failed, list search uses LIKE until next attempt: {}", ex.toString());
+        }
+    }
+
+    // Đọc bù lỗi liên tiếp: chỉ mục có thể thiếu hồ sơ mới → đi đường LIKE tới khi đọc bù lại được
+    private boolean stale() {
+        long every = catchUpInterval.toNanos();
+        return every > 0 && System.nanoTime() - freshAt > 3 * every;
+    }
+
+    private void catchUpSafely() {
+        try {
+            catchUp();
+        } catch (RuntimeException ex) {
+            log.debug("Search index catch-up failed: {}", ex.toString());
+        }
+    }
+
+    /** Thêm hồ sơ (và người vay của chúng) có created_at từ mốc đã thấy trừ {@link #CATCH_UP_OVERLAP}. */
+    void catchUp() {
+        Index idx = index;
+        if (idx == null) return;
+        long started = System.nanoTime();
+        LocalDateTime since = idx.newest == null ? null : idx.newest.minus(CATCH_UP_OVERLAP);
+        List<ApplicationRepository.SearchDoc> docs = new ArrayList<>();
+        applicationRepository.forEachSearchDoc(since, docs::add);
+        // Chỉ executor này ghi chỉ mục nên đọc trạng thái người vay ở đây không cần lock
+        Set<UUID> missing = new HashSet<>();
+        for (ApplicationRepository.SearchDoc d : docs) {
+            if (!idx.hasApplicantText(d.applicantId())) missing.add(d.applicantId());
+        }
+        List<ApplicantRepository.ApplicantText> texts = missing.isEmpty() ? List.of()
+                : applicantRepository.applicantTexts(missing);
+        update(i -> {
+            docs.forEach(d -> i.addApplication(d.applicationId(), d.referenceNo(), d.createdAt(), d.applicantId()));
+            texts.forEach(a -> i.addApplicant(a.applicantId(), a.fullName(), a.email(), a.phone()));
+        });
+        freshAt = started;
+    }
+
+    /** Dựng bản mới ngoài lock rồi thay một lần; cập nhật đến trong lúc dựng xếp hàng phía sau. */
+    void rebuild() {
+        long start = System.nanoTime();
+        Index next = new Index();
+        // Hồ sơ trước: người vay được tạo trước hồ sơ của mình nên lượt quét sau chắc chắn có họ
+        applicationRepository.forEachSearchDoc(null, d ->
+                next.addApplication(d.applicationId(), d.referenceNo(), d.createdAt(), d.applicantId()));
+        applicantRepository.forEachApplicant(a ->
+                next.addApplicant(a.applicantId(), a.fullName(), a.email(), a.phone()));
+        next.trim();
+        index = next;
+        freshAt = System.nanoTime();
+        log.info("Search index built: {} applications, {} applicants, ~{} KB in {} ms", next.apps,
+                next.applicants, next.estimatedBytes() / 1024,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Thường hoá như collation {@code *_CI_AI} của DB: chữ thường, bỏ dấu (NFD rồi bỏ dấu kết hợp), và các chữ
+     * không tách dấu được mà collation coi là tương đương ({@code đ}, {@code ø}, {@code ł} → chữ gốc;
+     * {@code ß}, {@code æ}, {@code œ} → hai chữ). Văn bản ASCII giữ nguyên sau khi hạ chữ thường.
+     */
+    static String fold(String s) {
+        String lower = s.toLowerCase(Locale.ROOT);
+        int i = 0;
+        while (i < lower.length() && lower.charAt(i) < 0x80) i++;
+        if (i == lower.length()) return lower;
+        String nfd = Normalizer.normalize(lower, Normalizer.Form.NFD);
+        StringBuilder out = new StringBuilder(nfd.length());
+        for (int k = 0; k < nfd.length(); k++) {
+            char c = nfd.charAt(k);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) continue;
+            switch (c) {
+                case 'đ' -> out.append('d');
+                case 'ø' -> out.append('o');
+                case 'ł' -> out.append('l');
+                case 'ß' -> out.append("ss");
+                case 'æ' -> out.append("ae");
+                case 'œ' -> out.append("oe");
+                default -> out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    private static boolean hasLikeWildcard(String s) {
+        return s.indexOf('%') >= 0 || s.indexOf('_') >= 0 || s.indexOf('[') >= 0;
+    }
+
+    static long micros(LocalDateTime t) {
+        return t.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + t.getNano() / 1_000;
+    }
+
+    /** Trigram (3 ký tự UTF-16) → một {@code long}. */
+    static long gram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    /**
+     * Dữ liệu chỉ mục. Đọc dưới read lock, ghi dưới write lock (hoặc trước khi được công bố).
+     * Hồ sơ = doc {@code int} theo thứ tự thêm vào; người vay = chỉ số {@code int} riêng.
+     */
+    static final class Index {
+
+        private long[] appMsb = new long[1024];
+        private long[] appLsb = new long[1024];
+        private long[] appCreated = new long[1024];
+        // Hồ sơ kế tiếp của cùng người vay, -1 = hết
+        private int[] appNext = new int[1024];
+        private int apps;
+
+        private final Map<UUID, Integer> applicantIds = new HashMap<>();
+        private int[] applicantFirstApp = new int[1024];
+        private final BitSet applicantTextIndexed = new BitSet();
+        private int applicants;
+
+        private final Map<Long, Postings> referenceGrams = new HashMap<>();
+        private final Map<Long, Postings> applicantGrams = new HashMap<>();
+        // created_at lớn nhất đã thêm: mốc đọc bù
+        private LocalDateTime newest;
+
+        void addApplication(UUID id, String referenceNo, LocalDateTime createdAt, UUID applicantId) {
+            int owner = applicant(applicantId);
+            for (int d = applicantFirstApp[owner]; d >= 0; d = appNext[d]) {
+                // Đã có (vd. vừa được lượt quét lúc dựng lại đọc thấy)
+                if (appMsb[d] == id.getMostSignificantBits() && appLsb[d] == id.getLeastSignificantBits()) return;
+            }
+            if (apps == appMsb.length) {
+                int n = apps + (apps >> 1);
+                appMsb = Arrays.copyOf(appMsb, n);
+                appLsb = Arrays.copyOf(appLsb, n);
+                appCreated = Arrays.copyOf(appCreated, n);
+                appNext = Arrays.copyOf(appNext, n);
+            }
+            int doc = apps++;
+            appMsb[doc] = id.getMostSignificantBits();
+            appLsb[doc] = id.getLeastSignificantBits();
+            appCreated[doc] = micros(createdAt);
+            appNext[doc] = applicantFirstApp[owner];
+            applicantFirstApp[owner] = doc;
+            addGrams(referenceGrams, referenceNo, doc);
+            if (newest == null || createdAt.isAfter(newest)) newest = createdAt;
+        }
+
+        boolean hasApplicantText(UUID id) {
+            Integer a = applicantIds.get(id);
+            return a != null && applicantTextIndexed.get(a);
+        }
+
+        void addApplicant(UUID id, String fullName, String email, String phone) {
+            int a = applicant(id);
+            if (applicantTextIndexed.get(a)) return;
+            applicantTextIndexed.set(a);
+            addGrams(applicantGrams, fullName, a);
+            addGrams(applicantGrams, email, a);
+            addGrams(applicantGrams, phone, a);
+        }
+
+        private int applicant(UUID id) {
+            Integer a = applicantIds.get(id);
+            if (a != null) return a;
+            if (applicants == applicantFirstApp.length) {
+                applicantFirstApp = Arrays.copyOf(applicantFirstApp, applicants + (applicants >> 1));
+            }
+            int next = applicants++;
+            applicantFirstApp[next] = -1;
+            applicantIds.put(id, next);
+            return next;
+        }
+
+        // Trigram trong từng trường riêng → không có trigram "nối" hai trường
+        private static void addGrams(Map<Long, Postings> grams, String value, int doc) {
+            if (value == null) return;
+            String s = fold(value);
+            if (s.length() < GRAM) return;
+            for (int i = 0; i + GRAM <= s.length(); i++) {
+                grams.computeIfAbsent(gram(s, i), k -> new Postings()).add(doc);
+            }
+        }
+
+        /**
+         * Doc ứng viên theo thứ tự danh sách (created_at giảm dần); null nếu nhiều hơn {@code limit}.
+         */
+        int[] candidates(String needle, int limit) {
+            long[] keys = new long[needle.length() - GRAM + 1];
+            for (int i = 0; i < keys.length; i++) keys[i] = gram(needle, i);
+            int[] byReference = intersect(referenceGrams, keys);
+            int[] byApplicant = intersect(applicantGrams, keys);
+
+            int[] out = Arrays.copyOf(byReference, byReference.length + byApplicant.length);
+            int n = byReference.length;
+            for (int a : byApplicant) {
+                for (int d = applicantFirstApp[a]; d >= 0; d = appNext[d]) {
+                    if (n == limit + 1) return null;
+                    if (n == out.length) out = Arrays.copyOf(out, n * 2);
+                    out[n++] = d;
+                }
+            }
+            if (n > limit) return null;
+            Arrays.sort(out, 0, n);
+            int unique = 0;
+            for (int i = 0; i < n; i++) {
+                if (unique == 0 || out[unique - 1] != out[i]) out[unique++] = out[i];
+            }
+            return orderByCreatedDesc(Arrays.copyOf(out, unique));
+        }
+
+        private static int[] intersect(Map<Long, Postings> grams, long[] keys) {
+            Postings[] lists = new Postings[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                lists[i] = grams.get(keys[i]);
+                if (lists[i] == null) return new int[0];
+            }
+            Arrays.sort(lists, Comparator.comparingInt(p -> p.size));
+            int[] acc = Arrays.copyOf(lists[0].docs, lists[0].size);
+            int n = acc.length;
+            for (int l = 1; l < lists.length && n > 0; l++) {
+                int kept = 0;
+                int from = 0;
+                for (int i = 0; i < n; i++) {
+                    int pos = Arrays.binarySearch(lists[l].docs, from, lists[l].size, acc[i]);
+                    if (pos >= 0) {
+                        acc[kept++] = acc[i];
+                        from = pos + 1;
+                    } else {
+                        from = -pos - 1;
+                    }
+                }
+                n = kept;
+            }
+            return n == acc.length ? acc : Arrays.copyOf(acc, n);
+        }
+
+        // Doc được thêm theo thứ tự tạo nên đảo ngược đã gần đúng; chỉ sắp lại khi có lệch
+        private int[] orderByCreatedDesc(int[] docs) {
+            for (int i = 0, j = docs.length - 1; i < j; i++, j--) {
+                int t = docs[i];
+                docs[i] = docs[j];
+                docs[j] = t;
+            }
+            for (int i = 1; i < docs.length; i++) {
+                if (appCreated[docs[i - 1]] < appCreated[docs[i]]) {
+                    return Arrays.stream(docs).boxed()
+                            .sorted(Comparator.comparingLong((Integer d) -> appCreated[d]).reversed())
+                            .mapToInt(Integer::intValue).toArray();
+                }
+            }
+            return docs;
+        }
+
+        /** Vị trí đầu tiên có created_at ≤ cursor (bằng nhau vẫn giữ: DB so tiếp theo id). */
+        int firstAfter(int[] docs, long cursorMicros) {
+            int lo = 0;
+            int hi = docs.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (appCreated[docs[mid]] > cursorMicros) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        List<UUID> ids(int[] docs, int from) {
+            // Mảng chỉ được thay khi nới rộng, giá trị của doc đã có không đổi → giữ tham chiếu là đủ
+            long[] msb = appMsb;
+            long[] lsb = appLsb;
+            return new AbstractList<>() {
+                @Override
+                public UUID get(int i) {
+                    int d = docs[from + i];
+                    return new UUID(msb[d], lsb[d]);
+                }
+
+                @Override
+                public int size() {
+                    return docs.length - from;
+                }
+            };
+        }
+
+        void trim() {
+            referenceGrams.values().forEach(Postings::trim);
+            applicantGrams.values().forEach(Postings::trim);
+        }
+
+        long estimatedBytes() {
+            long postings = 0;
+            for (Postings p : referenceGrams.values()) postings += 16L + 4L * p.docs.length;
+            for (Postings p : applicantGrams.values()) postings += 16L + 4L * p.docs.length;
+            long grams = 64L * (referenceGrams.size() + applicantGrams.size());
+            return postings + grams + 28L * appMsb.length + 4L * applicantFirstApp.length + 80L * applicants;
+        }
+    }
+
+    /** Danh sách doc tăng dần, không trùng. */
+    static final class Postings {
+
+        int[] docs = new int[2];
+        int size;
+
+        void add(int doc) {
+            if (size > 0 && docs[size - 1] >= doc) {
+                if (docs[size - 1] == doc) return;
+                // Người vay cũ được bổ sung text muộn: chèn đúng vị trí (hiếm)
+                int pos = Arrays.binarySearch(docs, 0, size, doc);
+                if (pos >= 0) return;
+                insert(-pos - 1, doc);
+                return;
+            }
+            insert(size, doc);
+        }
+
+        private void insert(int pos, int doc) {
+            if (size == docs.length) docs = Arrays.copyOf(docs, size + (size >> 1) + 1);
+            System.arraycopy(docs, pos, docs, pos + 1, size - pos);
+            docs[pos] = doc;
+            size++;
+        }
+
+        void trim() {
+            if (docs.length > size) docs = Arrays.copyOf(docs, size);
+        }
+    }
+}
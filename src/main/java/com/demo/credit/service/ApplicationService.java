@@ -1,11 +1,11 @@
 package com.demo.credit.service;
 
 import com.demo.credit.repository.ApplicationRepository;
-import com.demo.credit.repository.ConsentRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -14,24 +14,54 @@ import java.util.UUID;
 public class ApplicationService {
 
     private final ApplicationRepository applicationRepository;
-    private final ConsentRepository consentRepository;
+    private final ConsentCache consentCache;
+    private final ApplicationDetailCache detailCache;
+    private final ApplicationEventBus eventBus;
+    private final ApplicationSearchIndex searchIndex;
+
+    private static final int MAX_PAGE_SIZE = 500;
 
     public UUID create(UUID applicantId, String consentId) {
         // Pre-check đơn giản: consent phải ACTIVE & thuộc applicant
-        var cons = consentRepository.findActive(consentId)
+        var cons = consentCache.findActive(consentId)
                 .orElseThrow(() -> new IllegalStateException("Consent not active or expired"));
         if (!cons.applicantId().equals(applicantId)) {
             throw new IllegalStateException("Consent does not belong to applicant");
         }
-        return applicationRepository.create(applicantId, consentId);
+        UUID applicationId = applicationRepository.create(applicantId, consentId);
+        searchIndex.applicationCreated(applicationId);
+        eventBus.publish(ApplicationEventBus.APPLICATION_CREATED, Map.of(
+                "applicationId", applicationId,
+                "applicantId", applicantId,
+                "consentId", consentId,
+                "status", "CREATED"));
+        return applicationId;
     }
 
     public List<ApplicationRepository.ApplicationListItem> list(String status, String q, int page, int size) {
         return applicationRepository.list(status, q, page, size);
     }
 
+    /**
+     * Danh sách theo cursor; {@code cursor} rỗng/null = trang đầu.
+     */
+    public ApplicationRepository.CursorPage listAfter(String status, String q, String cursor, int size) {
+        return applicationRepository.listAfter(status, q, keysetStart(cursor, size), size);
+    }
+
+    /**
+     * Kiểm tra {@code size} và giải mã cursor của chế độ keyset ({@code null} = trang đầu).
+     * Gọi trước khi bắt đầu stream để lỗi tham số vẫn trả 400 thay vì cắt ngang response.
+     */
+    public ApplicationRepository.ListCursor keysetStart(String cursor, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("size must be 1.." + MAX_PAGE_SIZE);
+        }
+        return (cursor == null || cursor.isBlank()) ? null : ApplicationRepository.ListCursor.decode(cursor);
+    }
+
     public ApplicationRepository.ApplicationDetail detail(UUID applicationId) {
-        return applicationRepository.detail(applicationId)
+        return detailCache.get(applicationId)
                 .orElseThrow(() -> new IllegalStateException("Application not found"));
     }
 }
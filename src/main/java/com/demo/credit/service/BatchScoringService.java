@@ -0,0 +1,204 @@
+package com.demo.credit.service;
+
+import com.demo.credit.repository.ApplicationRepository;
+import com.demo.credit.repository.ConsentRepository;
+import com.demo.credit.repository.ScoreRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Chấm điểm nhiều hồ sơ trong một request:
+ * tra hồ sơ/consent bằng truy vấn set-based, gọi Model API song song (giới hạn bởi
+ * {@code score.batch.max-in-flight}), rồi lưu score theo chunk {@code score.batch.write-size} dòng, mỗi chunk
+ * một JDBC batch trong một transaction. Mỗi item có kết quả hoặc lỗi riêng — một item lỗi không làm hỏng cả lô,
+ * chunk ghi lỗi chỉ báo lỗi cho các dòng của chunk đó.
+ */
+@Slf4j
+@Service
+public class BatchScoringService {
+
+    private final ApplicationRepository applicationRepository;
+    private final ConsentRepository consentRepository;
+    private final ScoreRepository scoreRepository;
+    private final ModelClient modelClient;
+    private final LedgerClient ledgerClient;
+    private final ScoringService scoringService;
+    private final FeatureSchema featureSchema;
+    private final ApplicationEventBus eventBus;
+    private final ScoreJournal scoreJournal;
+    private final ApplicationDetailCache detailCache;
+    private final FeatureCapture featureCapture;
+    private final ExecutorService executor;
+
+    @Value("${score.batch.max-items:10000}")
+    private int maxItems;
+
+    @Value("${score.batch.write-size:500}")
+    private int writeSize;
+
+    public BatchScoringService(ApplicationRepository applicationRepository,
+                               ConsentRepository consentRepository,
+                               ScoreRepository scoreRepository,
+                               ModelClient modelClient,
+                               LedgerClient ledgerClient,
+                               ScoringService scoringService,
+                               FeatureSchema featureSchema,
+                               ApplicationEventBus eventBus,
+                               ScoreJournal scoreJournal,
+                               ApplicationDetailCache detailCache,
+                               FeatureCapture featureCapture,
+                               @Qualifier("batchScoringExecutor") ExecutorService executor) {
+        this.applicationRepository = applicationRepository;
+        this.consentRepository = consentRepository;
+        this.scoreRepository = scoreRepository;
+        this.modelClient = modelClient;
+        this.ledgerClient = ledgerClient;
+        this.scoringService = scoringService;
+        this.featureSchema = featureSchema;
+        this.eventBus = eventBus;
+        this.scoreJournal = scoreJournal;
+        this.detailCache = detailCache;
+        this.featureCapture = featureCapture;
+        this.executor = executor;
+    }
+
+    public List<BatchResult> scoreBatch(List<BatchItem> items) {
+        if (items.size() > maxItems) {
+            throw new IllegalArgumentException("Batch too large: " + items.size() + " > " + maxItems);
+        }
+        int n = items.size();
+        BatchResult[] results = new BatchResult[n];
+        ScoreRepository.ScoreWrite[] writes = new ScoreRepository.ScoreWrite[n];
+
+        // 1) Tra hồ sơ + consent cho cả lô (set-based)
+        Map<UUID, String> appConsent = applicationRepository.findConsentIds(
+                items.stream().map(BatchItem::applicationId).filter(Objects::nonNull).toList());
+        Map<String, ConsentRepository.ConsentRow> consents = consentRepository.findActiveByIds(
+                items.stream().map(BatchItem::consentId).toList());
+
+        // 2) Kiểm tra từng item rồi gửi lời gọi Model API song song
+        List<Future<?>> inFlight = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            BatchItem item = items.get(i);
+            try {
+                if (item.applicationId() == null) {
+                    throw new IllegalStateException("applicationId is required");
+                }
+                if (!appConsent.containsKey(item.applicationId())) {
+                    throw new IllegalStateException("Application not found");
+                }
+                featureSchema.requireUsable(item.features());
+                scoringService.checkConsent(appConsent.get(item.applicationId()),
+                        consents.get(item.consentId()), item.consentId(), item.txHash());
+            } catch (IllegalStateException | IllegalArgumentException ex) {
+                results[i] = BatchResult.failed(item.applicationId(), ex.getMessage());
+                continue;
+            }
+            final int idx = i;
+            inFlight.add(executor.submit(() -> scoreOne(idx, item, results, writes)));
+        }
+        for (Future<?> f : inFlight) {
+            try {
+                f.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                inFlight.forEach(x -> x.cancel(true));
+                throw new IllegalStateException("Batch scoring interrupted", ex);
+            } catch (ExecutionException ex) {
+                // scoreOne tự bắt lỗi theo item; tới đây là lỗi ngoài dự kiến
+                log.warn("Batch scoring task failed: {}", ex.getCause().toString());
+            }
+        }
+
+        // 3) Lưu score thành công theo chunk (hoặc một lần ghi journal); chunk lỗi chỉ làm hỏng các dòng của nó
+        List<Integer> scored = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            if (writes[i] != null) scored.add(i);
+        }
+        List<ScoreRepository.ScoreWrite> toSave = scored.stream().map(i -> writes[i]).toList();
+        boolean journaled = scoreJournal.isEnabled();
+        Map<Integer, String> saveErrors;
+        try {
+            if (journaled) {
+                scoreJournal.append(toSave);
+                saveErrors = Map.of();
+            } else {
+                saveErrors = scoreRepository.saveScores(toSave, writeSize);
+            }
+        } catch (RuntimeException ex) {
+            // journal không ghi được: chưa dòng nào được lưu
+            saveErrors = new HashMap<>();
+            for (int k = 0; k < toSave.size(); k++) saveErrors.put(k, ex.toString());
+        }
+        if (!saveErrors.isEmpty()) {
+            log.warn("Batch score save failed for {} of {} rows: {}", saveErrors.size(), toSave.size(),
+                    saveErrors.values().iterator().next());
+        }
+        for (int k = 0; k < scored.size(); k++) {
+            int i = scored.get(k);
+            String error = saveErrors.get(k);
+            if (error != null) {
+                results[i] = BatchResult.failed(items.get(i).applicationId(), "Save failed: " + error);
+                writes[i] = null;
+                continue;
+            }
+            detailCache.scoreWritten(writes[i], !journaled);
+            featureCapture.record(writes[i].applicationId(), writes[i].consentId(), writes[i].txHash(),
+                    writes[i].featureSchemaVersion(), items.get(i).features(), writes[i].decision());
+        }
+        for (int i = 0; i < n; i++) {
+            if (writes[i] != null) {
+                eventBus.publish(ApplicationEventBus.SCORE_SAVED,
+                        ApplicationEventBus.scoreSaved(items.get(i).applicationId(), results[i].result()));
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            if (results[i] == null) {
+                results[i] = BatchResult.failed(items.get(i).applicationId(), "Not scored");
+            }
+        }
+        return List.of(results);
+    }
+
+    private void scoreOne(int idx, BatchItem item,
+                          BatchResult[] results, ScoreRepository.ScoreWrite[] writes) {
+        try {
+            // Giống luồng đơn lẻ: ledger chỉ mang tính tham khảo
+            ledgerClient.verifyConsentTx(item.consentId(), item.txHash());
+
+            var modelResp = modelClient.callScore(item.features());
+            scoringService.requireValid(modelResp);
+            String decision = scoringService.resolveDecision(modelResp);
+
+            writes[idx] = new ScoreRepository.ScoreWrite(
+                    item.applicationId(), item.consentId(), item.txHash(),
+                    modelResp.getModelVersion(), modelResp.getFeatureSchemaVersion(),
+                    modelResp.getScore(), modelResp.getPd(), decision,
+                    scoringService.reasonsJson(modelResp.getShapTopK()));
+            results[idx] = new BatchResult(item.applicationId(), scoringService.toSaved(modelResp, decision), null);
+        } catch (RuntimeException ex) {
+            results[idx] = BatchResult.failed(item.applicationId(), ex.getMessage());
+        }
+    }
+
+    public record BatchItem(UUID applicationId, String consentId, String txHash, FeatureVector features) {}
+
+    // Kết quả theo item: đúng một trong hai trường result/error khác null
+    public record BatchResult(UUID applicationId, ScoringService.SavedScore result, String error) {
+        static BatchResult failed(UUID applicationId, String error) {
+            return new BatchResult(applicationId, null, error);
+        }
+    }
+}
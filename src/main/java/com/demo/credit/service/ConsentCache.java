@@ -0,0 +1,167 @@
+package com.demo.credit.service;
+
+import com.demo.credit.repository.ConsentRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache in-process cho {@link ConsentRepository#findActive(String)}, key = consentId.
+ * <ul>
+ *   <li>Entry hết hạn tại {@code min(now + ttl, consent.expiry)} — consent hết hạn thì cache cũng hết.</li>
+ *   <li>Kết quả "không active" được cache ngắn ({@code negative-ttl}).</li>
+ *   <li>Nhiều request miss cùng consent chỉ tạo một truy vấn (các request sau chờ cùng future).</li>
+ *   <li>Giới hạn {@code max-size}; khi vượt sẽ dọn entry hết hạn trước, rồi tới entry bất kỳ.</li>
+ * </ul>
+ * Mọi thay đổi consent phải đi qua {@link #invalidate(String)} (xem {@link ConsentService#upsert}).
+ */
+@Slf4j
+@Component
+public class ConsentCache {
+
+    private final ConsentRepository consentRepository;
+    private final Clock clock;
+    private final ConcurrentHashMap<String, CompletableFuture<Entry>> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Value("${consent.cache.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${consent.cache.ttl:60s}")
+    private Duration ttl = Duration.ofSeconds(60);
+
+    @Value("${consent.cache.negative-ttl:5s}")
+    private Duration negativeTtl = Duration.ofSeconds(5);
+
+    @Value("${consent.cache.max-size:10000}")
+    private int maxSize = 10_000;
+
+    @Autowired
+    public ConsentCache(ConsentRepository consentRepository, MeterRegistry meterRegistry) {
+        this(consentRepository, meterRegistry, Clock.systemUTC());
+    }
+
+    ConsentCache(ConsentRepository consentRepository, MeterRegistry meterRegistry, Clock clock) {
+        this.consentRepository = consentRepository;
+        this.clock = clock;
+        FunctionCounter.builder("credit.consent.cache.hits", hits, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("credit.consent.cache.misses", misses, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("credit.consent.cache.evictions", evictions, LongAdder::sum).register(meterRegistry);
+        Gauge.builder("credit.consent.cache.size", entries, Map::size).register(meterRegistry);
+    }
+
+    public Optional<ConsentRepository.ConsentRow> findActive(String consentId) {
+        if (!enabled || consentId == null) {
+            return consentRepository.findActive(consentId);
+        }
+        long now = clock.millis();
+        CompletableFuture<Entry> mine = new CompletableFuture<>();
+        CompletableFuture<Entry> current = entries.compute(consentId,
+                (k, existing) -> (existing == null || isStale(existing, now)) ? mine : existing);
+
+        if (current != mine) {
+            // Hit (kể cả khi đang có request khác load cùng consent → chờ chung, không query thêm)
+            hits.increment();
+            try {
+                return current.join().row();
+            } catch (CompletionException ex) {
+                throw unwrap(ex);
+            }
+        }
+
+        misses.increment();
+        try {
+            Optional<ConsentRepository.ConsentRow> row = consentRepository.findActive(consentId);
+            mine.complete(new Entry(row, expiresAt(row, now)));
+            evictIfNeeded();
+            return row;
+        } catch (RuntimeException ex) {
+            // Không cache lỗi DB: bỏ entry để request sau load lại
+            entries.remove(consentId, mine);
+            mine.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    public void invalidate(String consentId) {
+        if (consentId != null) {
+            entries.remove(consentId);
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    private long expiresAt(Optional<ConsentRepository.ConsentRow> row, long now) {
+        if (row.isEmpty()) {
+            return now + negativeTtl.toMillis();
+        }
+        long byTtl = now + ttl.toMillis();
+        var expiry = row.get().expiry();
+        // expiry lưu theo UTC (so với SYSUTCDATETIME() trong findActive)
+        return expiry == null ? byTtl : Math.min(byTtl, expiry.toInstant(ZoneOffset.UTC).toEpochMilli());
+    }
+
+    private static boolean isStale(CompletableFuture<Entry> f, long now) {
+        if (!f.isDone()) return false;
+        if (f.isCompletedExceptionally()) return true;
+        return f.join().expiresAtMillis() <= now;
+    }
+
+    private void evictIfNeeded() {
+        if (entries.size() <= maxSize) return;
+        long now = clock.millis();
+        // Lượt 1: entry đã hết hạn
+        for (Iterator<Map.Entry<String, CompletableFuture<Entry>>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+            if (isStale(it.next().getValue(), now)) {
+                it.remove();
+                evictions.increment();
+            }
+        }
+        // Lượt 2: vẫn quá giới hạn → bỏ entry đã load xong bất kỳ
+        for (Iterator<Map.Entry<String, CompletableFuture<Entry>>> it = entries.entrySet().iterator();
+             it.hasNext() && entries.size() > maxSize; ) {
+            if (it.next().getValue().isDone()) {
+                it.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private static RuntimeException unwrap(CompletionException ex) {
+        return ex.getCause() instanceof RuntimeException re ? re : ex;
+    }
+
+    private record Entry(Optional<ConsentRepository.ConsentRow> row, long expiresAtMillis) {}
+}
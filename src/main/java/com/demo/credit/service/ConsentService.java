@@ -5,6 +5,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -13,17 +14,31 @@ import java.util.UUID;
 public class ConsentService {
 
     private final ConsentRepository consentRepository;
+    private final ConsentCache consentCache;
+    private final ApplicationDetailCache detailCache;
+    private final ApplicationEventBus eventBus;
 
     public boolean isActive(String consentId) {
-        return consentRepository.findActive(consentId).isPresent();
+        return consentCache.findActive(consentId).isPresent();
     }
 
     public Optional<ConsentRepository.ConsentRow> findActive(String consentId) {
-        return consentRepository.findActive(consentId);
+        return consentCache.findActive(consentId);
     }
 
     public void upsert(String consentId, UUID applicantId, String scopesJson,
                        LocalDateTime expiry, String status, String lastTxHash, String subjectPubKey) {
-        consentRepository.upsert(consentId, applicantId, scopesJson, expiry, status, lastTxHash, subjectPubKey);
+        try {
+            consentRepository.upsert(consentId, applicantId, scopesJson, expiry, status, lastTxHash, subjectPubKey);
+        } finally {
+            // Write-through: bỏ entry cũ để lần đọc sau lấy trạng thái mới từ DB
+            consentCache.invalidate(consentId);
+        }
+        detailCache.consentChanged(consentId, status, expiry, lastTxHash);
+        eventBus.publish(ApplicationEventBus.CONSENT_CHANGED, Map.of(
+                "consentId", consentId,
+                "applicantId", applicantId,
+                "status", status,
+                "expiry", expiry));
     }
 }
@@ -0,0 +1,27 @@
+package com.demo.credit.service;
+
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+
+/** Phân loại lỗi ghi DB cho các luồng ghi hàng loạt (journal, import). */
+final class DbErrors {
+
+    // SQL Server: số lỗi >= 50000 là lỗi do procedure tự THROW/RAISERROR
+    private static final int FIRST_USER_ERROR = 50000;
+
+    private DbErrors() {
+    }
+
+    /**
+     * DB từ chối chính dữ liệu (vi phạm ràng buộc, procedure báo lỗi): ghi lại y nguyên vẫn lỗi.
+     * Ngược lại (mất kết nối, timeout, deadlock...) là lỗi tạm thời, thử lại có thể thành công.
+     */
+    static boolean isRejected(Throwable ex) {
+        if (ex instanceof DataIntegrityViolationException) return true;
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql && sql.getErrorCode() >= FIRST_USER_ERROR) return true;
+        }
+        return false;
+    }
+}
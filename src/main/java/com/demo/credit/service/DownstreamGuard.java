@@ -0,0 +1,191 @@
+package com.demo.credit.service;
+
+import com.demo.credit.config.DownstreamProperties;
+import com.demo.credit.config.LatencyMeter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.Arrays;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bulkhead + circuit breaker cho một downstream (model, ledger).
+ * <ul>
+ *   <li>Bulkhead: tối đa {@code bulkhead} lời gọi đồng thời; hết slot → từ chối ngay.</li>
+ *   <li>Breaker: CLOSED → OPEN khi tỉ lệ lỗi trong cửa sổ trượt vượt ngưỡng; sau {@code breakerOpen}
+ *       cho một lời gọi thử (HALF_OPEN) — thành công thì đóng lại, lỗi thì mở tiếp.</li>
+ * </ul>
+ * Lỗi 4xx là lỗi của request, không tính vào tỉ lệ lỗi của downstream.
+ * <p>
+ * Downstream có nhiều instance (replica model): mỗi instance một guard để breaker của replica lỗi không chặn
+ * các replica khoẻ, còn bulkhead truyền vào dùng chung để tổng số lời gọi đồng thời vẫn là {@code bulkhead}.
+ */
+public class DownstreamGuard {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    static final String SINGLE_INSTANCE = "default";
+
+    private final String name;
+    private final Semaphore bulkhead;
+    private final long bulkheadWaitNanos;
+    private final int minCalls;
+    private final double failureRate;
+    private final long openNanos;
+
+    // Cửa sổ trượt kết quả gần nhất (true = lỗi); truy cập trong synchronized
+    private final boolean[] window;
+    private int windowPos;
+    private int windowCount;
+    private int windowFailures;
+    private State state = State.CLOSED;
+    private long openUntil;
+    private boolean probeInFlight;
+
+    private final Counter rejectedOpen;
+    private final Counter rejectedFull;
+    private final LatencyMeter latency;
+
+    public DownstreamGuard(String name, DownstreamProperties props, MeterRegistry meterRegistry) {
+        // Prometheus đòi cùng bộ tag key cho một tên meter → downstream một instance vẫn mang tag replica
+        this(name, Tags.of("replica", SINGLE_INSTANCE), new Semaphore(Math.max(1, props.getBulkhead())), props, meterRegistry);
+    }
+
+    /** Guard cho một instance của downstream ({@code tags} phân biệt instance), bulkhead dùng chung. */
+    public DownstreamGuard(String name, Tags tags, Semaphore bulkhead, DownstreamProperties props,
+                           MeterRegistry meterRegistry) {
+        this.name = name;
+        this.bulkhead = bulkhead;
+        this.bulkheadWaitNanos = props.getBulkheadWait().toNanos();
+        this.window = new boolean[Math.max(1, props.getBreakerWindow())];
+        this.minCalls = Math.max(1, props.getBreakerMinCalls());
+        this.failureRate = props.getBreakerFailureRate();
+        this.openNanos = props.getBreakerOpen().toNanos();
+
+        Tags all = Tags.of("downstream", name).and(tags);
+        this.rejectedOpen = Counter.builder("credit.http.rejected")
+                .tags(all).tag("reason", "circuit_open").register(meterRegistry);
+        this.rejectedFull = Counter.builder("credit.http.rejected")
+                .tags(all).tag("reason", "bulkhead_full").register(meterRegistry);
+        Gauge.builder("credit.http.breaker.state", this, g -> g.state().ordinal())
+                .description("0=closed, 1=open, 2=half_open")
+                .tags(all).register(meterRegistry);
+        Gauge.builder("credit.http.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .tags(all).register(meterRegistry);
+        // Chỉ các lời gọi thực sự ra mạng (không tính lời gọi bị breaker/bulkhead từ chối)
+        this.latency = new LatencyMeter(meterRegistry, "credit.http.client",
+                "Downstream HTTP call latency", all);
+    }
+
+    public <T> T call(Supplier<T> action) {
+        if (!tryAcquirePermission()) {
+            rejectedOpen.increment();
+            throw new DownstreamUnavailableException(name, "circuit open");
+        }
+        boolean acquired;
+        try {
+            acquired = bulkheadWaitNanos <= 0
+                    ? bulkhead.tryAcquire()
+                    : bulkhead.tryAcquire(bulkheadWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            releaseProbe();
+            rejectedFull.increment();
+            throw new DownstreamUnavailableException(name, "bulkhead full");
+        }
+        long start = latency.start();
+        try {
+            T result = action.get();
+            latency.success(start);
+            record(false);
+            return result;
+        } catch (HttpClientErrorException ex) {
+            latency.failure(start, ex);
+            record(false);
+            throw ex;
+        } catch (RuntimeException ex) {
+            latency.failure(start, ex);
+            record(true);
+            throw ex;
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public synchronized State state() {
+        if (state == State.OPEN && System.nanoTime() - openUntil >= 0) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    private synchronized boolean tryAcquirePermission() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.nanoTime() - openUntil < 0) return false;
+                state = State.HALF_OPEN;
+                // fall through: cho lời gọi thử
+            default:
+                if (probeInFlight) return false;
+                probeInFlight = true;
+                return true;
+        }
+    }
+
+    private synchronized void releaseProbe() {
+        if (state == State.HALF_OPEN) probeInFlight = false;
+    }
+
+    private synchronized void record(boolean failure) {
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+            if (failure) {
+                open();
+            } else {
+                state = State.CLOSED;
+                resetWindow();
+            }
+            return;
+        }
+        if (windowCount == window.length) {
+            if (window[windowPos]) windowFailures--;
+        } else {
+            windowCount++;
+        }
+        window[windowPos] = failure;
+        if (failure) windowFailures++;
+        windowPos = (windowPos + 1) % window.length;
+
+        if (state == State.CLOSED && windowCount >= minCalls
+                && (double) windowFailures / windowCount >= failureRate) {
+            open();
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openUntil = System.nanoTime() + openNanos;
+        resetWindow();
+    }
+
+    private void resetWindow() {
+        windowPos = 0;
+        windowCount = 0;
+        windowFailures = 0;
+        Arrays.fill(window, false);
+    }
+}
@@ -0,0 +1,18 @@
+package com.demo.credit.service;
+
+/**
+ * Downstream bị từ chối phục vụ ngay (circuit breaker mở hoặc bulkhead đầy) — không có network hop.
+ */
+public class DownstreamUnavailableException extends RuntimeException {
+
+    private final String downstream;
+
+    public DownstreamUnavailableException(String downstream, String reason) {
+        super(downstream + " unavailable: " + reason);
+        this.downstream = downstream;
+    }
+
+    public String getDownstream() {
+        return downstream;
+    }
+}
@@ -0,0 +1,134 @@
+package com.demo.credit.service;
+
+import com.demo.credit.repository.RescoreRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ghi lại feature của lần chấm gần nhất từng hồ sơ ({@code core.ApplicationFeatures}, {@code db/003_rescore.sql})
+ * để {@link RescoreJob} chấm lại khi đổi model. Write-behind: request chỉ đẩy vào hàng đợi có giới hạn; một thread
+ * nền serialize và ghi theo lô. Hàng đợi đầy hoặc DB lỗi → bỏ bản ghi (đếm ở {@code credit.rescore.capture}), không bao giờ
+ * làm chậm hay hỏng lời chấm điểm.
+ * <p>
+ * Tắt mặc định ({@code rescore.capture.enabled}): bảng do DDL áp tay tạo, bật trước khi có bảng thì mọi bản ghi
+ * đều bị bỏ. Khi bật, bảng chưa có → khởi động thất bại thay vì âm thầm bỏ.
+ */
+@Slf4j
+@Component
+public class FeatureCapture {
+
+    private final RescoreRepository rescoreRepository;
+    private final ObjectMapper objectMapper;
+    private final ScheduledExecutorService executor;
+    private final Counter savedCounter;
+    private final Counter droppedCounter;
+
+    @Value("${rescore.capture.enabled:false}")
+    private boolean enabled;
+
+    @Value("${rescore.capture.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${rescore.capture.batch-size:500}")
+    private int batchSize;
+
+    @Value("${rescore.capture.flush-interval:1s}")
+    private Duration flushInterval;
+
+    private BlockingQueue<Pending> queue;
+
+    public FeatureCapture(RescoreRepository rescoreRepository,
+                          ObjectMapper objectMapper,
+                          @Qualifier("featureCaptureExecutor") ScheduledExecutorService executor,
+                          MeterRegistry meterRegistry) {
+        this.rescoreRepository = rescoreRepository;
+        this.objectMapper = objectMapper;
+        this.executor = executor;
+        this.savedCounter = Counter.builder("credit.rescore.capture").tag("outcome", "saved")
+                .description("Feature snapshots captured for re-scoring").register(meterRegistry);
+        this.droppedCounter = Counter.builder("credit.rescore.capture").tag("outcome", "dropped")
+                .description("Feature snapshots captured for re-scoring").register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) return;
+        if (!rescoreRepository.featuresTableReady()) {
+            throw new IllegalStateException("rescore.capture.enabled=true but core.ApplicationFeatures does not exist;"
+                    + " apply db/003_rescore.sql or disable feature capture");
+        }
+        queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        long ms = Math.max(1, flushInterval.toMillis());
+        executor.scheduleWithFixedDelay(this::drainSafely, ms, ms, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (enabled) drainSafely();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Gọi sau khi score đã được ghi (hoặc vào journal). */
+    public void record(UUID applicationId, String consentId, String txHash, String featureSchemaVersion,
+                       FeatureVector features, String decision) {
+        if (!enabled || features == null) return;
+        if (!queue.offer(new Pending(applicationId, consentId, txHash, featureSchemaVersion, features, decision))) {
+            droppedCounter.increment();
+        }
+    }
+
+    private void drainSafely() {
+        try {
+            drain();
+        } catch (RuntimeException ex) {
+            log.warn("Feature capture drain failed: {}", ex.toString());
+        }
+    }
+
+    void drain() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            List<RescoreRepository.FeatureRow> rows = new ArrayList<>(batch.size());
+            for (Pending p : batch) {
+                try {
+                    rows.add(new RescoreRepository.FeatureRow(p.applicationId(), p.consentId(), p.txHash(),
+                            p.featureSchemaVersion(), objectMapper.writeValueAsString(p.features()), p.decision()));
+                } catch (JsonProcessingException ex) {
+                    droppedCounter.increment();
+                }
+            }
+            try {
+                rescoreRepository.saveFeatures(rows);
+                savedCounter.increment(rows.size());
+            } catch (RuntimeException ex) {
+                // Không thử lại: hàng đợi có giới hạn, lần chấm sau của hồ sơ sẽ ghi lại
+                droppedCounter.increment(rows.size());
+                log.warn("Feature capture dropped {} rows: {}", rows.size(), ex.toString());
+            }
+            batch.clear();
+        }
+    }
+
+    private record Pending(UUID applicationId, String consentId, String txHash, String featureSchemaVersion,
+                           FeatureVector features, String decision) {}
+}
@@ -0,0 +1,125 @@
+package com.demo.credit.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Thứ tự feature của model, nạp một lần khi khởi động từ {@code feature_schema.json}
+ * (hoặc {@code GET /schema/features} của model service nếu không có file).
+ * Mọi {@link FeatureVector} đều theo thứ tự này.
+ * <p>
+ * Không phụ thuộc ObjectMapper bean vì chính {@code JacksonConfig} cần schema để đăng ký
+ * deserializer cho {@link FeatureVector}.
+ */
+@Slf4j
+@Component
+public class FeatureSchema {
+
+    // Cột leakage/id: chấp nhận trong body (payload mẫu có pd_true) nhưng bỏ qua
+    public static final Set<String> IGNORED = Set.of("user_id", "default_90d", "pd_true");
+
+    private final String[] names;
+    private final Map<String, Integer> index;
+    private final String version;
+    private final int minNonzero;
+
+    @Autowired
+    public FeatureSchema(@Value("${features.schema-path:ai/models/feature_schema.json}") String schemaPath,
+                         @Value("${model.baseUrl:}") String modelBaseUrl,
+                         @Value("${features.min-nonzero:10}") int minNonzero) {
+        JsonNode schema = load(Path.of(schemaPath), modelBaseUrl);
+        JsonNode arr = schema.has("features") ? schema.get("features") : schema.path("names");
+        List<String> out = new ArrayList<>();
+        for (JsonNode n : arr) {
+            if (!IGNORED.contains(n.asText())) out.add(n.asText());
+        }
+        if (out.isEmpty()) {
+            throw new IllegalStateException("Feature schema has no 'features'");
+        }
+        this.names = out.toArray(String[]::new);
+        this.index = new HashMap<>(names.length * 2);
+        for (int i = 0; i < names.length; i++) index.put(names[i], i);
+        this.version = schema.hasNonNull("created_at") ? schema.get("created_at").asText()
+                : schema.path("feature_schema_version").asText(null);
+        this.minNonzero = minNonzero;
+        log.info("Feature schema bound: {} features, version={}", names.length, version);
+    }
+
+    FeatureSchema(List<String> names, int minNonzero) {
+        this.names = names.toArray(String[]::new);
+        this.index = new HashMap<>(this.names.length * 2);
+        for (int i = 0; i < this.names.length; i++) index.put(this.names[i], i);
+        this.version = null;
+        this.minNonzero = minNonzero;
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String name(int i) {
+        return names[i];
+    }
+
+    public List<String> names() {
+        return Arrays.asList(names.clone());
+    }
+
+    /** Vị trí của feature, -1 nếu không thuộc schema. */
+    public int indexOf(String name) {
+        Integer i = index.get(name);
+        return i == null ? -1 : i;
+    }
+
+    public String version() {
+        return version;
+    }
+
+    /**
+     * Kiểm tra trước mọi network hop: đủ số feature khác 0 ({@code features.min-nonzero}).
+     */
+    public void requireUsable(FeatureVector v) {
+        if (v == null) {
+            throw new IllegalArgumentException("features is required");
+        }
+        if (v.nonzeroCount() < minNonzero) {
+            throw new IllegalArgumentException("Too few non-zero features: " + v.nonzeroCount() + " < " + minNonzero);
+        }
+    }
+
+    private static JsonNode load(Path path, String modelBaseUrl) {
+        var json = JsonMapper.builder().build();
+        try {
+            if (Files.exists(path)) {
+                return json.readTree(path.toFile());
+            }
+            if (modelBaseUrl != null && !modelBaseUrl.isBlank()) {
+                var http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+                var req = HttpRequest.newBuilder(URI.create(modelBaseUrl + "/schema/features"))
+                        .timeout(Duration.ofSeconds(10)).GET().build();
+                return json.readTree(http.send(req, HttpResponse.BodyHandlers.ofString()).body());
+            }
+        } catch (Exception ex) {
+            throw new IllegalStateException("Cannot load feature schema: " + ex.getMessage(), ex);
+        }
+        throw new IllegalStateException("Feature schema not found at " + path.toAbsolutePath());
+    }
+}
@@ -0,0 +1,142 @@
+package com.demo.credit.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Vector feature theo thứ tự {@link FeatureSchema}, lưu trong {@code double[]} (không boxing).
+ * Feature không gửi lên = 0.0, giống ensure_vector bên Python.
+ * <p>
+ * JSON: object {@code {"age": 38, ...}} được parse thẳng vào mảng bằng {@link #jacksonModule};
+ * feature lạ hoặc giá trị không hữu hạn bị từ chối ngay khi parse.
+ * Mảng {@link #values()} không được copy — coi như read-only.
+ */
+public final class FeatureVector {
+
+    private final FeatureSchema schema;
+    private final double[] values;
+    private final int nonzero;
+
+    private FeatureVector(FeatureSchema schema, double[] values) {
+        this.schema = schema;
+        this.values = values;
+        int nz = 0;
+        for (double v : values) if (v != 0.0) nz++;
+        this.nonzero = nz;
+    }
+
+    public static FeatureVector of(FeatureSchema schema, double[] values) {
+        if (values.length != schema.size()) {
+            throw new IllegalArgumentException("Expected " + schema.size() + " features, got " + values.length);
+        }
+        for (int i = 0; i < values.length; i++) {
+            if (!Double.isFinite(values[i])) {
+                throw new IllegalArgumentException("Feature '" + schema.name(i) + "' is not finite");
+            }
+        }
+        return new FeatureVector(schema, values);
+    }
+
+    /** Từ Map (API cũ / script); key lạ bị từ chối như khi parse JSON. */
+    public static FeatureVector fromMap(FeatureSchema schema, Map<String, ? extends Number> features) {
+        double[] x = new double[schema.size()];
+        features.forEach((name, v) -> {
+            int i = schema.indexOf(name);
+            if (i >= 0) {
+                x[i] = v == null ? 0.0 : v.doubleValue();
+            } else if (!FeatureSchema.IGNORED.contains(name)) {
+                throw new IllegalArgumentException("Unknown feature: " + name);
+            }
+        });
+        return of(schema, x);
+    }
+
+    public FeatureSchema schema() {
+        return schema;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public double get(int i) {
+        return values[i];
+    }
+
+    public double[] values() {
+        return values;
+    }
+
+    public int nonzeroCount() {
+        return nonzero;
+    }
+
+    public static SimpleModule jacksonModule(FeatureSchema schema) {
+        SimpleModule module = new SimpleModule("FeatureVector");
+        module.addDeserializer(FeatureVector.class, new Deserializer(schema));
+        module.addSerializer(FeatureVector.class, new Serializer());
+        return module;
+    }
+
+    private static final class Deserializer extends JsonDeserializer<FeatureVector> {
+
+        private final FeatureSchema schema;
+
+        Deserializer(FeatureSchema schema) {
+            this.schema = schema;
+        }
+
+        @Override
+        public FeatureVector deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.currentToken() != JsonToken.START_OBJECT) {
+                throw JsonMappingException.from(p, "features must be a JSON object");
+            }
+            double[] x = new double[schema.size()];
+            String name;
+            while ((name = p.nextFieldName()) != null) {
+                JsonToken t = p.nextToken();
+                int i = schema.indexOf(name);
+                if (i < 0) {
+                    if (FeatureSchema.IGNORED.contains(name)) {
+                        p.skipChildren();
+                        continue;
+                    }
+                    throw JsonMappingException.from(p, "Unknown feature: " + name);
+                }
+                double v = switch (t) {
+                    case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> p.getDoubleValue();
+                    case VALUE_TRUE -> 1.0;
+                    case VALUE_FALSE, VALUE_NULL -> 0.0;
+                    default -> throw JsonMappingException.from(p, "Feature '" + name + "' must be a number");
+                };
+                if (!Double.isFinite(v)) {
+                    throw JsonMappingException.from(p, "Feature '" + name + "' is not finite");
+                }
+                x[i] = v;
+            }
+            return new FeatureVector(schema, x);
+        }
+    }
+
+    // Ghi lại thành object tên → giá trị (payload cho FastAPI /score)
+    private static final class Serializer extends JsonSerializer<FeatureVector> {
+        @Override
+        public void serialize(FeatureVector v, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeStartObject();
+            for (int i = 0; i < v.values.length; i++) {
+                gen.writeNumberField(v.schema.name(i), v.values[i]);
+            }
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.demo.credit.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bản sao đã kiểm chứng của chuỗi consent-ledger: áp từng block theo thứ tự, kiểm tra giống
+ * {@code Ledger.verifyChain} trong {@code consent-ledger/src/ledger.js} (prevHash, index liên tục,
+ * hash = SHA-256 của canonical JSON, người REVOKE = người GIVE) và giữ trạng thái mới nhất theo consentId.
+ * <p>
+ * Chữ ký secp256k1 không được kiểm lại (JDK không còn đường cong này); hash của block đã bao trùm
+ * {@code signature} nên chữ ký không thể bị sửa mà không làm hỏng liên kết.
+ * Không thread-safe khi ghi: chỉ một thread gọi {@link #apply}; đọc {@link #get} an toàn từ mọi thread.
+ */
+final class LedgerChainIndex {
+
+    static final String GENESIS = "GENESIS";
+    static final String GIVE = "GIVE";
+    static final String REVOKE = "REVOKE";
+
+    private final Map<String, ConsentState> consents = new ConcurrentHashMap<>();
+    private volatile long tipIndex = -1;
+    private volatile String tipHash;
+
+    LedgerChainIndex() {
+    }
+
+    /** Khôi phục từ snapshot (dữ liệu đã được kiểm chứng trước đó). */
+    LedgerChainIndex(long tipIndex, String tipHash, Collection<ConsentState> states) {
+        this.tipIndex = tipIndex;
+        this.tipHash = tipHash;
+        for (ConsentState s : states) consents.put(s.consentId(), s);
+    }
+
+    long tipIndex() {
+        return tipIndex;
+    }
+
+    String tipHash() {
+        return tipHash;
+    }
+
+    /** Số block đã áp = vị trí block tiếp theo cần lấy. */
+    long height() {
+        return tipIndex + 1;
+    }
+
+    int size() {
+        return consents.size();
+    }
+
+    ConsentState get(String consentId) {
+        return consentId == null ? null : consents.get(consentId);
+    }
+
+    List<ConsentState> states() {
+        return new ArrayList<>(consents.values());
+    }
+
+    /**
+     * Kiểm tra và áp block ở vị trí {@link #height()}.
+     *
+     * @throws ChainException block không nối được / sai hash — index không đổi
+     */
+    void apply(JsonNode block) {
+        String type = block.path("type").asText(null);
+        String hash = block.path("hash").asText(null);
+        long position = height();
+
+        // Giống verifyChain: block 0 (genesis) không được kiểm
+        if (position > 0) {
+            if (!Objects.equals(text(block, "prevHash"), tipHash)) {
+                throw new ChainException(position, "prevHash mismatch");
+            }
+            JsonNode index = block.get("index");
+            if (index != null && index.isNumber() && index.asLong() != tipIndex + 1) {
+                throw new ChainException(position, "index not continuous");
+            }
+            if (!Objects.equals(hash, blockHash(block))) {
+                throw new ChainException(position, "hash mismatch");
+            }
+        }
+
+        JsonNode payload = block.path("payload");
+        String consentId = payload.path("consentId").asText(null);
+        if (GIVE.equals(type) && consentId != null) {
+            ConsentState prev = consents.get(consentId);
+            // Người ký lần GIVE đầu tiên là chủ consent (findGrant)
+            String owner = prev != null ? prev.subjectPubKey() : text(block, "subjectPubKey");
+            // last.payload.expiry ?? grant.payload.expiry; không phải số → không hết hạn
+            JsonNode expiry = payload.get("expiry");
+            Long expirySeconds = expiry == null || expiry.isNull()
+                    ? (prev == null ? null : prev.expiryEpochSeconds())
+                    : expiry.isNumber() ? Long.valueOf(expiry.asLong()) : null;
+            consents.put(consentId, new ConsentState(consentId, true, hash, owner, expirySeconds, position));
+        } else if (REVOKE.equals(type) && consentId != null) {
+            ConsentState grant = consents.get(consentId);
+            if (position > 0 && grant == null) {
+                throw new ChainException(position, "grant not found for revoke");
+            }
+            if (position > 0 && !Objects.equals(grant.subjectPubKey(), text(block, "subjectPubKey"))) {
+                throw new ChainException(position, "revoke signer mismatch");
+            }
+            consents.put(consentId, new ConsentState(consentId, false, hash,
+                    grant == null ? null : grant.subjectPubKey(), grant == null ? null : grant.expiryEpochSeconds(),
+                    position));
+        }
+        tipIndex = position;
+        tipHash = hash;
+    }
+
+    /** {@code computeBlockHash} của ledger.js. */
+    static String blockHash(JsonNode block) {
+        StringBuilder sb = new StringBuilder(256).append('{');
+        // Thứ tự khoá đã sắp xếp như canonicalize
+        String[] keys = {"index", "payload", "prevHash", "signature", "subjectPubKey", "timestamp", "type"};
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) sb.append(',');
+            appendString(sb, keys[i]);
+            sb.append(':');
+            JsonNode v = block.get(keys[i]);
+            // Trường thiếu là undefined trong JS → template string in ra "undefined"
+            if (v == null) sb.append("undefined");
+            else canonicalize(v, sb);
+        }
+        return sha256Hex(sb.append('}').toString());
+    }
+
+    /** {@code canonicalize} của crypto.js: khoá object sắp xếp, còn lại như JSON.stringify. */
+    static String canonicalize(JsonNode node) {
+        StringBuilder sb = new StringBuilder();
+        canonicalize(node, sb);
+        return sb.toString();
+    }
+
+    private static void canonicalize(JsonNode node, StringBuilder sb) {
+        if (node.isArray()) {
+            sb.append('[');
+            for (int i = 0; i < node.size(); i++) {
+                if (i > 0) sb.append(',');
+                canonicalize(node.get(i), sb);
+            }
+            sb.append(']');
+        } else if (node.isObject()) {
+            List<String> keys = new ArrayList<>(node.size());
+            for (Iterator<String> it = node.fieldNames(); it.hasNext(); ) keys.add(it.next());
+            // Array.prototype.sort() mặc định = so sánh theo UTF-16 code unit, như String.compareTo
+            keys.sort(null);
+            sb.append('{');
+            for (int i = 0; i < keys.size(); i++) {
+                if (i > 0) sb.append(',');
+                appendString(sb, keys.get(i));
+                sb.append(':');
+                canonicalize(node.get(keys.get(i)), sb);
+            }
+            sb.append('}');
+        } else if (node.isTextual()) {
+            appendString(sb, node.textValue());
+        } else if (node.isIntegralNumber()) {
+            sb.append(node.bigIntegerValue());
+        } else if (node.isNumber()) {
+            sb.append(jsNumber(node.doubleValue()));
+        } else if (node.isBoolean()) {
+            sb.append(node.booleanValue());
+        } else {
+            sb.append("null");
+        }
+    }
+
+    // Number.prototype.toString: dạng thường khi 1e-6 <= |d| < 1e21, ngoài ra "1.5e+21" / "1e-7"
+    static String jsNumber(double d) {
+        if (Double.isNaN(d) || Double.isInfinite(d)) return "null";
+        if (d == 0) return "0";
+        BigDecimal bd = new BigDecimal(Double.toString(d)).stripTrailingZeros();
+        double abs = Math.abs(d);
+        if (abs >= 1e-6 && abs < 1e21) {
+            return bd.toPlainString();
+        }
+        String digits = bd.unscaledValue().abs().toString();
+        int exponent = digits.length() - 1 - bd.scale();
+        StringBuilder sb = new StringBuilder();
+        if (d < 0) sb.append('-');
+        sb.append(digits.charAt(0));
+        if (digits.length() > 1) sb.append('.').append(digits, 1, digits.length());
+        return sb.append('e').append(exponent >= 0 ? "+" : "-").append(Math.abs(exponent)).toString();
+    }
+
+    // JSON.stringify(string): chỉ escape ", \, ký tự điều khiển và surrogate lẻ; hex chữ thường
+    private static void appendString(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\b' -> sb.append("\\b");
+                case '\f' -> sb.append("\\f");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                        sb.append(c).append(s.charAt(++i));
+                    } else if (c < 0x20 || Character.isSurrogate(c)) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    private static String text(JsonNode block, String field) {
+        JsonNode v = block.get(field);
+        return v == null || v.isNull() ? null : v.asText();
+    }
+
+    private static String sha256Hex(String s) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Trạng thái mới nhất của một consent trên chuỗi ({@code statusOf} của ledger.js).
+     *
+     * @param txHash hash của block GIVE/REVOKE gần nhất
+     * @param expiryEpochSeconds {@code payload.expiry} (giây) nếu là số, ngược lại null = không hết hạn
+     */
+    record ConsentState(String consentId, boolean given, String txHash, String subjectPubKey,
+                        Long expiryEpochSeconds, long blockIndex) {
+
+        boolean activeAt(long nowEpochSeconds) {
+            return given && (expiryEpochSeconds == null || expiryEpochSeconds >= nowEpochSeconds);
+        }
+    }
+
+    static final class ChainException extends RuntimeException {
+        final long position;
+
+        ChainException(long position, String reason) {
+            super(reason + " at block " + position);
+            this.position = position;
+        }
+    }
+}
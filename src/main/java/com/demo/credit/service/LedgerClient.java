@@ -2,13 +2,16 @@ package com.demo.credit.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.RequestEntity;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import java.net.URI;
+import java.time.Instant;
 import java.util.Map;
 
 @Slf4j
@@ -16,24 +19,53 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class LedgerClient {
 
+    @Qualifier("ledgerRestTemplate")
     private final RestTemplate restTemplate;
+    @Qualifier("ledgerGuard")
+    private final DownstreamGuard guard;
+    private final LedgerMirror mirror;
 
     @Value("${ledger.baseUrl:}")
     private String ledgerBaseUrl;
 
+    /**
+     * Consent {@code consentId} đang active trên ledger và giao dịch mới nhất của nó là {@code txHash}.
+     * Mirror cục bộ không trả lời được (chưa đồng bộ, quá max-staleness, chuỗi sai) → hỏi
+     * {@code GET /consents/{id}/status} của ledger và so tx hash cuối, cờ active, expiry như mirror.
+     */
     public boolean verifyConsentTx(String consentId, String txHash) {
+        // Mirror cục bộ trả lời được (đã đồng bộ, chuỗi hợp lệ) → không cần gọi ledger
+        Boolean local = mirror.verify(consentId, txHash);
+        if (local != null) {
+            return local;
+        }
         if (ledgerBaseUrl == null || ledgerBaseUrl.isBlank()) {
             log.warn("Ledger base URL missing; skip remote verify");
             return false;
         }
+        if (consentId == null || txHash == null) {
+            return false;
+        }
         try {
-            URI uri = URI.create(ledgerBaseUrl + "/verify?consentId=" + consentId + "&txHash=" + txHash);
-            ResponseEntity<Map> resp = restTemplate.exchange(RequestEntity.get(uri).build(), Map.class);
-            Object valid = resp.getBody() == null ? null : resp.getBody().get("valid");
-            return Boolean.TRUE.equals(valid);
+            URI uri = UriComponentsBuilder.fromUriString(ledgerBaseUrl)
+                    .path("/consents/{id}/status").buildAndExpand(consentId).encode().toUri();
+            ResponseEntity<Map> resp = guard.call(() -> restTemplate.exchange(RequestEntity.get(uri).build(), Map.class));
+            return statusMatches(resp.getBody(), txHash, Instant.now().getEpochSecond());
         } catch (Exception ex) {
             log.warn("Ledger verify failed: {}", ex.toString());
             return false;
         }
     }
+
+    // Body của /consents/:id/status: { found, active, expiry (epoch giây | null), txHash (block cuối GIVE/REVOKE) }
+    static boolean statusMatches(Map<?, ?> status, String txHash, long nowEpochSeconds) {
+        if (status == null || !Boolean.TRUE.equals(status.get("found")) || !Boolean.TRUE.equals(status.get("active"))) {
+            return false;
+        }
+        if (!(status.get("txHash") instanceof String last) || !last.equalsIgnoreCase(txHash)) {
+            return false;
+        }
+        // Ledger đã kiểm expiry lúc trả lời; kiểm lại phòng lệch đồng hồ giữa hai bên
+        return !(status.get("expiry") instanceof Number expiry) || expiry.longValue() >= nowEpochSeconds;
+    }
 }
@@ -0,0 +1,331 @@
+package com.demo.credit.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.http.RequestEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Bản sao cục bộ của consent-ledger: tail {@code GET /chain?from=&limit=} theo chu kỳ, kiểm chứng từng
+ * block ({@link LedgerChainIndex}) và trả lời {@link #verify} bằng tra cứu O(1) trong bộ nhớ —
+ * không còn một lời gọi HTTP cho mỗi lần chấm điểm.
+ * <ul>
+ *   <li>Consent/tx chưa thấy (vừa GIVE trên ledger) → đồng bộ ngay một lượt (single-flight, chờ tối đa
+ *       {@code miss-wait}) rồi tra lại.</li>
+ *   <li>Snapshot (tip + index) ghi định kỳ ra {@code snapshot-path}; khởi động lại chỉ cần tail phần mới.
+ *       Tip snapshot không còn nối với chuỗi (ledger bị tạo lại) → dựng lại từ block 0.</li>
+ *   <li>Block sai hash/liên kết → ngừng áp, health DOWN; dữ liệu đã kiểm chứng trước đó vẫn dùng.</li>
+ *   <li>Đồng bộ quá {@code max-staleness} → {@link #verify} trả null, {@link LedgerClient} gọi ledger trực tiếp.</li>
+ * </ul>
+ * Độ trễ đồng bộ: {@code credit.ledger.mirror.lag.blocks}, {@code credit.ledger.mirror.lag.seconds}
+ * và {@code /actuator/health} (ledgerMirror).
+ */
+@Slf4j
+@Component("ledgerMirror")
+public class LedgerMirror implements HealthIndicator {
+
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final RestTemplate restTemplate;
+    private final DownstreamGuard guard;
+    private final ObjectMapper objectMapper;
+    private final ScheduledExecutorService executor;
+    private final Counter rebuilds;
+    private final Counter blocksApplied;
+
+    private volatile LedgerChainIndex index = new LedgerChainIndex();
+    private volatile long remoteLength = -1;
+    private volatile long lastSyncMillis;
+    private volatile String invalidReason;
+    private volatile String lastError;
+    private volatile long lastSnapshotHeight = -1;
+    private volatile long lastSnapshotMillis;
+    private volatile long lastMissSyncMillis;
+    private CompletableFuture<Void> inFlight;
+    private ScheduledFuture<?> poller;
+
+    @Value("${ledger.baseUrl:}")
+    private String ledgerBaseUrl;
+
+    @Value("${ledger.mirror.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${ledger.mirror.poll-interval:2s}")
+    private Duration pollInterval = Duration.ofSeconds(2);
+
+    @Value("${ledger.mirror.page-size:1000}")
+    private int pageSize = 1000;
+
+    @Value("${ledger.mirror.max-staleness:60s}")
+    private Duration maxStaleness = Duration.ofSeconds(60);
+
+    @Value("${ledger.mirror.miss-wait:2s}")
+    private Duration missWait = Duration.ofSeconds(2);
+
+    @Value("${ledger.mirror.miss-min-interval:250ms}")
+    private Duration missMinInterval = Duration.ofMillis(250);
+
+    @Value("${ledger.mirror.snapshot-path:data/ledger-mirror/snapshot.json}")
+    private Path snapshotPath = Path.of("data", "ledger-mirror", "snapshot.json");
+
+    @Value("${ledger.mirror.snapshot-interval:30s}")
+    private Duration snapshotInterval = Duration.ofSeconds(30);
+
+    public LedgerMirror(@Qualifier("ledgerRestTemplate") RestTemplate restTemplate,
+                        @Qualifier("ledgerGuard") DownstreamGuard guard,
+                        ObjectMapper objectMapper,
+                        @Qualifier("ledgerMirrorExecutor") ScheduledExecutorService executor,
+                        MeterRegistry meterRegistry) {
+        this.restTemplate = restTemplate;
+        this.guard = guard;
+        this.objectMapper = objectMapper;
+        this.executor = executor;
+        this.rebuilds = Counter.builder("credit.ledger.mirror.rebuilds")
+                .description("Số lần dựng lại index từ block 0 (ledger bị tạo lại)")
+                .register(meterRegistry);
+        this.blocksApplied = Counter.builder("credit.ledger.mirror.blocks.applied").register(meterRegistry);
+        Gauge.builder("credit.ledger.mirror.height", this, m -> m.index.height()).register(meterRegistry);
+        Gauge.builder("credit.ledger.mirror.consents", this, m -> m.index.size()).register(meterRegistry);
+        Gauge.builder("credit.ledger.mirror.lag.blocks", this, LedgerMirror::lagBlocks)
+                .description("Số block ledger có mà mirror chưa áp (theo lần đồng bộ gần nhất)")
+                .register(meterRegistry);
+        Gauge.builder("credit.ledger.mirror.lag.seconds", this, LedgerMirror::lagSeconds)
+                .description("Thời gian từ lần đồng bộ thành công gần nhất")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled || ledgerBaseUrl == null || ledgerBaseUrl.isBlank()) {
+            enabled = false;
+            return;
+        }
+        loadSnapshot();
+        long ms = pollInterval.toMillis();
+        poller = executor.scheduleWithFixedDelay(this::poll, 0, ms, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (poller != null) poller.cancel(false);
+        if (enabled) writeSnapshot();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return true/false nếu mirror trả lời được; null nếu mirror tắt, chưa đồng bộ hoặc đã quá
+     *         {@code max-staleness} (người gọi tự hỏi ledger)
+     */
+    public Boolean verify(String consentId, String txHash) {
+        if (!isFresh()) return null;
+        LedgerChainIndex.ConsentState s = index.get(consentId);
+        if (matches(s, txHash)) return true;
+        // Có thể consent/tx vừa được ghi lên ledger sau lượt poll gần nhất
+        if (awaitCatchUp()) {
+            s = index.get(consentId);
+        }
+        return matches(s, txHash);
+    }
+
+    /** Trạng thái mới nhất của consent trên chuỗi (null nếu chưa thấy). */
+    public LedgerChainIndex.ConsentState status(String consentId) {
+        return index.get(consentId);
+    }
+
+    private boolean matches(LedgerChainIndex.ConsentState s, String txHash) {
+        return s != null && txHash != null && s.txHash() != null
+                && s.txHash().equalsIgnoreCase(txHash)
+                && s.activeAt(Instant.now().getEpochSecond());
+    }
+
+    private boolean isFresh() {
+        return enabled && invalidReason == null && lastSyncMillis > 0
+                && System.currentTimeMillis() - lastSyncMillis <= maxStaleness.toMillis();
+    }
+
+    private boolean awaitCatchUp() {
+        long now = System.currentTimeMillis();
+        if (now - lastMissSyncMillis < missMinInterval.toMillis()) return false;
+        lastMissSyncMillis = now;
+        try {
+            syncAsync().get(missWait.toMillis(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException | ExecutionException ex) {
+            return false;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // Mọi lượt đồng bộ chạy trên executor (một thread); yêu cầu trùng dùng chung lượt đang chạy
+    private synchronized CompletableFuture<Void> syncAsync() {
+        if (inFlight == null || inFlight.isDone()) {
+            inFlight = CompletableFuture.runAsync(this::syncOnce, executor);
+        }
+        return inFlight;
+    }
+
+    // Chạy trên chính executor: chỉ xếp lượt đồng bộ, không join (tránh tự chờ mình)
+    private void poll() {
+        syncAsync();
+    }
+
+    private void syncOnce() {
+        try {
+            tail(index);
+            lastSyncMillis = System.currentTimeMillis();
+            lastError = null;
+            if (index.height() != lastSnapshotHeight
+                    && lastSyncMillis - lastSnapshotMillis >= snapshotInterval.toMillis()) {
+                writeSnapshot();
+            }
+        } catch (LedgerChainIndex.ChainException ex) {
+            if (invalidReason == null) rebuildOrInvalidate(ex);
+        } catch (RuntimeException ex) {
+            lastError = ex.toString();
+            log.debug("Ledger mirror sync failed: {}", ex.toString());
+            throw ex;
+        }
+    }
+
+    /** Lấy và áp mọi block sau tip của {@code target}. */
+    private void tail(LedgerChainIndex target) {
+        while (true) {
+            long from = target.height();
+            JsonNode page = fetch(from);
+            long length = page.path("length").asLong(-1);
+            remoteLength = length;
+            if (length >= 0 && length < from) {
+                throw new LedgerChainIndex.ChainException(from, "ledger shorter than mirror");
+            }
+            // Ledger cũ bỏ qua ?from → trả cả chuỗi từ 0
+            long first = page.path("from").asLong(0);
+            List<JsonNode> blocks = new ArrayList<>();
+            page.path("blocks").forEach(blocks::add);
+            int applied = 0;
+            for (int i = 0; i < blocks.size(); i++) {
+                if (first + i < from) continue;
+                target.apply(blocks.get(i));
+                applied++;
+            }
+            if (applied > 0) blocksApplied.increment(applied);
+            if (applied == 0 || length < 0 || target.height() >= length) return;
+        }
+    }
+
+    private void rebuildOrInvalidate(LedgerChainIndex.ChainException cause) {
+        try {
+            LedgerChainIndex fresh = new LedgerChainIndex();
+            tail(fresh);
+            index = fresh;
+            rebuilds.increment();
+            lastSyncMillis = System.currentTimeMillis();
+            log.warn("Ledger mirror rebuilt from genesis ({}); height={}", cause.getMessage(), fresh.height());
+            writeSnapshot();
+        } catch (LedgerChainIndex.ChainException ex) {
+            invalidReason = ex.getMessage();
+            log.error("Ledger chain failed verification: {} — mirror frozen at height {}",
+                    ex.getMessage(), index.height());
+        }
+    }
+
+    private JsonNode fetch(long from) {
+        URI uri = URI.create(ledgerBaseUrl + "/chain?from=" + from + "&limit=" + pageSize);
+        var resp = guard.call(() -> restTemplate.exchange(RequestEntity.get(uri).build(), JsonNode.class));
+        if (resp.getBody() == null) {
+            throw new IllegalStateException("Empty /chain response");
+        }
+        return resp.getBody();
+    }
+
+    private double lagBlocks() {
+        return remoteLength < 0 ? 0 : Math.max(0, remoteLength - index.height());
+    }
+
+    private double lagSeconds() {
+        return lastSyncMillis == 0 ? -1 : (System.currentTimeMillis() - lastSyncMillis) / 1000.0;
+    }
+
+    @Override
+    public Health health() {
+        if (!enabled) return Health.unknown().withDetail("enabled", false).build();
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("height", index.height());
+        details.put("remoteLength", remoteLength);
+        details.put("lagBlocks", (long) lagBlocks());
+        details.put("lagSeconds", lagSeconds());
+        details.put("consents", index.size());
+        if (lastError != null) details.put("lastError", lastError);
+        if (invalidReason != null) {
+            return Health.down().withDetails(details).withDetail("invalid", invalidReason).build();
+        }
+        return (isFresh() ? Health.up() : Health.unknown()).withDetails(details).build();
+    }
+
+    // ---- snapshot ----
+
+    private void loadSnapshot() {
+        if (!Files.exists(snapshotPath)) return;
+        try {
+            Snapshot snap = objectMapper.readValue(snapshotPath.toFile(), Snapshot.class);
+            if (snap.version() != SNAPSHOT_VERSION) return;
+            index = new LedgerChainIndex(snap.tipIndex(), snap.tipHash(), snap.consents());
+            lastSnapshotHeight = index.height();
+            log.info("Ledger mirror restored from snapshot: height={}, consents={}", index.height(), index.size());
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Ignoring unreadable ledger snapshot {}: {}", snapshotPath, ex.toString());
+        }
+    }
+
+    private void writeSnapshot() {
+        LedgerChainIndex current = index;
+        if (current.height() == 0) return;
+        try {
+            Path dir = snapshotPath.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, "snapshot", ".tmp");
+            objectMapper.writeValue(tmp.toFile(),
+                    new Snapshot(SNAPSHOT_VERSION, current.tipIndex(), current.tipHash(), current.states()));
+            Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            lastSnapshotHeight = current.height();
+            lastSnapshotMillis = System.currentTimeMillis();
+        } catch (IOException ex) {
+            log.warn("Cannot write ledger snapshot {}: {}", snapshotPath, ex.toString());
+        }
+    }
+
+    record Snapshot(int version, long tipIndex, String tipHash, List<LedgerChainIndex.ConsentState> consents) {}
+}
@@ -0,0 +1,153 @@
+package com.demo.credit.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Chấm điểm in-JVM (model.engine=local), thay cho lời gọi HTTP tới FastAPI.
+ * Tái hiện logic của {@code ai/service/app.py}: PD hiệu chỉnh → prior shift (runtime_prior.json)
+ * → score 300–900 → decision theo score/PD + chặn auto-approve khi dữ liệu quá thưa.
+ * Không có SHAP nên {@code shapTopK} luôn rỗng.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "model.engine", havingValue = "local")
+@RequiredArgsConstructor
+public class LocalModelClient implements ModelClient {
+
+    // Đọc lại runtime_prior.json tối đa mỗi 5s (app.py đọc mỗi request)
+    private static final long PRIOR_RECHECK_MILLIS = 5_000;
+
+    private final ObjectMapper objectMapper;
+    private final FeatureSchema featureSchema;
+
+    @Value("${model.local.dir:ai/models}")
+    private String modelDir;
+
+    @Value("${model.local.decision-mode:score}")
+    private String decisionMode;
+
+    @Value("${model.local.score-approve-min:700}")
+    private int scoreApproveMin;
+
+    @Value("${model.local.score-review-min:650}")
+    private int scoreReviewMin;
+
+    @Value("${model.local.pd-approve-max:0.01235}")
+    private double pdApproveMax;
+
+    @Value("${model.local.pd-review-max:0.02439}")
+    private double pdReviewMax;
+
+    @Value("${model.local.min-nonzero-features:10}")
+    private int minNonzeroFeatures;
+
+    private TreeEnsembleModel model;
+    private Double trainPriorPd;
+    private volatile Double runtimePriorPd;
+    private volatile long priorCheckedAt;
+
+    @PostConstruct
+    void load() throws IOException {
+        Path dir = Path.of(modelDir);
+        model = TreeEnsembleModel.load(dir.resolve("model_dump.json"), featureSchema.names(), objectMapper);
+
+        JsonNode metrics = readJsonSilent(dir.resolve("metrics.json"));
+        trainPriorPd = metrics != null && metrics.hasNonNull("target_base_pd")
+                ? metrics.get("target_base_pd").asDouble() : null;
+        refreshRuntimePrior(true);
+        log.info("Local model loaded: {} trees, {} features, version={}",
+                model.treeCount(), featureSchema.size(), model.modelVersion());
+    }
+
+    @Override
+    public ModelApiClient.ScoreResult callScore(FeatureVector features) {
+        // Vector đã theo thứ tự schema mà model được ánh xạ lúc nạp
+        return scoreVector(features.values(), features.nonzeroCount());
+    }
+
+    @Override
+    public String modelVersion() {
+        return model.modelVersion();
+    }
+
+    ModelApiClient.ScoreResult scoreVector(double[] x, int nonzero) {
+        double pd = model.predictPd(x);
+        refreshRuntimePrior(false);
+        Double pi = runtimePriorPd;
+        if (pi != null && trainPriorPd != null && trainPriorPd > 0.0 && trainPriorPd < 1.0) {
+            pd = priorShift(pd, trainPriorPd, pi);
+        }
+        int score = pdToScore(pd);
+
+        String decision;
+        if ("pd".equalsIgnoreCase(decisionMode)) {
+            decision = pd < pdApproveMax ? "approve" : pd < pdReviewMax ? "review" : "reject";
+        } else {
+            decision = score >= scoreApproveMin ? "approve" : score >= scoreReviewMin ? "review" : "reject";
+        }
+        // Gate: tránh auto-approve khi dữ liệu quá thưa
+        if (nonzero < minNonzeroFeatures && "approve".equals(decision)) {
+            decision = "review";
+        }
+
+        var out = new ModelApiClient.ScoreResult();
+        out.setPd(pd);
+        out.setScore(score);
+        out.setDecision(decision);
+        out.setShapTopK(new String[0]);
+        out.setModelVersion(model.modelVersion());
+        out.setFeatureSchemaVersion(model.featureSchemaVersion());
+        return out;
+    }
+
+    /** PD → score 300–900 (600 điểm tại odds 20:1, PDO = 50), giống prob_to_score. */
+    static int pdToScore(double pd) {
+        double p = Math.min(Math.max(pd, 1e-6), 1 - 1e-6);
+        double odds = (1 - p) / p;
+        double score = 600 + 50 * (Math.log(odds / 20) / Math.log(2));
+        return (int) Math.min(Math.max(score, 300), 900);
+    }
+
+    /** Saerens prior shift, giống prior_shift_adjust. */
+    static double priorShift(double p, double piTrain, double piTarget) {
+        p = Math.min(Math.max(p, 1e-9), 1 - 1e-9);
+        double num = p * (piTarget / piTrain);
+        double den = num + (1.0 - p) * ((1.0 - piTarget) / (1.0 - piTrain));
+        return Math.min(Math.max(num / den, 1e-9), 1 - 1e-9);
+    }
+
+    private void refreshRuntimePrior(boolean force) {
+        long now = System.currentTimeMillis();
+        if (!force && now - priorCheckedAt < PRIOR_RECHECK_MILLIS) return;
+        priorCheckedAt = now;
+        JsonNode cfg = readJsonSilent(Path.of(modelDir, "runtime_prior.json"));
+        Double val = null;
+        if (cfg != null && cfg.has("prior_pd")) {
+            double v = cfg.get("prior_pd").asDouble(Double.NaN);
+            if (v > 1e-6 && v < 0.9999) val = v;
+        }
+        runtimePriorPd = val;
+    }
+
+    // Bỏ BOM (runtime_prior.json hay được ghi bằng PowerShell); lỗi → null
+    private JsonNode readJsonSilent(Path path) {
+        try {
+            String text = Files.readString(path, StandardCharsets.UTF_8).replace("\uFEFF", "").strip();
+            return objectMapper.readTree(text);
+        } catch (Exception ex) {
+            return null;
+        }
+    }
+}
@@ -1,27 +1,96 @@
 package com.demo.credit.service;
 
+import com.demo.credit.config.CancellableRequestFactory;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.Data;
-import lombok.RequiredArgsConstructor;
+import org.apache.hc.core5.concurrent.Cancellable;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.MediaType;
 import org.springframework.http.RequestEntity;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 import java.net.URI;
 import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Gọi FastAPI /score trên một trong các replica của {@link ModelReplicaPool} (least-outstanding).
+ * <p>
+ * {@code model.hedge.enabled=true} và có từ hai replica: nếu replica đầu chưa trả lời sau
+ * {@link ModelReplicaPool#hedgeDelayNanos()} (percentile latency gần đây), gửi thêm một bản sao tới
+ * replica khác, lấy kết quả về trước và huỷ bản còn lại. Số request hedge bị chặn bởi
+ * {@code model.hedge.max-ratio} để replica đang chậm không bị dồn tải gấp đôi; pool hedge đầy thì bỏ lượt hedge.
+ * Breaker/bulkhead: {@link DownstreamGuard} riêng của từng replica (xem {@link ModelReplicaPool}).
+ * Metrics: {@code credit.model.hedge} (tag {@code outcome}: sent, won, cancelled, rejected),
+ * {@code credit.model.hedge.rate}.
+ */
 @Component
-@RequiredArgsConstructor
-public class ModelApiClient {
+@ConditionalOnProperty(name = "model.engine", havingValue = "http", matchIfMissing = true)
+public class ModelApiClient implements ModelClient {
 
     private final RestTemplate restTemplate;
+    private final ModelReplicaPool replicas;
+    private final ExecutorService hedgeExecutor;
 
-    @Value("${model.baseUrl}")
-    private String modelBaseUrl;
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final Counter hedgeSent;
+    private final Counter hedgeWon;
+    private final Counter hedgeCancelled;
+    private final Counter hedgeRejected;
+
+    @Value("${model.hedge.enabled:false}")
+    private boolean hedgeEnabled;
+
+    @Value("${model.hedge.max-ratio:0.1}")
+    private double hedgeMaxRatio = 0.1;
+
+    // model_version của response /score gần nhất; trước lần chấm đầu dùng bản /health công bố (ModelReplicaPool)
+    private volatile String lastModelVersion;
+
+    public ModelApiClient(@Qualifier("modelRestTemplate") RestTemplate restTemplate,
+                          ModelReplicaPool replicas,
+                          @Qualifier("modelHedgeExecutor") ExecutorService hedgeExecutor,
+                          MeterRegistry meterRegistry) {
+        this.restTemplate = restTemplate;
+        this.replicas = replicas;
+        this.hedgeExecutor = hedgeExecutor;
+        this.hedgeSent = Counter.builder("credit.model.hedge").tag("outcome", "sent").register(meterRegistry);
+        this.hedgeWon = Counter.builder("credit.model.hedge").tag("outcome", "won").register(meterRegistry);
+        this.hedgeCancelled = Counter.builder("credit.model.hedge").tag("outcome", "cancelled").register(meterRegistry);
+        this.hedgeRejected = Counter.builder("credit.model.hedge").tag("outcome", "rejected").register(meterRegistry);
+        Gauge.builder("credit.model.hedge.rate", this,
+                        c -> c.calls.get() == 0 ? 0 : (double) c.hedges.get() / c.calls.get())
+                .description("Tỉ lệ lời gọi /score có gửi thêm request hedge")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String modelVersion() {
+        String v = lastModelVersion;
+        return v != null ? v : replicas.modelVersion();
+    }
+
+    /** {@code GET /health} mọi replica ({@link ModelReplicaPool#checkHealth}). */
+    @Override
+    public String checkHealth() {
+        return replicas.checkHealth();
+    }
 
     /**
      * Gọi FastAPI /score với payload features.
@@ -29,20 +98,147 @@ public class ModelApiClient {
      *                "shapTopK":["reason1","reason2","reason3"],
      *                "model_version":"v1", "feature_schema_version":"fs1" }
      */
-    public ScoreResult callScore(Map<String, Double> features) {
+    @Override
+    public ScoreResult callScore(FeatureVector features) {
+        calls.incrementAndGet();
+        if (!hedgeEnabled || replicas.size() < 2) {
+            return attempt(replicas.pick(null), features, new Attempt());
+        }
+        return hedged(features);
+    }
+
+    private ScoreResult hedged(FeatureVector features) {
+        ModelReplicaPool.Replica first = replicas.pick(null);
+        CompletionService<ScoreResult> cs = new ExecutorCompletionService<>(hedgeExecutor);
+        Attempt primaryAttempt = new Attempt();
+        Attempt hedgeAttempt = new Attempt();
+        Future<ScoreResult> primary;
+        try {
+            primary = cs.submit(() -> attempt(first, features, primaryAttempt));
+        } catch (RejectedExecutionException ex) {
+            // Pool hedge đầy: gọi thẳng trên thread này, không hedge
+            hedgeRejected.increment();
+            return attempt(first, features, primaryAttempt);
+        }
+        Future<ScoreResult> hedge = null;
+        int pending = 1;
+        try {
+            Future<ScoreResult> done = cs.poll(replicas.hedgeDelayNanos(), TimeUnit.NANOSECONDS);
+            if (done == null && allowHedge()) {
+                ModelReplicaPool.Replica second = replicas.pick(first);
+                if (second != null) {
+                    try {
+                        hedge = cs.submit(() -> attempt(second, features, hedgeAttempt));
+                        pending++;
+                        hedges.incrementAndGet();
+                        hedgeSent.increment();
+                    } catch (RejectedExecutionException ex) {
+                        hedgeRejected.increment();
+                    }
+                }
+            }
+            while (true) {
+                if (done == null) done = cs.take();
+                pending--;
+                try {
+                    ScoreResult result = done.get();
+                    if (done == hedge) hedgeWon.increment();
+                    return result;
+                } catch (ExecutionException ex) {
+                    // Bản kia còn đang chạy → chờ nó thay vì báo lỗi ngay
+                    if (pending == 0) throw unwrap(ex);
+                }
+                done = null;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Model API call interrupted", ex);
+        } finally {
+            cancel(primary, primaryAttempt);
+            cancel(hedge, hedgeAttempt);
+        }
+    }
+
+    private boolean allowHedge() {
+        return hedges.get() < hedgeMaxRatio * calls.get() + 1;
+    }
+
+    // Bản thua: chưa chạy thì bỏ khỏi hàng đợi; đang chờ socket thì huỷ request HttpClient → connection
+    // bị đóng và trả về pool, thread hedge được giải phóng ngay thay vì chờ tới read timeout
+    private void cancel(Future<ScoreResult> f, Attempt attempt) {
+        if (f == null || f.isDone()) return;
+        attempt.cancel();
+        f.cancel(false);
+        hedgeCancelled.increment();
+    }
+
+    private static RuntimeException unwrap(ExecutionException ex) {
+        return ex.getCause() instanceof RuntimeException re
+                ? re
+                : new RuntimeException("Model API call failed: " + ex.getCause(), ex.getCause());
+    }
+
+    private ScoreResult attempt(ModelReplicaPool.Replica replica, FeatureVector features, Attempt attempt) {
+        URI uri = URI.create(replica.baseUrl() + "/score");
+        var req = RequestEntity
+                .post(uri)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("features", features));
         try {
-            URI uri = URI.create(modelBaseUrl + "/score");
-            var req = RequestEntity
-                    .post(uri)
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .body(Map.of("features", features));
-            ResponseEntity<ScoreResult> resp = restTemplate.exchange(req, ScoreResult.class);
-            return resp.getBody();
+            // Breaker mở / bulkhead đầy → DownstreamUnavailableException, không gọi mạng
+            ResponseEntity<ScoreResult> resp = replica.guard().call(() -> exchange(replica, req, attempt));
+            ScoreResult body = resp.getBody();
+            if (body != null && body.getModelVersion() != null) {
+                lastModelVersion = body.getModelVersion();
+            }
+            return body;
+        } catch (DownstreamUnavailableException ex) {
+            throw ex;
         } catch (Exception ex) {
             throw new RuntimeException("Model API call failed: " + ex.getMessage(), ex);
         }
     }
 
+    private ResponseEntity<ScoreResult> exchange(ModelReplicaPool.Replica replica, RequestEntity<?> req,
+                                                 Attempt attempt) {
+        long start = replica.begin();
+        try {
+            ResponseEntity<ScoreResult> resp = CancellableRequestFactory.capturing(attempt::bind,
+                    () -> restTemplate.exchange(req, ScoreResult.class));
+            replica.succeeded(start);
+            return resp;
+        } catch (HttpClientErrorException ex) {
+            // 4xx là lỗi của request, không phải của replica
+            replica.failed(start, ex, false);
+            throw ex;
+        } catch (RuntimeException ex) {
+            // Bản hedge thua bị huỷ không phải lỗi của replica
+            replica.failed(start, ex, !attempt.cancelled());
+            throw ex;
+        }
+    }
+
+    /** Một lời gọi /score: giữ request HttpClient đang chạy để bản hedge thua huỷ được cả khi đang đọc socket. */
+    private static final class Attempt {
+        private Cancellable request;
+        private boolean cancelled;
+
+        synchronized void bind(Cancellable r) {
+            request = r;
+            // Bị huỷ trước khi kịp tạo request → huỷ luôn, không gửi
+            if (cancelled) r.cancel();
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            if (request != null) request.cancel();
+        }
+
+        synchronized boolean cancelled() {
+            return cancelled;
+        }
+    }
+
     // DTO nội bộ client (bạn có thể thay bằng dto.ScoreResult nếu đã tạo)
     @Data
     public static class ScoreResult {
@@ -0,0 +1,27 @@
+package com.demo.credit.service;
+
+/**
+ * Nguồn chấm điểm cho {@link ScoringService}. Chọn bằng {@code model.engine}:
+ * {@code http} (mặc định, {@link ModelApiClient} gọi FastAPI) hoặc {@code local}
+ * ({@link LocalModelClient}, chấm in-JVM từ {@code model_dump.json}).
+ */
+public interface ModelClient {
+
+    ModelApiClient.ScoreResult callScore(FeatureVector features);
+
+    /**
+     * model_version sẽ trả về cho lời gọi kế tiếp, nếu biết trước (dùng làm một phần key của
+     * {@link ScoreMemo}); null nếu chưa biết.
+     */
+    default String modelVersion() {
+        return null;
+    }
+
+    /**
+     * Kiểm tra nguồn chấm điểm sẵn sàng mà không chấm hồ sơ nào (không đi qua breaker/bulkhead, không tính vào
+     * metrics chấm điểm). Trả về model_version nếu biết; lỗi → ném exception.
+     */
+    default String checkHealth() {
+        return modelVersion();
+    }
+}
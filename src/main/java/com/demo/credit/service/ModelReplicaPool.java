@@ -0,0 +1,289 @@
+package com.demo.credit.service;
+
+import com.demo.credit.config.DownstreamProperties;
+import com.demo.credit.config.LatencyMeter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.RequestEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Danh sách replica FastAPI cho {@link ModelApiClient} ({@code model.urls}).
+ * <ul>
+ *   <li>Chọn replica có ít request đang chờ nhất (least-outstanding), hoà thì chọn ngẫu nhiên.</li>
+ *   <li>{@code GET /health} mỗi replica ngay khi khởi động (lấy {@code model_version} cho {@link #modelVersion()})
+ *       rồi định kỳ: lỗi → loại khỏi vòng chọn, thành công → đưa lại.
+ *       {@code eject-after-failures} lời gọi /score lỗi liên tiếp cũng loại replica cho tới lần health tốt kế tiếp.</li>
+ *   <li>Mỗi replica có {@link DownstreamGuard} riêng ({@code model.http.*}): breaker của replica lỗi mở thì
+ *       replica đó bị bỏ qua khi chọn, các replica khác vẫn nhận request. Bulkhead {@code model.http.bulkhead}
+ *       dùng chung cho cả pool.</li>
+ *   <li>Không còn replica khoẻ → vẫn chọn trong toàn bộ danh sách (fail open) thay vì từ chối.</li>
+ *   <li>Giữ mẫu latency gần nhất của /score; {@link #hedgeDelayNanos()} là percentile {@code model.hedge.percentile}
+ *       của các mẫu đó, tính lại theo chu kỳ health check (không sort trên đường nóng).</li>
+ * </ul>
+ * Metrics theo replica: {@code credit.model.replica} (timer, tag {@code replica}),
+ * {@code credit.model.replica.outstanding}, {@code credit.model.replica.healthy}, {@code credit.model.replica.ejections}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "model.engine", havingValue = "http", matchIfMissing = true)
+public class ModelReplicaPool {
+
+    private static final int SAMPLE_SIZE = 1024;
+    private static final int MIN_SAMPLES = 32;
+
+    private final RestTemplate restTemplate;
+    private final ScheduledExecutorService healthExecutor;
+    private final MeterRegistry meterRegistry;
+    private final DownstreamProperties httpProperties;
+    private final List<Replica> replicas = new ArrayList<>();
+
+    // Ring buffer latency (ns) của các lời gọi /score thành công; ghi không khoá, đọc khi tính percentile
+    private final long[] samples = new long[SAMPLE_SIZE];
+    private final AtomicInteger sampleSeq = new AtomicInteger();
+    private volatile long hedgeDelayNanos;
+    // model_version do /health công bố (null tới khi có replica trả lời)
+    private volatile String modelVersion;
+
+    @Value("${model.baseUrl}")
+    private String modelBaseUrl;
+
+    @Value("${model.urls:}")
+    private List<String> urls = List.of();
+
+    @Value("${model.health.interval:5s}")
+    private Duration healthInterval = Duration.ofSeconds(5);
+
+    @Value("${model.health.eject-after-failures:3}")
+    private int ejectAfterFailures = 3;
+
+    @Value("${model.hedge.percentile:0.95}")
+    private double hedgePercentile = 0.95;
+
+    @Value("${model.hedge.min-delay:10ms}")
+    private Duration hedgeMinDelay = Duration.ofMillis(10);
+
+    @Value("${model.hedge.max-delay:500ms}")
+    private Duration hedgeMaxDelay = Duration.ofMillis(500);
+
+    public ModelReplicaPool(@Qualifier("modelRestTemplate") RestTemplate restTemplate,
+                            @Qualifier("modelHealthExecutor") ScheduledExecutorService healthExecutor,
+                            @Qualifier("modelHttpProperties") DownstreamProperties httpProperties,
+                            MeterRegistry meterRegistry) {
+        this.restTemplate = restTemplate;
+        this.healthExecutor = healthExecutor;
+        this.httpProperties = httpProperties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void start() {
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String u : urls) {
+            if (u != null && !u.isBlank()) distinct.add(stripSlash(u.trim()));
+        }
+        if (distinct.isEmpty()) distinct.add(stripSlash(modelBaseUrl));
+        Semaphore bulkhead = new Semaphore(Math.max(1, httpProperties.getBulkhead()));
+        for (String u : distinct) replicas.add(new Replica(u, bulkhead));
+        hedgeDelayNanos = hedgeMaxDelay.toNanos();
+        Gauge.builder("credit.model.hedge.delay", this, p -> p.hedgeDelayNanos / 1e6)
+                .description("Ngưỡng chờ (ms) trước khi gửi request hedge")
+                .register(meterRegistry);
+
+        // Lấy model_version ngay, không chặn khởi động (model có thể chưa lên)
+        healthExecutor.execute(() -> replicas.forEach(this::probe));
+
+        // Một replica: không có gì để loại/chọn lại → không cần health check định kỳ.
+        // Lúc khởi động coi mọi replica là khoẻ; lỗi thật sẽ loại chúng qua eject-after-failures
+        if (replicas.size() < 2) return;
+        long ms = healthInterval.toMillis();
+        for (Replica r : replicas) {
+            healthExecutor.scheduleWithFixedDelay(() -> probe(r), ms, ms, TimeUnit.MILLISECONDS);
+        }
+        healthExecutor.scheduleWithFixedDelay(this::recomputeHedgeDelay, ms, ms, TimeUnit.MILLISECONDS);
+    }
+
+    public int size() {
+        return replicas.size();
+    }
+
+    public List<Replica> replicas() {
+        return replicas;
+    }
+
+    /**
+     * Replica khoẻ có ít request đang chờ nhất, khác {@code exclude}; null nếu không còn replica nào khác.
+     */
+    public Replica pick(Replica exclude) {
+        Replica best = choose(exclude, true);
+        return best != null ? best : choose(exclude, false);
+    }
+
+    private Replica choose(Replica exclude, boolean healthyOnly) {
+        int n = replicas.size();
+        int offset = n == 1 ? 0 : ThreadLocalRandom.current().nextInt(n);
+        Replica best = null;
+        for (int i = 0; i < n; i++) {
+            Replica r = replicas.get((offset + i) % n);
+            if (r == exclude || (healthyOnly && !r.available())) continue;
+            if (best == null || r.outstanding.get() < best.outstanding.get()) best = r;
+        }
+        return best;
+    }
+
+    /** model_version do {@code /health} của replica công bố gần nhất; null nếu chưa replica nào trả lời. */
+    public String modelVersion() {
+        return modelVersion;
+    }
+
+    /**
+     * {@code GET /health} từng replica ngay lúc gọi (cập nhật trạng thái khoẻ như health check định kỳ);
+     * trả về model_version, ném {@link IllegalStateException} nếu không replica nào trả lời.
+     */
+    public String checkHealth() {
+        int healthy = 0;
+        for (Replica r : replicas) {
+            if (probe(r)) healthy++;
+        }
+        if (healthy == 0) {
+            throw new IllegalStateException("no model replica answered /health (" + replicas.size() + " configured)");
+        }
+        return modelVersion;
+    }
+
+    public long hedgeDelayNanos() {
+        return hedgeDelayNanos;
+    }
+
+    void recordLatency(long nanos) {
+        samples[(sampleSeq.getAndIncrement() & Integer.MAX_VALUE) % SAMPLE_SIZE] = nanos;
+    }
+
+    void recomputeHedgeDelay() {
+        int n = Math.min(sampleSeq.get() & Integer.MAX_VALUE, SAMPLE_SIZE);
+        if (n < MIN_SAMPLES) return;
+        long[] copy = Arrays.copyOf(samples, n);
+        Arrays.sort(copy);
+        long p = copy[Math.min(n - 1, (int) Math.ceil(hedgePercentile * n) - 1)];
+        hedgeDelayNanos = Math.max(hedgeMinDelay.toNanos(), Math.min(hedgeMaxDelay.toNanos(), p));
+    }
+
+    boolean probe(Replica r) {
+        try {
+            Map<?, ?> body = restTemplate.exchange(
+                    RequestEntity.get(URI.create(r.baseUrl + "/health")).build(), Map.class).getBody();
+            if (body != null && body.get("model_version") instanceof String v) {
+                modelVersion = v;
+            }
+            r.consecutiveFailures.set(0);
+            if (!r.healthy) {
+                r.healthy = true;
+                log.info("Model replica {} is healthy again", r.baseUrl);
+            }
+            return true;
+        } catch (RuntimeException ex) {
+            eject(r, "health check failed: " + ex.getMessage());
+            return false;
+        }
+    }
+
+    private void eject(Replica r, String reason) {
+        if (r.healthy && replicas.size() > 1) {
+            r.healthy = false;
+            r.ejections.increment();
+            log.warn("Model replica {} ejected: {}", r.baseUrl, reason);
+        }
+    }
+
+    private static String stripSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    /** Một replica FastAPI: số request đang chờ, trạng thái khoẻ và meter riêng. */
+    public final class Replica {
+        private final String baseUrl;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private final LatencyMeter latency;
+        private final Counter ejections;
+        private final DownstreamGuard guard;
+        private volatile boolean healthy = true;
+
+        private Replica(String baseUrl, Semaphore bulkhead) {
+            this.baseUrl = baseUrl;
+            Tags tags = Tags.of("replica", baseUrl);
+            this.guard = new DownstreamGuard("model", tags, bulkhead, httpProperties, meterRegistry);
+            this.latency = new LatencyMeter(meterRegistry, "credit.model.replica",
+                    "Model /score latency per replica", tags);
+            this.ejections = Counter.builder("credit.model.replica.ejections").tags(tags).register(meterRegistry);
+            Gauge.builder("credit.model.replica.outstanding", outstanding, AtomicInteger::get)
+                    .tags(tags).register(meterRegistry);
+            Gauge.builder("credit.model.replica.healthy", this, x -> x.healthy ? 1 : 0)
+                    .tags(tags).register(meterRegistry);
+        }
+
+        public String baseUrl() {
+            return baseUrl;
+        }
+
+        public boolean healthy() {
+            return healthy;
+        }
+
+        public int outstanding() {
+            return outstanding.get();
+        }
+
+        DownstreamGuard guard() {
+            return guard;
+        }
+
+        // Khoẻ theo health check và breaker không mở (HALF_OPEN vẫn được chọn để có lời gọi thử)
+        private boolean available() {
+            return healthy && guard.state() != DownstreamGuard.State.OPEN;
+        }
+
+        /** Bắt đầu một lời gọi; trả về mốc thời gian cho {@link #succeeded}/{@link #failed}. */
+        long begin() {
+            outstanding.incrementAndGet();
+            return latency.start();
+        }
+
+        void succeeded(long start) {
+            outstanding.decrementAndGet();
+            latency.success(start);
+            consecutiveFailures.set(0);
+            recordLatency(System.nanoTime() - start);
+        }
+
+        void failed(long start, RuntimeException ex, boolean replicaFault) {
+            outstanding.decrementAndGet();
+            latency.failure(start, ex);
+            if (replicaFault && consecutiveFailures.incrementAndGet() >= ejectAfterFailures) {
+                eject(this, consecutiveFailures.get() + " consecutive failures");
+            }
+        }
+    }
+}
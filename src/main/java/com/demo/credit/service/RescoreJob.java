@@ -0,0 +1,488 @@
+package com.demo.credit.service;
+
+import com.demo.credit.repository.ConsentRepository;
+import com.demo.credit.repository.RescoreRepository;
+import com.demo.credit.repository.RescoreRepository.Checkpoint;
+import com.demo.credit.repository.RescoreRepository.FeatureRow;
+import com.demo.credit.repository.ScoreRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Chấm lại toàn bộ hồ sơ đã có feature ({@link FeatureCapture}) khi đổi model, để so sánh quyết định.
+ * <p>
+ * Tập hồ sơ được chia thành các đoạn key liên tiếp ({@code rescore.partitions-per-worker} đoạn cho mỗi worker);
+ * worker rảnh lấy đoạn kế tiếp từ hàng đợi chung nên worker chậm không giữ chân cả lượt chạy. Trong một đoạn,
+ * hồ sơ được duyệt bằng keyset theo lô {@code rescore.batch-size}; mỗi lời gọi model đi qua một rate limiter
+ * dùng chung ({@code rescore.rate} lời gọi/giây). Score mới được ghi qua {@link ScoreRepository#saveJournaled}
+ * với journal id tất định theo (run, hồ sơ), rồi checkpoint của đoạn mới được cập nhật — chạy lại một lô sau
+ * crash không tạo score trùng, nên resume tiếp tục đúng chỗ đã dừng.
+ * <p>
+ * Chỉ chấm hồ sơ có consent còn ACTIVE; model báo không khả dụng (breaker mở) → dừng lượt chạy ở trạng thái
+ * FAILED tại đúng hồ sơ đó, resume khi model đã ổn.
+ * <p>
+ * Nhiều instance: lượt chạy RUNNING thuộc về instance giữ lease ({@code owner} + {@code heartbeat_at} trên
+ * {@code core.RescoreRuns}), gia hạn trong lúc chạy. Start/resume ở instance khác bị từ chối tới khi lease hết
+ * hạn ({@code rescore.lease-timeout}); pause từ instance khác đổi trạng thái, owner thấy ở lần gia hạn kế tiếp
+ * và dừng. Đoạn cuối không có bound trên nên gồm cả hồ sơ có feature sau lúc bắt đầu.
+ */
+@Slf4j
+@Service
+public class RescoreJob {
+
+    public static final String RUNNING = "RUNNING";
+    public static final String PAUSED = "PAUSED";
+    public static final String FAILED = "FAILED";
+    public static final String COMPLETED = "COMPLETED";
+
+    private final RescoreRepository rescoreRepository;
+    private final ScoreRepository scoreRepository;
+    private final ConsentRepository consentRepository;
+    private final ModelClient modelClient;
+    private final ScoringService scoringService;
+    private final ApplicationDetailCache detailCache;
+    private final ObjectReader featuresReader;
+    private final ExecutorService executor;
+    private final Counter scoredRows;
+    private final Counter failedRows;
+    private final Counter skippedRows;
+    private final AtomicReference<ActiveRun> active = new AtomicReference<>();
+
+    @Value("${rescore.workers:4}")
+    private int workers;
+
+    @Value("${rescore.partitions-per-worker:8}")
+    private int partitionsPerWorker;
+
+    @Value("${rescore.rate:50}")
+    private double defaultRate;
+
+    @Value("${rescore.batch-size:200}")
+    private int batchSize;
+
+    @Value("${rescore.lease-timeout:2m}")
+    private Duration leaseTimeout = Duration.ofMinutes(2);
+
+    // Định danh instance này trong core.RescoreRuns.owner
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + "/"
+            + UUID.randomUUID().toString().substring(0, 8);
+
+    public RescoreJob(RescoreRepository rescoreRepository,
+                      ScoreRepository scoreRepository,
+                      ConsentRepository consentRepository,
+                      ModelClient modelClient,
+                      ScoringService scoringService,
+                      ApplicationDetailCache detailCache,
+                      ObjectMapper objectMapper,
+                      @Qualifier("rescoreExecutor") ExecutorService executor,
+                      MeterRegistry meterRegistry) {
+        this.rescoreRepository = rescoreRepository;
+        this.scoreRepository = scoreRepository;
+        this.consentRepository = consentRepository;
+        this.modelClient = modelClient;
+        this.scoringService = scoringService;
+        this.detailCache = detailCache;
+        this.featuresReader = objectMapper.readerFor(FeatureVector.class);
+        this.executor = executor;
+        this.scoredRows = rows(meterRegistry, "scored");
+        this.failedRows = rows(meterRegistry, "failed");
+        this.skippedRows = rows(meterRegistry, "skipped");
+    }
+
+    private static Counter rows(MeterRegistry registry, String outcome) {
+        return Counter.builder("credit.rescore.rows").tag("outcome", outcome)
+                .description("Applications processed by re-scoring runs").register(registry);
+    }
+
+    /**
+     * {@code processed} gồm cả {@code failed} (model/feature lỗi) và {@code skipped} (consent không còn ACTIVE).
+     * {@code rowsPerSec}/{@code etaSeconds} chỉ có khi lượt chạy đang chạy trong tiến trình này.
+     */
+    public record Progress(UUID runId, String status, boolean active, int partitions, int partitionsDone,
+                           long total, long processed, long failed, long skipped, long decisionChanged,
+                           double rowsPerSec, Long etaSeconds, String modelVersion, String error,
+                           LocalDateTime createdAt) {}
+
+    /** Bắt đầu lượt chạy mới trên toàn bộ hồ sơ đã có feature; null = cấu hình mặc định. */
+    public synchronized Progress start(Integer partitions, Double rate) {
+        ActiveRun current = active.get();
+        if (current != null) {
+            throw new IllegalStateException("Rescore run " + current.runId + " is still active");
+        }
+        int p = partitions != null ? partitions : Math.max(1, workers) * Math.max(1, partitionsPerWorker);
+        if (p < 1 || p > 10_000) {
+            throw new IllegalArgumentException("partitions must be 1..10000");
+        }
+        double r = checkRate(rate != null ? rate : defaultRate);
+
+        long total = rescoreRepository.countFeatures();
+        List<UUID> bounds = rescoreRepository.partitionBounds(p);
+
+        UUID runId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        List<Checkpoint> checkpoints = new ArrayList<>(bounds.size());
+        UUID lower = null;
+        for (int i = 0; i < bounds.size(); i++) {
+            UUID upper = i == bounds.size() - 1 ? null : bounds.get(i);
+            checkpoints.add(new Checkpoint(runId, i, lower, upper, null, false, 0, 0, 0, 0));
+            lower = bounds.get(i);
+        }
+        var run = new RescoreRepository.Run(runId, RUNNING, checkpoints.size(), total, r, owner, now, now, now);
+        if (!rescoreRepository.createRun(run, checkpoints, leaseTimeout)) {
+            throw new IllegalStateException("Another rescore run is active on another instance");
+        }
+        log.info("Rescore run {} started: {} applications in {} partitions, rate {}/s",
+                runId, total, checkpoints.size(), r);
+        launch(run, checkpoints, r);
+        return progress(runId);
+    }
+
+    /** Dừng sau lô đang chạy; checkpoint giữ nguyên vị trí để {@link #resume}. */
+    public synchronized Progress pause(UUID runId) {
+        ActiveRun current = active.get();
+        if (current != null && current.runId.equals(runId)) {
+            current.pauseRequested = true;
+        } else {
+            findRun(runId);
+            // Lượt chạy ở instance khác (owner dừng ở lần gia hạn lease kế tiếp) hoặc bị ngắt giữa chừng
+            rescoreRepository.updateRunStatus(runId, RUNNING, PAUSED);
+        }
+        return progress(runId);
+    }
+
+    /** Chạy tiếp lượt đã tạm dừng / lỗi / bị ngắt do tiến trình chết, từ checkpoint cuối. */
+    public synchronized Progress resume(UUID runId, Double rate) {
+        ActiveRun current = active.get();
+        if (current != null) {
+            if (current.runId.equals(runId) && !current.pauseRequested) return progress(runId);
+            throw new IllegalStateException("Rescore run " + current.runId + " is still active");
+        }
+        var run = findRun(runId);
+        if (COMPLETED.equals(run.status())) {
+            throw new IllegalStateException("Rescore run already completed");
+        }
+        double r = checkRate(rate != null ? rate : run.rate());
+        if (!rescoreRepository.claimRun(runId, owner, leaseTimeout)) {
+            throw new IllegalStateException("Rescore run " + runId + " is held by another instance");
+        }
+        log.info("Rescore run {} resumed", runId);
+        launch(run, rescoreRepository.checkpoints(runId), r);
+        return progress(runId);
+    }
+
+    public Progress progress(UUID runId) {
+        ActiveRun current = active.get();
+        if (current != null && current.runId.equals(runId)) {
+            return current.progress();
+        }
+        var run = findRun(runId);
+        List<Checkpoint> checkpoints = rescoreRepository.checkpoints(runId);
+        long processed = 0, failed = 0, skipped = 0, changed = 0;
+        int done = 0;
+        for (Checkpoint c : checkpoints) {
+            processed += c.rows();
+            failed += c.failed();
+            skipped += c.skipped();
+            changed += c.changed();
+            if (c.done()) done++;
+        }
+        // RUNNING nhưng không chạy trong tiến trình này: instance khác còn gia hạn lease thì đang chạy ở đó,
+        // không thì bị ngắt (crash/restart), cần resume. heartbeat_at theo giờ DB, lệch giờ chỉ ảnh hưởng hiển thị
+        String status = run.status();
+        if (RUNNING.equals(status) && (run.heartbeatAt() == null
+                || run.heartbeatAt().isBefore(LocalDateTime.now(ZoneOffset.UTC).minus(leaseTimeout)))) {
+            status = "INTERRUPTED";
+        }
+        return new Progress(runId, status, false, run.partitions(), done, run.total(), processed, failed,
+                skipped, changed, 0.0, null, null, null, run.createdAt());
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        ActiveRun current = active.get();
+        if (current != null) {
+            current.pauseRequested = true;
+            current.finished.await(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private RescoreRepository.Run findRun(UUID runId) {
+        return rescoreRepository.findRun(runId)
+                .orElseThrow(() -> new IllegalStateException("Rescore run not found"));
+    }
+
+    private static double checkRate(double rate) {
+        if (!(rate >= 0) || Double.isInfinite(rate)) {
+            throw new IllegalArgumentException("rate must be >= 0 (0 = unlimited)");
+        }
+        return rate;
+    }
+
+    private void launch(RescoreRepository.Run run, List<Checkpoint> checkpoints, double rate) {
+        ActiveRun a = new ActiveRun(run, checkpoints, rate);
+        if (a.pending.isEmpty()) {
+            rescoreRepository.releaseRun(run.runId(), owner, COMPLETED);
+            return;
+        }
+        active.set(a);
+        int n = Math.min(Math.max(1, workers), a.pending.size());
+        a.workersLeft.set(n);
+        for (int i = 0; i < n; i++) {
+            executor.execute(() -> work(a));
+        }
+    }
+
+    private void work(ActiveRun run) {
+        try {
+            Checkpoint cp;
+            while (!run.pauseRequested && (cp = run.pending.poll()) != null) {
+                Checkpoint after = runPartition(run, cp);
+                if (after.done()) {
+                    run.partitionsDone.incrementAndGet();
+                } else {
+                    run.pending.add(after);
+                }
+            }
+        } catch (RuntimeException ex) {
+            log.error("Rescore run {} worker failed", run.runId, ex);
+            run.fail(ex);
+        } finally {
+            if (run.workersLeft.decrementAndGet() == 0) finish(run);
+        }
+    }
+
+    private void finish(ActiveRun run) {
+        String status = run.error != null ? FAILED : run.pending.isEmpty() ? COMPLETED : PAUSED;
+        try {
+            rescoreRepository.releaseRun(run.runId, owner, status);
+        } catch (RuntimeException ex) {
+            log.warn("Rescore run {}: could not record status {}: {}", run.runId, status, ex.toString());
+        } finally {
+            active.compareAndSet(run, null);
+            run.finished.countDown();
+        }
+        var p = run.progress();
+        log.info("Rescore run {} {}: {} processed, {} failed, {} skipped, {} decisions changed",
+                run.runId, status, p.processed(), p.failed(), p.skipped(), p.decisionChanged());
+    }
+
+    /** Xử lý một đoạn tới khi hết hoặc khi được yêu cầu dừng; trả về checkpoint mới nhất đã ghi. */
+    private Checkpoint runPartition(ActiveRun run, Checkpoint cp) {
+        while (!run.pauseRequested) {
+            List<FeatureRow> rows = rescoreRepository.featuresAfter(cp.resumeAfter(), cp.upperBound(), batchSize);
+            if (rows.isEmpty()) {
+                cp = cp.advance(null, true, 0, 0, 0, 0);
+                saveCheckpoint(run, cp);
+                return cp;
+            }
+            Map<String, ConsentRepository.ConsentRow> consents = consentRepository.findActiveByIds(
+                    rows.stream().map(FeatureRow::consentId).distinct().toList());
+
+            List<ScoreRepository.JournaledWrite> writes = new ArrayList<>(rows.size());
+            UUID last = null;
+            long processed = 0, failed = 0, skipped = 0, changed = 0;
+            for (FeatureRow r : rows) {
+                if (run.pauseRequested) break;
+                ConsentRepository.ConsentRow consent = consents.get(r.consentId());
+                if (consent == null) {
+                    skipped++;
+                } else {
+                    if (!run.limiter.acquire()) {
+                        // Bị interrupt (shutdown) → dừng trước hồ sơ này
+                        run.pauseRequested = true;
+                        break;
+                    }
+                    try {
+                        var w = rescore(run, r, consent);
+                        writes.add(new ScoreRepository.JournaledWrite(journalId(run.runId, r.applicationId()), w));
+                        if (r.decision() != null && !r.decision().equalsIgnoreCase(w.decision())) changed++;
+                    } catch (DownstreamUnavailableException ex) {
+                        // Model không khả dụng: dừng tại hồ sơ này, không đánh dấu lỗi
+                        run.fail(ex);
+                        break;
+                    } catch (IOException | RuntimeException ex) {
+                        failed++;
+                        log.debug("Rescore of {} failed: {}", r.applicationId(), ex.toString());
+                    }
+                }
+                last = r.applicationId();
+                processed++;
+                renewLease(run);
+            }
+            if (!writes.isEmpty()) {
+                scoreRepository.saveJournaled(writes, writes.size());
+                writes.forEach(j -> detailCache.scoreWritten(j.write(), true));
+            }
+            boolean finished = processed == rows.size() && rows.size() < batchSize;
+            cp = cp.advance(last, finished, processed, failed, skipped, changed);
+            saveCheckpoint(run, cp);
+            run.record(processed, failed, skipped, changed);
+            scoredRows.increment(processed - failed - skipped);
+            failedRows.increment(failed);
+            skippedRows.increment(skipped);
+            if (finished) return cp;
+        }
+        return cp;
+    }
+
+    private void saveCheckpoint(ActiveRun run, Checkpoint cp) {
+        if (!rescoreRepository.saveCheckpoint(cp, owner)) {
+            // Lease đã sang instance khác: tiến độ của nó là chuẩn, score vừa ghi trùng journal id nên vô hại
+            run.fail(new IllegalStateException("Rescore lease lost to another instance"));
+        }
+    }
+
+    // Gia hạn tối đa mỗi lease-timeout/4 (một worker làm); không gia hạn được = bị pause ở nơi khác hoặc mất lease
+    private void renewLease(ActiveRun run) {
+        long now = System.nanoTime();
+        long last = run.renewedAt.get();
+        if (now - last < leaseTimeout.toNanos() / 4 || !run.renewedAt.compareAndSet(last, now)) return;
+        if (!rescoreRepository.renewLease(run.runId, owner)) {
+            log.info("Rescore run {}: lease not renewed (paused elsewhere or taken over), stopping", run.runId);
+            run.pauseRequested = true;
+        }
+    }
+
+    private ScoreRepository.ScoreWrite rescore(ActiveRun run, FeatureRow r, ConsentRepository.ConsentRow consent)
+            throws IOException {
+        FeatureVector features = featuresReader.readValue(r.featuresJson());
+        var resp = modelClient.callScore(features);
+        scoringService.requireValid(resp);
+        String decision = scoringService.resolveDecision(resp);
+        run.modelVersion = resp.getModelVersion();
+        // Consent được cấp lại sau lần chấm trước → dùng bằng chứng mới nhất
+        String txHash = consent.lastTxHash() != null && !consent.lastTxHash().isBlank()
+                ? consent.lastTxHash() : r.txHash();
+        return new ScoreRepository.ScoreWrite(r.applicationId(), r.consentId(), txHash,
+                resp.getModelVersion(), resp.getFeatureSchemaVersion(), resp.getScore(), resp.getPd(), decision,
+                scoringService.reasonsJson(resp.getShapTopK()));
+    }
+
+    static UUID journalId(UUID runId, UUID applicationId) {
+        return UUID.nameUUIDFromBytes(("rescore:" + runId + ":" + applicationId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Trạng thái trong tiến trình của lượt chạy đang chạy. */
+    private static final class ActiveRun {
+
+        final UUID runId;
+        final int partitions;
+        final long total;
+        final LocalDateTime createdAt;
+        final Queue<Checkpoint> pending = new ConcurrentLinkedQueue<>();
+        final RateLimiter limiter;
+        final AtomicInteger workersLeft = new AtomicInteger();
+        final AtomicInteger partitionsDone = new AtomicInteger();
+        final LongAdder processed = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder skipped = new LongAdder();
+        final LongAdder changed = new LongAdder();
+        final CountDownLatch finished = new CountDownLatch(1);
+        final long resumedAt = System.nanoTime();
+        final AtomicLong renewedAt = new AtomicLong(resumedAt);
+        final long processedAtResume;
+        volatile boolean pauseRequested;
+        volatile String modelVersion;
+        volatile String error;
+
+        ActiveRun(RescoreRepository.Run run, List<Checkpoint> checkpoints, double rate) {
+            this.runId = run.runId();
+            this.partitions = run.partitions();
+            this.total = run.total();
+            this.createdAt = run.createdAt();
+            this.limiter = new RateLimiter(rate);
+            for (Checkpoint c : checkpoints) {
+                processed.add(c.rows());
+                failed.add(c.failed());
+                skipped.add(c.skipped());
+                changed.add(c.changed());
+                if (c.done()) partitionsDone.incrementAndGet();
+                else pending.add(c);
+            }
+            this.processedAtResume = processed.sum();
+        }
+
+        void record(long rows, long failedRows, long skippedRows, long changedRows) {
+            processed.add(rows);
+            failed.add(failedRows);
+            skipped.add(skippedRows);
+            changed.add(changedRows);
+        }
+
+        void fail(Exception ex) {
+            error = ex.getMessage();
+            pauseRequested = true;
+        }
+
+        Progress progress() {
+            long done = processed.sum();
+            double seconds = (System.nanoTime() - resumedAt) / 1e9;
+            double rate = seconds > 0 ? (done - processedAtResume) / seconds : 0.0;
+            Long eta = rate > 0 ? (long) Math.ceil(Math.max(0, total - done) / rate) : null;
+            String status = pauseRequested ? (error != null ? "FAILING" : "PAUSING") : RUNNING;
+            return new Progress(runId, status, true, partitions, partitionsDone.get(), total, done,
+                    failed.sum(), skipped.sum(), changed.sum(), Math.round(rate * 10) / 10.0, eta,
+                    modelVersion, error, createdAt);
+        }
+    }
+
+    /** Giãn cách đều các lời gọi model giữa mọi worker; 0 = không giới hạn. */
+    static final class RateLimiter {
+
+        private final long intervalNanos;
+        private long next = System.nanoTime();
+
+        RateLimiter(double perSecond) {
+            this.intervalNanos = perSecond <= 0 ? 0 : (long) (1_000_000_000L / perSecond);
+        }
+
+        /** false nếu bị interrupt khi chờ. */
+        boolean acquire() {
+            if (intervalNanos == 0) return true;
+            long wait;
+            synchronized (this) {
+                long now = System.nanoTime();
+                // Không tích luỹ lượt khi rảnh → không bắn dồn sau một quãng nghỉ
+                if (next < now) next = now;
+                wait = next - now;
+                next += intervalNanos;
+            }
+            if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
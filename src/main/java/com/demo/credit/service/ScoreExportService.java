@@ -0,0 +1,149 @@
+package com.demo.credit.service;
+
+import com.demo.credit.repository.ScoreRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Export toàn bộ score (cho retrain: ai/scripts, ai/train) thẳng từ ResultSet ra response,
+ * từng dòng một — không gom vào List, không gọi detail từng hồ sơ.
+ * Mỗi dòng mang {@code cursor}: truyền lại cursor của dòng cuối đã nhận để export tiếp khi bị ngắt.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ScoreExportService {
+
+    private static final String[] CSV_HEADER = {
+            "score_id", "application_id", "reference_no", "applicant_id", "consent_id", "tx_hash",
+            "score", "pd", "decision", "top_reasons", "model_version", "feature_schema_version",
+            "scored_at", "cursor"
+    };
+
+    private final ScoreRepository scoreRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${export.fetch-size:2000}")
+    private int fetchSize;
+
+    public enum Format {
+        NDJSON, CSV;
+
+        public static Format parse(String s) {
+            try {
+                return valueOf(s.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Unsupported export format: " + s);
+            }
+        }
+    }
+
+    public void export(ScoreRepository.ExportFilter filter, Format format, OutputStream out) throws IOException {
+        long started = System.nanoTime();
+        long[] rows = {0};
+        try {
+            if (format == Format.CSV) {
+                writeCsv(filter, out, rows);
+            } else {
+                writeNdjson(filter, out, rows);
+            }
+        } catch (UncheckedIOException ex) {
+            // Client ngắt kết nối giữa chừng — dừng đọc ResultSet
+            log.warn("Score export aborted after {} rows: {}", rows[0], ex.getCause().toString());
+            throw ex.getCause();
+        }
+        log.info("Score export ({}) wrote {} rows in {} ms", format, rows[0], (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void writeNdjson(ScoreRepository.ExportFilter filter, OutputStream out, long[] rows) throws IOException {
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+            // Mặc định Jackson chèn " " giữa các root value → dòng thứ 2 trở đi sẽ mở đầu bằng dấu cách
+            gen.setRootValueSeparator(null);
+            scoreRepository.forEachScore(filter, fetchSize, r -> {
+                try {
+                    gen.writeStartObject();
+                    gen.writeStringField("scoreId", r.scoreId().toString());
+                    gen.writeStringField("applicationId", r.applicationId().toString());
+                    gen.writeStringField("referenceNo", r.referenceNo());
+                    gen.writeStringField("applicantId", r.applicantId().toString());
+                    gen.writeStringField("consentId", r.consentId());
+                    gen.writeStringField("txHash", r.txHash());
+                    gen.writeNumberField("score", r.score());
+                    gen.writeFieldName("pd");
+                    if (r.pd() == null) gen.writeNull(); else gen.writeNumber(r.pd());
+                    gen.writeStringField("decision", r.decision());
+                    gen.writeFieldName("topReasons");
+                    writeReasons(gen, r.topReasonsJson());
+                    gen.writeStringField("modelVersion", r.modelVersion());
+                    gen.writeStringField("featureSchemaVersion", r.featureSchemaVersion());
+                    gen.writeStringField("scoredAt", r.scoredAt().toString());
+                    gen.writeStringField("cursor", r.cursor().encode());
+                    gen.writeEndObject();
+                    gen.writeRaw('\n');
+                    rows[0]++;
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        }
+    }
+
+    // top_reasons do ScoringService.reasonsJson ghi (mảng JSON) → nhúng nguyên; dữ liệu lạ → chuỗi
+    private static void writeReasons(JsonGenerator gen, String json) throws IOException {
+        if (json == null) {
+            gen.writeNull();
+        } else if (json.startsWith("[") && json.endsWith("]")) {
+            gen.writeRawValue(json);
+        } else {
+            gen.writeString(json);
+        }
+    }
+
+    private void writeCsv(ScoreRepository.ExportFilter filter, OutputStream out, long[] rows) throws IOException {
+        try (Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024)) {
+            w.write(String.join(",", CSV_HEADER));
+            w.write('\n');
+            scoreRepository.forEachScore(filter, fetchSize, r -> {
+                try {
+                    csvRow(w,
+                            r.scoreId(), r.applicationId(), r.referenceNo(), r.applicantId(), r.consentId(),
+                            r.txHash(), r.score(), r.pd(), r.decision(), r.topReasonsJson(), r.modelVersion(),
+                            r.featureSchemaVersion(), r.scoredAt(), r.cursor().encode());
+                    rows[0]++;
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        }
+    }
+
+    private static void csvRow(Writer w, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) w.write(',');
+            if (values[i] != null) w.write(csvEscape(Objects.toString(values[i])));
+        }
+        w.write('\n');
+    }
+
+    // RFC 4180: bọc ngoặc kép khi có dấu phẩy / ngoặc kép / xuống dòng
+    static String csvEscape(String s) {
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0) {
+            return s;
+        }
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,563 @@
+package com.demo.credit.service;
+
+import com.demo.credit.repository.ScoreRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+
+/**
+ * Write-behind cho {@code core.Scores} ({@code score.journal.enabled=true}).
+ * <p>
+ * {@link #append} ghi score vào journal cục bộ (file segment memory-mapped, chỉ nối thêm) và trả về
+ * sau khi đã fsync — nhiều request đồng thời dùng chung một lần fsync (group commit).
+ * Một thread nền đọc journal theo lô và ghi xuống SQL Server qua
+ * {@link ScoreRepository#saveJournaled}; DB lỗi thì thử lại với backoff, journal giữ nguyên.
+ * Riêng lỗi DB từ chối dữ liệu (vi phạm ràng buộc, lỗi nghiệp vụ của procedure) thì thử lại không giúp gì:
+ * lô đó được ghi lại từng dòng, dòng vẫn bị từ chối chuyển sang file {@code dead-letter} (cùng định dạng bản ghi)
+ * để drain đi tiếp thay vì kẹt mãi ở một bản ghi hỏng.
+ * <p>
+ * Vị trí đã ghi xong được lưu ở file {@code checkpoint}. Khởi động lại sẽ phát lại từ checkpoint;
+ * mỗi bản ghi mang một score id (journal_id) nên bản ghi đã vào DB trước khi crash không bị ghi lần hai.
+ * <p>
+ * Định dạng bản ghi: {@code [int length][int crc32c][payload]}; length = 0 là hết dữ liệu,
+ * CRC sai (ghi dở khi crash) cũng coi là hết dữ liệu.
+ * Lưu ý: score chỉ xuất hiện ở {@code GET /applications/{id}} sau khi được drain (thường vài trăm ms).
+ */
+@Slf4j
+@Component
+public class ScoreJournal {
+
+    private static final String CHECKPOINT = "checkpoint";
+    private static final String DEAD_LETTER = "dead-letter";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int HEADER = 8;
+    // Vị trí logic = (segment << 40) | offset
+    private static final int OFFSET_BITS = 40;
+
+    private final ScoreRepository scoreRepository;
+    private final ScheduledExecutorService executor;
+
+    private final Object appendLock = new Object();
+    private final Object flushLock = new Object();
+    // Ghi thêm ở thread append (roll), đọc/xoá ở thread drain
+    private final ConcurrentSkipListMap<Long, Path> segments = new ConcurrentSkipListMap<>();
+
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong drained = new AtomicLong();
+    private final Counter drainErrors;
+    private final Counter deadLetters;
+
+    @Value("${score.journal.enabled:false}")
+    private boolean enabled;
+
+    @Value("${score.journal.dir:data/score-journal}")
+    private Path dir = Path.of("data/score-journal");
+
+    @Value("${score.journal.segment-size:64MB}")
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    // false: bỏ fsync (nhanh hơn, mất dữ liệu nếu máy sập — chỉ dùng khi thử nghiệm)
+    @Value("${score.journal.fsync:true}")
+    private boolean fsync = true;
+
+    @Value("${score.journal.drain-batch:500}")
+    private int drainBatch = 500;
+
+    @Value("${score.journal.drain-interval:200ms}")
+    private Duration drainInterval = Duration.ofMillis(200);
+
+    @Value("${score.journal.max-backoff:30s}")
+    private Duration maxBackoff = Duration.ofSeconds(30);
+
+    // Phía ghi (giữ appendLock)
+    private long writeSegment;
+    private FileChannel writeChannel;
+    private MappedByteBuffer writeBuf;
+    private volatile long writtenPos;
+
+    // Group commit (giữ flushLock)
+    private long durablePos;
+    private boolean flushing;
+
+    // Phía drain (chỉ thread drain)
+    private long readPos;
+    private long readSegment = -1;
+    private FileChannel readChannel;
+    private MappedByteBuffer readBuf;
+    private long backoffUntil;
+    private long backoffMillis;
+    private FileChannel deadLetterChannel;
+    private volatile long headAppendedAt;
+    private ScheduledFuture<?> drainTask;
+
+    public ScoreJournal(ScoreRepository scoreRepository,
+                        @Qualifier("scoreJournalExecutor") ScheduledExecutorService executor,
+                        MeterRegistry meterRegistry) {
+        this.scoreRepository = scoreRepository;
+        this.executor = executor;
+        this.drainErrors = Counter.builder("credit.score.journal.drain.errors").register(meterRegistry);
+        this.deadLetters = Counter.builder("credit.score.journal.dead.letters")
+                .description("Bản ghi journal bị DB từ chối, đã chuyển sang dead-letter")
+                .register(meterRegistry);
+        FunctionCounter.builder("credit.score.journal.appended", appended, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("credit.score.journal.drained", drained, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("credit.score.journal.depth", this, ScoreJournal::depth).register(meterRegistry);
+        Gauge.builder("credit.score.journal.lag.seconds", this, j -> j.lagMillis() / 1000.0).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Số score đã nhận nhưng chưa vào DB. */
+    public long depth() {
+        return appended.get() - drained.get();
+    }
+
+    /** Tuổi của score cũ nhất chưa vào DB (0 nếu journal trống). */
+    public long lagMillis() {
+        long head = headAppendedAt;
+        return head == 0 ? 0 : Math.max(0, System.currentTimeMillis() - head);
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        if (!enabled) return;
+        Files.createDirectories(dir);
+        try (var files = Files.list(dir)) {
+            files.filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .forEach(p -> segments.put(segmentIndex(p), p));
+        }
+        readPos = readCheckpoint();
+        // Segment đã drain hết từ lần chạy trước
+        for (Long idx : List.copyOf(segments.headMap(segmentOf(readPos)).keySet())) {
+            deleteSegment(idx);
+        }
+
+        // Quét từ checkpoint để biết còn bao nhiêu bản ghi và chỗ ghi tiếp
+        long pending = 0;
+        long end = readPos;
+        long head = 0;
+        for (var e : segments.tailMap(segmentOf(readPos), true).entrySet()) {
+            try (FileChannel ch = FileChannel.open(e.getValue(), StandardOpenOption.READ)) {
+                ByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+                int off = e.getKey() == segmentOf(readPos) ? offsetOf(readPos) : 0;
+                buf.position(off);
+                byte[] rec;
+                while ((rec = nextRecord(buf)) != null) {
+                    if (head == 0) head = decode(rec).appendedAt();
+                    pending++;
+                }
+                end = position(e.getKey(), buf.position());
+            }
+        }
+        headAppendedAt = head;
+        appended.set(pending);
+
+        long seg = segments.isEmpty() ? segmentOf(readPos) : segments.lastKey();
+        openWriteSegment(seg, seg == segmentOf(end) ? offsetOf(end) : 0);
+        durablePos = writtenPos;
+
+        long ms = drainInterval.toMillis();
+        drainTask = executor.scheduleWithFixedDelay(this::drainSafely, ms, ms, TimeUnit.MILLISECONDS);
+        log.info("Score journal opened at {}: {} pending record(s)", dir.toAbsolutePath(), pending);
+    }
+
+    @PreDestroy
+    void close() {
+        if (!enabled) return;
+        if (drainTask != null) drainTask.cancel(false);
+        try {
+            // Cố gắng đẩy nốt phần còn lại; không được thì lần khởi động sau sẽ phát lại
+            executor.submit(this::drainSafely).get(10, TimeUnit.SECONDS);
+        } catch (Exception ex) {
+            log.warn("Final journal drain skipped: {}", ex.toString());
+        }
+        synchronized (appendLock) {
+            if (writeBuf != null) writeBuf.force();
+            closeQuietly(writeChannel);
+        }
+        closeQuietly(readChannel);
+        closeQuietly(deadLetterChannel);
+    }
+
+    /**
+     * Ghi các score vào journal; trả về khi đã bền vững trên đĩa (nếu {@code fsync}).
+     * @return score id (journal_id) theo thứ tự đầu vào
+     */
+    public List<UUID> append(List<ScoreRepository.ScoreWrite> writes) {
+        if (!enabled) {
+            throw new IllegalStateException("Score journal is disabled");
+        }
+        if (writes.isEmpty()) return List.of();
+        long now = System.currentTimeMillis();
+        List<UUID> ids = new ArrayList<>(writes.size());
+        List<byte[]> records = new ArrayList<>(writes.size());
+        for (ScoreRepository.ScoreWrite w : writes) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            records.add(encode(new ScoreRepository.JournaledWrite(id, w), now));
+        }
+
+        long end;
+        synchronized (appendLock) {
+            try {
+                for (byte[] rec : records) {
+                    // Chừa 4 byte cho marker kết thúc (length = 0)
+                    if (writeBuf.remaining() < HEADER + rec.length + 4) {
+                        roll(HEADER + rec.length + 4);
+                    }
+                    CRC32C crc = new CRC32C();
+                    crc.update(rec);
+                    writeBuf.putInt(rec.length).putInt((int) crc.getValue()).put(rec);
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Score journal append failed", ex);
+            }
+            end = position(writeSegment, writeBuf.position());
+            writtenPos = end;
+            if (appended.getAndAdd(writes.size()) == drained.get()) {
+                headAppendedAt = now;
+            }
+        }
+        awaitDurable(end);
+        return ids;
+    }
+
+    // Group commit: một thread fsync cho tất cả bản ghi đã ghi tới lúc đó, các thread khác chờ
+    private void awaitDurable(long pos) {
+        while (true) {
+            synchronized (flushLock) {
+                while (durablePos < pos && flushing) {
+                    try {
+                        flushLock.wait();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted waiting for journal fsync", ex);
+                    }
+                }
+                if (durablePos >= pos) return;
+                flushing = true;
+            }
+            long target;
+            MappedByteBuffer buf;
+            synchronized (appendLock) {
+                target = writtenPos;
+                buf = writeBuf;
+            }
+            try {
+                // Segment cũ hơn đã được force khi roll
+                if (fsync) buf.force();
+            } finally {
+                synchronized (flushLock) {
+                    durablePos = Math.max(durablePos, target);
+                    flushing = false;
+                    flushLock.notifyAll();
+                }
+            }
+        }
+    }
+
+    private void roll(int needed) throws IOException {
+        if (needed > segmentSize.toBytes()) {
+            throw new IOException("Journal record larger than segment: " + needed);
+        }
+        writeBuf.force();
+        closeQuietly(writeChannel);
+        openWriteSegment(writeSegment + 1, 0);
+    }
+
+    private void openWriteSegment(long index, int offset) throws IOException {
+        Path path = segments.computeIfAbsent(index, i -> dir.resolve(String.format("%020d%s", i, SEGMENT_SUFFIX)));
+        writeChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = Math.max(writeChannel.size(), segmentSize.toBytes());
+        writeBuf = writeChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        writeBuf.position(offset);
+        writeSegment = index;
+        writtenPos = position(index, offset);
+    }
+
+    private void drainSafely() {
+        try {
+            drain();
+        } catch (RuntimeException | IOException ex) {
+            drainErrors.increment();
+            backoffMillis = Math.min(maxBackoff.toMillis(), Math.max(500, backoffMillis * 2));
+            backoffUntil = System.currentTimeMillis() + backoffMillis;
+            log.warn("Score journal drain failed (retry in {} ms, depth {}): {}", backoffMillis, depth(), ex.toString());
+        }
+    }
+
+    private void drain() throws IOException {
+        if (System.currentTimeMillis() < backoffUntil) return;
+        while (true) {
+            long limit;
+            synchronized (flushLock) {
+                limit = durablePos;
+            }
+            if (readPos >= limit) {
+                headAppendedAt = 0;
+                return;
+            }
+            List<Decoded> batch = new ArrayList<>(drainBatch);
+            long pos = readPos;
+            long batchHead = 0;
+            while (batch.size() < drainBatch && pos < limit) {
+                ensureReadSegment(segmentOf(pos));
+                readBuf.position(offsetOf(pos));
+                byte[] rec = nextRecord(readBuf);
+                if (rec == null) {
+                    // Hết segment này → sang segment kế tiếp
+                    Long next = segments.higherKey(segmentOf(pos));
+                    if (next == null) break;
+                    pos = position(next, 0);
+                    continue;
+                }
+                Decoded d = decode(rec);
+                if (batchHead == 0) batchHead = d.appendedAt();
+                batch.add(d);
+                pos = position(segmentOf(pos), readBuf.position());
+            }
+            if (batch.isEmpty()) {
+                readPos = pos;
+                return;
+            }
+            headAppendedAt = batchHead;
+            save(batch);
+
+            long prevSegment = segmentOf(readPos);
+            readPos = pos;
+            writeCheckpoint(readPos);
+            drained.addAndGet(batch.size());
+            backoffMillis = 0;
+            for (long s = prevSegment; s < segmentOf(readPos); s++) {
+                deleteSegment(s);
+            }
+        }
+    }
+
+    // Lỗi tạm thời (DB sập, timeout...) ném ra để drainSafely backoff; chỉ lỗi DB từ chối dữ liệu mới tách lô
+    private void save(List<Decoded> batch) throws IOException {
+        try {
+            scoreRepository.saveJournaled(batch.stream().map(Decoded::write).toList(), batch.size());
+            return;
+        } catch (RuntimeException ex) {
+            if (!DbErrors.isRejected(ex)) throw ex;
+            if (batch.size() == 1) {
+                deadLetter(batch.get(0), ex);
+                return;
+            }
+            log.warn("Score journal batch of {} rejected, retrying row by row: {}", batch.size(), ex.toString());
+        }
+        // Dòng đã vào DB trước đó bị bỏ qua nhờ journal_id nên ghi lại từng dòng là an toàn
+        for (Decoded d : batch) {
+            try {
+                scoreRepository.saveJournaled(List.of(d.write()), 1);
+            } catch (RuntimeException ex) {
+                if (!DbErrors.isRejected(ex)) throw ex;
+                deadLetter(d, ex);
+            }
+        }
+    }
+
+
+    // Crash trước checkpoint → lần sau có thể ghi lại cùng bản ghi; journal_id giúp nhận ra bản trùng
+    private void deadLetter(Decoded d, RuntimeException ex) throws IOException {
+        if (deadLetterChannel == null) {
+            deadLetterChannel = FileChannel.open(dir.resolve(DEAD_LETTER),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        byte[] rec = encode(d.write(), d.appendedAt());
+        CRC32C crc = new CRC32C();
+        crc.update(rec);
+        ByteBuffer buf = ByteBuffer.allocate(HEADER + rec.length);
+        buf.putInt(rec.length).putInt((int) crc.getValue()).put(rec).flip();
+        while (buf.hasRemaining()) deadLetterChannel.write(buf);
+        if (fsync) deadLetterChannel.force(false);
+        deadLetters.increment();
+        log.error("Score journal record {} (application {}) rejected by the database, moved to {}: {}",
+                d.write().journalId(), d.write().write().applicationId(), DEAD_LETTER, ex.toString());
+    }
+
+    private void ensureReadSegment(long index) throws IOException {
+        if (index == readSegment && readBuf != null) return;
+        closeQuietly(readChannel);
+        Path path = segments.get(index);
+        readChannel = FileChannel.open(path, StandardOpenOption.READ);
+        readBuf = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+        readSegment = index;
+    }
+
+    private void deleteSegment(long index) {
+        synchronized (appendLock) {
+            if (index == writeSegment && writeChannel != null) return;
+            Path path = segments.remove(index);
+            if (index == readSegment) {
+                closeQuietly(readChannel);
+                readChannel = null;
+                readBuf = null;
+                readSegment = -1;
+            }
+            try {
+                if (path != null) Files.deleteIfExists(path);
+            } catch (IOException ex) {
+                // Windows không xoá được file còn map; lần khởi động sau sẽ dọn
+                log.debug("Journal segment {} not deleted yet: {}", path, ex.toString());
+            }
+        }
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path cp = dir.resolve(CHECKPOINT);
+        if (!Files.exists(cp)) {
+            return segments.isEmpty() ? 0 : position(segments.firstKey(), 0);
+        }
+        String[] parts = Files.readString(cp, StandardCharsets.US_ASCII).strip().split(" ");
+        return position(Long.parseLong(parts[0]), Integer.parseInt(parts[1]));
+    }
+
+    // Ghi file tạm rồi rename để checkpoint không bao giờ bị ghi dở
+    private void writeCheckpoint(long pos) throws IOException {
+        Path tmp = dir.resolve(CHECKPOINT + ".tmp");
+        Files.writeString(tmp, segmentOf(pos) + " " + offsetOf(pos), StandardCharsets.US_ASCII);
+        Files.move(tmp, dir.resolve(CHECKPOINT), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // null = hết dữ liệu hợp lệ; buf đứng sau bản ghi khi trả về khác null
+    private static byte[] nextRecord(ByteBuffer buf) {
+        if (buf.remaining() < HEADER) return null;
+        int start = buf.position();
+        int len = buf.getInt();
+        int crc = buf.getInt();
+        if (len <= 0 || len > buf.remaining()) {
+            buf.position(start);
+            return null;
+        }
+        byte[] rec = new byte[len];
+        buf.get(rec);
+        CRC32C c = new CRC32C();
+        c.update(rec);
+        if ((int) c.getValue() != crc) {
+            buf.position(start);
+            return null;
+        }
+        return rec;
+    }
+
+    static byte[] encode(ScoreRepository.JournaledWrite j, long appendedAt) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            ScoreRepository.ScoreWrite w = j.write();
+            out.writeLong(j.journalId().getMostSignificantBits());
+            out.writeLong(j.journalId().getLeastSignificantBits());
+            out.writeLong(appendedAt);
+            out.writeLong(w.applicationId().getMostSignificantBits());
+            out.writeLong(w.applicationId().getLeastSignificantBits());
+            writeString(out, w.consentId());
+            writeString(out, w.txHash());
+            writeString(out, w.modelVersion());
+            writeString(out, w.featureSchemaVersion());
+            out.writeInt(w.score());
+            out.writeDouble(w.pd());
+            writeString(out, w.decision());
+            writeString(out, w.topReasonsJson());
+            return bytes.toByteArray();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    static Decoded decode(byte[] rec) {
+        ByteBuffer in = ByteBuffer.wrap(rec);
+        UUID id = new UUID(in.getLong(), in.getLong());
+        long appendedAt = in.getLong();
+        UUID app = new UUID(in.getLong(), in.getLong());
+        String consentId = readString(in);
+        String txHash = readString(in);
+        String modelVersion = readString(in);
+        String schemaVersion = readString(in);
+        int score = in.getInt();
+        double pd = in.getDouble();
+        String decision = readString(in);
+        String reasons = readString(in);
+        return new Decoded(new ScoreRepository.JournaledWrite(id, new ScoreRepository.ScoreWrite(
+                app, consentId, txHash, modelVersion, schemaVersion, score, pd, decision, reasons)), appendedAt);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int len = in.getInt();
+        if (len < 0) return null;
+        byte[] b = new byte[len];
+        in.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private static long position(long segment, int offset) {
+        return (segment << OFFSET_BITS) | offset;
+    }
+
+    private static long segmentOf(long pos) {
+        return pos >>> OFFSET_BITS;
+    }
+
+    private static int offsetOf(long pos) {
+        return (int) (pos & ((1L << OFFSET_BITS) - 1));
+    }
+
+    private static long segmentIndex(Path p) {
+        String name = p.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static void closeQuietly(FileChannel ch) {
+        try {
+            if (ch != null) ch.close();
+        } catch (IOException ignore) {
+            // đóng khi tắt — bỏ qua
+        }
+    }
+
+    record Decoded(ScoreRepository.JournaledWrite write, long appendedAt) {}
+}
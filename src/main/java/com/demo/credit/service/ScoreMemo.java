@@ -0,0 +1,201 @@
+package com.demo.credit.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Ghi nhớ kết quả chấm điểm đã lưu, để request gửi lại (timeout phía UI/đối tác) không gọi model
+ * và không ghi thêm dòng {@code core.Scores}.
+ * <ul>
+ *   <li>Key mặc định = (model_version, {@link #requestHash} của applicationId, consentId, txHash, features)
+ *       — đổi model thì không dùng lại điểm cũ. Chưa biết model_version (model chưa trả lời lần nào) thì
+ *       không ghi nhớ: key đó sẽ không bao giờ được tra lại khi version đã biết.</li>
+ *   <li>Có header {@code Idempotency-Key} thì key = header (kết quả giữ nguyên kể cả khi model đổi);
+ *       dùng lại key với request khác → 400.</li>
+ *   <li>Request trùng đến khi lần đầu còn đang chạy sẽ chờ cùng kết quả (single-flight).</li>
+ *   <li>Lỗi không được ghi nhớ — lần gửi lại sau sẽ chạy lại từ đầu.</li>
+ *   <li>Entry sống {@code ttl}, tối đa {@code max-size} entry.</li>
+ * </ul>
+ */
+@Component
+public class ScoreMemo {
+
+    private final Clock clock;
+    private final ConcurrentHashMap<String, Slot> slots = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Value("${score.memo.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${score.memo.ttl:15m}")
+    private Duration ttl = Duration.ofMinutes(15);
+
+    @Value("${score.memo.max-size:10000}")
+    private int maxSize = 10_000;
+
+    @Autowired
+    public ScoreMemo(MeterRegistry meterRegistry) {
+        this(meterRegistry, Clock.systemUTC());
+    }
+
+    ScoreMemo(MeterRegistry meterRegistry, Clock clock) {
+        this.clock = clock;
+        FunctionCounter.builder("credit.score.memo.hits", hits, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("credit.score.memo.misses", misses, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("credit.score.memo.evictions", evictions, LongAdder::sum).register(meterRegistry);
+        Gauge.builder("credit.score.memo.size", slots, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Trả kết quả đã ghi nhớ cho request này, hoặc chạy {@code compute} (một lần cho mọi request trùng).
+     *
+     * @param idempotencyKey header {@code Idempotency-Key}, có thể null
+     * @param modelVersion   {@link ModelClient#modelVersion()}, có thể null
+     * @param requestHash    {@link #requestHash}
+     */
+    public Outcome getOrCompute(String idempotencyKey, String modelVersion, String requestHash,
+                                Supplier<ScoringService.SavedScore> compute) {
+        if (!enabled || (idempotencyKey == null && modelVersion == null)) {
+            return new Outcome(compute.get(), false);
+        }
+        String key = key(idempotencyKey, modelVersion, requestHash);
+        long now = clock.millis();
+        Slot mine = new Slot(requestHash);
+        Slot current = slots.compute(key,
+                (k, existing) -> (existing == null || existing.isStale(now)) ? mine : existing);
+
+        if (current != mine) {
+            if (!current.requestHash.equals(requestHash)) {
+                throw new IllegalArgumentException("Idempotency-Key reused with a different request");
+            }
+            // Hit — kể cả khi lần đầu còn đang chạy: chờ chung, không gọi model lần nữa
+            hits.increment();
+            try {
+                return new Outcome(current.result.join(), true);
+            } catch (CompletionException ex) {
+                throw ex.getCause() instanceof RuntimeException re ? re : ex;
+            }
+        }
+
+        misses.increment();
+        try {
+            ScoringService.SavedScore saved = compute.get();
+            mine.expiresAtMillis = clock.millis() + ttl.toMillis();
+            mine.result.complete(saved);
+            evictIfNeeded();
+            return new Outcome(saved, false);
+        } catch (RuntimeException ex) {
+            slots.remove(key, mine);
+            mine.result.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    public void invalidate(String idempotencyKey, String modelVersion, String requestHash) {
+        slots.remove(key(idempotencyKey, modelVersion, requestHash));
+    }
+
+    public void clear() {
+        slots.clear();
+    }
+
+    /**
+     * SHA-256 (hex) của nội dung request chấm điểm. Feature băm theo bit của double
+     * theo thứ tự schema (-0.0 coi như 0.0); chuỗi có tiền tố độ dài để không ghép nhầm ranh giới.
+     */
+    public static String requestHash(UUID applicationId, String consentId, String txHash, FeatureVector features) {
+        MessageDigest md = sha256();
+        putString(md, applicationId == null ? null : applicationId.toString());
+        putString(md, consentId);
+        putString(md, txHash == null ? null : txHash.toLowerCase(Locale.ROOT));
+        putString(md, features.schema().version());
+        double[] x = features.values();
+        ByteBuffer buf = ByteBuffer.allocate(4 + 8 * x.length).putInt(x.length);
+        for (double v : x) buf.putLong(Double.doubleToLongBits(v + 0.0));
+        md.update(buf.array());
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    private static String key(String idempotencyKey, String modelVersion, String requestHash) {
+        return idempotencyKey != null ? "key:" + idempotencyKey : "hash:" + modelVersion + ":" + requestHash;
+    }
+
+    private static void putString(MessageDigest md, String s) {
+        if (s == null) {
+            md.update(ByteBuffer.allocate(4).putInt(-1).array());
+            return;
+        }
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        md.update(ByteBuffer.allocate(4).putInt(b.length).array());
+        md.update(b);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private void evictIfNeeded() {
+        if (slots.size() <= maxSize) return;
+        long now = clock.millis();
+        // Lượt 1: entry đã hết hạn
+        for (Iterator<Slot> it = slots.values().iterator(); it.hasNext(); ) {
+            if (it.next().isStale(now)) {
+                it.remove();
+                evictions.increment();
+            }
+        }
+        // Lượt 2: vẫn quá giới hạn → bỏ entry đã xong bất kỳ (không bỏ entry đang chạy)
+        for (Iterator<Slot> it = slots.values().iterator(); it.hasNext() && slots.size() > maxSize; ) {
+            if (it.next().result.isDone()) {
+                it.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    /** {@code reused} = true khi kết quả lấy từ bộ nhớ (không gọi model, không ghi DB). */
+    public record Outcome(ScoringService.SavedScore score, boolean reused) {}
+
+    private static final class Slot {
+        final String requestHash;
+        final CompletableFuture<ScoringService.SavedScore> result = new CompletableFuture<>();
+        volatile long expiresAtMillis = Long.MAX_VALUE;
+
+        Slot(String requestHash) {
+            this.requestHash = requestHash;
+        }
+
+        boolean isStale(long now) {
+            if (!result.isDone()) return false;
+            return result.isCompletedExceptionally() || expiresAtMillis <= now;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.demo.credit.service;
+
+import com.demo.credit.config.LatencyMeter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Metrics cho {@code POST /score/{appId}}:
+ * <ul>
+ *   <li>{@code credit.scoring.stage{stage, outcome}} — latency từng bước (detail, consent, ledger, model, reasons, save),
+ *       kèm {@code .inflight} và {@code .errors{cause}}.</li>
+ *   <li>{@code credit.scoring.requests{model_version, decision, source}} — cả request;
+ *       {@code source} = computed | memo.</li>
+ * </ul>
+ * Tất cả có histogram để Prometheus tính percentile ({@code /actuator/prometheus}).
+ */
+@Component
+public class ScoringMetrics {
+
+    public enum Stage { DETAIL, CONSENT, LEDGER, MODEL, REASONS, SAVE }
+
+    private final MeterRegistry registry;
+    private final Map<Stage, LatencyMeter> stages = new EnumMap<>(Stage.class);
+    private final Map<String, Timer> requests = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Counter> requestErrors = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Timer failedRequests;
+
+    public ScoringMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (Stage s : Stage.values()) {
+            stages.put(s, new LatencyMeter(registry, "credit.scoring.stage", "Scoring stage latency",
+                    Tags.of("stage", s.name().toLowerCase(Locale.ROOT))));
+        }
+        Gauge.builder("credit.scoring.requests.inflight", inFlight, AtomicInteger::get).register(registry);
+        this.failedRequests = requestTimer("none", "none", "failed");
+    }
+
+    /** Đo một bước; exception được đếm theo loại rồi ném lại nguyên vẹn. */
+    public <T> T time(Stage stage, Supplier<T> body) {
+        LatencyMeter m = stages.get(stage);
+        long start = m.start();
+        try {
+            T out = body.get();
+            m.success(start);
+            return out;
+        } catch (RuntimeException ex) {
+            m.failure(start, ex);
+            throw ex;
+        }
+    }
+
+    public void time(Stage stage, Runnable body) {
+        time(stage, () -> {
+            body.run();
+            return null;
+        });
+    }
+
+    public long requestStarted() {
+        inFlight.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    public void requestSucceeded(long startNanos, ScoringService.SavedScore saved, boolean memo) {
+        inFlight.decrementAndGet();
+        String key = saved.modelVersion() + '|' + saved.decision() + '|' + memo;
+        Timer t = requests.get(key);
+        if (t == null) {
+            t = requests.computeIfAbsent(key, k -> requestTimer(
+                    saved.modelVersion() == null ? "unknown" : saved.modelVersion(),
+                    saved.decision() == null ? "unknown" : saved.decision(),
+                    memo ? "memo" : "computed"));
+        }
+        t.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void requestFailed(long startNanos, Throwable cause) {
+        inFlight.decrementAndGet();
+        failedRequests.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        requestErrors.computeIfAbsent(cause.getClass(), c -> Counter.builder("credit.scoring.requests.errors")
+                .tag("cause", c.getSimpleName())
+                .register(registry)).increment();
+    }
+
+    private Timer requestTimer(String modelVersion, String decision, String source) {
+        return LatencyMeter.histogram(Timer.builder("credit.scoring.requests")
+                        .description("POST /score end-to-end latency")
+                        .tag("model_version", modelVersion)
+                        .tag("decision", decision)
+                        .tag("source", source))
+                .register(registry);
+    }
+}
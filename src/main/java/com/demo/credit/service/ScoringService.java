@@ -5,79 +5,293 @@ import com.demo.credit.repository.ConsentRepository;
 import com.demo.credit.repository.ScoreRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
-import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ScoringService {
 
-    private final ApplicationRepository applicationRepository;
-    private final ConsentRepository consentRepository;
+    private final ApplicationDetailCache detailCache;
+    private final ConsentCache consentCache;
     private final ScoreRepository scoreRepository;
+    private final ScoreMemo scoreMemo;
+    private final ScoreJournal scoreJournal;
+    private final ScoringMetrics metrics;
+    private final ApplicationEventBus eventBus;
+    private final FeatureCapture featureCapture;
 
-    private final ModelApiClient modelApiClient;
+    private final ModelClient modelClient;
     private final LedgerClient ledgerClient;
     private final ObjectMapper objectMapper;
+    private final FeatureSchema featureSchema;
+
+    @Qualifier("scoringStageExecutor")
+    private final ExecutorService stageExecutor;
+
+    // Chạy song song các stage độc lập (tra cứu; ledger + model) trong giới hạn deadline
+    @Value("${scoring.pipeline.enabled:false}")
+    private boolean pipelineEnabled;
+
+    @Value("${scoring.pipeline.deadline:10s}")
+    private Duration pipelineDeadline;
+
+    // advisory: ledger chỉ để log; blocking: ledger fail → từ chối chấm điểm
+    @Value("${scoring.ledger-mode:advisory}")
+    private String ledgerMode;
+
+    public SavedScore score(UUID applicationId, String consentId, String txHash, FeatureVector features) {
+        return score(applicationId, consentId, txHash, features, null);
+    }
+
+    /**
+     * Như {@link #score(UUID, String, String, FeatureVector)}, nhưng request gửi lại (cùng nội dung
+     * + model_version, hoặc cùng {@code Idempotency-Key}) nhận lại kết quả đã lưu qua {@link ScoreMemo}
+     * — không gọi model, không ghi thêm score. Request trùng đang chạy song song chờ chung một lần tính.
+     */
+    public SavedScore score(UUID applicationId, String consentId, String txHash, FeatureVector features,
+                            String idempotencyKey) {
+        long started = metrics.requestStarted();
+        try {
+            var outcome = scoreMemoized(applicationId, consentId, txHash, features, idempotencyKey);
+            metrics.requestSucceeded(started, outcome.score(), outcome.reused());
+            return outcome.score();
+        } catch (RuntimeException ex) {
+            metrics.requestFailed(started, ex);
+            throw ex;
+        }
+    }
+
+    private ScoreMemo.Outcome scoreMemoized(UUID applicationId, String consentId, String txHash,
+                                            FeatureVector features, String idempotencyKey) {
+        // 0) Vector đủ dữ liệu trước mọi network hop
+        featureSchema.requireUsable(features);
+        if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > 255)) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1..255 characters");
+        }
+        String modelVersion = modelClient.modelVersion();
+        String hash = ScoreMemo.requestHash(applicationId, consentId, txHash, features);
+        var outcome = scoreMemo.getOrCompute(idempotencyKey, modelVersion, hash,
+                () -> scoreFresh(applicationId, consentId, txHash, features));
+        if (outcome.reused()) {
+            // Consent có thể đã bị thu hồi sau lần chấm đầu (liên kết hồ sơ ↔ consent đã kiểm tra lúc đó)
+            try {
+                var cons = metrics.time(ScoringMetrics.Stage.CONSENT, () -> consentCache.findActive(consentId));
+                checkConsent(consentId, cons.orElse(null), consentId, txHash);
+            } catch (IllegalStateException ex) {
+                scoreMemo.invalidate(idempotencyKey, modelVersion, hash);
+                throw ex;
+            }
+        }
+        return outcome;
+    }
+
+    private SavedScore scoreFresh(UUID applicationId, String consentId, String txHash, FeatureVector features) {
+        if (pipelineEnabled) {
+            return scorePipelined(applicationId, consentId, txHash, features);
+        }
 
-    public SavedScore score(UUID applicationId, String consentId, String txHash, Map<String, Double> features) {
         // 1) Lấy thông tin hồ sơ để xác thực consent thuộc hồ sơ
-        var app = applicationRepository.detail(applicationId)
+        var app = metrics.time(ScoringMetrics.Stage.DETAIL, () -> detailCache.get(applicationId))
                 .orElseThrow(() -> new IllegalStateException("Application not found"));
-        if (!app.consentId().equals(consentId)) {
-            throw new IllegalStateException("ConsentId does not match application");
-        }
 
         // 2) Consent ACTIVE + chưa hết hạn
-        var cons = consentRepository.findActive(consentId)
-                .orElseThrow(() -> new IllegalStateException("Consent not active or expired"));
+        var cons = metrics.time(ScoringMetrics.Stage.CONSENT, () -> consentCache.findActive(consentId)).orElse(null);
+
+        // 3) Kiểm tra consent thuộc hồ sơ + txHash
+        checkConsent(app.consentId(), cons, consentId, txHash);
+        // Xác minh thêm qua ledger service — advisory: không chặn nếu fail mạng
+        boolean ledgerOk = metrics.time(ScoringMetrics.Stage.LEDGER,
+                () -> ledgerClient.verifyConsentTx(consentId, txHash));
+        if (!ledgerOk && isLedgerBlocking()) {
+            throw new IllegalStateException("Ledger verification failed");
+        }
+
+        // 4) Gọi Model API để chấm điểm
+        var modelResp = metrics.time(ScoringMetrics.Stage.MODEL, () -> modelClient.callScore(features));
+        return persist(applicationId, consentId, txHash, features, modelResp);
+    }
+
+    /**
+     * Chế độ pipeline: stage 1 = tra hồ sơ + consent song song; stage 2 = ledger + model song song.
+     * Toàn bộ request bị giới hạn bởi {@code scoring.pipeline.deadline}; khi quá hạn hoặc một
+     * kiểm tra bắt buộc fail, các stage còn dang dở bị huỷ. Pool stage đầy → {@link RejectedExecutionException}
+     * (503). Lưu DB vẫn chạy trên thread của request.
+     */
+    private SavedScore scorePipelined(UUID applicationId, String consentId, String txHash, FeatureVector features) {
+        long deadline = System.nanoTime() + pipelineDeadline.toNanos();
+        List<Future<?>> started = new ArrayList<>(4);
+        try {
+            // Stage 1: hồ sơ + consent
+            Future<Optional<ApplicationRepository.ApplicationDetail>> appF =
+                    submit(started, () -> metrics.time(ScoringMetrics.Stage.DETAIL,
+                            () -> detailCache.get(applicationId)));
+            Future<Optional<ConsentRepository.ConsentRow>> consF =
+                    submit(started, () -> metrics.time(ScoringMetrics.Stage.CONSENT,
+                            () -> consentCache.findActive(consentId)));
+
+            var app = await(appF, deadline)
+                    .orElseThrow(() -> new IllegalStateException("Application not found"));
+            checkConsent(app.consentId(), await(consF, deadline).orElse(null), consentId, txHash);
 
-        // 3) Kiểm tra txHash
+            // Stage 2: ledger + model
+            Future<ModelApiClient.ScoreResult> modelF = submit(started, () -> metrics.time(ScoringMetrics.Stage.MODEL,
+                    () -> modelClient.callScore(features)));
+            Future<Boolean> ledgerF = submitLedger(started, consentId, txHash);
+
+            if (isLedgerBlocking() && !Boolean.TRUE.equals(await(ledgerF, deadline))) {
+                throw new IllegalStateException("Ledger verification failed");
+            }
+            var modelResp = await(modelF, deadline);
+            if (ledgerF != null && !isLedgerBlocking() && ledgerF.isDone() && !ledgerF.isCancelled()) {
+                log.debug("Ledger verify (advisory) for {}: {}", consentId, await(ledgerF, deadline));
+            }
+            return persist(applicationId, consentId, txHash, features, modelResp);
+        } finally {
+            // Huỷ stage còn chạy (no-op với stage đã xong)
+            started.forEach(f -> f.cancel(true));
+        }
+    }
+
+    private SavedScore persist(UUID applicationId, String consentId, String txHash, FeatureVector features,
+                               ModelApiClient.ScoreResult modelResp) {
+        requireValid(modelResp);
+
+        // 5) Chuẩn hoá decision (fallback nếu null)
+        String decision = resolveDecision(modelResp);
+
+        // 6) top reasons -> JSON
+        String topReasonsJson = metrics.time(ScoringMetrics.Stage.REASONS, () -> reasonsJson(modelResp.getShapTopK()));
+
+        // 7) Lưu score vào DB (SP tự update status ứng dụng) — hoặc vào journal, DB ghi sau
+        var write = new ScoreRepository.ScoreWrite(
+                applicationId, consentId, txHash,
+                modelResp.getModelVersion(), modelResp.getFeatureSchemaVersion(),
+                modelResp.getScore(), modelResp.getPd(), decision, topReasonsJson);
+        boolean journaled = scoreJournal.isEnabled();
+        metrics.time(ScoringMetrics.Stage.SAVE, () -> {
+            if (journaled) {
+                scoreJournal.append(List.of(write));
+            } else {
+                scoreRepository.saveScore(
+                        applicationId,
+                        consentId,
+                        txHash,
+                        modelResp.getModelVersion(),
+                        modelResp.getFeatureSchemaVersion(),
+                        modelResp.getScore(),
+                        modelResp.getPd(),
+                        decision,
+                        topReasonsJson
+                );
+            }
+        });
+        detailCache.scoreWritten(write, !journaled);
+        featureCapture.record(applicationId, consentId, txHash, modelResp.getFeatureSchemaVersion(), features, decision);
+
+        // 8) Báo màn hình risk (SSE) rồi trả kết quả gọn cho controller
+        SavedScore saved = toSaved(modelResp, decision);
+        eventBus.publish(ApplicationEventBus.SCORE_SAVED, ApplicationEventBus.scoreSaved(applicationId, saved));
+        return saved;
+    }
+
+    private boolean isLedgerBlocking() {
+        return "blocking".equalsIgnoreCase(ledgerMode);
+    }
+
+    /*
+     * Ledger chế độ advisory không chặn kết quả: pool đầy thì bỏ qua thay vì trả 503. cancel(true) không ngắt
+     * được IO của RestTemplate, nên lời gọi bị huỷ vẫn giữ thread stage tới ledger.http.read-timeout
+     * (số lời gọi đồng thời bị chặn bởi ledger.http.bulkhead).
+     */
+    private Future<Boolean> submitLedger(List<Future<?>> started, String consentId, String txHash) {
+        try {
+            return submit(started, () -> metrics.time(ScoringMetrics.Stage.LEDGER,
+                    () -> ledgerClient.verifyConsentTx(consentId, txHash)));
+        } catch (RejectedExecutionException ex) {
+            if (isLedgerBlocking()) throw ex;
+            log.debug("Ledger verify (advisory) skipped for {}: stage pool full", consentId);
+            return null;
+        }
+    }
+
+    private <T> Future<T> submit(List<Future<?>> started, Callable<T> task) {
+        Future<T> f = stageExecutor.submit(task);
+        started.add(f);
+        return f;
+    }
+
+    private static <T> T await(Future<T> f, long deadlineNanos) {
+        try {
+            return f.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            throw new IllegalStateException("Scoring deadline exceeded", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Scoring interrupted", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    /**
+     * Các bước kiểm tra chung cho chấm điểm đơn lẻ và theo lô.
+     * {@code cons} = null nghĩa là consent không ACTIVE hoặc đã hết hạn.
+     */
+    void checkConsent(String appConsentId, ConsentRepository.ConsentRow cons, String consentId, String txHash) {
+        if (appConsentId == null || !appConsentId.equals(consentId)) {
+            throw new IllegalStateException("ConsentId does not match application");
+        }
+        if (cons == null) {
+            throw new IllegalStateException("Consent not active or expired");
+        }
         if (txHash == null || txHash.isBlank()) {
             throw new IllegalStateException("txHash is required");
         }
         if (cons.lastTxHash() != null && !txHash.equalsIgnoreCase(cons.lastTxHash())) {
             throw new IllegalStateException("txHash does not match latest consent proof");
         }
-        // (Optional) xác minh thêm qua ledger service — không chặn nếu fail mạng
-        ledgerClient.verifyConsentTx(consentId, txHash);
+    }
 
-        // 4) Gọi Model API để chấm điểm
-        var modelResp = modelApiClient.callScore(features);
+    void requireValid(ModelApiClient.ScoreResult modelResp) {
         if (modelResp == null || modelResp.getScore() == null || modelResp.getPd() == null) {
             throw new IllegalStateException("Model API returned invalid payload");
         }
+    }
 
-        // 5) Chuẩn hoá decision (fallback nếu null)
-        String decision = (modelResp.getDecision() == null || modelResp.getDecision().isBlank())
+    String resolveDecision(ModelApiClient.ScoreResult modelResp) {
+        return (modelResp.getDecision() == null || modelResp.getDecision().isBlank())
                 ? fallbackDecision(modelResp.getScore())
                 : modelResp.getDecision().toUpperCase(Locale.ROOT);
+    }
 
-        // 6) top reasons -> JSON
-        String topReasonsJson;
+    String reasonsJson(String[] topReasons) {
         try {
-            topReasonsJson = objectMapper.writeValueAsString(modelResp.getShapTopK());
+            return objectMapper.writeValueAsString(topReasons);
         } catch (Exception e) {
-            topReasonsJson = "[]";
+            return "[]";
         }
+    }
 
-        // 7) Lưu score vào DB (SP tự update status ứng dụng)
-        scoreRepository.saveScore(
-                applicationId,
-                consentId,
-                txHash,
-                modelResp.getModelVersion(),
-                modelResp.getFeatureSchemaVersion(),
-                modelResp.getScore(),
-                modelResp.getPd(),
-                decision,
-                topReasonsJson
-        );
-
-        // 8) Trả kết quả gọn cho controller
+    SavedScore toSaved(ModelApiClient.ScoreResult modelResp, String decision) {
         return new SavedScore(
                 modelResp.getScore(),
                 modelResp.getPd(),
@@ -0,0 +1,13 @@
+package com.demo.credit.service;
+
+/**
+ * Response stream lỗi giữa chừng sau khi đã gửi byte đầu tiên (status 200 đã đi): không còn báo lỗi được bằng
+ * status/body, nên {@link com.demo.credit.config.GlobalExceptionHandler} ném lại để container cắt kết nối —
+ * client thấy response bị cắt thay vì một JSON thiếu dòng trông như hợp lệ.
+ */
+public class StreamAbortedException extends RuntimeException {
+
+    public StreamAbortedException(String what, Throwable cause) {
+        super(what + " failed after the response was committed: " + cause.getMessage(), cause);
+    }
+}
@@ -0,0 +1,236 @@
+package com.demo.credit.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mô hình cây LightGBM (binary) + hiệu chỉnh isotonic, nạp từ {@code model_dump.json}
+ * do {@code ai/scripts/export_model_dump.py} xuất ra.
+ * <p>
+ * Cây được làm phẳng thành mảng nguyên thuỷ; chỉ số feature ở node được ánh xạ sẵn sang
+ * thứ tự của feature schema nên {@link #predictPd(double[])} nhận trực tiếp vector theo schema.
+ * Bất biến sau khi nạp — dùng chung giữa các thread.
+ */
+public final class TreeEnsembleModel {
+
+    // LightGBM coi |x| <= kZeroThreshold là 0 khi missing_type = Zero
+    private static final double ZERO_THRESHOLD = 1e-35;
+
+    private static final byte MISSING_NONE = 0;
+    private static final byte MISSING_ZERO = 1;
+    private static final byte MISSING_NAN = 2;
+
+    private final List<String> features;
+    private final Tree[] trees;
+    private final double sigmoid;
+    private final double[] calX;
+    private final double[] calY;
+    private final String modelVersion;
+    private final String featureSchemaVersion;
+
+    private TreeEnsembleModel(List<String> features, Tree[] trees, double sigmoid,
+                              double[] calX, double[] calY, String modelVersion, String featureSchemaVersion) {
+        this.features = features;
+        this.trees = trees;
+        this.sigmoid = sigmoid;
+        this.calX = calX;
+        this.calY = calY;
+        this.modelVersion = modelVersion;
+        this.featureSchemaVersion = featureSchemaVersion;
+    }
+
+    public static TreeEnsembleModel load(Path dumpJson, List<String> schemaOrder, ObjectMapper mapper) throws IOException {
+        return parse(mapper.readTree(dumpJson.toFile()), schemaOrder);
+    }
+
+    /**
+     * @param schemaOrder thứ tự feature của vector đầu vào; feature model không có trong schema
+     *                    được coi là 0.0 (giống ensure_vector bên Python)
+     */
+    static TreeEnsembleModel parse(JsonNode root, List<String> schemaOrder) {
+        Map<String, Integer> pos = new HashMap<>();
+        for (int i = 0; i < schemaOrder.size(); i++) pos.put(schemaOrder.get(i), i);
+
+        JsonNode names = root.path("feature_names");
+        int[] modelToSchema = new int[names.size()];
+        for (int i = 0; i < names.size(); i++) {
+            modelToSchema[i] = pos.getOrDefault(names.get(i).asText(), -1);
+        }
+
+        List<Tree> trees = new ArrayList<>();
+        for (JsonNode t : root.path("trees")) {
+            trees.add(Tree.build(t, modelToSchema));
+        }
+
+        JsonNode cal = root.path("calibration");
+        double[] calX = toArray(cal.path("x"));
+        double[] calY = toArray(cal.path("y"));
+        if (calX.length != calY.length) {
+            throw new IllegalStateException("Calibration x/y length mismatch");
+        }
+
+        return new TreeEnsembleModel(List.copyOf(schemaOrder), trees.toArray(Tree[]::new),
+                parseSigmoid(root.path("objective").asText("binary sigmoid:1")),
+                calX, calY,
+                root.path("model_version").asText(null),
+                root.path("feature_schema_version").asText(null));
+    }
+
+    /** Tổng leaf value của mọi cây (log-odds thô, init score đã nằm trong cây đầu). */
+    public double rawScore(double[] x) {
+        double sum = 0.0;
+        for (Tree t : trees) sum += t.eval(x);
+        return sum;
+    }
+
+    /** PD đã hiệu chỉnh = isotonic(sigmoid(raw)), giống CalibratedClassifierCV.predict_proba[:, 1]. */
+    public double predictPd(double[] x) {
+        double p = 1.0 / (1.0 + Math.exp(-sigmoid * rawScore(x)));
+        return calX.length == 0 ? p : isotonic(p);
+    }
+
+    public List<String> features() {
+        return features;
+    }
+
+    public int treeCount() {
+        return trees.length;
+    }
+
+    public String modelVersion() {
+        return modelVersion;
+    }
+
+    public String featureSchemaVersion() {
+        return featureSchemaVersion;
+    }
+
+    // np.interp trên ngưỡng isotonic, out_of_bounds='clip'
+    private double isotonic(double p) {
+        int n = calX.length;
+        if (p <= calX[0]) return calY[0];
+        if (p >= calX[n - 1]) return calY[n - 1];
+        int hi = Arrays.binarySearch(calX, p);
+        if (hi >= 0) return calY[hi];
+        hi = -hi - 1;
+        int lo = hi - 1;
+        double t = (p - calX[lo]) / (calX[hi] - calX[lo]);
+        return calY[lo] + t * (calY[hi] - calY[lo]);
+    }
+
+    private static double parseSigmoid(String objective) {
+        for (String part : objective.split(" ")) {
+            if (part.startsWith("sigmoid:")) return Double.parseDouble(part.substring("sigmoid:".length()));
+        }
+        return 1.0;
+    }
+
+    private static double[] toArray(JsonNode arr) {
+        double[] out = new double[arr.size()];
+        for (int i = 0; i < out.length; i++) out[i] = arr.get(i).asDouble();
+        return out;
+    }
+
+    /**
+     * Một cây dạng mảng. Con âm = lá: {@code ~child} là chỉ số trong {@code leafValue}.
+     */
+    private static final class Tree {
+        final int[] feature;
+        final double[] threshold;
+        final int[] left;
+        final int[] right;
+        final boolean[] defaultLeft;
+        final byte[] missingType;
+        final int[][] categories;   // null nếu node là split số
+        final double[] leafValue;
+
+        private Tree(int nodes, int leaves) {
+            feature = new int[nodes];
+            threshold = new double[nodes];
+            left = new int[nodes];
+            right = new int[nodes];
+            defaultLeft = new boolean[nodes];
+            missingType = new byte[nodes];
+            categories = new int[nodes][];
+            leafValue = new double[leaves];
+        }
+
+        static Tree build(JsonNode root, int[] modelToSchema) {
+            int[] counts = new int[2];
+            count(root, counts);
+            Tree t = new Tree(counts[0], Math.max(1, counts[1]));
+            int[] next = new int[2];
+            t.fill(root, next, modelToSchema);
+            return t;
+        }
+
+        private static void count(JsonNode n, int[] counts) {
+            if (n.has("leaf_value") && !n.has("split_feature")) {
+                counts[1]++;
+                return;
+            }
+            counts[0]++;
+            count(n.get("left_child"), counts);
+            count(n.get("right_child"), counts);
+        }
+
+        // Trả về mã node: >= 0 là node trong, < 0 là ~leaf
+        private int fill(JsonNode n, int[] next, int[] modelToSchema) {
+            if (n.has("leaf_value") && !n.has("split_feature")) {
+                int leaf = next[1]++;
+                leafValue[leaf] = n.get("leaf_value").asDouble();
+                return ~leaf;
+            }
+            int id = next[0]++;
+            feature[id] = modelToSchema[n.get("split_feature").asInt()];
+            defaultLeft[id] = n.path("default_left").asBoolean(true);
+            missingType[id] = switch (n.path("missing_type").asText("None")) {
+                case "Zero" -> MISSING_ZERO;
+                case "NaN" -> MISSING_NAN;
+                default -> MISSING_NONE;
+            };
+            if ("==".equals(n.path("decision_type").asText("<="))) {
+                categories[id] = Arrays.stream(n.get("threshold").asText().split("\\|\\|"))
+                        .mapToInt(Integer::parseInt).sorted().toArray();
+            } else {
+                threshold[id] = n.get("threshold").asDouble();
+            }
+            left[id] = fill(n.get("left_child"), next, modelToSchema);
+            right[id] = fill(n.get("right_child"), next, modelToSchema);
+            return id;
+        }
+
+        double eval(double[] x) {
+            if (feature.length == 0) return leafValue[0];
+            int node = 0;
+            while (node >= 0) {
+                int f = feature[node];
+                double v = f < 0 ? 0.0 : x[f];
+                node = goLeft(node, v) ? left[node] : right[node];
+            }
+            return leafValue[~node];
+        }
+
+        // Theo NumericalDecision / CategoricalDecision của LightGBM
+        private boolean goLeft(int node, double v) {
+            if (categories[node] != null) {
+                if (Double.isNaN(v) || v < 0) return false;
+                return Arrays.binarySearch(categories[node], (int) v) >= 0;
+            }
+            byte mt = missingType[node];
+            if (Double.isNaN(v) && mt != MISSING_NAN) v = 0.0;
+            if ((mt == MISSING_ZERO && Math.abs(v) <= ZERO_THRESHOLD) || (mt == MISSING_NAN && Double.isNaN(v))) {
+                return defaultLeft[node];
+            }
+            return v <= threshold[node];
+        }
+    }
+}
@@ -6,6 +6,21 @@ const $ = s => document.querySelector(s);
         $("#detail").textContent = "Thiếu tham số id";
         return;
     }
-    const data = await api.get(`/applications/${id}`);
-    $("#detail").textContent = JSON.stringify(data, null, 2);
+    const load = async () => {
+        const data = await api.get(`/applications/${id}`);
+        $("#detail").textContent = JSON.stringify(data, null, 2);
+        return data;
+    };
+    const data = await load();
+
+    // Chỉ tải lại khi có sự kiện của chính hồ sơ này (score mới / consent đổi)
+    const events = new EventSource("/applications/events");
+    const payload = e => JSON.parse(e.data).data;
+    events.addEventListener("score-saved", e => {
+        if (payload(e).applicationId === id) load();
+    });
+    events.addEventListener("consent-changed", e => {
+        if (payload(e).consentId === data.consentId) load();
+    });
+    events.addEventListener("reset", () => load());
 })();
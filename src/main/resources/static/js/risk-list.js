@@ -8,31 +8,73 @@ const fmt = s => {
 
 const normalize = resp => (Array.isArray(resp) ? resp : (resp?.items || resp?.content || []));
 
-$("#btnLoad").onclick = async () => {
+const PAGE_SIZE = 50;
+let nextCursor = null;
+
+const rowHtml = x => {
+    const id = x.id || x.applicationId;
+    return `
+        <tr class="border-t" data-id="${id}">
+          <td>${x.referenceNo || ""}</td>
+          <td>${fmt(x.createdAt)}</td>
+          <td data-f="status">${x.status || ""}</td>
+          <td data-f="score">${x.score ?? ""}</td>
+          <td data-f="pd">${x.pd ?? ""}</td>
+          <td data-f="decision">${x.decision || ""}</td>
+          <td><a class="text-blue-600" href="/risk/detail?id=${id}">Xem</a></td>
+        </tr>`;
+};
+
+// Keyset paging: trang sau đi tiếp từ nextCursor của trang trước (không dùng page/offset)
+const loadPage = async append => {
     const params = new URLSearchParams();
     const status = $("#status").value;
     const q = $("#q").value;
     if (status) params.set("status", status);
     if (q) params.set("q", q);
+    params.set("size", PAGE_SIZE);
+    params.set("cursor", append && nextCursor ? nextCursor : "");
 
     const resp = await api.get(`/applications?${params}`);
     const items = normalize(resp);
+    nextCursor = resp?.nextCursor || null;
 
-    $("#rows").innerHTML = items
-        .map(x => {
-            const id = x.id || x.applicationId;
-            return `
-        <tr class="border-t">
-          <td>${x.referenceNo || ""}</td>
-          <td>${fmt(x.createdAt)}</td>
-          <td>${x.status || ""}</td>
-          <td>${x.score ?? ""}</td>
-          <td>${x.pd ?? ""}</td>
-          <td>${x.decision || ""}</td>
-          <td><a class="text-blue-600" href="/risk/detail?id=${id}">Xem</a></td>
-        </tr>`;
-        })
-        .join("");
+    const html = items.map(rowHtml).join("");
+    if (append) {
+        $("#rows").insertAdjacentHTML("beforeend", html);
+    } else {
+        $("#rows").innerHTML = html;
+    }
+    $("#btnMore").classList.toggle("hidden", !nextCursor);
 };
 
+$("#btnLoad").onclick = () => loadPage(false);
+$("#btnMore").onclick = () => loadPage(true);
+
+// Cập nhật từng dòng theo sự kiện SSE thay vì tải lại cả trang
+const rowOf = id => document.querySelector(`#rows tr[data-id="${id}"]`);
+
+const onCreated = async d => {
+    const status = $("#status").value;
+    if ($("#q").value || (status && status !== d.status) || rowOf(d.applicationId)) return;
+    const x = await api.get(`/applications/${d.applicationId}`);
+    $("#rows").insertAdjacentHTML("afterbegin", rowHtml(x));
+};
+
+const onScored = d => {
+    const tr = rowOf(d.applicationId);
+    if (!tr) return;
+    tr.querySelector('[data-f="status"]').textContent = "SCORED";
+    tr.querySelector('[data-f="score"]').textContent = d.score ?? "";
+    tr.querySelector('[data-f="pd"]').textContent = d.pd ?? "";
+    tr.querySelector('[data-f="decision"]').textContent = d.decision || "";
+};
+
+// EventSource tự kết nối lại và gửi Last-Event-ID; "reset" = đã lỡ quá nhiều sự kiện
+const events = new EventSource("/applications/events");
+const payload = e => JSON.parse(e.data).data;
+events.addEventListener("application-created", e => onCreated(payload(e)).catch(console.error));
+events.addEventListener("score-saved", e => onScored(payload(e)));
+events.addEventListener("reset", () => loadPage(false));
+
 $("#btnLoad").click();
@@ -0,0 +1,155 @@
+package com.demo.credit.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.demo.credit.config.AdmissionLimiter.Outcome.COMPLETED;
+import static com.demo.credit.config.AdmissionLimiter.Outcome.OVERLOAD;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionLimiterTest {
+
+    private static final long MS = 1_000_000L;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void limitGrowsWhileLatencyHoldsAndShrinksWhenItRises() {
+        AdmissionLimiter limiter = limiter("score", 20, 0, Duration.ZERO);
+
+        saturate(limiter, 200, 20 * MS);
+        int grown = limiter.limit();
+        assertTrue(grown > 20, "limit " + grown);
+
+        // Model chậm đi 5 lần
+        saturate(limiter, 100, 100 * MS);
+        assertTrue(limiter.limit() < grown / 2, "limit " + limiter.limit());
+        assertEquals(limiter.limit(), (int) registry.get("credit.admission.limit").tag("class", "score").gauge().value());
+    }
+
+    @Test
+    void overloadResponsesBackOffMultiplicatively() {
+        AdmissionLimiter limiter = limiter("score", 20, 0, Duration.ZERO);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(MS, OVERLOAD);
+        }
+        assertEquals(11, limiter.limit()); // 20 × 0.9^5
+    }
+
+    @Test
+    void overLimitWaitsInShortQueueThenRejects() throws Exception {
+        AdmissionLimiter limiter = limiter("score", 1, 1, Duration.ofSeconds(5));
+        assertTrue(limiter.tryAcquire());
+
+        CompletableFuture<Boolean> waiter = CompletableFuture.supplyAsync(limiter::tryAcquire);
+        while (limiter.queued() == 0) Thread.onSpinWait();
+        // Hàng đợi (1 chỗ) đã đầy → từ chối ngay
+        assertFalse(limiter.tryAcquire());
+        assertEquals(1.0, registry.get("credit.admission.rejected").tag("reason", "queue_full").counter().count());
+
+        limiter.release(10 * MS, COMPLETED);
+        assertTrue(waiter.get(5, TimeUnit.SECONDS));
+        assertEquals(1, limiter.inFlight());
+        assertEquals(0, limiter.queued());
+    }
+
+    @Test
+    void filterShedsOnlyTheSaturatedClassWith429AndRetryAfter() throws Exception {
+        AdmissionLimiter score = limiter("score", 1, 0, Duration.ZERO);
+        AdmissionLimiter scoreBatch = limiter("score-batch", 1, 0, Duration.ZERO);
+        AdmissionLimiter applications = limiter("applications", 1, 0, Duration.ZERO);
+        AdmissionLimiter applicationWrites = limiter("applications-write", 1, 0, Duration.ZERO);
+        AdmissionFilter filter = new AdmissionFilter(score, scoreBatch, applications, applicationWrites,
+                new ObjectMapper().registerModule(new JavaTimeModule()));
+        assertTrue(score.tryAcquire()); // một lần chấm điểm đang treo
+
+        MockHttpServletResponse rejected = run(filter, "POST", "/score/" + UUID.randomUUID());
+        assertEquals(429, rejected.getStatus());
+        assertNotNull(rejected.getHeader("Retry-After"));
+        assertTrue(rejected.getContentAsString().contains("\"status\":429"));
+
+        assertEquals(200, run(filter, "POST", "/score/batch").getStatus());
+        assertEquals(200, run(filter, "GET", "/applications").getStatus());
+        assertEquals(200, run(filter, "POST", "/applications").getStatus());
+        assertEquals(200, run(filter, "GET", "/consents/c-1").getStatus());
+        assertEquals(200, run(filter, "GET", "/applications/events").getStatus());
+        assertEquals(0, applications.inFlight());
+
+        // Lô chấm điểm và ghi hồ sơ có lớp riêng: đầy lớp nào thì chỉ lớp đó bị từ chối
+        assertTrue(scoreBatch.tryAcquire());
+        assertTrue(applicationWrites.tryAcquire());
+        assertEquals(429, run(filter, "POST", "/score/batch").getStatus());
+        assertEquals(429, run(filter, "POST", "/applications").getStatus());
+        assertEquals(200, run(filter, "GET", "/applications").getStatus());
+    }
+
+    @Test
+    void startupRejectsAdmissionBudgetThatUsesAllTomcatThreads() {
+        Map<String, AdmissionProperties> classes = new LinkedHashMap<>();
+        classes.put("score", props(60, 10));
+        classes.put("applications", props(100, 30));
+
+        AdmissionConfig.checkThreadBudget(classes, 201);
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> AdmissionConfig.checkThreadBudget(classes, 200));
+        assertTrue(ex.getMessage().contains("applications=130"));
+    }
+
+    private static AdmissionProperties props(int maxLimit, int queue) {
+        AdmissionProperties props = new AdmissionProperties();
+        props.setMaxLimit(maxLimit);
+        props.setQueueSize(queue);
+        return props;
+    }
+
+    private AdmissionLimiter limiter(String name, int initial, int queue, Duration maxWait) {
+        AdmissionProperties props = new AdmissionProperties();
+        props.setInitialLimit(initial);
+        props.setMinLimit(1);
+        props.setMaxLimit(100);
+        props.setQueueSize(queue);
+        props.setMaxWait(maxWait);
+        return new AdmissionLimiter(name, props, registry);
+    }
+
+    // Giữ limiter ở mức sử dụng đầy rồi trả từng request với cùng latency
+    private static void saturate(AdmissionLimiter limiter, int samples, long rttNanos) {
+        for (int i = 0; i < samples; i++) {
+            while (limiter.inFlight() < limiter.limit()) limiter.tryAcquire();
+            limiter.release(rttNanos, COMPLETED);
+        }
+        while (limiter.inFlight() > 0) limiter.release(0, AdmissionLimiter.Outcome.IGNORE);
+    }
+
+    private static MockHttpServletResponse run(AdmissionFilter filter, String method, String path) throws Exception {
+        var response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest(method, path), response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse res) {
+                res.setStatus(200);
+            }
+        }));
+        return response;
+    }
+}
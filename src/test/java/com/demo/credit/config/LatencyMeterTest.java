@@ -0,0 +1,26 @@
+package com.demo.credit.config;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LatencyMeterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void failuresAreTimedUnderTheirOwnOutcome() {
+        var meter = new LatencyMeter(registry, "credit.test", "test", Tags.of("step", "a"));
+
+        meter.success(meter.start());
+        meter.failure(meter.start(), new IllegalStateException("boom"));
+        meter.failure(meter.start(), new IllegalStateException("boom"));
+
+        assertEquals(1, registry.get("credit.test").tag("outcome", "ok").timer().count());
+        assertEquals(2, registry.get("credit.test").tag("outcome", "error").timer().count());
+        assertEquals(2, registry.get("credit.test.errors").tag("cause", "IllegalStateException").counter().count());
+        assertEquals(0, meter.inFlight());
+    }
+}
@@ -0,0 +1,128 @@
+package com.demo.credit.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.demo.credit.config.DataSourceRouting.Route.PRIMARY;
+import static com.demo.credit.config.DataSourceRouting.Route.REPLICA;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RoutingDataSourceTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RoutingDataSource routing = new RoutingDataSource(new HikariDataSource(), new HikariDataSource(),
+            registry, Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC));
+    private final ReadYourWritesFilter filter = new ReadYourWritesFilter(Duration.ofSeconds(5));
+    private final List<Object> routes = new ArrayList<>();
+
+    @Test
+    void readOnlyQueriesGoToReplicaAndEverythingElseToPrimary() {
+        assertEquals(REPLICA, DataSourceRouting.readOnly(routing::determineCurrentLookupKey));
+        assertEquals(PRIMARY, routing.determineCurrentLookupKey());
+        assertEquals(1.0, registry.get("credit.db.route").tags("pool", "replica", "reason", "read").counter().count());
+        assertNotNull(registry.get("credit.db.pool.utilization").tag("pool", "replica").gauge());
+    }
+
+    @Test
+    void writeInRequestPinsLaterReadsAndSetsSessionCookie() throws Exception {
+        var response = new MockHttpServletResponse();
+        run("POST", response, () -> {
+            routes.add(DataSourceRouting.readOnly(routing::determineCurrentLookupKey));
+            routes.add(routing.determineCurrentLookupKey()); // sp_SaveScore
+            routes.add(DataSourceRouting.readOnly(routing::determineCurrentLookupKey));
+        });
+
+        assertEquals(List.of(REPLICA, PRIMARY, PRIMARY), routes);
+        Cookie pin = response.getCookie(DataSourceRouting.PIN_COOKIE);
+        assertNotNull(pin);
+        assertEquals(NOW + 5_000, Long.parseLong(pin.getValue()));
+    }
+
+    @Test
+    void sessionReadsPrimaryOnlyWithinWindow() throws Exception {
+        runGetWithPin(NOW + 2_000);
+        runGetWithPin(NOW - 1);
+
+        assertEquals(List.of(PRIMARY, REPLICA), routes);
+    }
+
+    @Test
+    void safeRequestsNeverPinEvenWhenTheyTouchPrimary() throws Exception {
+        var response = new MockHttpServletResponse();
+        run("GET", response, () -> {
+            routes.add(routing.determineCurrentLookupKey());
+            routes.add(DataSourceRouting.readOnly(routing::determineCurrentLookupKey));
+        });
+
+        assertEquals(List.of(PRIMARY, REPLICA), routes);
+        assertNull(response.getCookie(DataSourceRouting.PIN_COOKIE));
+    }
+
+    @Test
+    void missOnReplicaIsRetriedOnPrimary() {
+        Optional<Object> found = DataSourceRouting.readOnly(() -> {
+            Object route = routing.determineCurrentLookupKey();
+            routes.add(route);
+            return route == REPLICA ? Optional.empty() : Optional.of(route);
+        }, Optional::isEmpty);
+
+        assertEquals(List.of(REPLICA, PRIMARY), routes);
+        assertEquals(Optional.of(PRIMARY), found);
+    }
+
+    @Test
+    void withoutReplicaEverythingUsesPrimaryWithoutRetry() {
+        // Registry riêng: gauge trùng tên/tag trên registry dùng chung sẽ vẫn trỏ vào pool của routing
+        var singleRegistry = new SimpleMeterRegistry();
+        var single = new RoutingDataSource(new HikariDataSource(), null, singleRegistry);
+        Optional<Object> found = DataSourceRouting.readOnly(() -> {
+            routes.add(single.determineCurrentLookupKey());
+            return Optional.empty();
+        }, Optional::isEmpty);
+
+        assertEquals(List.of(PRIMARY), routes);
+        assertEquals(Optional.empty(), found);
+        assertNull(singleRegistry.find("credit.db.pool.utilization").tag("pool", "replica").gauge());
+    }
+
+    private void runGetWithPin(long pinnedUntil) throws Exception {
+        var request = new MockHttpServletRequest("GET", "/applications/x");
+        request.setCookies(new Cookie(DataSourceRouting.PIN_COOKIE, Long.toString(pinnedUntil)));
+        run(request, new MockHttpServletResponse(),
+                () -> routes.add(DataSourceRouting.readOnly(routing::determineCurrentLookupKey)));
+    }
+
+    private void run(String method, MockHttpServletResponse response, Runnable body) throws Exception {
+        run(new MockHttpServletRequest(method, "/score/x"), response, body);
+    }
+
+    private void run(MockHttpServletRequest request, MockHttpServletResponse response, Runnable body)
+            throws Exception {
+        filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse res) {
+                body.run();
+            }
+        }));
+    }
+}
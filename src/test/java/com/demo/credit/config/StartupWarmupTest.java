@@ -0,0 +1,71 @@
+package com.demo.credit.config;
+
+import com.demo.credit.controller.ScoreController;
+import com.demo.credit.controller.ViewController;
+import com.demo.credit.repository.ProcedureRegistry;
+import com.demo.credit.service.ModelClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StartupWarmupTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void warmsPoolsProceduresAndModelAndToleratesFailures() throws Exception {
+        Connection connection = mock(Connection.class);
+        HikariDataSource primary = mock(HikariDataSource.class);
+        when(primary.getConnection()).thenReturn(connection);
+        HikariDataSource replica = mock(HikariDataSource.class);
+        when(replica.getConnection()).thenThrow(new SQLException("replica down"));
+        ProcedureRegistry procedures = mock(ProcedureRegistry.class);
+        when(procedures.warmUp()).thenReturn(12);
+        ModelClient model = mock(ModelClient.class);
+        when(model.checkHealth()).thenReturn("v1");
+
+        new StartupWarmup(List.of(primary, replica), procedures, model, registry, Duration.ofSeconds(5))
+                .run(new DefaultApplicationArguments());
+
+        verify(connection).close();
+        verify(procedures).warmUp();
+        verify(model).checkHealth();
+        verify(model, never()).callScore(any());
+        assertEquals(1, count("datasource", "error"));
+        assertEquals(1, count("procedures", "ok"));
+        assertEquals(1, count("model", "ok"));
+    }
+
+    @Test
+    void applicationBeansStayEagerUnderLazyInitialization() {
+        LazyInitializationExcludeFilter filter = FastStartConfig.applicationBeansEager();
+
+        assertTrue(filter.isExcluded("scoreController", new RootBeanDefinition(), ScoreController.class));
+        assertTrue(filter.isExcluded("admissionFilter", new RootBeanDefinition(), AdmissionFilter.class));
+        assertFalse(filter.isExcluded("viewController", new RootBeanDefinition(), ViewController.class));
+        assertFalse(filter.isExcluded("creditOpenAPI", new RootBeanDefinition(), OpenApiConfig.class));
+        assertFalse(filter.isExcluded("objectMapper", new RootBeanDefinition(), ObjectMapper.class));
+    }
+
+    private long count(String step, String outcome) {
+        return registry.get("credit.startup.warmup").tag("step", step).tag("outcome", outcome).timer().count();
+    }
+}
@@ -0,0 +1,125 @@
+package com.demo.credit.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryRepositoriesTest {
+
+    private final InMemoryStore store = new InMemoryStore();
+    private final InMemoryApplicantRepository applicants = new InMemoryApplicantRepository(store);
+    private final InMemoryConsentRepository consents = new InMemoryConsentRepository(store);
+    private final InMemoryApplicationRepository applications = new InMemoryApplicationRepository(store);
+    private final InMemoryScoreRepository scores = new InMemoryScoreRepository(store);
+
+    @Test
+    void keysetPagesCoverEveryRowOnceInListOrder() {
+        UUID alice = applicants.createApplicant("Alice Nguyen", "alice@example.test", "0901", null, null);
+        UUID bob = applicants.createApplicant("Bob Tran", "bob@example.test", "0902", null, null);
+        for (int i = 0; i < 7; i++) applications.create(i % 2 == 0 ? alice : bob, "c" + i);
+
+        List<UUID> seen = new ArrayList<>();
+        ApplicationRepository.ListCursor after = null;
+        do {
+            var page = applications.listAfter(null, null, after, 3);
+            page.items().forEach(x -> seen.add(x.applicationId()));
+            after = page.nextCursor() == null ? null : ApplicationRepository.ListCursor.decode(page.nextCursor());
+        } while (after != null);
+
+        assertEquals(7, seen.size());
+        assertEquals(7, new HashSet<>(seen).size());
+        assertEquals(applications.list(null, null, 1, 100).stream().map(x -> x.applicationId()).toList(), seen);
+        assertEquals(4, applications.listAfter(null, "ALICE", null, 10).items().size());
+        assertEquals(3, applications.list(null, "bob@", 1, 10).size());
+    }
+
+    @Test
+    void bulkCreateMatchesExistingApplicantsByNationalIdOrEmail() {
+        UUID known = applicants.createApplicant("Alice", "alice@example.test", null, "123456789", null);
+        var rows = List.of(
+                new ApplicantRepository.NewApplicant("Alice N.", "other@example.test", null, "123456789", null),
+                new ApplicantRepository.NewApplicant("Alice", "alice@example.test", null, null, null),
+                new ApplicantRepository.NewApplicant("Bob", "alice@example.test", null, "987654321", null),
+                new ApplicantRepository.NewApplicant("Bob", null, null, "987654321", null));
+
+        List<ApplicantRepository.Created> created = applicants.createApplicants(rows);
+
+        assertEquals(new ApplicantRepository.Created(known, true), created.get(0));
+        assertEquals(new ApplicantRepository.Created(known, true), created.get(1));
+        // national_id mới → người vay mới dù email đã có; dòng sau trùng national_id của nó trong cùng lô
+        assertFalse(created.get(2).existing());
+        assertEquals(new ApplicantRepository.Created(created.get(2).applicantId(), true), created.get(3));
+        assertEquals(2, store.applicants.size());
+    }
+
+    @Test
+    void savingScoreMarksApplicationScoredAndShowsInDetail() {
+        UUID applicant = applicants.createApplicant("Alice", null, null, null, null);
+        consents.upsert("c1", applicant, "{}", LocalDateTime.now().plusDays(1), "ACTIVE", "tx1", "");
+        consents.upsert("c2", applicant, "{}", LocalDateTime.now().minusDays(1), "ACTIVE", "tx2", "");
+        consents.upsert("c3", applicant, "{}", null, "ACTIVE", "tx3", "");
+        UUID app = applications.create(applicant, "c1");
+
+        assertTrue(consents.findActive("c1").isPresent());
+        assertFalse(consents.findActive("c2").isPresent());
+        assertFalse(consents.findActive("c3").isPresent());
+        assertNull(applications.detail(app).orElseThrow().score());
+
+        scores.saveScore(app, "c1", "tx1", "v1", "s1", 720, 0.02, "approve", "[]");
+        var detail = applications.detail(app).orElseThrow();
+        assertEquals("SCORED", detail.status());
+        assertEquals(720, detail.score());
+        assertEquals("APPROVE", detail.decision());
+        assertEquals("ACTIVE", detail.consentStatus());
+        assertEquals(1, applications.listAfter("SCORED", null, null, 10).items().size());
+    }
+
+    @Test
+    void saveScoresReportsOnlyRowsThatWereNotSaved() {
+        UUID applicant = applicants.createApplicant("Alice", null, null, null, null);
+        UUID app = applications.create(applicant, "c1");
+        var ok = new ScoreRepository.ScoreWrite(app, "c1", "tx", "v1", "s1", 700, 0.05, "REVIEW", "[]");
+        var missing = new ScoreRepository.ScoreWrite(UUID.randomUUID(), "c1", "tx", "v1", "s1", 700, 0.05,
+                "REVIEW", "[]");
+
+        Map<Integer, String> failed = scores.saveScores(List.of(ok, missing, ok), 2);
+
+        assertEquals(Set.of(1), failed.keySet());
+        List<ScoreRepository.ExportRow> rows = new ArrayList<>();
+        scores.forEachScore(new ScoreRepository.ExportFilter(null, null, null, null, 0), 100, rows::add);
+        assertEquals(2, rows.size());
+    }
+
+    @Test
+    void journaledWritesApplyOnceAndExportInScoredOrder() {
+        UUID applicant = applicants.createApplicant("Alice", null, null, null, null);
+        UUID app = applications.create(applicant, "c1");
+        var write = new ScoreRepository.ScoreWrite(app, "c1", "tx", "v1", "s1", 700, 0.05, "REVIEW", "[]");
+        var j1 = new ScoreRepository.JournaledWrite(UUID.randomUUID(), write);
+        var j2 = new ScoreRepository.JournaledWrite(UUID.randomUUID(), write);
+
+        scores.saveJournaled(List.of(j1, j2), 10);
+        scores.saveJournaled(List.of(j1), 10); // replay sau crash
+
+        List<ScoreRepository.ExportRow> rows = new ArrayList<>();
+        scores.forEachScore(new ScoreRepository.ExportFilter(null, null, null, null, 0), 100, rows::add);
+        assertEquals(2, rows.size());
+        assertFalse(rows.get(1).scoredAt().isBefore(rows.get(0).scoredAt()));
+
+        Set<UUID> resumed = new HashSet<>();
+        scores.forEachScore(new ScoreRepository.ExportFilter(null, null, "v1", rows.get(0).cursor(), 0), 100,
+                r -> resumed.add(r.scoreId()));
+        assertEquals(Set.of(rows.get(1).scoreId()), resumed);
+    }
+}
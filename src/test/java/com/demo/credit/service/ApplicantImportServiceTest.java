@@ -0,0 +1,171 @@
+package com.demo.credit.service;
+
+import com.demo.credit.repository.ApplicantRepository;
+import com.demo.credit.repository.ApplicantRepository.Created;
+import com.demo.credit.repository.ApplicantRepository.NewApplicant;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ApplicantImportServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private final List<List<NewApplicant>> loaded = new ArrayList<>();
+    private final ApplicantRepository repo = mock(ApplicantRepository.class);
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private final ApplicantImportService service = new ApplicantImportService(repo,
+            mock(ApplicationSearchIndex.class), executor, new SimpleMeterRegistry());
+
+    ApplicantImportServiceTest() {
+        when(repo.createApplicants(anyList())).thenAnswer(inv -> {
+            List<NewApplicant> rows = List.copyOf(inv.getArgument(0));
+            loaded.add(rows);
+            return rows.stream().map(r -> new Created(
+                    UUID.nameUUIDFromBytes(r.fullName().getBytes(StandardCharsets.UTF_8)), false)).toList();
+        });
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+        ReflectionTestUtils.setField(service, "validateBatch", 2);
+        ReflectionTestUtils.setField(service, "threads", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void importsValidRowsInChunksAndReportsRejectsInFileOrder() throws Exception {
+        String csv = "\uFEFFuser_id,Full_Name,email,phone,national_id,address,age\r\n"
+                + "U1,Vũ Trung,VU@Example.com,0912 345 678,012345678901,\"12 Lê Lợi, Q1\",58\r\n"
+                + "U2,,a@b.vn,,,,30\r\n"
+                + "U3,Đỗ Trang,not-an-email,,,,22\n"
+                + "U4,\"Lê \"\"Bé\"\" An\",,,123456789,\"dòng 1\ndòng 2\",41\n"
+                + "\n"
+                + "U5,Trần Bình,,,,,33,extra\n"
+                + "U6,Phạm Chi,,+84901234567,,,29\n";
+        Path report = dir.resolve("report.csv");
+
+        var summary = service.importCsv("t1", new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), report);
+
+        assertEquals(6, summary.rows());
+        assertEquals(3, summary.imported());
+        assertEquals(3, summary.rejected());
+        // chunk-size = 2 → các dòng hợp lệ được nạp thành nhiều lô
+        assertEquals(2, loaded.size());
+        NewApplicant first = loaded.get(0).get(0);
+        assertEquals(new NewApplicant("Vũ Trung", "vu@example.com", "0912345678", "012345678901", "12 Lê Lợi, Q1"),
+                first);
+        assertEquals("Lê \"Bé\" An", loaded.get(0).get(1).fullName());
+        assertEquals("dòng 1\ndòng 2", loaded.get(0).get(1).address());
+
+        List<String> lines = Files.readAllLines(report, StandardCharsets.UTF_8);
+        assertEquals(ApplicantImportService.REPORT_HEADER, lines.get(0));
+        assertEquals("2,U1,IMPORTED," + UUID.nameUUIDFromBytes("Vũ Trung".getBytes(StandardCharsets.UTF_8)) + ",",
+                lines.get(1));
+        assertEquals("3,U2,REJECTED,,full_name is required", lines.get(2));
+        assertEquals("4,U3,REJECTED,,invalid email", lines.get(3));
+        assertTrue(lines.get(4).startsWith("5,U4,IMPORTED,"));
+        // Bản ghi U4 chiếm 2 dòng vật lý, dòng trống bị bỏ qua
+        assertEquals("8,U5,REJECTED,,\"expected 7 columns, got 8\"", lines.get(5));
+        assertTrue(lines.get(6).startsWith("9,U6,IMPORTED,"));
+    }
+
+    @Test
+    void failedChunkIsReportedAndLaterChunksStillLoad() throws Exception {
+        when(repo.createApplicants(anyList()))
+                .thenThrow(new IllegalStateException("deadlock victim"))
+                .thenAnswer(inv -> ((List<?>) inv.getArgument(0)).stream()
+                        .map(r -> new Created(UUID.randomUUID(), false)).toList());
+        String csv = "full_name\nA\nB\nC\n";
+        Path report = dir.resolve("r.csv");
+
+        var summary = service.importCsv("t2", new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), report);
+
+        assertEquals(1, summary.imported());
+        assertEquals(2, summary.rejected());
+        List<String> lines = Files.readAllLines(report, StandardCharsets.UTF_8);
+        assertEquals("2,,REJECTED,,load failed: deadlock victim", lines.get(1));
+        assertTrue(lines.get(3).startsWith("4,,IMPORTED,"));
+    }
+
+    @Test
+    void rowsMatchingAnExistingApplicantAreReportedAsDuplicate() throws Exception {
+        UUID existing = UUID.randomUUID();
+        when(repo.createApplicants(anyList())).thenAnswer(inv -> ((List<NewApplicant>) inv.getArgument(0)).stream()
+                .map(r -> "123456789".equals(r.nationalId()) ? new Created(existing, true)
+                        : new Created(UUID.randomUUID(), false))
+                .toList());
+        ApplicationSearchIndex index = mock(ApplicationSearchIndex.class);
+        ReflectionTestUtils.setField(service, "searchIndex", index);
+        String csv = "full_name,national_id\nA,123456789\nB,987654321\n";
+        Path report = dir.resolve("d.csv");
+
+        var summary = service.importCsv("t4", new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), report);
+
+        assertEquals(1, summary.imported());
+        assertEquals(1, summary.duplicate());
+        assertEquals(0, summary.rejected());
+        List<String> lines = Files.readAllLines(report, StandardCharsets.UTF_8);
+        assertEquals("2,,DUPLICATE," + existing + ",", lines.get(1));
+        assertTrue(lines.get(2).startsWith("3,,IMPORTED,"));
+        // Chỉ người vay mới tạo được đưa vào chỉ mục tìm kiếm
+        verify(index).applicantsCreated(argThat(ids -> ids.size() == 1 && !ids.contains(existing)),
+                argThat(rows -> rows.size() == 1 && "B".equals(rows.get(0).fullName())));
+    }
+
+    @Test
+    void chunkRejectedByTheDatabaseIsSplitUntilOnlyTheBadRowFails() throws Exception {
+        ReflectionTestUtils.setField(service, "chunkSize", 8);
+        doAnswer(inv -> {
+            List<NewApplicant> rows = List.copyOf(inv.getArgument(0));
+            loaded.add(rows);
+            if (rows.stream().anyMatch(r -> "Bad".equals(r.fullName()))) {
+                throw new DataIntegrityViolationException("CK_Applicants_Name");
+            }
+            return rows.stream().map(r -> new Created(UUID.randomUUID(), false)).toList();
+        }).when(repo).createApplicants(anyList());
+        String csv = "full_name\nA\nB\nC\nBad\nE\nF\nG\n";
+        Path report = dir.resolve("b.csv");
+
+        var summary = service.importCsv("t5", new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), report);
+
+        assertEquals(6, summary.imported());
+        assertEquals(1, summary.rejected());
+        List<String> lines = Files.readAllLines(report, StandardCharsets.UTF_8);
+        assertEquals("5,,REJECTED,,load failed: CK_Applicants_Name", lines.get(4));
+        for (int i : new int[]{1, 2, 3, 5, 6, 7}) assertTrue(lines.get(i).contains(",IMPORTED,"), lines.get(i));
+        // 7 dòng → [A B C] + [Bad E F G] → [Bad E] + [F G] → [Bad] + [E]
+        assertEquals(List.of(7, 3, 4, 2, 1, 1, 2), loaded.stream().map(List::size).toList());
+    }
+
+    @Test
+    void rejectsFileWithoutNameColumn() {
+        var in = new ByteArrayInputStream("email,phone\na@b.vn,0912345678\n".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IllegalArgumentException.class, () -> service.importCsv("t3", in, dir.resolve("x.csv")));
+    }
+}
@@ -0,0 +1,120 @@
+package com.demo.credit.service;
+
+import com.demo.credit.repository.ApplicationRepository;
+import com.demo.credit.repository.ApplicationRepository.ApplicationDetail;
+import com.demo.credit.repository.ScoreRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.support.ExecutorServiceAdapter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ApplicationDetailCacheTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2025, 1, 1, 8, 0);
+
+    private final ApplicationRepository repo = mock(ApplicationRepository.class);
+    private final ApplicationDetailCache cache = new ApplicationDetailCache(repo,
+            new ExecutorServiceAdapter(new SyncTaskExecutor()), new SimpleMeterRegistry(), Clock.systemUTC());
+
+    @Test
+    void servesRepeatReadsFromMemoryAndAppliesWritesInPlace() {
+        UUID id = UUID.randomUUID();
+        when(repo.detail(id)).thenReturn(Optional.of(detail(id, "c1", null, null)));
+
+        cache.get(id);
+        cache.get(id);
+        verify(repo, times(1)).detail(id);
+
+        cache.scoreWritten(write(id, "c1", 715), false);
+        var scored = cache.get(id).orElseThrow();
+        assertEquals("SCORED", scored.status());
+        assertEquals(715, scored.score());
+        assertEquals("APPROVE", scored.decision());
+        assertEquals("tx-c1", scored.txHash());
+
+        LocalDateTime expiry = LocalDateTime.of(2026, 1, 1, 0, 0);
+        cache.consentChanged("c1", "REVOKED", expiry, "tx-revoke");
+        var revoked = cache.get(id).orElseThrow();
+        assertEquals("REVOKED", revoked.consentStatus());
+        assertEquals(expiry, revoked.consentExpiry());
+        assertEquals(715, revoked.score());
+
+        verify(repo, times(1)).detail(id);
+        assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    void storedScoreIsReconciledWithDatabaseRow() {
+        UUID id = UUID.randomUUID();
+        UUID scoreId = UUID.randomUUID();
+        when(repo.detail(id)).thenReturn(Optional.of(detail(id, "c1", null, null)));
+        cache.get(id);
+
+        when(repo.detail(id)).thenReturn(Optional.of(detail(id, "c1", scoreId, 702)));
+        cache.scoreWritten(write(id, "c1", 702), true);
+        // Bản patch trả ngay (chưa có scoreId), đồng thời lên lịch nạp lại
+        assertNull(cache.get(id).orElseThrow().scoreId());
+        assertEquals(scoreId, cache.get(id).orElseThrow().scoreId());
+        verify(repo, times(2)).detail(id);
+    }
+
+    @Test
+    void missingApplicationsAreNotCachedAndBudgetIsEnforced() {
+        UUID missing = UUID.randomUUID();
+        when(repo.detail(missing)).thenReturn(Optional.empty());
+        cache.get(missing);
+        cache.get(missing);
+        verify(repo, times(2)).detail(missing);
+
+        when(repo.detail(any())).thenAnswer(inv -> Optional.of(detail(inv.getArgument(0), "c", null, null)));
+        ReflectionTestUtils.setField(cache, "maxMemory", DataSize.ofBytes(3_000));
+        for (int i = 0; i < 20; i++) {
+            cache.get(UUID.randomUUID());
+        }
+        assertTrue(cache.weightBytes() <= 3_000, "weight " + cache.weightBytes());
+        assertTrue(cache.evictionCount() > 0);
+    }
+
+    @Test
+    void clockKeepsEntriesThatAreReadBetweenSweeps() {
+        when(repo.detail(any())).thenAnswer(inv -> Optional.of(detail(inv.getArgument(0), "c", null, null)));
+        ReflectionTestUtils.setField(cache, "maxSize", 8);
+        UUID hot = UUID.randomUUID();
+        cache.get(hot);
+        for (int i = 0; i < 200; i++) {
+            cache.get(UUID.randomUUID());
+            cache.get(hot);
+        }
+
+        assertTrue(cache.evictionCount() >= 190, "evictions " + cache.evictionCount());
+        verify(repo, times(1)).detail(hot);
+    }
+
+    private static ApplicationDetail detail(UUID id, String consentId, UUID scoreId, Integer score) {
+        return new ApplicationDetail(id, "APP-20250101-000001", score == null ? "CREATED" : "SCORED", CREATED,
+                UUID.randomUUID(), consentId, scoreId, score, score == null ? null : 0.05,
+                score == null ? null : "APPROVE", null, null, null, null, null,
+                "ACTIVE", null, "tx-" + consentId);
+    }
+
+    private static ScoreRepository.ScoreWrite write(UUID id, String consentId, int score) {
+        return new ScoreRepository.ScoreWrite(id, consentId, "tx-" + consentId, "v1", "fs1",
+                score, 0.05, "approve", "[]");
+    }
+}
@@ -0,0 +1,185 @@
+package com.demo.credit.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ApplicationEventBusTest {
+
+    private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(2);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<RecordingEmitter> emitters = new ArrayList<>();
+    private RecordingEmitter.Mode nextMode = RecordingEmitter.Mode.NORMAL;
+    private final CountDownLatch releaseSlow = new CountDownLatch(1);
+
+    private final ApplicationEventBus bus = new ApplicationEventBus(executor, registry) {
+        @Override
+        SseEmitter newEmitter() {
+            RecordingEmitter e = new RecordingEmitter(nextMode, releaseSlow);
+            emitters.add(e);
+            return e;
+        }
+    };
+
+    @AfterEach
+    void tearDown() {
+        releaseSlow.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void publishFansOutToEverySubscriberInOrder() {
+        bus.subscribe(null);
+        bus.subscribe(null);
+        bus.subscribe(null);
+
+        bus.publish(ApplicationEventBus.APPLICATION_CREATED, Map.of("n", 1));
+        bus.publish(ApplicationEventBus.SCORE_SAVED, Map.of("n", 2));
+
+        for (RecordingEmitter e : emitters) {
+            await(() -> e.events().size() == 2);
+            assertEquals(List.of(ApplicationEventBus.APPLICATION_CREATED, ApplicationEventBus.SCORE_SAVED),
+                    e.events());
+        }
+        assertEquals(3, bus.subscriberCount());
+    }
+
+    @Test
+    void subscriberIsRemovedOnCompletionTimeoutAndError() {
+        bus.subscribe(null);
+        bus.subscribe(null);
+        bus.subscribe(null);
+        assertEquals(3, bus.subscriberCount());
+
+        emitters.get(0).completion.run();
+        emitters.get(1).timeout.run();
+        emitters.get(2).error.accept(new IOException("broken pipe"));
+
+        assertEquals(0, bus.subscriberCount());
+    }
+
+    @Test
+    void failedSendDropsTheSubscriber() {
+        nextMode = RecordingEmitter.Mode.FAILING;
+        RecordingEmitter broken = (RecordingEmitter) bus.subscribe(null);
+
+        bus.publish(ApplicationEventBus.APPLICATION_CREATED, Map.of());
+
+        await(() -> bus.subscriberCount() == 0);
+        assertTrue(broken.completed);
+    }
+
+    @Test
+    void slowSubscriberIsDisconnectedWithoutBlockingPublishers() {
+        ReflectionTestUtils.setField(bus, "bufferSize", 4);
+        nextMode = RecordingEmitter.Mode.BLOCKING;
+        RecordingEmitter slow = (RecordingEmitter) bus.subscribe(null);
+        nextMode = RecordingEmitter.Mode.NORMAL;
+        RecordingEmitter fast = (RecordingEmitter) bus.subscribe(null);
+
+        long publishNanos = 0;
+        for (int i = 0; i < 50; i++) {
+            long start = System.nanoTime();
+            bus.publish(ApplicationEventBus.SCORE_SAVED, Map.of("n", i));
+            publishNanos += System.nanoTime() - start;
+            int sent = i + 1;
+            await(() -> fast.events().size() == sent);
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(publishNanos);
+
+        assertTrue(elapsedMs < 1000, "publish must not wait for a slow subscriber, took " + elapsedMs + "ms");
+        assertTrue(slow.completed);
+        assertEquals(1, bus.subscriberCount());
+        assertEquals(1.0, registry.counter("credit.events.subscribers.dropped").count());
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) throw new AssertionError("condition not met within 5s");
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(ex);
+            }
+        }
+    }
+
+    // Thay cho emitter gắn với response thật: ghi lại tên sự kiện, giữ callback để test gọi như container
+    private static final class RecordingEmitter extends SseEmitter {
+
+        enum Mode { NORMAL, BLOCKING, FAILING }
+
+        private final Mode mode;
+        private final CountDownLatch release;
+        private final List<String> events = new ArrayList<>();
+        private volatile boolean completed;
+        private Runnable completion = () -> { };
+        private Runnable timeout = () -> { };
+        private Consumer<Throwable> error = ex -> { };
+
+        RecordingEmitter(Mode mode, CountDownLatch release) {
+            this.mode = mode;
+            this.release = release;
+        }
+
+        synchronized List<String> events() {
+            return List.copyOf(events);
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (mode == Mode.FAILING) throw new IOException("client gone");
+            if (mode == Mode.BLOCKING) {
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            String text = builder.build().stream().map(d -> String.valueOf(d.getData())).reduce("", String::concat);
+            int at = text.indexOf("event:");
+            synchronized (this) {
+                events.add(text.substring(at + "event:".length(), text.indexOf('\n', at)));
+            }
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+            completion.run();
+        }
+
+        @Override
+        public synchronized void onCompletion(Runnable callback) {
+            completion = callback;
+        }
+
+        @Override
+        public synchronized void onTimeout(Runnable callback) {
+            timeout = callback;
+        }
+
+        @Override
+        public synchronized void onError(Consumer<Throwable> callback) {
+            error = callback;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.demo.credit.service;
+
+import com.demo.credit.repository.ApplicationRepository;
+import com.demo.credit.repository.ApplicationRepository.ApplicationListItem;
+import com.demo.credit.repository.ApplicationRepository.ListCursor;
+import com.demo.credit.repository.ApplicationRepository.ListRow;
+import com.demo.credit.repository.ApplicationRepository.ListRowHandler;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ApplicationListWriterTest {
+
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final ApplicationRepository repo = mock(ApplicationRepository.class);
+    // Chỉ mục chưa dựng (null) → đường LIKE
+    private final ApplicationSearchIndex searchIndex = mock(ApplicationSearchIndex.class, inv -> null);
+    private final ApplicationListWriter writer = new ApplicationListWriter(repo, searchIndex, mapper);
+
+    private final ApplicationListItem scored = new ApplicationListItem(UUID.randomUUID(), "APP-20250901-000123",
+            "SCORED", LocalDateTime.of(2025, 9, 1, 10, 30), UUID.randomUUID(), "c-1", 712, 0.0123, "APPROVE",
+            LocalDateTime.of(2025, 9, 1, 10, 31, 5, 120_000_000));
+    private final ApplicationListItem created = new ApplicationListItem(UUID.randomUUID(), "APP-20250901-000124",
+            "CREATED", LocalDateTime.of(2025, 9, 2, 0, 0, 0, 1_000), UUID.randomUUID(), "c-2", null, null, null,
+            null);
+
+    @Test
+    void pageModeMatchesJacksonSerializationOfEachRow() throws Exception {
+        doAnswer(inv -> {
+            ListRowHandler handler = inv.getArgument(4);
+            // SQL Server trả uniqueidentifier chữ hoa
+            handler.accept(upperCaseIds(ListRow.of(scored)));
+            handler.accept(ListRow.of(created));
+            return null;
+        }).when(repo).streamList(eq("SCORED"), isNull(), eq(1), eq(20), any());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeList("SCORED", null, 1, 20, out);
+
+        assertEquals(mapper.writeValueAsString(List.of(expected(scored), expected(created))),
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void keysetModeWritesItemsAndNextCursor() throws Exception {
+        ListCursor next = new ListCursor(created.createdAt(), created.applicationId());
+        when(repo.streamListAfter(isNull(), eq("APP"), isNull(), anyInt(), any())).thenAnswer(inv -> {
+            ListRowHandler handler = inv.getArgument(4);
+            handler.accept(ListRow.of(created));
+            return next;
+        });
+        when(repo.streamListAfter(isNull(), eq("none"), isNull(), anyInt(), any())).thenReturn(null);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writePage(null, "APP", null, 1, out);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("items", List.of(expected(created)));
+        body.put("nextCursor", next.encode());
+        assertEquals(mapper.writeValueAsString(body), out.toString(StandardCharsets.UTF_8));
+
+        out.reset();
+        writer.writePage(null, "none", null, 1, out);
+        assertEquals("{\"items\":[],\"nextCursor\":null}", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void indexedSearchReadsOnlyCandidatesAndSkipsEarlierPages() throws Exception {
+        List<UUID> hits = List.of(created.applicationId(), scored.applicationId());
+        when(searchIndex.search("000", null)).thenReturn(hits);
+        doAnswer(inv -> {
+            ListRowHandler handler = inv.getArgument(6);
+            handler.accept(ListRow.of(scored));
+            return null;
+        }).when(repo).streamListByIds(isNull(), eq("000"), eq(hits), isNull(), eq(1), eq(1), any());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeList(null, "000", 2, 1, out);
+
+        assertEquals(mapper.writeValueAsString(List.of(expected(scored))), out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void databaseErrorAfterFirstRowAbortsInsteadOfClosingTheJson() throws Exception {
+        doAnswer(inv -> {
+            ListRowHandler handler = inv.getArgument(4);
+            handler.accept(ListRow.of(scored));
+            throw new DataAccessResourceFailureException("connection reset");
+        }).when(repo).streamList(isNull(), isNull(), eq(1), eq(20), any());
+        when(repo.streamListAfter(isNull(), isNull(), isNull(), anyInt(), any()))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThrows(StreamAbortedException.class, () -> writer.writeList(null, null, 1, 20, out));
+        String sent = out.toString(StandardCharsets.UTF_8);
+        assertTrue(sent.startsWith("[{"), sent);
+        assertThrows(JsonProcessingException.class, () -> mapper.readTree(sent));
+
+        // Lỗi trước dòng đầu: chưa gửi gì → lỗi gốc, GlobalExceptionHandler trả 500 bình thường
+        out.reset();
+        assertThrows(DataAccessResourceFailureException.class, () -> writer.writePage(null, null, null, 20, out));
+    }
+
+    private static Map<String, Object> expected(ApplicationListItem x) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", x.applicationId());
+        row.put("applicationId", x.applicationId());
+        row.put("referenceNo", x.referenceNo());
+        row.put("status", x.status());
+        row.put("createdAt", x.createdAt());
+        row.put("applicantId", x.applicantId());
+        row.put("consentId", x.consentId());
+        row.put("score", x.score());
+        row.put("pd", x.pd());
+        row.put("decision", x.decision());
+        row.put("scoredAt", x.scoredAt());
+        return row;
+    }
+
+    private static ListRow upperCaseIds(ListRow r) {
+        return new ListRow() {
+            public String applicationId() { return r.applicationId().toUpperCase(); }
+            public String referenceNo() { return r.referenceNo(); }
+            public String status() { return r.status(); }
+            public LocalDateTime createdAt() { return r.createdAt(); }
+            public String applicantId() { return r.applicantId().toUpperCase(); }
+            public String consentId() { return r.consentId(); }
+            public boolean hasScore() { return r.hasScore(); }
+            public int score() { return r.score(); }
+            public boolean hasPd() { return r.hasPd(); }
+            public double pd() { return r.pd(); }
+            public String decision() { return r.decision(); }
+            public LocalDateTime scoredAt() { return r.scoredAt(); }
+        };
+    }
+}
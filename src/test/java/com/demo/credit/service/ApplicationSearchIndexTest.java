@@ -0,0 +1,167 @@
+package com.demo.credit.service;
+
+import com.demo.credit.repository.ApplicantRepository;
+import com.demo.credit.repository.ApplicantRepository.ApplicantText;
+import com.demo.credit.repository.ApplicationRepository;
+import com.demo.credit.repository.ApplicationRepository.ApplicationDetail;
+import com.demo.credit.repository.ApplicationRepository.ListCursor;
+import com.demo.credit.repository.ApplicationRepository.SearchDoc;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ApplicationSearchIndexTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2025, 9, 1, 8, 0);
+
+    private final ApplicationRepository applications = mock(ApplicationRepository.class);
+    private final ApplicantRepository applicants = mock(ApplicantRepository.class);
+    private final ApplicationDetailCache detailCache = mock(ApplicationDetailCache.class);
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ApplicationSearchIndex index = new ApplicationSearchIndex(applications, applicants, detailCache,
+            executor, registry);
+
+    private final UUID lan = UUID.randomUUID();
+    private final UUID minh = UUID.randomUUID();
+    private final UUID app1 = UUID.randomUUID();
+    private final UUID app2 = UUID.randomUUID();
+    private final UUID app3 = UUID.randomUUID();
+
+    @AfterEach
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void resolvesNameEmailPhoneAndReferenceToCandidatesNewestFirst() {
+        build();
+
+        assertEquals(List.of(app3, app1), index.search("Nguyễn Thị", null));
+        assertEquals(List.of(app3, app1), index.search("LAN@EXAMPLE", null));
+        assertEquals(List.of(app2), index.search("0912", null));
+        assertEquals(List.of(app2), index.search("000002", null));
+        assertEquals(List.of(app3, app2, app1), index.search("APP-2025", null));
+        assertEquals(List.of(), index.search("không có", null));
+        // Không có trigram "nối" hai trường
+        assertEquals(List.of(), index.search("lan@example.com0912", null));
+        assertEquals(3.0, registry.get("credit.search.index.applications").gauge().value());
+    }
+
+    @Test
+    void keysetPageKeepsOnlyCandidatesAtOrBeforeCursor() {
+        build();
+
+        assertEquals(List.of(app1), index.search("nguyễn", new ListCursor(DAY.plusHours(1), app2)));
+        // Cùng created_at với cursor: giữ lại, DB so tiếp theo application_id
+        assertEquals(List.of(app3, app1), index.search("nguyễn", new ListCursor(DAY.plusHours(2), app3)));
+    }
+
+    @Test
+    void fallsBackToLikeWhenIndexCannotAnswer() {
+        assertNull(index.search("nguyen", null));
+
+        build();
+        assertNull(index.search("ng", null));
+        assertNull(index.search("nguy%n", null));
+        assertNull(index.search("APP_2025", null));
+        ReflectionTestUtils.setField(index, "maxCandidates", 2);
+        assertNull(index.search("APP-", null));
+        assertEquals(5.0, registry.get("credit.search.queries").tag("path", "like").counter().count());
+    }
+
+    @Test
+    void newApplicantsAndApplicationsBecomeSearchable() throws Exception {
+        build();
+        UUID hoa = UUID.randomUUID();
+        UUID app4 = UUID.randomUUID();
+        when(detailCache.get(app4)).thenReturn(Optional.of(detail(app4, "APP-20250902-000004", DAY.plusDays(1), hoa)));
+
+        index.applicantCreated(hoa, "Phạm Hoa", "hoa@example.com", null);
+        index.applicationCreated(app4);
+        // Gửi lại cùng hồ sơ (vd. lần dựng lại đã thấy nó) không tạo bản trùng
+        index.applicationCreated(app4);
+        index.applicantsCreated(List.of(UUID.randomUUID()), List.of(
+                new ApplicantRepository.NewApplicant("Trần Hoa", "tran@example.com", null, "012345678", null)));
+        executor.submit(() -> { }).get();
+
+        assertEquals(List.of(app4), index.search("phạm hoa", null));
+        assertEquals(List.of(app4, app3, app2, app1), index.search("APP-2025", null));
+        // Người vay chưa có hồ sơ: khớp nhưng không có ứng viên
+        assertEquals(List.of(), index.search("Trần", null));
+    }
+
+    @Test
+    void matchesWithoutAccentsLikeTheCaseAndAccentInsensitiveCollation() {
+        build();
+
+        assertEquals(List.of(app3, app1), index.search("nguyen thi", null));
+        assertEquals(List.of(app2), index.search("LE MINH", null));
+        assertEquals("dang thi ngoc anh", ApplicationSearchIndex.fold("ĐẶNG Thị Ngọc Ánh"));
+        assertEquals("strasse", ApplicationSearchIndex.fold("Straße"));
+    }
+
+    @Test
+    void catchUpAddsApplicationsCreatedElsewhereAfterTheWatermark() {
+        build();
+        UUID hoa = UUID.randomUUID();
+        UUID app4 = UUID.randomUUID();
+        doAnswer(inv -> {
+            Consumer<SearchDoc> handler = inv.getArgument(1);
+            // Hồ sơ trong khoảng chồng lấn được đọc lại, không tạo bản trùng
+            handler.accept(new SearchDoc(app3, "APP-20250901-000003", DAY.plusHours(2), lan));
+            handler.accept(new SearchDoc(app4, "APP-20250901-000004", DAY.plusHours(3), hoa));
+            return null;
+        }).when(applications).forEachSearchDoc(eq(DAY.plusHours(2).minus(ApplicationSearchIndex.CATCH_UP_OVERLAP)),
+                any());
+        when(applicants.applicantTexts(Set.of(hoa)))
+                .thenReturn(List.of(new ApplicantText(hoa, "Phạm Hoa", "hoa@example.com", null)));
+
+        index.catchUp();
+
+        assertEquals(List.of(app4), index.search("pham hoa", null));
+        assertEquals(List.of(app4, app3, app2, app1), index.search("APP-2025", null));
+        assertEquals(4.0, registry.get("credit.search.index.applications").gauge().value());
+    }
+
+    private void build() {
+        doAnswer(inv -> {
+            Consumer<SearchDoc> handler = inv.getArgument(1);
+            handler.accept(new SearchDoc(app1, "APP-20250901-000001", DAY, lan));
+            handler.accept(new SearchDoc(app2, "APP-20250901-000002", DAY.plusHours(1), minh));
+            handler.accept(new SearchDoc(app3, "APP-20250901-000003", DAY.plusHours(2), lan));
+            return null;
+        }).when(applications).forEachSearchDoc(isNull(), any());
+        doAnswer(inv -> {
+            Consumer<ApplicantText> handler = inv.getArgument(0);
+            handler.accept(new ApplicantText(lan, "Nguyễn Thị Lan", "lan@example.com", "0987000111"));
+            handler.accept(new ApplicantText(minh, "Lê Minh", "minh@example.com", "0912345678"));
+            return null;
+        }).when(applicants).forEachApplicant(any());
+        index.rebuild();
+    }
+
+    private static ApplicationDetail detail(UUID id, String referenceNo, LocalDateTime createdAt, UUID applicantId) {
+        return new ApplicationDetail(id, referenceNo, "CREATED", createdAt, applicantId, "c-1",
+                null, null, null, null, null, null, null, null, null, "ACTIVE", null, null);
+    }
+}
@@ -0,0 +1,182 @@
+package com.demo.credit.service;
+
+import com.demo.credit.repository.ConsentRepository;
+import com.demo.credit.repository.ConsentRepository.ConsentRow;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConsentCacheTest {
+
+    private final ManualClock clock = new ManualClock(Instant.parse("2026-01-01T08:00:00Z"));
+    private final ConsentRepository repo = mock(ConsentRepository.class);
+    private final ConsentCache cache = new ConsentCache(repo, new SimpleMeterRegistry(), clock);
+
+    @Test
+    void concurrentMissesForOneConsentShareASingleLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ConsentRow row = row("c1", now().plusDays(1));
+        when(repo.findActive("c1")).thenAnswer(inv -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(row);
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Optional<ConsentRow>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) results.add(pool.submit(() -> cache.findActive("c1")));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            // Các request còn lại phải đang chờ future của lần load đầu trước khi nó trả về
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (cache.hitCount() < 7 && System.nanoTime() < deadline) Thread.sleep(5);
+            release.countDown();
+
+            for (Future<Optional<ConsentRow>> f : results) {
+                assertEquals(Optional.of(row), f.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        verify(repo, times(1)).findActive("c1");
+        assertEquals(1, cache.missCount());
+        assertEquals(7, cache.hitCount());
+    }
+
+    @Test
+    void inactiveResultIsCachedOnlyForNegativeTtl() {
+        when(repo.findActive("gone")).thenReturn(Optional.empty());
+
+        assertTrue(cache.findActive("gone").isEmpty());
+        clock.advance(Duration.ofSeconds(4));
+        assertTrue(cache.findActive("gone").isEmpty());
+        verify(repo, times(1)).findActive("gone");
+
+        clock.advance(Duration.ofSeconds(1)); // negative-ttl mặc định 5s
+        cache.findActive("gone");
+        verify(repo, times(2)).findActive("gone");
+    }
+
+    @Test
+    void entryExpiresAtTheEarlierOfTtlAndConsentExpiry() {
+        when(repo.findActive("soon")).thenReturn(Optional.of(row("soon", now().plusSeconds(10))));
+        when(repo.findActive("later")).thenReturn(Optional.of(row("later", now().plusDays(30))));
+        cache.findActive("soon");
+        cache.findActive("later");
+
+        clock.advance(Duration.ofSeconds(9));
+        cache.findActive("soon");
+        verify(repo, times(1)).findActive("soon");
+
+        // Consent hết hạn sau 10s dù ttl (60s) còn dài
+        clock.advance(Duration.ofSeconds(1));
+        cache.findActive("soon");
+        verify(repo, times(2)).findActive("soon");
+
+        clock.advance(Duration.ofSeconds(49));
+        cache.findActive("later");
+        verify(repo, times(1)).findActive("later");
+        clock.advance(Duration.ofSeconds(1));
+        cache.findActive("later");
+        verify(repo, times(2)).findActive("later");
+    }
+
+    @Test
+    void failedLoadIsNotCached() {
+        when(repo.findActive("c1"))
+                .thenThrow(new IllegalStateException("db down"))
+                .thenReturn(Optional.of(row("c1", now().plusDays(1))));
+
+        assertThrows(IllegalStateException.class, () -> cache.findActive("c1"));
+        assertTrue(cache.findActive("c1").isPresent());
+    }
+
+    @Test
+    void upsertInvalidatesTheCachedConsentEvenWhenTheWriteFails() {
+        ConsentService service = new ConsentService(repo, cache, mock(ApplicationDetailCache.class),
+                mock(ApplicationEventBus.class));
+        UUID applicant = UUID.randomUUID();
+        LocalDateTime expiry = now().plusDays(1);
+        when(repo.findActive("c1")).thenReturn(Optional.of(row("c1", expiry)));
+
+        assertTrue(service.isActive("c1"));
+        when(repo.findActive("c1")).thenReturn(Optional.empty());
+        assertTrue(service.isActive("c1")); // vẫn là entry đã cache
+
+        service.upsert("c1", applicant, "[]", expiry, "REVOKED", "tx-2", "");
+        assertFalse(service.isActive("c1"));
+
+        clock.advance(Duration.ofSeconds(5)); // qua negative-ttl
+        when(repo.findActive("c1")).thenReturn(Optional.of(row("c1", expiry)));
+        assertTrue(service.isActive("c1"));
+        doThrow(new IllegalStateException("db down")).when(repo)
+                .upsert(anyString(), any(), anyString(), any(), anyString(), anyString(), anyString());
+        when(repo.findActive("c1")).thenReturn(Optional.empty());
+        assertThrows(IllegalStateException.class,
+                () -> service.upsert("c1", applicant, "[]", expiry, "REVOKED", "tx-3", ""));
+        assertFalse(service.isActive("c1"));
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.ofInstant(clock.instant(), ZoneOffset.UTC);
+    }
+
+    private static ConsentRow row(String consentId, LocalDateTime expiry) {
+        return new ConsentRow(consentId, UUID.randomUUID(), "[]", expiry, "ACTIVE", "tx-" + consentId, "");
+    }
+
+    private static final class ManualClock extends Clock {
+        private volatile Instant now;
+
+        ManualClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration d) {
+            now = now.plus(d);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
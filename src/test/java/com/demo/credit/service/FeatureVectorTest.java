@@ -0,0 +1,42 @@
+package com.demo.credit.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FeatureVectorTest {
+
+    private final FeatureSchema schema = new FeatureSchema(List.of("age", "sms_count", "emp_formal"), 2);
+    private final ObjectMapper mapper = JsonMapper.builder()
+            .addModule(FeatureVector.jacksonModule(schema))
+            .build();
+
+    @Test
+    void parsesIntoSchemaOrder() throws Exception {
+        var v = mapper.readValue("{\"emp_formal\": true, \"age\": 38, \"pd_true\": 0}", FeatureVector.class);
+
+        assertArrayEquals(new double[]{38, 0, 1}, v.values());
+        assertEquals(2, v.nonzeroCount());
+        assertEquals("{\"age\":38.0,\"sms_count\":0.0,\"emp_formal\":1.0}", mapper.writeValueAsString(v));
+    }
+
+    @Test
+    void rejectsUnknownAndNonNumericFeatures() {
+        assertThrows(Exception.class, () -> mapper.readValue("{\"agee\": 1}", FeatureVector.class));
+        assertThrows(Exception.class, () -> mapper.readValue("{\"age\": \"38\"}", FeatureVector.class));
+        assertThrows(Exception.class, () -> mapper.readValue("{\"age\": 1e999}", FeatureVector.class));
+    }
+
+    @Test
+    void enforcesMinimumNonzeroFeatures() throws Exception {
+        var sparse = mapper.readValue("{\"age\": 38}", FeatureVector.class);
+
+        assertThrows(IllegalArgumentException.class, () -> schema.requireUsable(sparse));
+    }
+}
@@ -0,0 +1,90 @@
+package com.demo.credit.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LedgerChainIndexTest {
+
+    // Sinh bằng canonicalize/sha256Hex của consent-ledger/src/crypto.js (Node 20)
+    private static final String CHAIN = """
+            [{"index":0,"timestamp":1700000000000,"type":"GENESIS","payload":{"note":"genesis"},
+              "prevHash":"0000000000000000000000000000000000000000000000000000000000000000",
+              "hash":"abababababababababababababababababababababababababababababababab"},
+             {"index":1,"timestamp":1700000001000,"type":"GIVE",
+              "payload":{"consentId":"c-1","scope":["credit","bảo hiểm \\u0001 \\"q\\""],"expiry":1999999999,
+                         "ratio":0.1,"big":1e+21,"tiny":1e-7,"Z":true,"a":null},
+              "subjectPubKey":"02aa","signature":"ff00",
+              "prevHash":"abababababababababababababababababababababababababababababababab",
+              "hash":"6e798a20e4a7c5200bede4d45d5c208e50b35df53db1130c550ed640c7cba843"},
+             {"index":2,"timestamp":1700000002000,"type":"REVOKE","payload":{"consentId":"c-1"},
+              "subjectPubKey":"02aa","signature":"ee11",
+              "prevHash":"6e798a20e4a7c5200bede4d45d5c208e50b35df53db1130c550ed640c7cba843",
+              "hash":"edb3f971c66b25a59015856604b4ea1c4f7ae9c77ddfa762a748cbbcf7856ca3"}]
+            """;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void canonicalJsonAndHashesMatchLedger() throws Exception {
+        JsonNode chain = mapper.readTree(CHAIN);
+
+        assertEquals("{\"Z\":true,\"a\":null,\"big\":1e+21,\"consentId\":\"c-1\",\"expiry\":1999999999,"
+                        + "\"ratio\":0.1,\"scope\":[\"credit\",\"bảo hiểm \\u0001 \\\"q\\\"\"],\"tiny\":1e-7}",
+                LedgerChainIndex.canonicalize(chain.get(1).get("payload")));
+        assertEquals(chain.get(1).get("hash").asText(), LedgerChainIndex.blockHash(chain.get(1)));
+        assertEquals(chain.get(2).get("hash").asText(), LedgerChainIndex.blockHash(chain.get(2)));
+    }
+
+    @Test
+    void tracksLatestStateAcrossGiveAndRevoke() throws Exception {
+        JsonNode chain = mapper.readTree(CHAIN);
+        var index = new LedgerChainIndex();
+        index.apply(chain.get(0));
+        index.apply(chain.get(1));
+
+        var given = index.get("c-1");
+        assertTrue(given.activeAt(1_800_000_000L));
+        assertFalse(given.activeAt(2_000_000_000L));
+        assertEquals(chain.get(1).get("hash").asText(), given.txHash());
+
+        index.apply(chain.get(2));
+        var revoked = index.get("c-1");
+        assertFalse(revoked.activeAt(1_800_000_000L));
+        assertEquals(chain.get(2).get("hash").asText(), revoked.txHash());
+        assertEquals(3, index.height());
+        assertNull(index.get("c-2"));
+    }
+
+    @Test
+    void rejectsTamperedBlocksWithoutChangingIndex() throws Exception {
+        JsonNode chain = mapper.readTree(CHAIN);
+        var index = new LedgerChainIndex();
+        index.apply(chain.get(0));
+
+        ObjectNode tampered = chain.get(1).deepCopy();
+        ((ObjectNode) tampered.get("payload")).put("expiry", 2999999999L);
+        var ex = assertThrows(LedgerChainIndex.ChainException.class, () -> index.apply(tampered));
+        assertTrue(ex.getMessage().startsWith("hash mismatch"));
+        assertEquals(1, index.height());
+        assertNull(index.get("c-1"));
+
+        // Bỏ qua block 1 → block 2 không nối vào tip
+        assertThrows(LedgerChainIndex.ChainException.class, () -> index.apply(chain.get(2)));
+
+        index.apply(chain.get(1));
+        ObjectNode foreignRevoke = chain.get(2).deepCopy();
+        foreignRevoke.put("subjectPubKey", "03bb");
+        foreignRevoke.put("hash", LedgerChainIndex.blockHash(foreignRevoke));
+        var signer = assertThrows(LedgerChainIndex.ChainException.class, () -> index.apply(foreignRevoke));
+        assertTrue(signer.getMessage().startsWith("revoke signer mismatch"));
+        assertTrue(index.get("c-1").given());
+    }
+}
@@ -0,0 +1,81 @@
+package com.demo.credit.service;
+
+import com.demo.credit.config.DownstreamProperties;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpMethod.GET;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class LedgerClientTest {
+
+    private final RestTemplate rest = new RestTemplate();
+    private final MockRestServiceServer ledger = MockRestServiceServer.bindTo(rest).build();
+    private final LedgerMirror mirror = mock(LedgerMirror.class);
+    private final LedgerClient client = new LedgerClient(rest,
+            new DownstreamGuard("ledger", new DownstreamProperties(), new SimpleMeterRegistry()), mirror);
+
+    @Test
+    void mirrorUnavailableFallsBackToConsentStatus() {
+        ReflectionTestUtils.setField(client, "ledgerBaseUrl", "http://ledger.test");
+        long future = Instant.now().getEpochSecond() + 3600;
+        expectStatus("c 1", """
+                {"found":true,"active":true,"expiry":%d,"txHash":"ABC123"}""".formatted(future));
+        expectStatus("c 1", """
+                {"found":true,"active":true,"expiry":null,"txHash":"other"}""");
+        expectStatus("c 1", """
+                {"found":true,"active":false,"reason":"revoked","expiry":null,"txHash":"abc123"}""");
+        expectStatus("c 1", """
+                {"found":false,"active":false,"history":[]}""");
+
+        assertTrue(client.verifyConsentTx("c 1", "abc123"));
+        assertFalse(client.verifyConsentTx("c 1", "abc123")); // tx cuối đã khác
+        assertFalse(client.verifyConsentTx("c 1", "abc123")); // đã thu hồi
+        assertFalse(client.verifyConsentTx("c 1", "abc123")); // ledger không biết consent
+        ledger.verify();
+    }
+
+    @Test
+    void expiredGrantIsRejectedEvenIfLedgerStillSaysActive() {
+        long now = Instant.now().getEpochSecond();
+
+        assertFalse(LedgerClient.statusMatches(
+                Map.of("found", true, "active", true, "expiry", now - 1, "txHash", "t"), "t", now));
+        assertTrue(LedgerClient.statusMatches(
+                Map.of("found", true, "active", true, "expiry", now, "txHash", "t"), "t", now));
+    }
+
+    @Test
+    void ledgerMetersKeepTheTagKeysOfModelReplicaMeters() {
+        PrometheusMeterRegistry prometheus = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        new DownstreamGuard("model", Tags.of("replica", "http://m1"), new Semaphore(1), new DownstreamProperties(),
+                prometheus);
+        new DownstreamGuard("ledger", new DownstreamProperties(), prometheus);
+
+        assertTrue(prometheus.scrape().contains(
+                "credit_http_rejected_total{downstream=\"ledger\",reason=\"circuit_open\",replica=\"default\"}"));
+    }
+
+    private void expectStatus(String consentId, String body) {
+        when(mirror.verify(consentId, "abc123")).thenReturn(null);
+        ledger.expect(requestTo("http://ledger.test/consents/c%201/status")).andExpect(method(GET))
+                .andRespond(withSuccess(body, MediaType.APPLICATION_JSON));
+    }
+}
@@ -0,0 +1,185 @@
+package com.demo.credit.service;
+
+import com.demo.credit.config.CancellableRequestFactory;
+import com.demo.credit.config.DownstreamProperties;
+import com.demo.credit.config.StubProperties;
+import com.demo.credit.config.StubServer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ModelApiClientTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ScheduledExecutorService health = Executors.newSingleThreadScheduledExecutor();
+    private final ExecutorService hedge = Executors.newFixedThreadPool(4);
+    private final FeatureSchema schema = new FeatureSchema(List.of("age", "sms_count"), 1);
+    private final FeatureVector features = FeatureVector.of(schema, new double[]{38, 12});
+
+    private StubServer slow;
+    private StubServer fast;
+    private PoolingHttpClientConnectionManager connections;
+    private CloseableHttpClient http;
+    private ModelReplicaPool pool;
+    private ModelApiClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        slow = stub(Duration.ofSeconds(2));
+        fast = stub(Duration.ofMillis(5));
+        // Cùng cách nối như RestClientConfig: HttpClient5 có pool + CancellableRequestFactory
+        connections = PoolingHttpClientConnectionManagerBuilder.create().build();
+        http = HttpClients.custom().setConnectionManager(connections).build();
+        RestTemplate rest = new RestTemplate(new CancellableRequestFactory(http));
+        rest.setMessageConverters(List.of(new MappingJackson2HttpMessageConverter(
+                new ObjectMapper().registerModule(FeatureVector.jacksonModule(schema)))));
+        pool = new ModelReplicaPool(rest, health, new DownstreamProperties(), registry);
+        ReflectionTestUtils.setField(pool, "urls", List.of(url(slow), url(fast)));
+        ReflectionTestUtils.setField(pool, "healthInterval", Duration.ofHours(1));
+        ReflectionTestUtils.setField(pool, "hedgeMaxDelay", Duration.ofMillis(50));
+        pool.start();
+        // Đợi lượt /health đầu tiên (chạy nền trên executor một thread) xong trước khi test dừng stub
+        health.submit(() -> { }).get(5, TimeUnit.SECONDS);
+        client = new ModelApiClient(rest, pool, hedge, registry);
+        ReflectionTestUtils.setField(client, "hedgeEnabled", true);
+        ReflectionTestUtils.setField(client, "hedgeMaxRatio", 1.0);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        health.shutdownNow();
+        hedge.shutdownNow();
+        assertTrue(health.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(hedge.awaitTermination(5, TimeUnit.SECONDS));
+        http.close();
+        slow.stop();
+        fast.stop();
+    }
+
+    @Test
+    void picksLeastOutstandingAndHedgesSlowReplica() {
+        ModelReplicaPool.Replica slowReplica = pool.replicas().get(0);
+        ModelReplicaPool.Replica fastReplica = pool.replicas().get(1);
+        // fast đang bận một request → lượt chọn đầu rơi vào slow
+        long busy = fastReplica.begin();
+        assertSame(slowReplica, pool.pick(null));
+        assertSame(fastReplica, pool.pick(slowReplica));
+
+        long start = System.nanoTime();
+        var result = client.callScore(features);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        fastReplica.succeeded(busy);
+
+        assertEquals("stub", result.getModelVersion());
+        assertTrue(elapsedMs < 600, "hedge should answer before the slow replica, took " + elapsedMs + "ms");
+        assertEquals(1.0, registry.counter("credit.model.hedge", "outcome", "sent").count());
+        assertEquals(1.0, registry.counter("credit.model.hedge", "outcome", "won").count());
+    }
+
+    @Test
+    void cancelledHedgeLoserReleasesItsConnectionBeforeTheReadTimeout() throws Exception {
+        ModelReplicaPool.Replica slowReplica = pool.replicas().get(0);
+        ModelReplicaPool.Replica fastReplica = pool.replicas().get(1);
+        long busy = fastReplica.begin(); // lượt chọn đầu rơi vào slow
+
+        long start = System.nanoTime();
+        assertEquals("stub", client.callScore(features).getModelVersion());
+        fastReplica.succeeded(busy);
+
+        // Bản gửi tới slow (trả lời sau 2s) bị huỷ: connection và thread hedge được trả ngay
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(500);
+        while ((connections.getTotalStats().getLeased() > 0 || ((ThreadPoolExecutor) hedge).getActiveCount() > 0)
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, connections.getTotalStats().getLeased());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        assertEquals(0, ((ThreadPoolExecutor) hedge).getActiveCount());
+        assertEquals(1.0, registry.counter("credit.model.hedge", "outcome", "cancelled").count());
+        assertTrue(slowReplica.healthy());
+        assertEquals(0, slowReplica.outstanding());
+    }
+
+    @Test
+    void ejectsReplicaThatFailsHealthCheck() {
+        ModelReplicaPool.Replica slowReplica = pool.replicas().get(0);
+        ModelReplicaPool.Replica fastReplica = pool.replicas().get(1);
+        slow.stop();
+
+        client.checkHealth(); // còn một replica trả lời → không lỗi
+
+        assertFalse(slowReplica.healthy());
+        assertTrue(fastReplica.healthy());
+        for (int i = 0; i < 20; i++) {
+            assertSame(fastReplica, pool.pick(null));
+        }
+        assertEquals(1.0, registry.counter("credit.model.replica.ejections", "replica", url(slow)).count());
+
+        fast.stop();
+        assertThrows(IllegalStateException.class, client::checkHealth);
+    }
+
+    @Test
+    void openBreakerOnOneReplicaLeavesTheOthersInService() {
+        ModelReplicaPool.Replica slowReplica = pool.replicas().get(0);
+        ModelReplicaPool.Replica fastReplica = pool.replicas().get(1);
+        ReflectionTestUtils.setField(client, "hedgeEnabled", false);
+        for (int i = 0; i < 20; i++) {
+            try {
+                slowReplica.guard().call(() -> {
+                    throw new IllegalStateException("replica down");
+                });
+            } catch (RuntimeException ignore) {
+                // đủ lỗi để mở breaker của slow
+            }
+        }
+
+        assertEquals(DownstreamGuard.State.OPEN, slowReplica.guard().state());
+        assertEquals(DownstreamGuard.State.CLOSED, fastReplica.guard().state());
+        for (int i = 0; i < 5; i++) {
+            assertEquals("stub", client.callScore(features).getModelVersion());
+        }
+        assertEquals(5, registry.get("credit.http.client").tag("replica", url(fast)).tag("outcome", "ok")
+                .timer().count());
+    }
+
+    private static StubServer stub(Duration latency) throws Exception {
+        StubProperties props = new StubProperties();
+        props.setLatencyMedian(latency);
+        props.setLatencyP99(latency);
+        StubServer server = new StubServer("model", props, new ObjectMapper(), Map.of(
+                "/score", req -> Map.of("pd", 0.1, "score", 700, "decision", "APPROVE",
+                        "shapTopK", List.of(), "model_version", "stub"),
+                "/health", req -> Map.of("status", "ok")));
+        server.start();
+        return server;
+    }
+
+    private static String url(StubServer server) {
+        return "http://127.0.0.1:" + server.port();
+    }
+}
@@ -0,0 +1,236 @@
+package com.demo.credit.service;
+
+import com.demo.credit.repository.ConsentRepository;
+import com.demo.credit.repository.InMemoryRescoreRepository;
+import com.demo.credit.repository.InMemoryStore;
+import com.demo.credit.repository.RescoreRepository;
+import com.demo.credit.repository.ScoreRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RescoreJobTest {
+
+    private final FeatureSchema schema = new FeatureSchema(List.of("age", "income"), 0);
+    private final ObjectMapper mapper = JsonMapper.builder().addModule(FeatureVector.jacksonModule(schema)).build();
+    private final ExecutorService executor = Executors.newFixedThreadPool(3);
+    private final ScoreRepository scoreRepository = mock(ScoreRepository.class);
+    private final ConsentRepository consentRepository = mock(ConsentRepository.class);
+    private final ModelClient modelClient = mock(ModelClient.class);
+    private final ScoringService scoringService = mock(ScoringService.class);
+    private final List<ScoreRepository.JournaledWrite> saved = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicBoolean failNextCheckpoint = new AtomicBoolean();
+    private final RescoreRepository rescoreRepository = new InMemoryRescoreRepository(new InMemoryStore()) {
+        @Override
+        public boolean saveCheckpoint(Checkpoint checkpoint, String owner) {
+            // Mô phỏng crash giữa lúc đã ghi score và lúc ghi checkpoint
+            if (checkpoint.rows() > 0 && failNextCheckpoint.compareAndSet(true, false)) {
+                throw new IllegalStateException("connection reset");
+            }
+            return super.saveCheckpoint(checkpoint, owner);
+        }
+    };
+    private final RescoreJob job = newJob();
+
+    RescoreJobTest() {
+        doAnswer(inv -> {
+            saved.addAll(inv.getArgument(0));
+            return null;
+        }).when(scoreRepository).saveJournaled(anyList(), anyInt());
+        when(consentRepository.findActiveByIds(any())).thenAnswer(inv -> {
+            Collection<String> ids = inv.getArgument(0);
+            return ids.stream().filter(id -> !id.startsWith("revoked"))
+                    .collect(Collectors.toMap(Function.identity(), id -> new ConsentRepository.ConsentRow(
+                            id, UUID.randomUUID(), "{}", null, "ACTIVE", "", "")));
+        });
+        // Model mới: duyệt khi age > 30
+        when(modelClient.callScore(any())).thenAnswer(inv -> {
+            FeatureVector f = inv.getArgument(0);
+            var r = new ModelApiClient.ScoreResult();
+            r.setScore(600);
+            r.setPd(0.1);
+            r.setDecision(f.values()[0] > 30 ? "APPROVE" : "REJECT");
+            r.setModelVersion("v2");
+            return r;
+        });
+        when(scoringService.resolveDecision(any())).thenAnswer(inv ->
+                ((ModelApiClient.ScoreResult) inv.getArgument(0)).getDecision());
+        when(scoringService.reasonsJson(any())).thenReturn("[]");
+    }
+
+    // Mỗi RescoreJob = một instance (owner riêng) trên cùng repository
+    private RescoreJob newJob() {
+        RescoreJob j = new RescoreJob(rescoreRepository, scoreRepository, consentRepository,
+                modelClient, scoringService, mock(ApplicationDetailCache.class), mapper, executor,
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(j, "workers", 3);
+        ReflectionTestUtils.setField(j, "batchSize", 4);
+        return j;
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void rescoresEveryPartitionAndCountsChangedSkippedAndFailed() throws Exception {
+        List<RescoreRepository.FeatureRow> rows = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            String consent = i % 10 == 0 ? "revoked-" + i : "c-" + i;
+            String json = i == 7 ? "{\"agee\": 1}" : "{\"age\": " + (20 + i) + ", \"income\": 10}";
+            rows.add(new RescoreRepository.FeatureRow(UUID.randomUUID(), consent, "0xabc", "1", json, "APPROVE"));
+        }
+        rescoreRepository.saveFeatures(rows);
+
+        var started = job.start(7, 0.0);
+        var done = await(started.runId());
+
+        assertEquals("COMPLETED", done.status());
+        assertEquals(7, done.partitionsDone());
+        assertEquals(50, done.processed());
+        assertEquals(5, done.skipped());
+        assertEquals(1, done.failed());
+        // age 20..30 → REJECT (trừ 20, 30 bị skip và 27 lỗi feature)
+        assertEquals(8, done.decisionChanged());
+        assertEquals(44, saved.size());
+        assertEquals(44, saved.stream().map(j -> j.write().applicationId()).distinct().count());
+        assertTrue(saved.stream().allMatch(j -> j.write().txHash().equals("0xabc")));
+        // Đoạn cuối không có bound trên
+        var checkpoints = rescoreRepository.checkpoints(started.runId());
+        assertNull(checkpoints.get(checkpoints.size() - 1).upperBound());
+        assertTrue(checkpoints.subList(0, checkpoints.size() - 1).stream().allMatch(c -> c.upperBound() != null));
+    }
+
+    @Test
+    void otherInstanceCannotTakeALiveRunButCanPauseIt() throws Exception {
+        RescoreJob other = newJob();
+        ReflectionTestUtils.setField(job, "leaseTimeout", Duration.ofMillis(200));
+        ReflectionTestUtils.setField(other, "leaseTimeout", Duration.ofMillis(200));
+        saveFeatures(40);
+
+        var run = job.start(2, 20.0).runId();
+
+        assertThrows(IllegalStateException.class, () -> other.start(null, null));
+        assertThrows(IllegalStateException.class, () -> other.resume(run, 0.0));
+        assertEquals("RUNNING", other.progress(run).status());
+        assertFalse(other.progress(run).active());
+
+        // Owner thấy trạng thái PAUSED ở lần gia hạn lease kế tiếp và trả lease
+        other.pause(run);
+        var paused = await(job, run);
+        assertEquals("PAUSED", paused.status());
+        assertTrue(paused.processed() < 40);
+
+        var done = await(other, other.resume(run, 0.0).runId());
+        assertEquals("COMPLETED", done.status());
+        assertEquals(40, done.processed());
+        assertEquals(40, new HashSet<>(saved.stream().map(ScoreRepository.JournaledWrite::journalId).toList()).size());
+    }
+
+    @Test
+    void pauseAndResumeContinueFromCheckpointWithoutRewriting() throws Exception {
+        saveFeatures(60);
+
+        var run = job.start(6, 150.0).runId();
+        assertThrows(IllegalStateException.class, () -> job.start(null, null), "one run at a time");
+        job.pause(run);
+        var paused = await(run);
+
+        assertEquals("PAUSED", paused.status());
+        assertTrue(paused.processed() < 60);
+
+        var done = job.resume(run, 0.0);
+        done = await(done.runId());
+
+        assertEquals("COMPLETED", done.status());
+        assertEquals(60, done.processed());
+        assertEquals(60, saved.size());
+        assertEquals(60, new HashSet<>(saved.stream().map(ScoreRepository.JournaledWrite::journalId).toList()).size());
+    }
+
+    @Test
+    void batchReplayedAfterCrashKeepsSameJournalIds() throws Exception {
+        saveFeatures(12);
+        failNextCheckpoint.set(true);
+
+        var run = job.start(1, 0.0).runId();
+        var failed = await(run);
+
+        assertEquals("FAILED", failed.status());
+        assertEquals(0, failed.processed());
+
+        var done = await(job.resume(run, null).runId());
+
+        assertEquals("COMPLETED", done.status());
+        assertEquals(12, done.processed());
+        // Lô đầu được ghi lại sau crash với đúng journal id → repository bỏ qua bản trùng
+        Map<UUID, Long> perJournal = saved.stream().collect(
+                Collectors.groupingBy(ScoreRepository.JournaledWrite::journalId, Collectors.counting()));
+        assertEquals(12, perJournal.size());
+        assertEquals(4, perJournal.values().stream().filter(n -> n == 2).count());
+    }
+
+    @Test
+    void enabledCaptureFailsStartupWithoutFeaturesTable() {
+        RescoreRepository noTable = mock(RescoreRepository.class);
+        FeatureCapture capture = new FeatureCapture(noTable, mapper,
+                mock(ScheduledExecutorService.class), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(capture, "enabled", true);
+
+        assertThrows(IllegalStateException.class, capture::start);
+    }
+
+    private void saveFeatures(int n) {
+        List<RescoreRepository.FeatureRow> rows = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            rows.add(new RescoreRepository.FeatureRow(UUID.randomUUID(), "c-" + i, "0xabc", "1",
+                    "{\"age\": 40, \"income\": 10}", "APPROVE"));
+        }
+        rescoreRepository.saveFeatures(rows);
+    }
+
+    private RescoreJob.Progress await(UUID runId) throws InterruptedException {
+        return await(job, runId);
+    }
+
+    private static RescoreJob.Progress await(RescoreJob job, UUID runId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        RescoreJob.Progress p;
+        while ((p = job.progress(runId)).active()) {
+            assertFalse(System.currentTimeMillis() > deadline, "run did not stop: " + p);
+            Thread.sleep(10);
+        }
+        return p;
+    }
+}
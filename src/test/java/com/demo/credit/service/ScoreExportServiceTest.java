@@ -0,0 +1,65 @@
+package com.demo.credit.service;
+
+import com.demo.credit.repository.ScoreRepository;
+import com.demo.credit.repository.ScoreRepository.ExportFilter;
+import com.demo.credit.repository.ScoreRepository.ExportRow;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class ScoreExportServiceTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ScoreRepository repo = mock(ScoreRepository.class);
+    private final ScoreExportService service = new ScoreExportService(repo, mapper);
+
+    @Test
+    void ndjsonWritesOneBareObjectPerLine() throws Exception {
+        ExportRow first = row("APP-1", 0.0123, "[\"sms_fin_ratio\"]");
+        ExportRow second = row("APP-2", null, null);
+        doAnswer(inv -> {
+            Consumer<ExportRow> handler = inv.getArgument(2);
+            handler.accept(first);
+            handler.accept(second);
+            return null;
+        }).when(repo).forEachScore(any(), anyInt(), any());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.export(new ExportFilter(null, null, null, null, 0), ScoreExportService.Format.NDJSON, out);
+
+        String body = out.toString(StandardCharsets.UTF_8);
+        assertTrue(body.endsWith("\n"));
+        List<String> lines = body.lines().toList();
+        assertEquals(2, lines.size());
+        for (String line : lines) {
+            assertTrue(line.startsWith("{") && line.endsWith("}"), "not a bare JSON object: [" + line + "]");
+        }
+        JsonNode a = mapper.readTree(lines.get(0));
+        JsonNode b = mapper.readTree(lines.get(1));
+        assertEquals("APP-1", a.get("referenceNo").asText());
+        assertEquals("sms_fin_ratio", a.get("topReasons").get(0).asText());
+        assertEquals(first.cursor().encode(), a.get("cursor").asText());
+        assertEquals("APP-2", b.get("referenceNo").asText());
+        assertTrue(b.get("pd").isNull());
+        assertTrue(b.get("topReasons").isNull());
+    }
+
+    private static ExportRow row(String referenceNo, Double pd, String reasons) {
+        return new ExportRow(UUID.randomUUID(), UUID.randomUUID(), referenceNo, UUID.randomUUID(), "c-1", "tx-1",
+                650, pd, "REVIEW", reasons, "m1", "s1", LocalDateTime.of(2025, 9, 1, 10, 30));
+    }
+}
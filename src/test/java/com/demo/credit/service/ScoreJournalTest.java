@@ -0,0 +1,118 @@
+package com.demo.credit.service;
+
+import com.demo.credit.repository.ScoreRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+class ScoreJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private final ScoreRepository repo = mock(ScoreRepository.class);
+    private final List<ScoreRepository.JournaledWrite> saved = new ArrayList<>();
+    private SimpleMeterRegistry registry;
+
+    @AfterEach
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void replaysUndrainedRecordsAfterRestartAndDrainsEachOnce() throws Exception {
+        doThrow(new IllegalStateException("db down")).when(repo).saveJournaled(anyList(), anyInt());
+        var first = open();
+        List<UUID> ids = first.append(List.of(write(700), write(650), write(600)));
+        first.close();
+        assertEquals(3, first.depth());
+
+        doAnswer(inv -> {
+            saved.addAll(inv.getArgument(0));
+            return null;
+        }).when(repo).saveJournaled(anyList(), anyInt());
+        var second = open();
+        assertEquals(3, second.depth());
+        second.close();
+
+        assertEquals(ids, saved.stream().map(ScoreRepository.JournaledWrite::journalId).toList());
+        assertEquals(650, saved.get(1).write().score());
+        assertEquals(0, open().depth());
+    }
+
+    @Test
+    void rollsOverSegments() throws Exception {
+        doAnswer(inv -> {
+            saved.addAll(inv.getArgument(0));
+            return null;
+        }).when(repo).saveJournaled(anyList(), anyInt());
+        var journal = open();
+        ReflectionTestUtils.setField(journal, "segmentSize", DataSize.ofBytes(1024));
+        for (int i = 0; i < 50; i++) {
+            journal.append(List.of(write(300 + i)));
+        }
+        journal.close();
+
+        assertEquals(50, saved.size());
+        assertEquals(349, saved.get(49).write().score());
+    }
+
+    @Test
+    void deadLettersRowsTheDatabaseRejectsAndDrainsTheRest() throws Exception {
+        var poison = write(500);
+        doAnswer(inv -> {
+            List<ScoreRepository.JournaledWrite> rows = inv.getArgument(0);
+            if (rows.stream().anyMatch(j -> j.write().applicationId().equals(poison.applicationId()))) {
+                throw new DataIntegrityViolationException("FK_Scores_Applications");
+            }
+            saved.addAll(rows);
+            return null;
+        }).when(repo).saveJournaled(anyList(), anyInt());
+        var journal = open();
+        journal.append(List.of(write(700), poison, write(600)));
+        journal.close();
+
+        assertEquals(List.of(700, 600), saved.stream().map(j -> j.write().score()).toList());
+        assertEquals(0, journal.depth());
+        assertEquals(1.0, registry.get("credit.score.journal.dead.letters").counter().count());
+        assertTrue(Files.size(dir.resolve("dead-letter")) > 0);
+        assertEquals(0, open().depth());
+    }
+
+    private ScoreJournal open() throws Exception {
+        var journal = new ScoreJournal(repo, executor, registry = new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "dir", dir);
+        // Không chạy drain định kỳ trong test — chỉ drain khi close()
+        ReflectionTestUtils.setField(journal, "drainInterval", Duration.ofHours(1));
+        journal.open();
+        return journal;
+    }
+
+    private static ScoreRepository.ScoreWrite write(int score) {
+        return new ScoreRepository.ScoreWrite(UUID.randomUUID(), "c1", "tx", "v1", "s1",
+                score, 0.05, "REVIEW", "[\"age\"]");
+    }
+}
@@ -0,0 +1,114 @@
+package com.demo.credit.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScoreMemoTest {
+
+    private final FeatureSchema schema = new FeatureSchema(List.of("age", "sms_count"), 1);
+    private final UUID app = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private final ScoringService.SavedScore saved =
+            new ScoringService.SavedScore(720, 0.01, "APPROVE", "v1", "s1", new String[0]);
+
+    @Test
+    void hashIsStableAndCoversFeatureValues() {
+        var a = FeatureVector.of(schema, new double[]{38, 0.0});
+        var b = FeatureVector.of(schema, new double[]{38, -0.0});
+        var c = FeatureVector.of(schema, new double[]{39, 0.0});
+
+        assertEquals(ScoreMemo.requestHash(app, "c1", "ABC", a), ScoreMemo.requestHash(app, "c1", "abc", b));
+        assertNotEquals(ScoreMemo.requestHash(app, "c1", "abc", a), ScoreMemo.requestHash(app, "c1", "abc", c));
+        assertNotEquals(ScoreMemo.requestHash(app, "c1", "abc", a), ScoreMemo.requestHash(app, "c2", "abc", a));
+    }
+
+    @Test
+    void concurrentDuplicatesShareOneComputation() throws Exception {
+        var memo = new ScoreMemo(new SimpleMeterRegistry());
+        var calls = new AtomicInteger();
+        var release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<ScoreMemo.Outcome>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(pool.submit(() -> memo.getOrCompute("k1", "v1", "h1", () -> {
+                    calls.incrementAndGet();
+                    await(release);
+                    return saved;
+                })));
+            }
+            Thread.sleep(50);
+            release.countDown();
+            int reused = 0;
+            for (var f : results) {
+                var outcome = f.get();
+                assertSame(saved, outcome.score());
+                if (outcome.reused()) reused++;
+            }
+            assertEquals(1, calls.get());
+            assertEquals(3, reused);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void failuresAreNotRememberedAndKeysAreBoundToRequest() {
+        var memo = new ScoreMemo(new SimpleMeterRegistry());
+
+        assertThrows(IllegalStateException.class, () -> memo.getOrCompute(null, "v1", "h1", () -> {
+            throw new IllegalStateException("model down");
+        }));
+        var retry = memo.getOrCompute(null, "v1", "h1", () -> saved);
+        assertFalse(retry.reused());
+        assertTrue(memo.getOrCompute(null, "v1", "h1", () -> saved).reused());
+        // model_version khác → không dùng lại
+        assertFalse(memo.getOrCompute(null, "v2", "h1", () -> saved).reused());
+
+        memo.getOrCompute("k1", "v1", "h1", () -> saved);
+        assertTrue(memo.getOrCompute("k1", "v2", "h1", () -> saved).reused());
+        assertThrows(IllegalArgumentException.class, () -> memo.getOrCompute("k1", "v1", "h2", () -> saved));
+    }
+
+    @Test
+    void unknownModelVersionIsNotMemoizedWithoutIdempotencyKey() {
+        var memo = new ScoreMemo(new SimpleMeterRegistry());
+        var calls = new AtomicInteger();
+
+        memo.getOrCompute(null, null, "h1", () -> {
+            calls.incrementAndGet();
+            return saved;
+        });
+        assertFalse(memo.getOrCompute(null, null, "h1", () -> {
+            calls.incrementAndGet();
+            return saved;
+        }).reused());
+        assertEquals(2, calls.get());
+
+        memo.getOrCompute("k1", null, "h1", () -> saved);
+        assertTrue(memo.getOrCompute("k1", null, "h1", () -> saved).reused());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.demo.credit.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class TreeEnsembleModelTest {
+
+    // Bản export của ai/models/model.pkl (13 cây + isotonic) và 5 dòng demo kèm pd/score Python đã chấm
+    private static final Path MODELS = Path.of("src", "test", "resources", "model");
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    // 2 cây: cây 1 tách theo "b" (NaN → trái), cây 2 là một lá; isotonic 3 điểm
+    private static final String DUMP = """
+            {
+              "feature_names": ["a", "b"],
+              "objective": "binary sigmoid:1",
+              "model_version": "t1",
+              "trees": [
+                { "split_feature": 1, "threshold": 0.5, "decision_type": "<=", "default_left": true,
+                  "missing_type": "NaN",
+                  "left_child":  { "leaf_value": -1.0 },
+                  "right_child": { "split_feature": 0, "threshold": 10, "decision_type": "<=",
+                                   "default_left": false, "missing_type": "None",
+                                   "left_child": { "leaf_value": 0.5 }, "right_child": { "leaf_value": 2.0 } } },
+                { "leaf_value": 0.25 }
+              ],
+              "calibration": { "type": "isotonic", "x": [0.2, 0.6, 0.9], "y": [0.0, 0.4, 1.0] }
+            }
+            """;
+
+    @Test
+    void evaluatesTreesInSchemaOrder() throws Exception {
+        // Schema đảo thứ tự so với model: vector = [b, a]
+        var model = TreeEnsembleModel.parse(mapper.readTree(DUMP), List.of("b", "a"));
+
+        assertEquals(-0.75, model.rawScore(new double[]{0.1, 99}), 1e-12);
+        assertEquals(-0.75, model.rawScore(new double[]{Double.NaN, 99}), 1e-12);
+        assertEquals(0.75, model.rawScore(new double[]{1.0, 3}), 1e-12);
+        assertEquals(2.25, model.rawScore(new double[]{1.0, 30}), 1e-12);
+    }
+
+    @Test
+    void appliesIsotonicCalibrationWithClipping() throws Exception {
+        var model = TreeEnsembleModel.parse(mapper.readTree(DUMP), List.of("a", "b"));
+
+        // sigmoid(-0.75) ≈ 0.3208 → nội suy giữa (0.2, 0.0) và (0.6, 0.4)
+        double p = 1.0 / (1.0 + Math.exp(0.75));
+        assertEquals(p - 0.2, model.predictPd(new double[]{0, 0}), 1e-12);
+        // sigmoid(2.25) ≈ 0.905 > 0.9 → clip về y cuối
+        assertEquals(1.0, model.predictPd(new double[]{30, 1}), 1e-12);
+    }
+
+    @Test
+    void mapsPdToScoreLikePythonService() {
+        assertEquals(584, LocalModelClient.pdToScore(0.05802047781569965));
+        assertEquals(530, LocalModelClient.pdToScore(0.11538461538461536));
+        assertEquals(300, LocalModelClient.pdToScore(1.0));
+        assertEquals(900, LocalModelClient.pdToScore(0.0));
+        assertEquals(0.08, LocalModelClient.priorShift(0.08, 0.08, 0.08), 1e-12);
+    }
+
+    /**
+     * Parity với model Python trên fixture trong src/test/resources/model; sau khi train lại thì export
+     * (ai/scripts/export_model_dump.py) và chép model_dump.json, demo_*_head.csv, feature_schema.json vào đó.
+     */
+    @Test
+    void matchesDemoScoresHead() throws Exception {
+        Path dump = MODELS.resolve("model_dump.json");
+        Path demoFeatures = MODELS.resolve("demo_features_head.csv");
+
+        List<String> schema = new ArrayList<>();
+        for (JsonNode n : mapper.readTree(MODELS.resolve("feature_schema.json").toFile()).get("features")) {
+            if (!FeatureSchema.IGNORED.contains(n.asText())) schema.add(n.asText());
+        }
+        var model = TreeEnsembleModel.load(dump, schema, mapper);
+
+        Map<String, double[]> expected = new HashMap<>();
+        List<String> demo = Files.readAllLines(MODELS.resolve("demo_scores_head.csv"));
+        for (String line : demo.subList(1, demo.size())) {
+            String[] c = line.split(",");
+            expected.put(c[0], new double[]{Double.parseDouble(c[1]), Double.parseDouble(c[2])});
+        }
+
+        List<String> rows = Files.readAllLines(demoFeatures);
+        assertEquals(expected.size(), rows.size() - 1);
+        String[] header = rows.get(0).split(",");
+        for (String line : rows.subList(1, rows.size())) {
+            String[] c = line.split(",");
+            double[] x = new double[schema.size()];
+            for (int i = 1; i < header.length; i++) {
+                int pos = schema.indexOf(header[i]);
+                if (pos >= 0) x[pos] = Double.parseDouble(c[i]);
+            }
+            double[] want = expected.get(c[0]);
+            assertNotNull(want, "no expected score for " + c[0]);
+            double pd = model.predictPd(x);
+            assertEquals(want[0], pd, 1e-6, "pd of " + c[0]);
+            int wantScore = (int) Math.min(Math.max(want[1], 300), 900);
+            assertEquals(wantScore, LocalModelClient.pdToScore(pd), "score of " + c[0]);
+        }
+    }
+}